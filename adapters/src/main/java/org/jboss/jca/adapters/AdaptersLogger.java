@@ -333,4 +333,12 @@ public interface AdaptersLogger extends BasicLogger
    @LogMessage(level = WARN)
    @Message(id = 30061, value = "Error resetting auto-commit for: %s")
    public void errorResettingAutoCommit(String msg, @Cause Throwable t);
+
+   /**
+    * Unknown prepared statement cache policy
+    * @param policy The policy
+    */
+   @LogMessage(level = WARN)
+   @Message(id = 30062, value = "Unknown prepared statement cache policy: %s, using lru")
+   public void unknownPreparedStatementCachePolicy(String policy);
 }
@@ -25,6 +25,7 @@ package org.jboss.jca.adapters.jdbc;
 import org.jboss.jca.adapters.AdaptersBundle;
 import org.jboss.jca.adapters.AdaptersLogger;
 import org.jboss.jca.adapters.jdbc.spi.reauth.ReauthPlugin;
+import org.jboss.jca.adapters.jdbc.util.BiasedReentrantLock;
 import org.jboss.jca.adapters.jdbc.util.ReentrantLock;
 import org.jboss.jca.core.spi.transaction.ConnectableResource;
 import org.jboss.jca.core.spi.transaction.ConnectableResourceListener;
@@ -42,6 +43,7 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionEvent;
@@ -50,6 +52,8 @@ import javax.resource.spi.ConnectionRequestInfo;
 import javax.resource.spi.ManagedConnectionMetaData;
 import javax.resource.spi.ResourceAdapterInternalException;
 import javax.security.auth.Subject;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 import org.jboss.logging.Messages;
 
@@ -87,7 +91,7 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
 
    private final boolean readOnly;
 
-   private ReentrantLock lock = new ReentrantLock(true);
+   private ReentrantLock lock = biasedLocking ? new BiasedReentrantLock(true) : new ReentrantLock(true);
 
    private int tryLock;
    
@@ -97,11 +101,22 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
 
    private PreparedStatementCache psCache = null;
 
+   private PreparedStatementCatalog psCatalog = null;
+
+   /** The number of statements to warm up on the first prepare */
+   private int psWarmup = 0;
+
    /** The state lock */
    protected final Object stateLock = new Object();
 
+   /** The transaction association epoch */
+   private final AtomicLong transactionEpoch = new AtomicLong(0);
+
+   /** The transaction whose completion changes the transaction association epoch */
+   private volatile Object watchedTransaction;
+
    /** Is inside a managed transaction */
-   protected boolean inManagedTransaction = false;
+   protected volatile boolean inManagedTransaction = false;
 
    /** Is inside a local transaction */
    protected AtomicBoolean inLocalTransaction = new AtomicBoolean(false);
@@ -114,6 +129,16 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
 
    protected static boolean setAutoCommitOnCleanup = true;
 
+   /** Bias the lock towards the thread using the connection */
+   protected static boolean biasedLocking = false;
+
+   /**
+    * How long a handle may reuse a transaction status check, in milliseconds. A reused check
+    * is dropped when the transaction times out or completes, but a transaction marked
+    * rollback-only is only seen once the check expires
+    */
+   protected static long transactionStatusCache = 0L;
+
    /** Underlying auto-commit */
    protected boolean underlyingAutoCommit = true;
 
@@ -174,6 +199,24 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       String setAutoCommitOnCleanupString = SecurityActions.getSystemProperty("ironjacamar.jdbc.setautocommitoncleanup");
       if (setAutoCommitOnCleanupString != null)
          setAutoCommitOnCleanup = Boolean.valueOf(setAutoCommitOnCleanupString);
+
+      String biasedLockingString = SecurityActions.getSystemProperty("ironjacamar.jdbc.biasedlocking");
+      if (biasedLockingString != null)
+         biasedLocking = Boolean.valueOf(biasedLockingString);
+
+      String transactionStatusCacheString =
+         SecurityActions.getSystemProperty("ironjacamar.jdbc.transactionstatuscache");
+      if (transactionStatusCacheString != null)
+      {
+         try
+         {
+            transactionStatusCache = Long.parseLong(transactionStatusCacheString.trim());
+         }
+         catch (NumberFormatException nfe)
+         {
+            // Keep the default, a bad value must not fail the class initialization
+         }
+      }
    }
 
    /**
@@ -199,8 +242,10 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
 
       if (psCacheSize > 0)
       {
-         psCache = new PreparedStatementCache(psCacheSize, mcf.getStatistics());
+         psCache = new PreparedStatementCache(psCacheSize, mcf.getPreparedStatementCachePolicy(),
+                                             mcf.getStatistics());
          mcf.getStatistics().registerPreparedStatementCache(psCache);
+         psCatalog = mcf.getPreparedStatementCatalog();
       }
 
       if (transactionIsolation == -1)
@@ -227,6 +272,10 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
          }
       }
 
+      // The warm-up is done on the first prepare, so creating the connection doesn't pay for it
+      if (psCatalog != null)
+         psWarmup = Math.min(mcf.getPreparedStatementCacheWarmup().intValue(), psCacheSize);
+
       underlyingReadOnly = readOnly;
       jdbcReadOnly = readOnly;
       jdbcTransactionIsolation = this.transactionIsolation;
@@ -300,7 +349,7 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
    {
       boolean isActive = false;
 
-      if (lock.hasQueuedThreads())
+      if (lock.hasQueuedOrRevokingThreads())
       {
          Thread currentThread = Thread.currentThread();
          Throwable currentThrowable =
@@ -318,7 +367,7 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
          }
 
          // Double-check
-         if (lock.hasQueuedThreads())
+         if (lock.hasQueuedOrRevokingThreads())
             isActive = true;
       }
 
@@ -387,6 +436,11 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       {
          throw new ResourceException(bundle.activeLocks());
       }
+
+      transactionAssociationChanged();
+
+      if (lock instanceof BiasedReentrantLock)
+         ((BiasedReentrantLock)lock).rebias();
    }
 
    /**
@@ -448,25 +502,24 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
     */
    private void dumpLockInformation(boolean l)
    {
+      Collection<Thread> threads = lock.getQueuedThreads();
+
       getLog().tracef("%s: HeldByCurrentThread: %s, Locked: %s, HoldCount: %d, QueueLength: %d",
                       l ? "Lock" : "Unlock",
                       lock.isHeldByCurrentThread() ? "Yes" : "No",
                       lock.isLocked() ? "Yes" : "No",
                       lock.getHoldCount(),
-                      lock.getQueueLength());
+                      threads.size());
          
-      if (lock.isLocked())
+      Thread owner = lock.getOwner();
+      if (owner != null)
       {
-         getLog().tracef("Owner: %s", lock.getOwner().toString());
+         getLog().tracef("Owner: %s", owner.toString());
       }
 
-      if (lock.hasQueuedThreads())
+      for (Thread thread : threads)
       {
-         Collection<Thread> threads = lock.getQueuedThreads();
-         for (Thread thread : threads)
-         {
-            getLog().tracef("Queued: %s", thread.toString());
-         }
+         getLog().tracef("Queued: %s", thread.toString());
       }
    }
 
@@ -729,6 +782,9 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       {
          mcf.getStatistics().deltaPreparedStatementCacheAccessCount();
 
+         if (psWarmup > 0)
+            warmUp();
+
          PreparedStatementCache.Key key = 
             new PreparedStatementCache.Key(sql,
                                            PreparedStatementCache.Key.PREPARED_STATEMENT, 
@@ -747,12 +803,15 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
             else
             {
                mcf.getStatistics().deltaPreparedStatementCacheMissCount();
+               recordPrepare(key);
 
                return doPrepareStatement(sql, resultSetType, resultSetConcurrency);
             }
          }
          else
          {
+            recordPrepare(key);
+
             PreparedStatement ps = doPrepareStatement(sql, resultSetType, resultSetConcurrency);
             cachedps = WRAPPED_CONNECTION_FACTORY.createCachedPreparedStatement(ps);
             psCache.put(key, cachedps);
@@ -795,6 +854,9 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       {
          mcf.getStatistics().deltaPreparedStatementCacheAccessCount();
 
+         if (psWarmup > 0)
+            warmUp();
+
          PreparedStatementCache.Key key = 
             new PreparedStatementCache.Key(sql, 
                                            PreparedStatementCache.Key.CALLABLE_STATEMENT, 
@@ -813,11 +875,13 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
             else
             {
                mcf.getStatistics().deltaPreparedStatementCacheMissCount();
+               recordPrepare(key);
                return doPrepareCall(sql, resultSetType, resultSetConcurrency);
             }
          }
          else
          {
+            recordPrepare(key);
             CallableStatement cs = doPrepareCall(sql, resultSetType, resultSetConcurrency);
             cachedps = WRAPPED_CONNECTION_FACTORY.createCachedCallableStatement(cs);
             psCache.put(key, cachedps);
@@ -831,6 +895,84 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       }
    }
 
+   /**
+    * Record a prepare that missed the statement cache in the catalog
+    * @param key The key
+    */
+   private void recordPrepare(PreparedStatementCache.Key key)
+   {
+      if (psCatalog != null)
+         psCatalog.record(key);
+   }
+
+   /**
+    * Prepare the most frequently prepared statements of the datasource. A warm-up
+    * is an optimization only, so no failure is allowed to escape
+    */
+   private void warmUp()
+   {
+      int n = psWarmup;
+      psWarmup = 0;
+
+      List<PreparedStatementCache.Key> keys = null;
+      try
+      {
+         keys = psCatalog.getTop(n);
+      }
+      catch (Throwable t)
+      {
+         getLog().debug("Unable to get the prepared statements to warm up", t);
+         return;
+      }
+
+      for (PreparedStatementCache.Key key : keys)
+      {
+         Statement statement = null;
+         boolean cached = false;
+         try
+         {
+            CachedPreparedStatement cachedps = null;
+
+            if (key.getType() == PreparedStatementCache.Key.CALLABLE_STATEMENT)
+            {
+               CallableStatement cs = doPrepareCall(key.getSql(), key.getResultSetType(),
+                                                    key.getResultSetConcurrency());
+               statement = cs;
+               cachedps = WRAPPED_CONNECTION_FACTORY.createCachedCallableStatement(cs);
+            }
+            else
+            {
+               PreparedStatement ps = doPrepareStatement(key.getSql(), key.getResultSetType(),
+                                                         key.getResultSetConcurrency());
+               statement = ps;
+               cachedps = WRAPPED_CONNECTION_FACTORY.createCachedPreparedStatement(ps);
+            }
+
+            psCache.put(key, cachedps);
+            cached = true;
+            cachedps.close();
+
+            mcf.getStatistics().deltaPreparedStatementCacheAddCount();
+         }
+         catch (Throwable t)
+         {
+            getLog().debug("Unable to prepare cached statement: " + key.getSql(), t);
+
+            if (!cached && statement != null)
+            {
+               try
+               {
+                  statement.close();
+               }
+               catch (Throwable ignored)
+               {
+                  // Ignore
+               }
+            }
+         }
+      }
+   }
+
    /**
     * Create callable statement
     * @param sql The SQL
@@ -908,6 +1050,74 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
       }
    }
 
+   /**
+    * Mark a change of the transaction association of the connection, which
+    * invalidates the transaction status checks reused by the handles
+    */
+   protected void transactionAssociationChanged()
+   {
+      transactionEpoch.incrementAndGet();
+   }
+
+   /**
+    * Get the transaction association epoch
+    * @return The value
+    */
+   long getTransactionEpoch()
+   {
+      return transactionEpoch.get();
+   }
+
+   /**
+    * Change the transaction association epoch when the current transaction completes, so
+    * the transaction status checks reused by the handles don't outlive a timeout or a rollback
+    * @return <code>True</code> if the completion of the transaction is watched, or if there is
+    *         no transaction; <code>false</code> if the status checks can't be reused
+    */
+   boolean watchTransaction()
+   {
+      if (!mcf.isJTA().booleanValue())
+         return true;
+
+      TransactionSynchronizationRegistry tsr = mcf.getTransactionSynchronizationRegistry();
+      if (tsr == null)
+         return false;
+
+      try
+      {
+         Object tx = tsr.getTransactionKey();
+         if (tx == null || tx.equals(watchedTransaction))
+            return true;
+
+         tsr.registerInterposedSynchronization(new Synchronization()
+         {
+            /**
+             * {@inheritDoc}
+             */
+            public void beforeCompletion()
+            {
+               transactionAssociationChanged();
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            public void afterCompletion(int status)
+            {
+               transactionAssociationChanged();
+            }
+         });
+
+         watchedTransaction = tx;
+         return true;
+      }
+      catch (Throwable t)
+      {
+         getLog().debug("Unable to watch the transaction", t);
+         return false;
+      }
+   }
+
    /**
     * The <code>checkTransaction</code> method makes sure the adapter follows the JCA
     * autocommit contract, namely all statements executed outside a container managed transaction
@@ -918,6 +1128,9 @@ public abstract class BaseWrapperManagedConnection implements NotifyingManagedCo
     */
    void checkTransaction() throws SQLException
    {
+      if (inManagedTransaction)
+         return;
+
       synchronized (stateLock)
       {
          if (inManagedTransaction)
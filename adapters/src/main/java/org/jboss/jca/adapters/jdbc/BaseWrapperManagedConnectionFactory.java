@@ -106,6 +106,12 @@ public abstract class BaseWrapperManagedConnectionFactory
    /** Track statements - no warning */
    public static final String TRACK_STATEMENTS_NOWARN = "nowarn";
 
+   /** Prepared statement cache policy - least recently used */
+   public static final String PREPARED_STATEMENT_CACHE_POLICY_LRU = "lru";
+
+   /** Prepared statement cache policy - window TinyLFU */
+   public static final String PREPARED_STATEMENT_CACHE_POLICY_TINYLFU = "tinylfu";
+
    /** The logger */
    protected final AdaptersLogger log = Logger.getMessageLogger(AdaptersLogger.class, getClass().getName());
 
@@ -146,6 +152,12 @@ public abstract class BaseWrapperManagedConnectionFactory
    /** The prepared statement cache size */
    protected Integer preparedStatementCacheSize = Integer.valueOf(0);
 
+   /** The prepared statement cache policy */
+   protected String preparedStatementCachePolicy = PREPARED_STATEMENT_CACHE_POLICY_LRU;
+
+   /** The number of prepared statements to prepare on new connections */
+   protected Integer preparedStatementCacheWarmup = Integer.valueOf(0);
+
    /** Query timeout enabled */
    protected boolean doQueryTimeout = false;
 
@@ -259,6 +271,9 @@ public abstract class BaseWrapperManagedConnectionFactory
    /** The statistics plugin */
    private JdbcStatisticsPlugin statisticsPlugin = new JdbcStatisticsPlugin();
 
+   /** The prepared statement catalog */
+   private transient PreparedStatementCatalog psCatalog;
+
    /** JTA enabled */
    private Boolean jta = Boolean.TRUE;
 
@@ -386,6 +401,71 @@ public abstract class BaseWrapperManagedConnectionFactory
          preparedStatementCacheSize = size;
    }
 
+   /**
+    * Get the prepared statement cache policy
+    * @return The value
+    */
+   public String getPreparedStatementCachePolicy()
+   {
+      return preparedStatementCachePolicy;
+   }
+
+   /**
+    * Set the prepared statement cache policy
+    * @param policy The value
+    */
+   public void setPreparedStatementCachePolicy(String policy)
+   {
+      if (policy != null)
+      {
+         if (policy.trim().equalsIgnoreCase(PREPARED_STATEMENT_CACHE_POLICY_TINYLFU))
+         {
+            preparedStatementCachePolicy = PREPARED_STATEMENT_CACHE_POLICY_TINYLFU;
+         }
+         else
+         {
+            if (!policy.trim().equalsIgnoreCase(PREPARED_STATEMENT_CACHE_POLICY_LRU))
+               log.unknownPreparedStatementCachePolicy(policy);
+
+            preparedStatementCachePolicy = PREPARED_STATEMENT_CACHE_POLICY_LRU;
+         }
+      }
+   }
+
+   /**
+    * Get the number of prepared statements to prepare on new connections
+    * @return The value
+    */
+   public Integer getPreparedStatementCacheWarmup()
+   {
+      return preparedStatementCacheWarmup;
+   }
+
+   /**
+    * Set the number of prepared statements to prepare on new connections
+    * @param warmup The value
+    */
+   public void setPreparedStatementCacheWarmup(Integer warmup)
+   {
+      if (warmup != null)
+         preparedStatementCacheWarmup = warmup;
+   }
+
+   /**
+    * Get the catalog of the most frequently prepared statements
+    * @return The value; <code>null</code> if the warm-up of new connections isn't enabled
+    */
+   synchronized PreparedStatementCatalog getPreparedStatementCatalog()
+   {
+      if (psCatalog == null && preparedStatementCacheSize.intValue() > 0 &&
+          preparedStatementCacheWarmup.intValue() > 0)
+      {
+         psCatalog = new PreparedStatementCatalog(4 * preparedStatementCacheSize.intValue());
+      }
+
+      return psCatalog;
+   }
+
    /**
     * Get the prepared statement share status
     * @return The value
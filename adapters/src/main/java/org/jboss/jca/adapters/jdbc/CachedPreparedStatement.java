@@ -572,8 +572,11 @@ public abstract class CachedPreparedStatement extends JBossWrapper implements Pr
     */
    public void setQueryTimeout(int seconds) throws SQLException
    {
-      ps.setQueryTimeout(seconds);
-      currentQueryTimeout = seconds;
+      if (seconds != currentQueryTimeout)
+      {
+         ps.setQueryTimeout(seconds);
+         currentQueryTimeout = seconds;
+      }
    }
 
    /**
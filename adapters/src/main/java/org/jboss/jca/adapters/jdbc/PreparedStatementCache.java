@@ -26,6 +26,7 @@ import org.jboss.jca.adapters.jdbc.statistics.JdbcStatisticsPlugin;
 import org.jboss.jca.adapters.jdbc.util.Cache;
 import org.jboss.jca.adapters.jdbc.util.CacheListener;
 import org.jboss.jca.adapters.jdbc.util.LRUCache;
+import org.jboss.jca.adapters.jdbc.util.TinyLFUCache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -86,6 +87,33 @@ public class PreparedStatementCache implements CacheListener<CachedPreparedState
          return sql;
       }
 
+      /**
+       * Get the type
+       * @return The value
+       */
+      public int getType()
+      {
+         return type;
+      }
+
+      /**
+       * Get the result set type
+       * @return The value
+       */
+      public int getResultSetType()
+      {
+         return resultSetType;
+      }
+
+      /**
+       * Get the result set concurrency
+       * @return The value
+       */
+      public int getResultSetConcurrency()
+      {
+         return resultSetConcurrency;
+      }
+
       /**
        * {@inheritDoc}
        */
@@ -178,7 +206,25 @@ public class PreparedStatementCache implements CacheListener<CachedPreparedState
     */
    public PreparedStatementCache(int max, JdbcStatisticsPlugin stats)
    {
-      this.cache = new LRUCache<Key, CachedPreparedStatement>(max);
+      this(max, BaseWrapperManagedConnectionFactory.PREPARED_STATEMENT_CACHE_POLICY_LRU, stats);
+   }
+
+   /**
+    * Constructor
+    * @param max The max value
+    * @param policy The cache policy
+    * @param stats The statistics plugin
+    */
+   public PreparedStatementCache(int max, String policy, JdbcStatisticsPlugin stats)
+   {
+      if (BaseWrapperManagedConnectionFactory.PREPARED_STATEMENT_CACHE_POLICY_TINYLFU.equals(policy))
+      {
+         this.cache = new TinyLFUCache<Key, CachedPreparedStatement>(max);
+      }
+      else
+      {
+         this.cache = new LRUCache<Key, CachedPreparedStatement>(max);
+      }
       this.cache.setListener(this);
       this.statistics = stats;
    }
@@ -0,0 +1,212 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Catalog of the most frequently prepared statements of a datasource.
+ * <p>
+ * The catalog is shared by all the connections of a managed connection factory,
+ * and is used to prepare the hot statements on a new connection when it prepares
+ * its first statement. Only the prepares that miss the statement cache of a connection
+ * are recorded, so the hit path doesn't pay for the catalog. The counters are halved
+ * once the number of recorded prepares reaches ten times the capacity, so statements
+ * that are no longer used age out.
+ */
+public class PreparedStatementCatalog
+{
+   /** The frequency order */
+   private static final Comparator<Count> FREQUENCY = new Comparator<Count>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Count o1, Count o2)
+      {
+         return Long.compare(o2.value, o1.value);
+      }
+   };
+
+   /** The counters */
+   private final ConcurrentMap<PreparedStatementCache.Key, LongAdder> counters;
+
+   /** The maximum number of keys */
+   private final int capacity;
+
+   /** The number of prepares before aging */
+   private final long sampleSize;
+
+   /** The number of prepares since the last aging */
+   private final LongAdder samples;
+
+   /**
+    * Constructor
+    * @param capacity The maximum number of keys
+    */
+   public PreparedStatementCatalog(int capacity)
+   {
+      this.counters = new ConcurrentHashMap<PreparedStatementCache.Key, LongAdder>();
+      this.capacity = Math.max(1, capacity);
+      this.sampleSize = 10L * this.capacity;
+      this.samples = new LongAdder();
+   }
+
+   /**
+    * Record a prepare
+    * @param key The key
+    */
+   public void record(PreparedStatementCache.Key key)
+   {
+      LongAdder counter = counters.get(key);
+
+      if (counter == null)
+      {
+         if (counters.size() >= capacity)
+         {
+            age();
+            return;
+         }
+
+         LongAdder newCounter = new LongAdder();
+         counter = counters.putIfAbsent(key, newCounter);
+         if (counter == null)
+            counter = newCounter;
+      }
+
+      counter.increment();
+      age();
+   }
+
+   /**
+    * Get the most frequently prepared keys
+    * @param n The maximum number of keys
+    * @return The keys, most frequent first
+    */
+   public List<PreparedStatementCache.Key> getTop(int n)
+   {
+      if (n <= 0)
+         return Collections.emptyList();
+
+      // Sort a copy of the counts, since the counters change while they are recorded
+      List<Count> counts = new ArrayList<Count>(counters.size());
+      for (Map.Entry<PreparedStatementCache.Key, LongAdder> entry : counters.entrySet())
+      {
+         counts.add(new Count(entry.getKey(), entry.getValue().sum()));
+      }
+
+      Count[] sorted = counts.toArray(new Count[counts.size()]);
+      Arrays.sort(sorted, FREQUENCY);
+
+      List<PreparedStatementCache.Key> result =
+         new ArrayList<PreparedStatementCache.Key>(Math.min(n, sorted.length));
+
+      for (int i = 0; i < sorted.length && result.size() < n; i++)
+      {
+         result.add(sorted[i].key);
+      }
+
+      return result;
+   }
+
+   /**
+    * Get the number of keys
+    * @return The value
+    */
+   public int size()
+   {
+      return counters.size();
+   }
+
+   /**
+    * Clear the catalog
+    */
+   public void clear()
+   {
+      counters.clear();
+      samples.reset();
+   }
+
+   /**
+    * Count a sample, and halve the counters once enough samples have been seen
+    */
+   private void age()
+   {
+      samples.increment();
+
+      if (samples.sum() < sampleSize)
+         return;
+
+      synchronized (this)
+      {
+         if (samples.sum() < sampleSize)
+            return;
+
+         // The counters are approximate, so prepares recorded while halving may be halved too
+         for (Map.Entry<PreparedStatementCache.Key, LongAdder> entry : counters.entrySet())
+         {
+            LongAdder counter = entry.getValue();
+            long value = counter.sum();
+            long half = value >>> 1;
+
+            counter.add(half - value);
+
+            if (half == 0)
+               counters.remove(entry.getKey(), counter);
+         }
+
+         samples.reset();
+      }
+   }
+
+   /**
+    * A count of a key at the time of a sort
+    */
+   private static final class Count
+   {
+      /** The key */
+      private final PreparedStatementCache.Key key;
+
+      /** The value */
+      private final long value;
+
+      /**
+       * Constructor
+       * @param key The key
+       * @param value The value
+       */
+      Count(PreparedStatementCache.Key key, long value)
+      {
+         this.key = key;
+         this.value = value;
+      }
+   }
+}
@@ -24,6 +24,7 @@ package org.jboss.jca.adapters.jdbc;
 
 import org.jboss.jca.adapters.AdaptersLogger;
 import org.jboss.jca.adapters.jdbc.spi.ClassLoaderPlugin;
+import org.jboss.jca.adapters.jdbc.statistics.StatementStatistics;
 
 import java.sql.Array;
 import java.sql.Blob;
@@ -48,6 +49,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.resource.ResourceException;
 import javax.transaction.xa.XAResource;
@@ -75,6 +77,8 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
 
    private WrapperDataSource dataSource;
 
+   private volatile TransactionStatusCheck transactionStatusCheck;
+
    private HashMap<WrappedStatement, Throwable> statements;
 
    private boolean closed = false;
@@ -479,7 +483,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                         ResultSet.CONCUR_READ_ONLY);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -516,7 +522,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.prepareStatement(sql, resultSetType, resultSetConcurrency);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -554,7 +562,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                         resultSetConcurrency, resultSetHoldability);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -590,7 +600,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.getRealConnection().prepareStatement(sql, autoGeneratedKeys);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -626,7 +638,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.getRealConnection().prepareStatement(sql, columnIndexes);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -662,7 +676,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.getRealConnection().prepareStatement(sql, columnNames);
                }
             });
-            return wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            WrappedPreparedStatement ws = wrapPreparedStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -708,7 +724,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.prepareCall(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
                }
             });
-            return wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            WrappedCallableStatement ws = wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -744,7 +762,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                   return mc.prepareCall(sql, resultSetType, resultSetConcurrency);
                }
             });
-            return wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            WrappedCallableStatement ws = wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -782,7 +802,9 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
                         .prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
                }
             });
-            return wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            WrappedCallableStatement ws = wrapCallableStatement(stmt, spy, jndiName, doLocking);
+            ws.setStatementSql(sql);
+            return ws;
          }
          catch (Throwable t)
          {
@@ -1999,7 +2021,69 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
    {
       if (dataSource == null)
          return;
+
+      BaseWrapperManagedConnection current = mc;
+      if (BaseWrapperManagedConnection.transactionStatusCache <= 0L || current == null)
+      {
+         dataSource.checkTransactionActive();
+         return;
+      }
+
+      Thread thread = Thread.currentThread();
+      long epoch = current.getTransactionEpoch();
+      long now = System.nanoTime();
+
+      TransactionStatusCheck check = transactionStatusCheck;
+      if (check != null && check.isValid(thread, current, epoch, now))
+         return;
+
+      transactionStatusCheck = null;
+
       dataSource.checkTransactionActive();
+
+      if (!current.watchTransaction())
+         return;
+
+      // The check is reused until the transaction times out at the latest
+      long expires = now + TimeUnit.MILLISECONDS.toNanos(BaseWrapperManagedConnection.transactionStatusCache);
+      long timeLeft = dataSource.getTimeLeftBeforeTransactionTimeoutMillis();
+      long deadline = 0L;
+
+      if (timeLeft >= 0L)
+      {
+         deadline = now + TimeUnit.MILLISECONDS.toNanos(timeLeft);
+         if (deadline - expires < 0L)
+            expires = deadline;
+      }
+
+      transactionStatusCheck = new TransactionStatusCheck(thread, current, epoch, expires, timeLeft >= 0L, deadline);
+   }
+
+   /**
+    * Get the time left before a transaction timeout, from the transaction status check
+    * of the current thread if it can be reused
+    * @return The amount in seconds; <code>-1</code> if no timeout
+    * @exception SQLException Thrown if an error occurs
+    */
+   private int getTimeLeftBeforeTransactionTimeout() throws SQLException
+   {
+      BaseWrapperManagedConnection current = mc;
+      TransactionStatusCheck check = transactionStatusCheck;
+      long now = System.nanoTime();
+
+      if (check == null || current == null ||
+          !check.isValid(Thread.currentThread(), current, current.getTransactionEpoch(), now))
+         return dataSource.getTimeLeftBeforeTransactionTimeout();
+
+      if (!check.hasDeadline())
+         return -1;
+
+      // The check expires no later than the deadline, so there is time left; round up to the nearest second
+      long timeLeft = check.getDeadline() - now;
+      long result = timeLeft / TimeUnit.SECONDS.toNanos(1L);
+      if ((timeLeft % TimeUnit.SECONDS.toNanos(1L)) != 0L)
+         ++result;
+      return (int) result;
    }
 
    /**
@@ -2093,6 +2177,19 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
       }
    }
 
+   /**
+    * Get the statement statistics
+    * @return The value; <code>null</code> if statement statistics are disabled
+    */
+   StatementStatistics getStatementStatistics()
+   {
+      BaseWrapperManagedConnection m = mc;
+      if (m == null)
+         return null;
+
+      return m.mcf.getStatistics().getStatementStatistics();
+   }
+
    /**
     * Check configured query timeout
     * @param ws The statement
@@ -2109,7 +2206,7 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
       // Use the transaction timeout
       if (mc.isTransactionQueryTimeout())
       {
-         timeout = dataSource.getTimeLeftBeforeTransactionTimeout();
+         timeout = getTimeLeftBeforeTransactionTimeout();
          if (timeout > 0 && explicitTimeout > 0 && timeout > explicitTimeout)
             timeout = explicitTimeout;
       }
@@ -2119,7 +2216,7 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
          timeout = mc.getQueryTimeout();
 
       if (timeout > 0)
-         ws.setQueryTimeout(timeout);
+         ws.setConfiguredQueryTimeout(timeout);
    }
 
    /**
@@ -2130,4 +2227,74 @@ public abstract class WrappedConnection extends JBossWrapper implements Connecti
    {
       return log;
    }
+
+   /**
+    * A successful transaction status check, which can be reused by the same thread
+    * until the transaction association of the managed connection changes, or it expires.
+    * <p>
+    * The transaction association changes when the transaction completes, and the check
+    * expires no later than the transaction timeout. A transaction marked rollback-only
+    * is still reported as active until the check expires, which is the staleness window
+    * of the check.
+    */
+   private static final class TransactionStatusCheck
+   {
+      private final Thread thread;
+      private final BaseWrapperManagedConnection mc;
+      private final long epoch;
+      private final long expires;
+      private final boolean hasDeadline;
+      private final long deadline;
+
+      /**
+       * Constructor
+       * @param thread The thread
+       * @param mc The managed connection
+       * @param epoch The transaction association epoch
+       * @param expires The expiration time in nanoseconds
+       * @param hasDeadline Does the transaction have a timeout
+       * @param deadline The transaction timeout in nanoseconds
+       */
+      TransactionStatusCheck(Thread thread, BaseWrapperManagedConnection mc, long epoch, long expires,
+                             boolean hasDeadline, long deadline)
+      {
+         this.thread = thread;
+         this.mc = mc;
+         this.epoch = epoch;
+         this.expires = expires;
+         this.hasDeadline = hasDeadline;
+         this.deadline = deadline;
+      }
+
+      /**
+       * Does the transaction have a timeout
+       * @return The value
+       */
+      boolean hasDeadline()
+      {
+         return hasDeadline;
+      }
+
+      /**
+       * Get the transaction timeout
+       * @return The value in nanoseconds
+       */
+      long getDeadline()
+      {
+         return deadline;
+      }
+
+      /**
+       * Is the check valid
+       * @param thread The thread
+       * @param mc The managed connection
+       * @param epoch The transaction association epoch
+       * @param now The current time in nanoseconds
+       * @return The value
+       */
+      boolean isValid(Thread thread, BaseWrapperManagedConnection mc, long epoch, long now)
+      {
+         return this.thread == thread && this.mc == mc && this.epoch == epoch && now - expires < 0L;
+      }
+   }
 }
@@ -431,7 +431,8 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
       try
       {
          checkTransaction();
-         try 
+         long start = beginExecution(null);
+         try
          {
             checkConfiguredQueryTimeout();
 
@@ -439,12 +440,17 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
                spyLogger.debugf("%s [%s] execute()",
                                 jndiName, spyLoggingCategory);
 
-            return ps.execute();         
+            boolean result = ps.execute();
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -493,7 +499,8 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
       try
       {
          checkTransaction();
-         try 
+         long start = beginExecution(null);
+         try
          {
             checkConfiguredQueryTimeout();
 
@@ -508,6 +515,10 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -526,7 +537,9 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
       try
       {
          checkTransaction();
-         try 
+         long start = beginExecution(null);
+         long updateCount = -1L;
+         try
          {
             checkConfiguredQueryTimeout();
 
@@ -534,12 +547,18 @@ public abstract class WrappedPreparedStatement extends WrappedStatement implemen
                spyLogger.debugf("%s [%s] executeUpdate()",
                                 jndiName, spyLoggingCategory);
 
-            return ps.executeUpdate();         
+            int result = ps.executeUpdate();
+            updateCount = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
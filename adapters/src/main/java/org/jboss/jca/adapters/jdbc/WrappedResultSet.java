@@ -79,6 +79,12 @@ public abstract class WrappedResultSet extends JBossWrapper implements ResultSet
 
    /** Do locking */
    protected final boolean doLocking;
+
+   /** The normalized SQL of the execution that produced the result set */
+   private String statementKey;
+
+   /** The rows fetched */
+   private long rowsFetched;
    
    static
    {
@@ -2686,7 +2692,10 @@ public abstract class WrappedResultSet extends JBossWrapper implements ResultSet
                spyLogger.debugf("%s [%s] next()",
                                 jndiName, Constants.SPY_LOGGER_PREFIX_RESULTSET);
 
-            return resultSet.next();
+            boolean result = resultSet.next();
+            if (result)
+               rowsFetched++;
+            return result;
          }
          catch (Throwable t)
          {
@@ -5992,9 +6001,25 @@ public abstract class WrappedResultSet extends JBossWrapper implements ResultSet
    void internalClose() throws SQLException
    {
       closed.set(true);
+
+      if (statementKey != null && rowsFetched > 0L)
+      {
+         statement.recordRowsFetched(statementKey, rowsFetched);
+         rowsFetched = 0L;
+      }
+
       resultSet.close();
    }
 
+   /**
+    * Set the normalized SQL of the execution that produced the result set
+    * @param key The value
+    */
+   void setStatementKey(String key)
+   {
+      this.statementKey = key;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -22,6 +22,8 @@
 
 package org.jboss.jca.adapters.jdbc;
 
+import org.jboss.jca.adapters.jdbc.statistics.StatementStatistics;
+
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -72,6 +74,15 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
 
    /** Do locking */
    protected final boolean doLocking;
+
+   /** The statement statistics */
+   private final StatementStatistics statementStatistics;
+
+   /** The normalized SQL of a prepared statement */
+   private String statementKey;
+
+   /** The normalized SQL of the current execution */
+   private String executionKey;
    
    static
    {
@@ -113,6 +124,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       this.doLocking = doLocking;
       this.spyLoggingCategory = spyLoggingCategory;
       this.timeoutSet = 0;
+      this.statementStatistics = lc.getStatementStatistics();
 
       if (defaultFetchSize != null)
       {
@@ -188,6 +200,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
          try
          {
             checkConfiguredQueryTimeout();
@@ -195,12 +208,17 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
             if (spy)
                spyLogger.debugf("%s [%s] execute(%s)", jndiName, spyLoggingCategory, sql);
          
-            return s.execute(sql);
+            boolean result = s.execute(sql);
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -219,6 +237,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
          try
          {
             checkConfiguredQueryTimeout();
@@ -227,12 +246,17 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                spyLogger.debugf("%s [%s] execute(%s, %s)",
                                 jndiName, spyLoggingCategory, sql, autoGeneratedKeys);
          
-            return s.execute(sql, autoGeneratedKeys);
+            boolean result = s.execute(sql, autoGeneratedKeys);
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -251,6 +275,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
          try
          {
             checkConfiguredQueryTimeout();
@@ -260,12 +285,17 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                                 jndiName, spyLoggingCategory,
                                 sql, Arrays.toString(columnIndexes));
          
-            return s.execute(sql, columnIndexes);
+            boolean result = s.execute(sql, columnIndexes);
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -284,6 +314,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
          try
          {
             checkConfiguredQueryTimeout();
@@ -293,12 +324,17 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                                 jndiName, spyLoggingCategory,
                                 sql, Arrays.toString(columnNames));
          
-            return s.execute(sql, columnNames);
+            boolean result = s.execute(sql, columnNames);
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -386,6 +422,7 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
          try
          {
             checkConfiguredQueryTimeout();
@@ -401,6 +438,10 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, -1L);
+         }
       }
       finally
       {
@@ -419,6 +460,8 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             checkConfiguredQueryTimeout();
@@ -427,12 +470,18 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                spyLogger.debugf("%s [%s] executeUpdate(%s)",
                                 jndiName, spyLoggingCategory, sql);
          
-            return s.executeUpdate(sql);
+            int result = s.executeUpdate(sql);
+            updateCount = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -451,6 +500,8 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             checkConfiguredQueryTimeout();
@@ -459,12 +510,18 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                spyLogger.debugf("%s [%s] executeUpdate(%s, %s)",
                                 jndiName, spyLoggingCategory, sql, autoGeneratedKeys);
          
-            return s.executeUpdate(sql, autoGeneratedKeys);
+            int result = s.executeUpdate(sql, autoGeneratedKeys);
+            updateCount = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -483,6 +540,8 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             checkConfiguredQueryTimeout();
@@ -492,12 +551,18 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                                 jndiName, spyLoggingCategory,
                                 sql, Arrays.toString(columnIndexes));
          
-            return s.executeUpdate(sql, columnIndexes);
+            int result = s.executeUpdate(sql, columnIndexes);
+            updateCount = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -516,6 +581,8 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             checkConfiguredQueryTimeout();
@@ -525,12 +592,18 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                                 jndiName, spyLoggingCategory,
                                 sql, Arrays.toString(columnNames));
          
-            return s.executeUpdate(sql, columnNames);
+            int result = s.executeUpdate(sql, columnNames);
+            updateCount = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -717,6 +790,20 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       }
    }
 
+   /**
+    * Set the query timeout derived from the configuration of the connection; the
+    * driver is only called when the value differs from the one set through this statement
+    * @param timeout The timeout
+    * @exception SQLException Thrown if an error occurs
+    */
+   void setConfiguredQueryTimeout(int timeout) throws SQLException
+   {
+      if (timeout == timeoutSet && !(s instanceof CachedPreparedStatement))
+         return;
+
+      setQueryTimeout(timeout);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1169,6 +1256,8 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
       try
       {
          checkTransaction();
+         long start = beginExecution(null);
+         int[] updateCounts = null;
          try
          {
             checkConfiguredQueryTimeout();
@@ -1177,12 +1266,18 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
                spyLogger.debugf("%s [%s] executeBatch()",
                                 jndiName, spyLoggingCategory);
          
-            return s.executeBatch();
+            int[] result = s.executeBatch();
+            updateCounts = result;
+            return result;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCounts);
+         }
       }
       finally
       {
@@ -1504,6 +1599,100 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
    protected abstract WrappedResultSet wrapResultSet(ResultSet resultSet, boolean spy, String jndiName,
                                                      boolean doLocking);
    
+   /**
+    * Set the SQL of a prepared statement for the statement statistics
+    * @param sql The SQL
+    */
+   void setStatementSql(String sql)
+   {
+      if (statementStatistics != null)
+         statementKey = statementStatistics.getKey(sql);
+   }
+
+   /**
+    * Begin an execution for the statement statistics
+    * @param sql The SQL, or <code>null</code> for the SQL of the prepared statement
+    * @return The start time, in nanoseconds
+    */
+   protected long beginExecution(String sql)
+   {
+      if (statementStatistics == null)
+         return 0L;
+
+      executionKey = sql != null ? statementStatistics.getKey(sql) : statementKey;
+      return System.nanoTime();
+   }
+
+   /**
+    * End an execution for the statement statistics
+    * @param start The start time, in nanoseconds
+    * @param updateCount The update count, or -1 if unknown
+    */
+   protected void endExecution(long start, long updateCount)
+   {
+      if (statementStatistics != null && executionKey != null)
+         statementStatistics.recordExecution(executionKey, System.nanoTime() - start, updateCount);
+   }
+
+   /**
+    * End a batch execution for the statement statistics
+    * @param start The start time, in nanoseconds
+    * @param updateCounts The update counts, or <code>null</code> if unknown
+    */
+   protected void endExecution(long start, int[] updateCounts)
+   {
+      if (statementStatistics != null && executionKey != null)
+      {
+         long updateCount = -1L;
+         if (updateCounts != null)
+         {
+            updateCount = 0L;
+            for (int count : updateCounts)
+            {
+               if (count > 0)
+                  updateCount += count;
+            }
+         }
+
+         statementStatistics.recordExecution(executionKey, System.nanoTime() - start, updateCount);
+      }
+   }
+
+   /**
+    * End a large batch execution for the statement statistics
+    * @param start The start time, in nanoseconds
+    * @param updateCounts The update counts, or <code>null</code> if unknown
+    */
+   protected void endExecution(long start, long[] updateCounts)
+   {
+      if (statementStatistics != null && executionKey != null)
+      {
+         long updateCount = -1L;
+         if (updateCounts != null)
+         {
+            updateCount = 0L;
+            for (long count : updateCounts)
+            {
+               if (count > 0L)
+                  updateCount += count;
+            }
+         }
+
+         statementStatistics.recordExecution(executionKey, System.nanoTime() - start, updateCount);
+      }
+   }
+
+   /**
+    * Record the rows fetched from a result set for the statement statistics
+    * @param key The normalized SQL of the execution that produced the result set
+    * @param rows The number of rows
+    */
+   void recordRowsFetched(String key, long rows)
+   {
+      if (statementStatistics != null)
+         statementStatistics.recordRowsFetched(key, rows);
+   }
+
    /**
     * Register a result set
     * @param resultSet The result set
@@ -1512,7 +1701,11 @@ public abstract class WrappedStatement extends JBossWrapper implements Statement
    protected ResultSet registerResultSet(ResultSet resultSet)
    {
       if (resultSet != null)
-         resultSet = wrapResultSet(resultSet, spy, jndiName, doLocking);
+      {
+         WrappedResultSet wrapped = wrapResultSet(resultSet, spy, jndiName, doLocking);
+         wrapped.setStatementKey(executionKey);
+         resultSet = wrapped;
+      }
       
       if (lc.getTrackStatements() == BaseWrapperManagedConnectionFactory.TRACK_STATEMENTS_FALSE_INT)
          return resultSet;
@@ -216,24 +216,32 @@ public class WrapperDataSource extends JBossWrapper implements Referenceable, Da
     * @exception SQLException Thrown if an error occurs
     */
    protected int getTimeLeftBeforeTransactionTimeout() throws SQLException
+   {
+      long timeout = getTimeLeftBeforeTransactionTimeoutMillis();
+      // No timeout
+      if (timeout == -1)
+         return -1;
+      // No remaining transaction timeout. This is a very rare case but possible to happen.
+      if (timeout == 0)
+         throw new SQLException(bundle.transactionCannotProceed("No remaining transaction timeout"));
+      // Round up to the nearest second
+      long result = timeout / 1000;
+      if ((timeout % 1000) != 0)
+         ++result;
+      return (int) result;
+   }
+
+   /**
+    * Get the time left before a transaction timeout
+    * @return The amount in milliseconds; <code>-1</code> if no timeout
+    * @exception SQLException Thrown if an error occurs
+    */
+   long getTimeLeftBeforeTransactionTimeoutMillis() throws SQLException
    {
       try
       {
          if (cm instanceof TransactionTimeoutConfiguration)
-         {
-            long timeout = ((TransactionTimeoutConfiguration) cm).getTimeLeftBeforeTransactionTimeout(true);
-            // No timeout
-            if (timeout == -1)
-               return -1;
-            // No remaining transaction timeout. This is a very rare case but possible to happen.
-            if (timeout == 0)
-               throw new SQLException(bundle.transactionCannotProceed("No remaining transaction timeout"));
-            // Round up to the nearest second
-            long result = timeout / 1000;
-            if ((timeout % 1000) != 0)
-               ++result;
-            return (int) result;
-         }
+            return ((TransactionTimeoutConfiguration) cm).getTimeLeftBeforeTransactionTimeout(true);
          else
             return -1;
       }
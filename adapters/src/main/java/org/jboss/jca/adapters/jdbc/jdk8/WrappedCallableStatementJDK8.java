@@ -175,18 +175,25 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(null);
+         long[] updateCounts = null;
          try
          {
             if (spy)
                spyLogger.debugf("%s [%s] executeLargeBatch()",
                                 jndiName, spyLoggingCategory);
 
-            return getWrappedObject().executeLargeBatch();
+            updateCounts = getWrappedObject().executeLargeBatch();
+            return updateCounts;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCounts);
+         }
       }
       finally
       {
@@ -206,6 +213,8 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -213,12 +222,17 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
                                 jndiName, spyLoggingCategory,
                                 sql);
 
-            return getWrappedObject().executeLargeUpdate(sql);
+            updateCount = getWrappedObject().executeLargeUpdate(sql);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -239,6 +253,8 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -246,12 +262,17 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
                                 jndiName, spyLoggingCategory,
                                 sql, autoGeneratedKeys);
 
-            return getWrappedObject().executeLargeUpdate(sql, autoGeneratedKeys);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, autoGeneratedKeys);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -272,6 +293,8 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -279,12 +302,17 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
                                 jndiName, spyLoggingCategory,
                                 sql, columnIndexes);
 
-            return getWrappedObject().executeLargeUpdate(sql, columnIndexes);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, columnIndexes);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -305,6 +333,8 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -312,12 +342,17 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
                                 jndiName, spyLoggingCategory,
                                 sql, columnNames);
 
-            return getWrappedObject().executeLargeUpdate(sql, columnNames);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, columnNames);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -408,18 +443,25 @@ public class WrappedCallableStatementJDK8 extends WrappedCallableStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(null);
+         long updateCount = -1L;
          try
          {
             if (spy)
                spyLogger.debugf("%s [%s] executeLargeUpdate()",
                                 jndiName, spyLoggingCategory);
 
-            return getWrappedObject().executeLargeUpdate();
+            updateCount = getWrappedObject().executeLargeUpdate();
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
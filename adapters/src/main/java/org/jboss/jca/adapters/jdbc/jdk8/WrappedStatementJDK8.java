@@ -171,18 +171,25 @@ public class WrappedStatementJDK8 extends WrappedStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(null);
+         long[] updateCounts = null;
          try
          {
             if (spy)
                spyLogger.debugf("%s [%s] executeLargeBatch()",
                                 jndiName, spyLoggingCategory);
 
-            return getWrappedObject().executeLargeBatch();
+            updateCounts = getWrappedObject().executeLargeBatch();
+            return updateCounts;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCounts);
+         }
       }
       finally
       {
@@ -202,6 +209,8 @@ public class WrappedStatementJDK8 extends WrappedStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -209,12 +218,17 @@ public class WrappedStatementJDK8 extends WrappedStatement
                                 jndiName, spyLoggingCategory,
                                 sql);
 
-            return getWrappedObject().executeLargeUpdate(sql);
+            updateCount = getWrappedObject().executeLargeUpdate(sql);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -235,6 +249,8 @@ public class WrappedStatementJDK8 extends WrappedStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -242,12 +258,17 @@ public class WrappedStatementJDK8 extends WrappedStatement
                                 jndiName, spyLoggingCategory,
                                 sql, autoGeneratedKeys);
 
-            return getWrappedObject().executeLargeUpdate(sql, autoGeneratedKeys);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, autoGeneratedKeys);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -268,6 +289,8 @@ public class WrappedStatementJDK8 extends WrappedStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -275,12 +298,17 @@ public class WrappedStatementJDK8 extends WrappedStatement
                                 jndiName, spyLoggingCategory,
                                 sql, columnIndexes);
 
-            return getWrappedObject().executeLargeUpdate(sql, columnIndexes);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, columnIndexes);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -301,6 +329,8 @@ public class WrappedStatementJDK8 extends WrappedStatement
       try
       {
          checkTransaction();
+         long start = beginExecution(sql);
+         long updateCount = -1L;
          try
          {
             if (spy)
@@ -308,12 +338,17 @@ public class WrappedStatementJDK8 extends WrappedStatement
                                 jndiName, spyLoggingCategory,
                                 sql, columnNames);
 
-            return getWrappedObject().executeLargeUpdate(sql, columnNames);
+            updateCount = getWrappedObject().executeLargeUpdate(sql, columnNames);
+            return updateCount;
          }
          catch (Throwable t)
          {
             throw checkException(t);
          }
+         finally
+         {
+            endExecution(start, updateCount);
+         }
       }
       finally
       {
@@ -90,6 +90,8 @@ public class LocalManagedConnection extends BaseWrapperManagedConnection impleme
          {
             if (inManagedTransaction)
                inManagedTransaction = false;
+
+            transactionAssociationChanged();
          }
          try
          {
@@ -126,6 +128,8 @@ public class LocalManagedConnection extends BaseWrapperManagedConnection impleme
          {
             if (inManagedTransaction)
                inManagedTransaction = false;
+
+            transactionAssociationChanged();
          }
          try
          {
@@ -178,6 +182,7 @@ public class LocalManagedConnection extends BaseWrapperManagedConnection impleme
                   }
                   checkState();
                   inManagedTransaction = true;
+                  transactionAssociationChanged();
                }
                catch (SQLException e)
                {
@@ -27,6 +27,7 @@ import org.jboss.jca.core.spi.statistics.StatisticsPlugin;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -50,6 +51,20 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
    private static final String PREPARED_STATEMENT_CACHE_DELETE_COUNT = "PreparedStatementCacheDeleteCount";
    private static final String PREPARED_STATEMENT_CACHE_HIT_COUNT = "PreparedStatementCacheHitCount";
    private static final String PREPARED_STATEMENT_CACHE_MISS_COUNT = "PreparedStatementCacheMissCount";
+   private static final String SLOW_STATEMENTS = "SlowStatements";
+   private static final String TOP_STATEMENT_EXECUTIONS = "TopStatementExecutions";
+   private static final String TOP_STATEMENT_ROWS_FETCHED = "TopStatementRowsFetched";
+   private static final String TOP_STATEMENT_TIME = "TopStatementTime";
+   private static final String TOP_STATEMENT_UPDATE_COUNT = "TopStatementUpdateCount";
+
+   /** The number of statements in a top list */
+   private static final int TOP_ENTRIES = 10;
+
+   /** The number of statements tracked, 0 if statement statistics are disabled */
+   private static int statementStatisticsCapacity = 0;
+
+   /** The slow statement threshold, in milliseconds */
+   private static long slowStatementThreshold = 1000L;
 
    private AtomicLong preparedStatementCacheAccessCount;
    private AtomicLong preparedStatementCacheAddCount;
@@ -64,6 +79,19 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
 
    private transient Set<PreparedStatementCache> psCaches;
 
+   private transient StatementStatistics statementStatistics;
+
+   static
+   {
+      String capacity = SecurityActions.getSystemProperty("ironjacamar.jdbc.statementstatistics");
+      if (capacity != null)
+         statementStatisticsCapacity = Integer.parseInt(capacity);
+
+      String threshold = SecurityActions.getSystemProperty("ironjacamar.jdbc.slowstatementthreshold");
+      if (threshold != null)
+         slowStatementThreshold = Long.parseLong(threshold);
+   }
+
    /**
     * Constructor
     */
@@ -90,6 +118,21 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
       n.add(PREPARED_STATEMENT_CACHE_MISS_COUNT);
       t.put(PREPARED_STATEMENT_CACHE_MISS_COUNT, long.class);
 
+      n.add(SLOW_STATEMENTS);
+      t.put(SLOW_STATEMENTS, String.class);
+
+      n.add(TOP_STATEMENT_EXECUTIONS);
+      t.put(TOP_STATEMENT_EXECUTIONS, String.class);
+
+      n.add(TOP_STATEMENT_ROWS_FETCHED);
+      t.put(TOP_STATEMENT_ROWS_FETCHED, String.class);
+
+      n.add(TOP_STATEMENT_TIME);
+      t.put(TOP_STATEMENT_TIME, String.class);
+
+      n.add(TOP_STATEMENT_UPDATE_COUNT);
+      t.put(TOP_STATEMENT_UPDATE_COUNT, String.class);
+
       this.names = Collections.unmodifiableSet(n);
       this.types = Collections.unmodifiableMap(t);
       this.enabled = new AtomicBoolean(true);
@@ -107,6 +150,9 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
 
       this.psCaches = Collections.synchronizedSet(new HashSet<PreparedStatementCache>());
 
+      if (statementStatisticsCapacity > 0)
+         this.statementStatistics = new StatementStatistics(statementStatisticsCapacity, slowStatementThreshold);
+
       clear();
    }
 
@@ -189,6 +235,26 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
       {
          return getPreparedStatementCacheMissCount();
       }
+      else if (SLOW_STATEMENTS.equals(name))
+      {
+         return getSlowStatements().toString();
+      }
+      else if (TOP_STATEMENT_EXECUTIONS.equals(name))
+      {
+         return getTopStatementExecutions().toString();
+      }
+      else if (TOP_STATEMENT_ROWS_FETCHED.equals(name))
+      {
+         return getTopStatementRowsFetched().toString();
+      }
+      else if (TOP_STATEMENT_TIME.equals(name))
+      {
+         return getTopStatementTime().toString();
+      }
+      else if (TOP_STATEMENT_UPDATE_COUNT.equals(name))
+      {
+         return getTopStatementUpdateCount().toString();
+      }
 
       return null;
    }
@@ -354,6 +420,78 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
          preparedStatementCacheMissCount.incrementAndGet();
    }
 
+   /**
+    * Get the statement statistics
+    * @return The value; <code>null</code> if statement statistics are disabled
+    */
+   public StatementStatistics getStatementStatistics()
+   {
+      if (isEnabled())
+         return statementStatistics;
+
+      return null;
+   }
+
+   /**
+    * Get the statements with the most executions above the slow statement threshold
+    * @return The value
+    */
+   public List<StatementStatistics.Entry> getSlowStatements()
+   {
+      if (isEnabled() && statementStatistics != null)
+         return statementStatistics.getSlowStatements(TOP_ENTRIES);
+
+      return Collections.emptyList();
+   }
+
+   /**
+    * Get the statements executed the most
+    * @return The value
+    */
+   public List<StatementStatistics.Entry> getTopStatementExecutions()
+   {
+      if (isEnabled() && statementStatistics != null)
+         return statementStatistics.getTopExecutions(TOP_ENTRIES);
+
+      return Collections.emptyList();
+   }
+
+   /**
+    * Get the statements that fetched the most rows
+    * @return The value
+    */
+   public List<StatementStatistics.Entry> getTopStatementRowsFetched()
+   {
+      if (isEnabled() && statementStatistics != null)
+         return statementStatistics.getTopRowsFetched(TOP_ENTRIES);
+
+      return Collections.emptyList();
+   }
+
+   /**
+    * Get the statements with the largest total execution time
+    * @return The value
+    */
+   public List<StatementStatistics.Entry> getTopStatementTime()
+   {
+      if (isEnabled() && statementStatistics != null)
+         return statementStatistics.getTopTime(TOP_ENTRIES);
+
+      return Collections.emptyList();
+   }
+
+   /**
+    * Get the statements that updated the most rows
+    * @return The value
+    */
+   public List<StatementStatistics.Entry> getTopStatementUpdateCount()
+   {
+      if (isEnabled() && statementStatistics != null)
+         return statementStatistics.getTopUpdateCount(TOP_ENTRIES);
+
+      return Collections.emptyList();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -366,6 +504,9 @@ public class JdbcStatisticsPlugin implements StatisticsPlugin
          preparedStatementCacheDeleteCount.set(0);
          preparedStatementCacheHitCount.set(0);
          preparedStatementCacheMissCount.set(0);
+
+         if (statementStatistics != null)
+            statementStatistics.reset();
       }
    }
 }
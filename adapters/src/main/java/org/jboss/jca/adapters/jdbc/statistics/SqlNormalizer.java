@@ -0,0 +1,201 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.statistics;
+
+/**
+ * Normalizes SQL text, so executions of a statement with different literals are counted together.
+ *
+ * String and numeric literals are replaced by <code>?</code>, a list of parameters such as
+ * <code>IN (?, ?, ?)</code> is collapsed to a single <code>?</code>, comments are removed and
+ * whitespace is collapsed. Quoted identifiers are kept as they are
+ */
+public final class SqlNormalizer
+{
+   /** The maximum length of a normalized statement */
+   public static final int MAX_LENGTH = 2048;
+
+   /**
+    * Constructor
+    */
+   private SqlNormalizer()
+   {
+   }
+
+   /**
+    * Normalize a statement
+    * @param sql The SQL
+    * @return The normalized SQL
+    */
+   public static String normalize(String sql)
+   {
+      if (sql == null)
+         return null;
+
+      int length = sql.length();
+      StringBuilder sb = new StringBuilder(Math.min(length, MAX_LENGTH));
+      boolean space = false;
+      int i = 0;
+
+      while (i < length && sb.length() < MAX_LENGTH)
+      {
+         char c = sql.charAt(i);
+
+         if (Character.isWhitespace(c))
+         {
+            space = sb.length() > 0;
+            i++;
+         }
+         else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-')
+         {
+            while (i < length && sql.charAt(i) != '\n')
+               i++;
+            space = sb.length() > 0;
+         }
+         else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*')
+         {
+            int end = sql.indexOf("*/", i + 2);
+            i = end == -1 ? length : end + 2;
+            space = sb.length() > 0;
+         }
+         else if (c == '?')
+         {
+            appendParameter(sb, space);
+            space = false;
+            i++;
+         }
+         else if (c == '\'')
+         {
+            i = skipQuoted(sql, i, '\'');
+            appendParameter(sb, space);
+            space = false;
+         }
+         else if (c == '"' || c == '`')
+         {
+            int end = skipQuoted(sql, i, c);
+            if (space)
+               sb.append(' ');
+            sb.append(sql, i, end);
+            space = false;
+            i = end;
+         }
+         else if (Character.isDigit(c) && !isIdentifierPart(sb))
+         {
+            while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+               i++;
+            appendParameter(sb, space);
+            space = false;
+         }
+         else
+         {
+            if (space)
+               sb.append(' ');
+            sb.append(c);
+            space = false;
+            i++;
+         }
+      }
+
+      if (sb.length() > MAX_LENGTH)
+         sb.setLength(MAX_LENGTH);
+
+      return sb.toString();
+   }
+
+   /**
+    * Skip a quoted literal or identifier, where a doubled quote is part of the text
+    * @param sql The SQL
+    * @param start The index of the opening quote
+    * @param quote The quote
+    * @return The index after the closing quote
+    */
+   private static int skipQuoted(String sql, int start, char quote)
+   {
+      int i = start + 1;
+      int length = sql.length();
+
+      while (i < length)
+      {
+         if (sql.charAt(i) == quote)
+         {
+            if (i + 1 < length && sql.charAt(i + 1) == quote)
+            {
+               i += 2;
+            }
+            else
+            {
+               return i + 1;
+            }
+         }
+         else
+         {
+            i++;
+         }
+      }
+
+      return length;
+   }
+
+   /**
+    * Is the last character written part of an identifier
+    * @param sb The normalized SQL
+    * @return True if a digit would continue an identifier
+    */
+   private static boolean isIdentifierPart(StringBuilder sb)
+   {
+      if (sb.length() == 0)
+         return false;
+
+      char c = sb.charAt(sb.length() - 1);
+      return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+   }
+
+   /**
+    * Append a parameter, collapsing it into a preceding <code>?,</code>
+    * @param sb The normalized SQL
+    * @param space Whether a space precedes the parameter
+    */
+   private static void appendParameter(StringBuilder sb, boolean space)
+   {
+      int i = sb.length() - 1;
+
+      if (i >= 0 && sb.charAt(i) == ' ')
+         i--;
+
+      if (i >= 0 && sb.charAt(i) == ',')
+      {
+         int j = i - 1;
+         if (j >= 0 && sb.charAt(j) == ' ')
+            j--;
+
+         if (j >= 0 && sb.charAt(j) == '?')
+         {
+            sb.setLength(j + 1);
+            return;
+         }
+      }
+
+      if (space)
+         sb.append(' ');
+      sb.append('?');
+   }
+}
@@ -0,0 +1,839 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.statistics;
+
+import org.jboss.jca.core.spi.statistics.MaxTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics per normalized SQL statement.
+ *
+ * At most <code>capacity</code> statements are tracked using a sampled Space-Saving algorithm: a new
+ * statement takes the place of the statement with the fewest executions among a few sampled ones,
+ * starting from that number of executions, which is reported as its error. The executions of
+ * statements that aren't tracked are counted in a frequency sketch, and a statement only replaces
+ * another once it has been executed about as often, so one-off statements don't evict the tracked
+ * ones. Neither recording an execution nor admitting a statement takes a lock.
+ *
+ * The normalized text of recently seen SQL is remembered in a direct-mapped table, where the most
+ * recently normalized SQL takes over a slot, so a hot statement is only normalized once
+ */
+public class StatementStatistics
+{
+   /** The upper bounds of the latency histogram buckets, in milliseconds */
+   private static final long[] BUCKETS = {1L, 2L, 5L, 10L, 25L, 50L, 100L, 250L, 500L,
+                                          1000L, 2500L, 5000L, 10000L};
+
+   /** The number of remembered SQL texts, a power of two */
+   private static final int MAX_NORMALIZED = 1024;
+
+   /** The number of entries sampled when a new statement replaces one */
+   private static final int SAMPLES = 8;
+
+   /** The largest frequency estimated by the admission sketch */
+   private static final int MAX_FREQUENCY = 15;
+
+   /** Orders entries by executions, most first */
+   private static final Comparator<Entry> BY_COUNT = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getCount(), a.getCount());
+      }
+   };
+
+   /** Orders entries by total time, largest first */
+   private static final Comparator<Entry> BY_TIME = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getTotalTime(), a.getTotalTime());
+      }
+   };
+
+   /** Orders entries by rows fetched, most first */
+   private static final Comparator<Entry> BY_ROWS = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getRowsFetched(), a.getRowsFetched());
+      }
+   };
+
+   /** Orders entries by update count, most first */
+   private static final Comparator<Entry> BY_UPDATES = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getUpdateCount(), a.getUpdateCount());
+      }
+   };
+
+   /** Orders entries by slow executions, most first */
+   private static final Comparator<Entry> BY_SLOW = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getSlowCount(), a.getSlowCount());
+      }
+   };
+
+   /** The maximum number of statements */
+   private final int capacity;
+
+   /** The slow statement threshold, in nanoseconds */
+   private final long slowThreshold;
+
+   /** The tracked statements */
+   private volatile Table table;
+
+   /** The normalized text of recently seen SQL */
+   private volatile AtomicReferenceArray<Normalized> normalized;
+
+   /**
+    * Constructor
+    * @param capacity The maximum number of statements
+    * @param slowThreshold The slow statement threshold, in milliseconds
+    */
+   public StatementStatistics(int capacity, long slowThreshold)
+   {
+      this.capacity = Math.max(1, capacity);
+      this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+      this.table = new Table(this.capacity);
+      this.normalized = new AtomicReferenceArray<Normalized>(MAX_NORMALIZED);
+   }
+
+   /**
+    * Get the key of a statement
+    * @param sql The SQL
+    * @return The normalized SQL
+    */
+   public String getKey(String sql)
+   {
+      if (sql == null)
+         return null;
+
+      AtomicReferenceArray<Normalized> memo = normalized;
+      int slot = spread(sql.hashCode()) & (MAX_NORMALIZED - 1);
+
+      Normalized n = memo.get(slot);
+      if (n != null && n.sql.equals(sql))
+         return n.key;
+
+      String key = SqlNormalizer.normalize(sql);
+      memo.set(slot, new Normalized(sql, key));
+
+      return key;
+   }
+
+   /**
+    * Record an execution
+    * @param key The normalized SQL
+    * @param time The time, in nanoseconds
+    * @param updateCount The update count, or -1 if unknown
+    */
+   public void recordExecution(String key, long time, long updateCount)
+   {
+      Table t = table;
+      Entry entry = t.entries.get(key);
+
+      if (entry == null)
+      {
+         entry = admit(t, key);
+         if (entry == null)
+            return;
+      }
+
+      entry.recordExecution(time, updateCount, time >= slowThreshold);
+   }
+
+   /**
+    * Record rows fetched from a result set of a tracked statement
+    * @param key The normalized SQL
+    * @param rows The number of rows
+    */
+   public void recordRowsFetched(String key, long rows)
+   {
+      Entry entry = table.entries.get(key);
+
+      if (entry != null)
+         entry.recordRowsFetched(rows);
+   }
+
+   /**
+    * Get the statements executed the most
+    * @param n The maximum number of entries
+    * @return The entries
+    */
+   public List<Entry> getTopExecutions(int n)
+   {
+      return getTop(n, BY_COUNT, false);
+   }
+
+   /**
+    * Get the statements with the largest total time
+    * @param n The maximum number of entries
+    * @return The entries
+    */
+   public List<Entry> getTopTime(int n)
+   {
+      return getTop(n, BY_TIME, false);
+   }
+
+   /**
+    * Get the statements that fetched the most rows
+    * @param n The maximum number of entries
+    * @return The entries
+    */
+   public List<Entry> getTopRowsFetched(int n)
+   {
+      return getTop(n, BY_ROWS, false);
+   }
+
+   /**
+    * Get the statements that updated the most rows
+    * @param n The maximum number of entries
+    * @return The entries
+    */
+   public List<Entry> getTopUpdateCount(int n)
+   {
+      return getTop(n, BY_UPDATES, false);
+   }
+
+   /**
+    * Get the statements with the most executions above the slow statement threshold
+    * @param n The maximum number of entries
+    * @return The entries; only statements that were slow at least once
+    */
+   public List<Entry> getSlowStatements(int n)
+   {
+      return getTop(n, BY_SLOW, true);
+   }
+
+   /**
+    * Get the number of tracked statements
+    * @return The value
+    */
+   public int size()
+   {
+      return table.entries.size();
+   }
+
+   /**
+    * Reset
+    */
+   public void reset()
+   {
+      table = new Table(capacity);
+      normalized = new AtomicReferenceArray<Normalized>(MAX_NORMALIZED);
+   }
+
+   /**
+    * Get the top entries. The entries are snapshots, so they are sorted by values
+    * that don't change while executions are recorded
+    * @param n The maximum number of entries
+    * @param order The order
+    * @param slowOnly Only include slow statements
+    * @return The entries
+    */
+   private List<Entry> getTop(int n, Comparator<Entry> order, boolean slowOnly)
+   {
+      Map<String, Entry> entries = table.entries;
+      List<Entry> snapshots = new ArrayList<Entry>(entries.size());
+      for (Entry e : entries.values())
+      {
+         Entry snapshot = new Entry(e);
+         if (!slowOnly || snapshot.getSlowCount() > 0L)
+            snapshots.add(snapshot);
+      }
+
+      Entry[] sorted = snapshots.toArray(new Entry[snapshots.size()]);
+      Arrays.sort(sorted, order);
+
+      List<Entry> result = new ArrayList<Entry>(Math.min(Math.max(n, 0), sorted.length));
+      for (int i = 0; i < sorted.length && i < n; i++)
+      {
+         result.add(sorted[i]);
+      }
+
+      return result;
+   }
+
+   /**
+    * Add an entry for a statement. If the table is full the entry replaces the sampled entry
+    * with the fewest executions, once the statement has been executed about as often
+    * @param t The table
+    * @param key The normalized SQL
+    * @return The entry; <code>null</code> if the statement isn't admitted
+    */
+   private Entry admit(Table t, String key)
+   {
+      boolean counted = false;
+
+      for (;;)
+      {
+         Entry entry = t.entries.get(key);
+         if (entry != null)
+            return entry;
+
+         if (t.claimed.get() < capacity)
+         {
+            entry = new Entry(key, 0L);
+
+            Entry existing = t.entries.putIfAbsent(key, entry);
+            if (existing != null)
+               return existing;
+
+            int index = t.claimed.getAndIncrement();
+            if (index < capacity)
+            {
+               t.slots.set(index, entry);
+               return entry;
+            }
+
+            // The table filled up in the meantime
+            t.entries.remove(key, entry);
+            continue;
+         }
+
+         if (!counted)
+         {
+            t.sketch.increment(key);
+            counted = true;
+         }
+
+         int samples = Math.min(SAMPLES, capacity);
+         int start = capacity > SAMPLES ? ThreadLocalRandom.current().nextInt(capacity) : 0;
+
+         int victimIndex = -1;
+         Entry victim = null;
+         long victimCount = Long.MAX_VALUE;
+
+         for (int i = 0; i < samples; i++)
+         {
+            int index = (start + i) % capacity;
+            Entry e = t.slots.get(index);
+            if (e != null)
+            {
+               long count = e.getCount();
+               if (count < victimCount)
+               {
+                  victimIndex = index;
+                  victim = e;
+                  victimCount = count;
+               }
+            }
+         }
+
+         if (victim == null || t.sketch.frequency(key) < Math.min(victimCount, (long)MAX_FREQUENCY))
+            return null;
+
+         entry = new Entry(key, victimCount);
+
+         Entry existing = t.entries.putIfAbsent(key, entry);
+         if (existing != null)
+            return existing;
+
+         if (t.slots.compareAndSet(victimIndex, victim, entry))
+         {
+            t.entries.remove(victim.getSql(), victim);
+            return entry;
+         }
+
+         // Another statement replaced the victim first, so sample again
+         t.entries.remove(key, entry);
+      }
+   }
+
+   /**
+    * Spread a hash code
+    * @param hash The hash code
+    * @return The value
+    */
+   private static int spread(int hash)
+   {
+      int h = hash;
+      h = ((h >>> 16) ^ h) * 0x45d9f3b;
+      h = ((h >>> 16) ^ h) * 0x45d9f3b;
+      return (h >>> 16) ^ h;
+   }
+
+   /**
+    * The tracked statements, which are replaced as a whole by a reset
+    */
+   private static final class Table
+   {
+      /** The entries by normalized SQL */
+      private final ConcurrentMap<String, Entry> entries;
+
+      /** The entries by slot, used to sample replacement candidates */
+      private final AtomicReferenceArray<Entry> slots;
+
+      /** The number of claimed slots */
+      private final AtomicInteger claimed;
+
+      /** The frequency of the statements that aren't tracked */
+      private final AdmissionSketch sketch;
+
+      /**
+       * Constructor
+       * @param capacity The maximum number of statements
+       */
+      Table(int capacity)
+      {
+         this.entries = new ConcurrentHashMap<String, Entry>();
+         this.slots = new AtomicReferenceArray<Entry>(capacity);
+         this.claimed = new AtomicInteger(0);
+         this.sketch = new AdmissionSketch(capacity);
+      }
+   }
+
+   /**
+    * The normalized text of a SQL statement
+    */
+   private static final class Normalized
+   {
+      /** The SQL */
+      private final String sql;
+
+      /** The normalized SQL */
+      private final String key;
+
+      /**
+       * Constructor
+       * @param sql The SQL
+       * @param key The normalized SQL
+       */
+      Normalized(String sql, String key)
+      {
+         this.sql = sql;
+         this.key = key;
+      }
+   }
+
+   /**
+    * A count-min sketch of 4-bit counters estimating the executions of statements that
+    * aren't tracked. The counters are updated without a lock, and halved once the number
+    * of recorded executions reaches ten times the capacity, so the history ages out.
+    */
+   private static final class AdmissionSketch
+   {
+      /** The hash seeds */
+      private static final long[] SEEDS = {
+         0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+      };
+
+      /** Mask clearing the high bit of every counter after a shift */
+      private static final long RESET_MASK = 0x7777777777777777L;
+
+      /** The counters, 16 per slot */
+      private final AtomicLongArray table;
+
+      /** The table mask */
+      private final int tableMask;
+
+      /** The number of increments before aging */
+      private final int sampleSize;
+
+      /** The number of increments since the last aging */
+      private final AtomicInteger size;
+
+      /**
+       * Constructor
+       * @param capacity The maximum number of statements
+       */
+      AdmissionSketch(int capacity)
+      {
+         int length = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 24)) - 1) << 1;
+
+         this.table = new AtomicLongArray(length);
+         this.tableMask = length - 1;
+         this.sampleSize = 10 * Math.max(16, capacity);
+         this.size = new AtomicInteger(0);
+      }
+
+      /**
+       * Record an execution
+       * @param key The normalized SQL
+       */
+      void increment(String key)
+      {
+         int hash = spread(key.hashCode());
+         int start = (hash & 3) << 2;
+         boolean added = false;
+
+         for (int i = 0; i < 4; i++)
+         {
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            long mask = 0xfL << offset;
+
+            for (;;)
+            {
+               long value = table.get(index);
+               if ((value & mask) == mask)
+                  break;
+
+               if (table.compareAndSet(index, value, value + (1L << offset)))
+               {
+                  added = true;
+                  break;
+               }
+            }
+         }
+
+         // Only the thread reaching the sample size ages the counters
+         if (added && size.incrementAndGet() == sampleSize)
+            reset();
+      }
+
+      /**
+       * Estimate the executions
+       * @param key The normalized SQL
+       * @return The value, between 0 and 15
+       */
+      int frequency(String key)
+      {
+         int hash = spread(key.hashCode());
+         int start = (hash & 3) << 2;
+         int frequency = Integer.MAX_VALUE;
+
+         for (int i = 0; i < 4; i++)
+         {
+            int index = indexOf(hash, i);
+            int count = (int)((table.get(index) >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+         }
+
+         return frequency;
+      }
+
+      /**
+       * Halve all counters
+       */
+      private void reset()
+      {
+         for (int i = 0; i < table.length(); i++)
+         {
+            long value = table.get(i);
+            while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK))
+               value = table.get(i);
+         }
+
+         size.set(0);
+      }
+
+      /**
+       * Get the table index for a hash and a row
+       * @param hash The hash
+       * @param row The row
+       * @return The index
+       */
+      private int indexOf(int hash, int row)
+      {
+         long h = (hash + SEEDS[row]) * SEEDS[row];
+         h += h >>> 32;
+         return ((int)h) & tableMask;
+      }
+   }
+
+   /**
+    * The statistics of a statement
+    */
+   public static final class Entry
+   {
+      /** The normalized SQL */
+      private final String sql;
+
+      /** The overestimation of the executions */
+      private final long error;
+
+      /** The executions */
+      private final LongAdder count;
+
+      /** The total time, in nanoseconds */
+      private final LongAdder totalTime;
+
+      /** The maximum time, in nanoseconds */
+      private final MaxTracker maxTime;
+
+      /** The executions per latency bucket */
+      private final AtomicLongArray histogram;
+
+      /** The rows fetched */
+      private final LongAdder rowsFetched;
+
+      /** The update count */
+      private final LongAdder updateCount;
+
+      /** The executions above the slow statement threshold */
+      private final LongAdder slowCount;
+
+      /**
+       * Constructor
+       * @param sql The normalized SQL
+       * @param error The executions of the replaced statement
+       */
+      Entry(String sql, long error)
+      {
+         this.sql = sql;
+         this.error = error;
+         this.count = new LongAdder();
+         this.totalTime = new LongAdder();
+         this.maxTime = new MaxTracker(0L);
+         this.histogram = new AtomicLongArray(BUCKETS.length + 1);
+         this.rowsFetched = new LongAdder();
+         this.updateCount = new LongAdder();
+         this.slowCount = new LongAdder();
+
+         count.add(error);
+      }
+
+      /**
+       * Snapshot constructor
+       * @param entry The entry
+       */
+      private Entry(Entry entry)
+      {
+         this.sql = entry.sql;
+         this.error = entry.error;
+         this.count = new LongAdder();
+         this.totalTime = new LongAdder();
+         this.maxTime = new MaxTracker(entry.maxTime.get());
+         this.histogram = new AtomicLongArray(entry.getHistogram());
+         this.rowsFetched = new LongAdder();
+         this.updateCount = new LongAdder();
+         this.slowCount = new LongAdder();
+
+         count.add(entry.count.sum());
+         totalTime.add(entry.totalTime.sum());
+         rowsFetched.add(entry.rowsFetched.sum());
+         updateCount.add(entry.updateCount.sum());
+         slowCount.add(entry.slowCount.sum());
+      }
+
+      /**
+       * Record an execution
+       * @param time The time, in nanoseconds
+       * @param updates The update count, or -1 if unknown
+       * @param slow Whether the execution was above the slow statement threshold
+       */
+      void recordExecution(long time, long updates, boolean slow)
+      {
+         count.increment();
+         totalTime.add(time);
+         maxTime.update(time);
+         histogram.incrementAndGet(getBucket(time));
+
+         if (updates > 0L)
+            updateCount.add(updates);
+
+         if (slow)
+            slowCount.increment();
+      }
+
+      /**
+       * Record rows fetched
+       * @param rows The number of rows
+       */
+      void recordRowsFetched(long rows)
+      {
+         rowsFetched.add(rows);
+      }
+
+      /**
+       * Get the normalized SQL
+       * @return The value
+       */
+      public String getSql()
+      {
+         return sql;
+      }
+
+      /**
+       * Get the executions, including the error
+       * @return The value
+       */
+      public long getCount()
+      {
+         return count.sum();
+      }
+
+      /**
+       * Get the overestimation of the executions
+       * @return The value
+       */
+      public long getError()
+      {
+         return error;
+      }
+
+      /**
+       * Get the total time since the statement was tracked
+       * @return The value, in milliseconds
+       */
+      public long getTotalTime()
+      {
+         return TimeUnit.NANOSECONDS.toMillis(totalTime.sum());
+      }
+
+      /**
+       * Get the maximum time since the statement was tracked
+       * @return The value, in milliseconds
+       */
+      public long getMaxTime()
+      {
+         return TimeUnit.NANOSECONDS.toMillis(maxTime.get());
+      }
+
+      /**
+       * Get the executions per latency bucket; bucket <code>i</code> counts the executions
+       * below <code>getHistogramBounds()[i]</code> milliseconds, and the last bucket the rest
+       * @return The value
+       */
+      public long[] getHistogram()
+      {
+         long[] result = new long[histogram.length()];
+         for (int i = 0; i < result.length; i++)
+            result[i] = histogram.get(i);
+         return result;
+      }
+
+      /**
+       * Get the upper bounds of the latency buckets
+       * @return The value, in milliseconds
+       */
+      public long[] getHistogramBounds()
+      {
+         return BUCKETS.clone();
+      }
+
+      /**
+       * Get the rows fetched since the statement was tracked
+       * @return The value
+       */
+      public long getRowsFetched()
+      {
+         return rowsFetched.sum();
+      }
+
+      /**
+       * Get the update count since the statement was tracked
+       * @return The value
+       */
+      public long getUpdateCount()
+      {
+         return updateCount.sum();
+      }
+
+      /**
+       * Get the executions above the slow statement threshold since the statement was tracked
+       * @return The value
+       */
+      public long getSlowCount()
+      {
+         return slowCount.sum();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public String toString()
+      {
+         StringBuilder sb = new StringBuilder();
+         sb.append(sql).append("[count=").append(getCount());
+         sb.append(",total=").append(getTotalTime());
+         sb.append(",max=").append(getMaxTime());
+         sb.append(",rows=").append(getRowsFetched());
+         sb.append(",updates=").append(getUpdateCount());
+         sb.append(",slow=").append(getSlowCount());
+         sb.append(",histogram={");
+
+         boolean first = true;
+         for (int i = 0; i < histogram.length(); i++)
+         {
+            long v = histogram.get(i);
+            if (v > 0L)
+            {
+               if (!first)
+                  sb.append(",");
+               sb.append(i < BUCKETS.length ? "<" + BUCKETS[i] : ">=" + BUCKETS[BUCKETS.length - 1]);
+               sb.append("=").append(v);
+               first = false;
+            }
+         }
+
+         sb.append("}");
+         if (error > 0L)
+            sb.append(",error=").append(error);
+         sb.append("]");
+         return sb.toString();
+      }
+
+      /**
+       * Get the latency bucket of a time
+       * @param time The time, in nanoseconds
+       * @return The bucket
+       */
+      private static int getBucket(long time)
+      {
+         long millis = TimeUnit.NANOSECONDS.toMillis(time);
+
+         for (int i = 0; i < BUCKETS.length; i++)
+         {
+            if (millis < BUCKETS[i])
+               return i;
+         }
+
+         return BUCKETS.length;
+      }
+   }
+}
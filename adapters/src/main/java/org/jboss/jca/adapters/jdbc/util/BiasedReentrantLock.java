@@ -0,0 +1,551 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ReentrantLock which is biased towards the first thread using it.
+ * <p>
+ * The owner of the bias acquires and releases the lock through a volatile hold counter,
+ * without touching the queue of the underlying lock. When a second thread shows up the
+ * bias is revoked: the second thread waits for the holds of the owner to drain, and from
+ * then on every thread goes through the underlying lock. The bias can be handed to a new
+ * thread once the lock is idle again, see {@link #rebias()}.
+ * <p>
+ * Threads waiting for the bias holds to drain park until the owner releases its last hold,
+ * and are reported by {@link #getQueuedThreads()} and {@link #hasQueuedOrRevokingThreads()}.
+ * A thread waiting on a condition moves its bias holds to the underlying lock first, since
+ * only the underlying lock can be released by a wait.
+ */
+public class BiasedReentrantLock extends ReentrantLock
+{
+   /** Serial version uid */
+   private static final long serialVersionUID = 1L;
+
+   /** Bias updater */
+   private static final AtomicReferenceFieldUpdater<BiasedReentrantLock, Thread> BIAS =
+      AtomicReferenceFieldUpdater.newUpdater(BiasedReentrantLock.class, Thread.class, "bias");
+
+   /** Bias holds updater */
+   private static final AtomicIntegerFieldUpdater<BiasedReentrantLock> BIAS_HOLDS =
+      AtomicIntegerFieldUpdater.newUpdater(BiasedReentrantLock.class, "biasHolds");
+
+   /** The thread owning the bias */
+   private volatile transient Thread bias;
+
+   /** The holds of the bias owner */
+   private volatile int biasHolds;
+
+   /** Has the bias been revoked */
+   private volatile boolean revoked;
+
+   /** The threads waiting for the bias holds to drain */
+   private final transient Set<Thread> revokers;
+
+   /**
+    * Constructor
+    * @param fair Fair locking
+    */
+   public BiasedReentrantLock(boolean fair)
+   {
+      super(fair);
+      this.bias = null;
+      this.biasHolds = 0;
+      this.revoked = false;
+      this.revokers = ConcurrentHashMap.newKeySet();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void lock()
+   {
+      if (biasedLock())
+         return;
+
+      boolean interrupted = false;
+
+      for (;;)
+      {
+         interrupted |= revoke(false, 0L);
+         super.lock();
+
+         if (isExclusive())
+            break;
+
+         super.unlock();
+      }
+
+      if (interrupted)
+         Thread.currentThread().interrupt();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void lockInterruptibly() throws InterruptedException
+   {
+      if (Thread.interrupted())
+         throw new InterruptedException();
+
+      if (biasedLock())
+         return;
+
+      for (;;)
+      {
+         if (revoke(true, 0L))
+            throw new InterruptedException();
+
+         super.lockInterruptibly();
+
+         if (isExclusive())
+            break;
+
+         super.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean tryLock()
+   {
+      if (biasedLock())
+         return true;
+
+      // The lock is busy while the owner holds the bias, so fail without revoking it
+      Thread owner = bias;
+      if (!revoked && owner != null && owner != Thread.currentThread() && biasHolds > 0)
+         return false;
+
+      revoked = true;
+
+      if (!isDrained() || !super.tryLock())
+         return false;
+
+      if (isExclusive())
+         return true;
+
+      super.unlock();
+      return false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException
+   {
+      if (Thread.interrupted())
+         throw new InterruptedException();
+
+      if (biasedLock())
+         return true;
+
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+      for (;;)
+      {
+         if (revoke(true, deadline))
+            throw new InterruptedException();
+
+         if (!isDrained() || !super.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+            return false;
+
+         if (isExclusive())
+            return true;
+
+         super.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void unlock()
+   {
+      if (super.isHeldByCurrentThread())
+      {
+         super.unlock();
+      }
+      else if (bias == Thread.currentThread() && biasHolds > 0)
+      {
+         releaseBiasHolds(1);
+      }
+      else
+      {
+         super.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Condition newCondition()
+   {
+      return new BiasedCondition(super.newCondition());
+   }
+
+   /**
+    * Hand the bias to the next thread using the lock. Nothing is done unless
+    * the lock is idle.
+    * @return <code>True</code> if the bias was reset, otherwise <code>false</code>
+    */
+   public boolean rebias()
+   {
+      if (biasHolds > 0 || !revokers.isEmpty())
+         return false;
+
+      revoked = true;
+
+      if (biasHolds > 0 || !super.tryLock())
+         return false;
+
+      try
+      {
+         if (super.getHoldCount() > 1 || biasHolds > 0 || hasQueuedOrRevokingThreads())
+            return false;
+
+         bias = null;
+         revoked = false;
+         return true;
+      }
+      finally
+      {
+         super.unlock();
+      }
+   }
+
+   /**
+    * Is the lock biased
+    * @return The value
+    */
+   public boolean isBiased()
+   {
+      return !revoked;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int getHoldCount()
+   {
+      int holds = super.getHoldCount();
+
+      if (bias == Thread.currentThread())
+         holds += biasHolds;
+
+      return holds;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean isHeldByCurrentThread()
+   {
+      return super.isHeldByCurrentThread() || (bias == Thread.currentThread() && biasHolds > 0);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean isLocked()
+   {
+      return super.isLocked() || biasHolds > 0;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Thread getOwner()
+   {
+      Thread owner = super.getOwner();
+
+      if (owner == null && biasHolds > 0)
+         owner = bias;
+
+      return owner;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Collection<Thread> getQueuedThreads()
+   {
+      Collection<Thread> threads = new ArrayList<Thread>(super.getQueuedThreads());
+      threads.addAll(revokers);
+      return threads;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean hasQueuedOrRevokingThreads()
+   {
+      return super.hasQueuedOrRevokingThreads() || !revokers.isEmpty();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return super.toString() + (revoked ? "[Revoked]" : "[Biased to " + bias + "]");
+   }
+
+   /**
+    * Acquire the lock through the bias
+    * @return <code>True</code> if acquired, otherwise <code>false</code>
+    */
+   private boolean biasedLock()
+   {
+      if (revoked)
+         return false;
+
+      Thread current = Thread.currentThread();
+      Thread owner = bias;
+
+      if (owner != current && (owner != null || !BIAS.compareAndSet(this, null, current)))
+         return false;
+
+      // Publish the hold before checking for a revocation, the revoking thread
+      // publishes the revocation before checking for holds
+      BIAS_HOLDS.incrementAndGet(this);
+
+      if (!revoked && bias == current)
+         return true;
+
+      releaseBiasHolds(1);
+      return false;
+   }
+
+   /**
+    * Release holds of the bias owner, and wake up the revoking threads once the holds have drained
+    * @param holds The number of holds
+    */
+   private void releaseBiasHolds(int holds)
+   {
+      // Publish the release before checking for revokers, a revoking thread registers
+      // before checking for holds, so either it sees the release or it is woken up
+      if (BIAS_HOLDS.addAndGet(this, -holds) == 0 && !revokers.isEmpty())
+      {
+         for (Thread revoker : revokers)
+         {
+            LockSupport.unpark(revoker);
+         }
+      }
+   }
+
+   /**
+    * Revoke the bias, and wait for the holds of the bias owner to drain
+    * @param interruptible Stop waiting when the thread is interrupted
+    * @param deadline The deadline in nanoseconds, or 0 for no deadline
+    * @return <code>True</code> if the thread was interrupted while waiting, otherwise <code>false</code>
+    */
+   private boolean revoke(boolean interruptible, long deadline)
+   {
+      revoked = true;
+
+      if (isDrained())
+         return false;
+
+      Thread current = Thread.currentThread();
+      boolean interrupted = false;
+
+      revokers.add(current);
+      try
+      {
+         while (!isDrained())
+         {
+            if (deadline != 0L)
+            {
+               long nanos = deadline - System.nanoTime();
+               if (nanos <= 0L)
+                  break;
+
+               LockSupport.parkNanos(this, nanos);
+            }
+            else
+            {
+               LockSupport.park(this);
+            }
+
+            if (Thread.interrupted())
+            {
+               interrupted = true;
+               if (interruptible)
+                  break;
+            }
+         }
+      }
+      finally
+      {
+         revokers.remove(current);
+      }
+
+      return interrupted;
+   }
+
+   /**
+    * Move the bias holds of the current thread to the underlying lock, and revoke the bias.
+    * Nothing is done unless the current thread holds the lock through the bias
+    */
+   private void inflate()
+   {
+      if (bias != Thread.currentThread() || biasHolds == 0)
+         return;
+
+      // Other threads can't own the underlying lock exclusively while the holds are published
+      revoked = true;
+
+      int holds = biasHolds;
+      for (int i = 0; i < holds; i++)
+      {
+         super.lock();
+      }
+
+      releaseBiasHolds(holds);
+   }
+
+   /**
+    * Have the holds of the bias owner drained, from the view of the current thread
+    * @return The value
+    */
+   private boolean isDrained()
+   {
+      return biasHolds == 0 || bias == Thread.currentThread();
+   }
+
+   /**
+    * Does the current thread own the lock exclusively after acquiring the underlying lock
+    * @return The value
+    */
+   private boolean isExclusive()
+   {
+      return revoked && isDrained();
+   }
+
+   /**
+    * A condition of the underlying lock, which is used once the bias holds of
+    * the current thread have been moved to the underlying lock
+    */
+   private class BiasedCondition implements Condition
+   {
+      /** The condition of the underlying lock */
+      private final Condition delegate;
+
+      /**
+       * Constructor
+       * @param delegate The condition of the underlying lock
+       */
+      BiasedCondition(Condition delegate)
+      {
+         this.delegate = delegate;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void await() throws InterruptedException
+      {
+         inflate();
+         delegate.await();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void awaitUninterruptibly()
+      {
+         inflate();
+         delegate.awaitUninterruptibly();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public long awaitNanos(long nanosTimeout) throws InterruptedException
+      {
+         inflate();
+         return delegate.awaitNanos(nanosTimeout);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public boolean await(long time, TimeUnit unit) throws InterruptedException
+      {
+         inflate();
+         return delegate.await(time, unit);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public boolean awaitUntil(Date deadline) throws InterruptedException
+      {
+         inflate();
+         return delegate.awaitUntil(deadline);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void signal()
+      {
+         inflate();
+         delegate.signal();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void signalAll()
+      {
+         inflate();
+         delegate.signalAll();
+      }
+   }
+}
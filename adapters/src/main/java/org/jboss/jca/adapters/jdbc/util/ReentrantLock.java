@@ -56,4 +56,13 @@ public class ReentrantLock extends java.util.concurrent.locks.ReentrantLock
    {
       return super.getQueuedThreads();
    }
+
+   /**
+    * Are there threads queued to acquire the lock, or revoking a bias on it
+    * @return The value
+    */
+   public boolean hasQueuedOrRevokingThreads()
+   {
+      return hasQueuedThreads();
+   }
 }
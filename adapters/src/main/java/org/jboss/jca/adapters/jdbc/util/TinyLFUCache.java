@@ -0,0 +1,622 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Implementation of a Window TinyLFU cache policy.
+ * <p>
+ * New entries enter a small LRU window. Entries leaving the window must win
+ * an admission contest against the eviction victim of the main segmented LRU
+ * region, based on an approximate access frequency kept in a count-min sketch
+ * that is periodically aged. This keeps one-off statements from flushing the
+ * frequently used ones out of the cache.
+ * <p>
+ * Lookups do not take a lock; hits are recorded in a lossy buffer which is
+ * replayed against the policy when it fills up or when the cache is modified.
+ *
+ * @param <K> The key
+ * @param <V> The value
+ */
+public class TinyLFUCache<K, V> implements Cache<K, V>
+{
+   /** Window region */
+   private static final int WINDOW = 0;
+
+   /** Probation region */
+   private static final int PROBATION = 1;
+
+   /** Protected region */
+   private static final int PROTECTED = 2;
+
+   /** The size of the read buffer */
+   private static final int READ_BUFFER_SIZE = 16;
+
+   /** The map holding the cached objects */
+   private final ConcurrentMap<K, Node<K, V>> map;
+
+   /** The regions */
+   private final Region<K, V>[] regions;
+
+   /** The maximum capacity of the window region */
+   private final int windowCapacity;
+
+   /** The maximum capacity of the main region */
+   private final int mainCapacity;
+
+   /** The maximum capacity of the protected region */
+   private final int protectedCapacity;
+
+   /** The frequency sketch */
+   private final FrequencySketch sketch;
+
+   /** The recorded hits */
+   private final AtomicReferenceArray<Node<K, V>> readBuffer;
+
+   /** The read buffer write index */
+   private final AtomicInteger readIndex;
+
+   /** The policy lock */
+   private final Lock lock;
+
+   /** The listener */
+   private CacheListener<V> listener;
+
+   /**
+    * Creates a TinyLFU cache
+    * @param max The maximum number of entries
+    */
+   @SuppressWarnings("unchecked")
+   public TinyLFUCache(int max)
+   {
+      if (max < 1)
+         throw new IllegalArgumentException("Can't work with capacity < 1");
+
+      this.map = new ConcurrentHashMap<K, Node<K, V>>();
+      this.regions = new Region[] {new Region<K, V>(), new Region<K, V>(), new Region<K, V>()};
+      this.windowCapacity = Math.max(1, max / 100);
+      this.mainCapacity = max - windowCapacity;
+      this.protectedCapacity = mainCapacity * 4 / 5;
+      this.sketch = new FrequencySketch(max);
+      this.readBuffer = new AtomicReferenceArray<Node<K, V>>(READ_BUFFER_SIZE);
+      this.readIndex = new AtomicInteger(0);
+      this.lock = new java.util.concurrent.locks.ReentrantLock();
+      this.listener = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public V get(K key)
+   {
+      if (key == null)
+         throw new IllegalArgumentException("Requesting an object using a null key");
+
+      Node<K, V> node = map.get(key);
+      if (node == null)
+         return null;
+
+      int index = readIndex.getAndIncrement() & (READ_BUFFER_SIZE - 1);
+      readBuffer.lazySet(index, node);
+
+      if (index == READ_BUFFER_SIZE - 1 && lock.tryLock())
+      {
+         try
+         {
+            drainReadBuffer();
+         }
+         finally
+         {
+            lock.unlock();
+         }
+      }
+
+      return node.value;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public V peek(K key)
+   {
+      if (key == null)
+         throw new IllegalArgumentException("Requesting an object using a null key");
+
+      Node<K, V> node = map.get(key);
+      return node != null ? node.value : null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void insert(K key, V o)
+   {
+      if (o == null)
+         throw new IllegalArgumentException("Cannot insert a null object in the cache");
+
+      if (key == null)
+         throw new IllegalArgumentException("Cannot insert an object in the cache with null key");
+
+      List<V> evicted = new ArrayList<V>(1);
+
+      lock.lock();
+      try
+      {
+         if (map.containsKey(key))
+            throw new IllegalStateException("Attempt to put in the cache an object that is already there");
+
+         drainReadBuffer();
+
+         Node<K, V> node = new Node<K, V>(key, o);
+         map.put(key, node);
+         regions[WINDOW].addLast(node, WINDOW);
+         sketch.increment(key);
+
+         evict(evicted);
+      }
+      finally
+      {
+         lock.unlock();
+      }
+
+      notifyEvicted(evicted);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void remove(K key)
+   {
+      if (key == null)
+         throw new IllegalArgumentException("Removing an object using a null key");
+
+      lock.lock();
+      try
+      {
+         Node<K, V> node = map.remove(key);
+         if (node != null && node.region != -1)
+            regions[node.region].remove(node);
+      }
+      finally
+      {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void flush()
+   {
+      List<V> evicted = new ArrayList<V>(map.size());
+
+      lock.lock();
+      try
+      {
+         for (int i = 0; i < READ_BUFFER_SIZE; i++)
+            readBuffer.set(i, null);
+
+         for (Region<K, V> region : regions)
+         {
+            Node<K, V> node = null;
+            while ((node = region.head) != null)
+            {
+               region.remove(node);
+               map.remove(node.key);
+               evicted.add(node.value);
+            }
+         }
+      }
+      finally
+      {
+         lock.unlock();
+      }
+
+      notifyEvicted(evicted);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int size()
+   {
+      return map.size();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void setListener(CacheListener<V> listener)
+   {
+      this.listener = listener;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("TinyLFUCache@").append(Integer.toHexString(System.identityHashCode(this)));
+      sb.append("[window=").append(regions[WINDOW].size).append("/").append(windowCapacity);
+      sb.append(" probation=").append(regions[PROBATION].size);
+      sb.append(" protected=").append(regions[PROTECTED].size).append("/").append(protectedCapacity);
+      sb.append(" main=").append(mainCapacity);
+      sb.append("]");
+
+      return sb.toString();
+   }
+
+   /**
+    * Replay the recorded hits against the policy; must hold the lock
+    */
+   private void drainReadBuffer()
+   {
+      for (int i = 0; i < READ_BUFFER_SIZE; i++)
+      {
+         Node<K, V> node = readBuffer.getAndSet(i, null);
+         if (node != null)
+            onAccess(node);
+      }
+   }
+
+   /**
+    * Apply an access to the policy; must hold the lock
+    * @param node The node
+    */
+   private void onAccess(Node<K, V> node)
+   {
+      if (node.region == -1)
+         return;
+
+      sketch.increment(node.key);
+
+      if (node.region == PROBATION)
+      {
+         regions[PROBATION].remove(node);
+         regions[PROTECTED].addLast(node, PROTECTED);
+
+         while (regions[PROTECTED].size > protectedCapacity)
+         {
+            Node<K, V> demoted = regions[PROTECTED].head;
+            regions[PROTECTED].remove(demoted);
+            regions[PROBATION].addLast(demoted, PROBATION);
+         }
+      }
+      else
+      {
+         regions[node.region].moveToLast(node);
+      }
+   }
+
+   /**
+    * Move entries from the window into the main region, evicting either the
+    * candidate or the main victim based on their frequency; must hold the lock
+    * @param evicted The evicted values
+    */
+   private void evict(List<V> evicted)
+   {
+      while (regions[WINDOW].size > windowCapacity)
+      {
+         Node<K, V> candidate = regions[WINDOW].head;
+         regions[WINDOW].remove(candidate);
+
+         if (regions[PROBATION].size + regions[PROTECTED].size < mainCapacity)
+         {
+            regions[PROBATION].addLast(candidate, PROBATION);
+            continue;
+         }
+
+         Node<K, V> victim = regions[PROBATION].head;
+         if (victim == null)
+            victim = regions[PROTECTED].head;
+
+         if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key))
+         {
+            regions[victim.region].remove(victim);
+            map.remove(victim.key);
+            evicted.add(victim.value);
+
+            regions[PROBATION].addLast(candidate, PROBATION);
+         }
+         else
+         {
+            map.remove(candidate.key);
+            evicted.add(candidate.value);
+         }
+      }
+   }
+
+   /**
+    * Notify the listener about evicted values
+    * @param evicted The evicted values
+    */
+   private void notifyEvicted(List<V> evicted)
+   {
+      if (listener != null)
+      {
+         for (V value : evicted)
+         {
+            listener.onEviction(value);
+         }
+      }
+   }
+
+   /**
+    * A cache entry
+    */
+   private static class Node<K, V>
+   {
+      /** The key */
+      private final K key;
+
+      /** The value */
+      private final V value;
+
+      /** The region, or -1 if not linked */
+      private int region;
+
+      /** The previous node */
+      private Node<K, V> prev;
+
+      /** The next node */
+      private Node<K, V> next;
+
+      /**
+       * Constructor
+       * @param key The key
+       * @param value The value
+       */
+      Node(K key, V value)
+      {
+         this.key = key;
+         this.value = value;
+         this.region = -1;
+      }
+   }
+
+   /**
+    * A LRU ordered region, least recently used at the head
+    */
+   private static class Region<K, V>
+   {
+      /** The head */
+      private Node<K, V> head;
+
+      /** The tail */
+      private Node<K, V> tail;
+
+      /** The size */
+      private int size;
+
+      /**
+       * Add a node at the tail
+       * @param node The node
+       * @param region The region identifier
+       */
+      void addLast(Node<K, V> node, int region)
+      {
+         node.region = region;
+         node.prev = tail;
+         node.next = null;
+
+         if (tail == null)
+         {
+            head = node;
+         }
+         else
+         {
+            tail.next = node;
+         }
+
+         tail = node;
+         size++;
+      }
+
+      /**
+       * Remove a node
+       * @param node The node
+       */
+      void remove(Node<K, V> node)
+      {
+         if (node.prev == null)
+         {
+            head = node.next;
+         }
+         else
+         {
+            node.prev.next = node.next;
+         }
+
+         if (node.next == null)
+         {
+            tail = node.prev;
+         }
+         else
+         {
+            node.next.prev = node.prev;
+         }
+
+         node.prev = null;
+         node.next = null;
+         node.region = -1;
+         size--;
+      }
+
+      /**
+       * Move a node to the tail
+       * @param node The node
+       */
+      void moveToLast(Node<K, V> node)
+      {
+         if (node != tail)
+         {
+            int region = node.region;
+            remove(node);
+            addLast(node, region);
+         }
+      }
+   }
+
+   /**
+    * A count-min sketch of 4-bit counters estimating the access frequency of keys.
+    * The counters are halved once the number of recorded accesses reaches ten
+    * times the cache capacity, so the history ages out.
+    */
+   static class FrequencySketch
+   {
+      /** The hash seeds */
+      private static final long[] SEEDS = {
+         0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+      };
+
+      /** Mask of the low bit of every counter */
+      private static final long ONE_MASK = 0x1111111111111111L;
+
+      /** Mask clearing the high bit of every counter after a shift */
+      private static final long RESET_MASK = 0x7777777777777777L;
+
+      /** The counters, 16 per slot */
+      private final long[] table;
+
+      /** The table mask */
+      private final int tableMask;
+
+      /** The number of increments before aging */
+      private final int sampleSize;
+
+      /** The number of increments since the last aging */
+      private int size;
+
+      /**
+       * Constructor
+       * @param max The maximum number of entries of the cache
+       */
+      FrequencySketch(int max)
+      {
+         int length = Integer.highestOneBit(Math.max(16, Math.min(max, 1 << 24)) - 1) << 1;
+
+         this.table = new long[length];
+         this.tableMask = length - 1;
+         this.sampleSize = 10 * Math.max(16, max);
+         this.size = 0;
+      }
+
+      /**
+       * Record an access
+       * @param key The key
+       */
+      void increment(Object key)
+      {
+         int hash = spread(key.hashCode());
+         int start = (hash & 3) << 2;
+         boolean added = false;
+
+         for (int i = 0; i < 4; i++)
+         {
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            long mask = 0xfL << offset;
+
+            if ((table[index] & mask) != mask)
+            {
+               table[index] += 1L << offset;
+               added = true;
+            }
+         }
+
+         if (added && ++size >= sampleSize)
+            reset();
+      }
+
+      /**
+       * Estimate the access frequency
+       * @param key The key
+       * @return The value, between 0 and 15
+       */
+      int frequency(Object key)
+      {
+         int hash = spread(key.hashCode());
+         int start = (hash & 3) << 2;
+         int frequency = Integer.MAX_VALUE;
+
+         for (int i = 0; i < 4; i++)
+         {
+            int index = indexOf(hash, i);
+            int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+         }
+
+         return frequency;
+      }
+
+      /**
+       * Halve all counters
+       */
+      void reset()
+      {
+         int odd = 0;
+         for (int i = 0; i < table.length; i++)
+         {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+         }
+         size = (size >>> 1) - (odd >>> 2);
+      }
+
+      /**
+       * Get the table index for a hash and a row
+       * @param hash The hash
+       * @param row The row
+       * @return The index
+       */
+      private int indexOf(int hash, int row)
+      {
+         long h = (hash + SEEDS[row]) * SEEDS[row];
+         h += h >>> 32;
+         return ((int)h) & tableMask;
+      }
+
+      /**
+       * Spread the hash code
+       * @param hash The hash code
+       * @return The value
+       */
+      private static int spread(int hash)
+      {
+         int h = hash;
+         h = ((h >>> 16) ^ h) * 0x45d9f3b;
+         h = ((h >>> 16) ^ h) * 0x45d9f3b;
+         return (h >>> 16) ^ h;
+      }
+   }
+}
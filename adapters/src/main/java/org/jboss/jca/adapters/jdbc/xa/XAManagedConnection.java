@@ -116,6 +116,7 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
                   }
                   checkState();
                   inManagedTransaction = true;
+                  transactionAssociationChanged();
                }
                catch (SQLException e)
                {
@@ -144,6 +145,8 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
          {
             if (inManagedTransaction)
                inManagedTransaction = false;
+
+            transactionAssociationChanged();
          }
          try
          {
@@ -172,6 +175,8 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
          {
             if (inManagedTransaction)
                inManagedTransaction = false;
+
+            transactionAssociationChanged();
          }
          try
          {
@@ -278,6 +283,7 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
          {
             currentXid = xid;
             inManagedTransaction = true;
+            transactionAssociationChanged();
          }
       }
       finally
@@ -325,6 +331,8 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
                inManagedTransaction = false;
                currentXid = null;
             }
+
+            transactionAssociationChanged();
          }
       }
       finally
@@ -346,7 +354,14 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
     */
    public void commit(Xid xid, boolean onePhase) throws XAException
    {
-      xaResource.commit(xid, onePhase);
+      try
+      {
+         xaResource.commit(xid, onePhase);
+      }
+      finally
+      {
+         transactionAssociationChanged();
+      }
    }
 
    /**
@@ -354,7 +369,14 @@ public class XAManagedConnection extends BaseWrapperManagedConnection implements
     */
    public void rollback(Xid xid) throws XAException
    {
-      xaResource.rollback(xid);
+      try
+      {
+         xaResource.rollback(xid);
+      }
+      finally
+      {
+         transactionAssociationChanged();
+      }
    }
 
    /**
@@ -0,0 +1,98 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.unit;
+
+import org.jboss.jca.adapters.jdbc.PreparedStatementCache;
+import org.jboss.jca.adapters.jdbc.PreparedStatementCatalog;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PreparedStatementCatalog test case
+ */
+public class PreparedStatementCatalogTestCase
+{
+   /**
+    * Create a key
+    * @param sql The SQL
+    * @return The value
+    */
+   private static PreparedStatementCache.Key key(String sql)
+   {
+      return new PreparedStatementCache.Key(sql, PreparedStatementCache.Key.PREPARED_STATEMENT,
+                                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+   }
+
+   /**
+    * The most frequently prepared statements come first
+    */
+   @Test
+   public void testTop()
+   {
+      PreparedStatementCatalog catalog = new PreparedStatementCatalog(10);
+
+      for (int i = 0; i < 3; i++)
+         catalog.record(key("SELECT 1"));
+
+      for (int i = 0; i < 5; i++)
+         catalog.record(key("SELECT 2"));
+
+      catalog.record(key("SELECT 3"));
+
+      List<PreparedStatementCache.Key> top = catalog.getTop(2);
+
+      assertEquals(2, top.size());
+      assertEquals("SELECT 2", top.get(0).getSql());
+      assertEquals("SELECT 1", top.get(1).getSql());
+      assertEquals(3, catalog.getTop(10).size());
+      assertEquals(0, catalog.getTop(0).size());
+   }
+
+   /**
+    * The catalog is bounded, and statements that are no longer prepared age out
+    */
+   @Test
+   public void testAging()
+   {
+      PreparedStatementCatalog catalog = new PreparedStatementCatalog(4);
+
+      catalog.record(key("SELECT OLD"));
+
+      for (int i = 0; i < 100; i++)
+         catalog.record(key("SELECT " + (i % 3)));
+
+      assertTrue(catalog.size() <= 4);
+
+      for (PreparedStatementCache.Key k : catalog.getTop(4))
+         assertTrue(!"SELECT OLD".equals(k.getSql()));
+
+      catalog.clear();
+      assertEquals(0, catalog.size());
+   }
+}
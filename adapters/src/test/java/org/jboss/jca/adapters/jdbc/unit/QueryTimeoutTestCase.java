@@ -0,0 +1,86 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.unit;
+
+import org.jboss.jca.adapters.jdbc.CachedPreparedStatement;
+import org.jboss.jca.adapters.jdbc.jdk8.CachedPreparedStatementJDK8;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Query timeout test case
+ */
+public class QueryTimeoutTestCase
+{
+   /**
+    * A cached prepared statement only pushes the query timeout to the driver when it changes
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testCachedQueryTimeout() throws Throwable
+   {
+      final AtomicInteger calls = new AtomicInteger(0);
+
+      PreparedStatement ps = (PreparedStatement)Proxy.newProxyInstance(
+         QueryTimeoutTestCase.class.getClassLoader(),
+         new Class<?>[] {PreparedStatement.class},
+         new InvocationHandler()
+         {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+               if ("setQueryTimeout".equals(method.getName()))
+                  calls.incrementAndGet();
+
+               if (method.getReturnType() == int.class)
+                  return Integer.valueOf(0);
+
+               return null;
+            }
+         });
+
+      CachedPreparedStatement cps = new CachedPreparedStatementJDK8(ps);
+
+      cps.setQueryTimeout(30);
+      cps.setQueryTimeout(30);
+      cps.setQueryTimeout(30);
+      assertEquals(1, calls.get());
+
+      cps.setQueryTimeout(29);
+      assertEquals(2, calls.get());
+
+      // Back to the default when returned to the cache
+      cps.close();
+      assertEquals(3, calls.get());
+
+      cps.setQueryTimeout(0);
+      assertEquals(3, calls.get());
+   }
+}
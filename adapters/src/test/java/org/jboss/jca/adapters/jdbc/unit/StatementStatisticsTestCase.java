@@ -0,0 +1,175 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.unit;
+
+import org.jboss.jca.adapters.jdbc.statistics.SqlNormalizer;
+import org.jboss.jca.adapters.jdbc.statistics.StatementStatistics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * StatementStatistics test case
+ */
+public class StatementStatisticsTestCase
+{
+   /**
+    * Literals are replaced, parameter lists collapsed and quoted identifiers kept
+    */
+   @Test
+   public void testNormalize()
+   {
+      assertEquals("SELECT * FROM t1 WHERE id = ? AND name = ?",
+                   SqlNormalizer.normalize("SELECT *  FROM t1\n WHERE id = 42 AND name = 'O''Brien'"));
+      assertEquals("SELECT a FROM t WHERE b IN (?)",
+                   SqlNormalizer.normalize("SELECT a FROM t WHERE b IN (1, 2, 3)"));
+      assertEquals("SELECT a FROM t WHERE b IN (?)",
+                   SqlNormalizer.normalize("SELECT a FROM t WHERE b IN (?, ?,?)"));
+      assertEquals("SELECT \"col 1\" FROM t WHERE x = ?",
+                   SqlNormalizer.normalize("SELECT \"col 1\" FROM t /* hint */ WHERE x = 1.5e3 -- done"));
+   }
+
+   /**
+    * Executions, update counts, rows and slow executions are counted per normalized statement
+    */
+   @Test
+   public void testRecord()
+   {
+      StatementStatistics stats = new StatementStatistics(10, 100L);
+
+      String select = stats.getKey("SELECT * FROM t WHERE id = 1");
+      assertEquals(select, stats.getKey("SELECT * FROM t WHERE id = 2"));
+
+      String update = stats.getKey("UPDATE t SET x = 'a'");
+
+      stats.recordExecution(select, TimeUnit.MILLISECONDS.toNanos(3L), -1L);
+      stats.recordExecution(select, TimeUnit.MILLISECONDS.toNanos(200L), -1L);
+      stats.recordRowsFetched(select, 7L);
+      stats.recordExecution(update, TimeUnit.MILLISECONDS.toNanos(1L), 4L);
+
+      List<StatementStatistics.Entry> top = stats.getTopExecutions(10);
+      assertEquals(2, top.size());
+
+      StatementStatistics.Entry e = top.get(0);
+      assertEquals(select, e.getSql());
+      assertEquals(2L, e.getCount());
+      assertEquals(203L, e.getTotalTime());
+      assertEquals(200L, e.getMaxTime());
+      assertEquals(7L, e.getRowsFetched());
+      assertEquals(1L, e.getSlowCount());
+
+      long[] histogram = e.getHistogram();
+      assertEquals(e.getHistogramBounds().length + 1, histogram.length);
+      assertEquals(1L, histogram[2]);
+      assertEquals(1L, histogram[7]);
+
+      assertEquals(update, stats.getTopUpdateCount(1).get(0).getSql());
+      assertEquals(4L, stats.getTopUpdateCount(1).get(0).getUpdateCount());
+
+      List<StatementStatistics.Entry> slow = stats.getSlowStatements(10);
+      assertEquals(1, slow.size());
+      assertEquals(select, slow.get(0).getSql());
+
+      // The entries are snapshots, so later executions don't change them
+      stats.recordExecution(select, TimeUnit.MILLISECONDS.toNanos(1L), -1L);
+      assertEquals(2L, e.getCount());
+      assertEquals(3L, stats.getTopExecutions(1).get(0).getCount());
+
+      stats.reset();
+      assertEquals(0, stats.size());
+   }
+
+   /**
+    * The table is bounded, and a new statement replaces the one with the fewest executions
+    */
+   @Test
+   public void testBounded()
+   {
+      StatementStatistics stats = new StatementStatistics(2, 1000L);
+
+      for (int i = 0; i < 5; i++)
+         stats.recordExecution("A", 1L, -1L);
+
+      stats.recordExecution("B", 1L, -1L);
+      stats.recordExecution("C", 1L, -1L);
+
+      assertEquals(2, stats.size());
+
+      List<StatementStatistics.Entry> top = stats.getTopExecutions(2);
+      assertEquals("A", top.get(0).getSql());
+      assertEquals("C", top.get(1).getSql());
+      assertEquals(1L, top.get(1).getError());
+      assertTrue(top.get(1).toString().contains("error=1"));
+   }
+
+   /**
+    * A statement executed once doesn't replace a statement executed more often
+    */
+   @Test
+   public void testAdmission()
+   {
+      StatementStatistics stats = new StatementStatistics(2, 1000L);
+
+      for (int i = 0; i < 5; i++)
+         stats.recordExecution("A", 1L, -1L);
+
+      for (int i = 0; i < 3; i++)
+         stats.recordExecution("B", 1L, -1L);
+
+      stats.recordExecution("C", 1L, -1L);
+
+      List<StatementStatistics.Entry> top = stats.getTopExecutions(2);
+      assertEquals("A", top.get(0).getSql());
+      assertEquals("B", top.get(1).getSql());
+
+      stats.recordExecution("C", 1L, -1L);
+      stats.recordExecution("C", 1L, -1L);
+
+      top = stats.getTopExecutions(2);
+      assertEquals("A", top.get(0).getSql());
+      assertEquals("C", top.get(1).getSql());
+      assertEquals(3L, top.get(1).getError());
+      assertEquals(4L, top.get(1).getCount());
+   }
+
+   /**
+    * The normalized text of SQL is bounded, and forgotten on a reset
+    */
+   @Test
+   public void testNormalizedBounded()
+   {
+      StatementStatistics stats = new StatementStatistics(10, 1000L);
+
+      for (int i = 0; i < 5000; i++)
+         assertEquals("SELECT x FROM t" + i + " WHERE id = ?",
+                      stats.getKey("SELECT x FROM t" + i + " WHERE id = " + i));
+
+      stats.reset();
+      assertEquals("SELECT x FROM t WHERE id = ?", stats.getKey("SELECT x FROM t WHERE id = 1"));
+   }
+}
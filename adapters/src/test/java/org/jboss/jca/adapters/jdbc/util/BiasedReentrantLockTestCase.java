@@ -0,0 +1,287 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BiasedReentrantLock test case
+ */
+public class BiasedReentrantLockTestCase
+{
+   /**
+    * The bias owner locks reentrantly without revoking the bias
+    */
+   @Test
+   public void testBiasedOwner()
+   {
+      BiasedReentrantLock lock = new BiasedReentrantLock(true);
+
+      lock.lock();
+      lock.lock();
+
+      assertTrue(lock.isBiased());
+      assertTrue(lock.isLocked());
+      assertTrue(lock.isHeldByCurrentThread());
+      assertEquals(2, lock.getHoldCount());
+      assertEquals(Thread.currentThread(), lock.getOwner());
+
+      lock.unlock();
+      lock.unlock();
+
+      assertFalse(lock.isLocked());
+      assertFalse(lock.isHeldByCurrentThread());
+      assertTrue(lock.isBiased());
+   }
+
+   /**
+    * A second thread revokes the bias, and waits for the owner to release the lock
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testRevoke() throws Throwable
+   {
+      final BiasedReentrantLock lock = new BiasedReentrantLock(true);
+      final CountDownLatch acquired = new CountDownLatch(1);
+      final AtomicBoolean timedOut = new AtomicBoolean(false);
+
+      lock.lock();
+
+      Thread t = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               timedOut.set(!lock.tryLock(100, TimeUnit.MILLISECONDS));
+
+               lock.lock();
+               acquired.countDown();
+               lock.unlock();
+            }
+            catch (InterruptedException ie)
+            {
+               // Ignore
+            }
+         }
+      });
+      t.start();
+
+      assertFalse(acquired.await(500, TimeUnit.MILLISECONDS));
+      assertTrue(timedOut.get());
+      assertFalse(lock.isBiased());
+      assertTrue(lock.getQueuedThreads().contains(t));
+
+      lock.unlock();
+
+      assertTrue(acquired.await(5, TimeUnit.SECONDS));
+      t.join();
+
+      assertFalse(lock.isLocked());
+      assertTrue(lock.rebias());
+      assertTrue(lock.isBiased());
+   }
+
+   /**
+    * Mutual exclusion holds while the bias is revoked under contention
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testMutualExclusion() throws Throwable
+   {
+      final BiasedReentrantLock lock = new BiasedReentrantLock(true);
+      final int[] counter = new int[1];
+      final int threads = 4;
+      final int iterations = 20000;
+
+      Thread[] workers = new Thread[threads];
+      for (int i = 0; i < threads; i++)
+      {
+         workers[i] = new Thread(new Runnable()
+         {
+            public void run()
+            {
+               for (int j = 0; j < iterations; j++)
+               {
+                  lock.lock();
+                  try
+                  {
+                     counter[0] = counter[0] + 1;
+                  }
+                  finally
+                  {
+                     lock.unlock();
+                  }
+
+                  if (j % 1000 == 0)
+                     lock.rebias();
+               }
+            }
+         });
+      }
+
+      for (Thread worker : workers)
+         worker.start();
+
+      for (Thread worker : workers)
+         worker.join();
+
+      assertEquals(threads * iterations, counter[0]);
+      assertFalse(lock.isLocked());
+   }
+
+   /**
+    * An interrupt stops lockInterruptibly while it waits for the bias owner
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testLockInterruptiblyDuringRevoke() throws Throwable
+   {
+      final BiasedReentrantLock lock = new BiasedReentrantLock(true);
+      final CountDownLatch interrupted = new CountDownLatch(1);
+
+      lock.lock();
+
+      Thread t = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               lock.lockInterruptibly();
+               lock.unlock();
+            }
+            catch (InterruptedException ie)
+            {
+               interrupted.countDown();
+            }
+         }
+      });
+      t.start();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!lock.getQueuedThreads().contains(t) && System.nanoTime() < deadline)
+         Thread.sleep(10);
+
+      assertTrue(lock.getQueuedThreads().contains(t));
+
+      t.interrupt();
+
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      t.join();
+
+      assertFalse(lock.hasQueuedOrRevokingThreads());
+      assertTrue(lock.isHeldByCurrentThread());
+
+      lock.unlock();
+      assertFalse(lock.isLocked());
+   }
+
+   /**
+    * A failed tryLock leaves the bias in place
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testTryLockKeepsBias() throws Throwable
+   {
+      final BiasedReentrantLock lock = new BiasedReentrantLock(true);
+      final AtomicBoolean acquired = new AtomicBoolean(true);
+
+      lock.lock();
+
+      Thread t = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            acquired.set(lock.tryLock());
+         }
+      });
+      t.start();
+      t.join();
+
+      assertFalse(acquired.get());
+      assertTrue(lock.isBiased());
+      assertFalse(lock.hasQueuedOrRevokingThreads());
+
+      lock.unlock();
+      assertFalse(lock.isLocked());
+   }
+
+   /**
+    * The bias owner can wait on a condition, which moves its holds to the underlying lock
+    * @exception Throwable Thrown if an error occurs
+    */
+   @Test
+   public void testCondition() throws Throwable
+   {
+      final BiasedReentrantLock lock = new BiasedReentrantLock(true);
+      final Condition condition = lock.newCondition();
+      final AtomicBoolean ready = new AtomicBoolean(false);
+
+      lock.lock();
+      lock.lock();
+      assertTrue(lock.isBiased());
+
+      Thread t = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            lock.lock();
+            try
+            {
+               ready.set(true);
+               condition.signalAll();
+            }
+            finally
+            {
+               lock.unlock();
+            }
+         }
+      });
+      t.start();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!ready.get() && System.nanoTime() < deadline)
+         condition.await(100, TimeUnit.MILLISECONDS);
+
+      assertTrue(ready.get());
+      assertFalse(lock.isBiased());
+      assertTrue(lock.isHeldByCurrentThread());
+      assertEquals(2, lock.getHoldCount());
+
+      lock.unlock();
+      lock.unlock();
+      t.join();
+
+      assertFalse(lock.isLocked());
+   }
+}
@@ -0,0 +1,156 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.adapters.jdbc.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * TinyLFUCache test case
+ */
+public class TinyLFUCacheTestCase
+{
+   /**
+    * Basic operations
+    */
+   @Test
+   public void testOperations()
+   {
+      TinyLFUCache<String, String> cache = new TinyLFUCache<String, String>(10);
+
+      cache.insert("a", "A");
+      cache.insert("b", "B");
+
+      assertEquals(2, cache.size());
+      assertEquals("A", cache.get("a"));
+      assertEquals("B", cache.peek("b"));
+      assertNull(cache.get("c"));
+
+      try
+      {
+         cache.insert("a", "A");
+         fail("Duplicate insert");
+      }
+      catch (IllegalStateException ise)
+      {
+         // Ok
+      }
+
+      cache.remove("a");
+      assertNull(cache.get("a"));
+      assertEquals(1, cache.size());
+   }
+
+   /**
+    * Every entry leaving the cache is reported to the listener
+    */
+   @Test
+   public void testEviction()
+   {
+      TinyLFUCache<Integer, Integer> cache = new TinyLFUCache<Integer, Integer>(20);
+      final List<Integer> evicted = new ArrayList<Integer>();
+
+      cache.setListener(new CacheListener<Integer>()
+      {
+         public void onEviction(Integer value)
+         {
+            evicted.add(value);
+         }
+      });
+
+      for (int i = 0; i < 100; i++)
+      {
+         cache.insert(Integer.valueOf(i), Integer.valueOf(i));
+         assertTrue(cache.size() <= 20);
+      }
+
+      assertEquals(20, cache.size());
+      assertEquals(80, evicted.size());
+
+      cache.flush();
+
+      assertEquals(0, cache.size());
+      assertEquals(100, evicted.size());
+   }
+
+   /**
+    * Frequently used entries survive a scan of one-off entries
+    */
+   @Test
+   public void testScanResistance()
+   {
+      TinyLFUCache<String, String> cache = new TinyLFUCache<String, String>(100);
+
+      for (int i = 0; i < 50; i++)
+         cache.insert("hot" + i, "hot" + i);
+
+      for (int round = 0; round < 5; round++)
+      {
+         for (int i = 0; i < 50; i++)
+            assertNotNull(cache.get("hot" + i));
+      }
+
+      for (int i = 0; i < 1000; i++)
+      {
+         cache.insert("cold" + i, "cold" + i);
+         cache.get("hot" + (i % 50));
+      }
+
+      int hot = 0;
+      for (int i = 0; i < 50; i++)
+      {
+         if (cache.peek("hot" + i) != null)
+            hot++;
+      }
+
+      assertTrue("Hot entries retained: " + hot, hot >= 45);
+      assertEquals(100, cache.size());
+   }
+
+   /**
+    * The frequency sketch counts and ages
+    */
+   @Test
+   public void testFrequencySketch()
+   {
+      TinyLFUCache.FrequencySketch sketch = new TinyLFUCache.FrequencySketch(16);
+
+      for (int i = 0; i < 10; i++)
+         sketch.increment("key");
+
+      assertTrue(sketch.frequency("key") >= 10);
+      assertTrue(sketch.frequency("other") <= 1);
+
+      sketch.reset();
+
+      assertTrue(sketch.frequency("key") >= 5 && sketch.frequency("key") < 10);
+   }
+}
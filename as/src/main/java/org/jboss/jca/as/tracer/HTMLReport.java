@@ -26,16 +26,24 @@ import org.jboss.jca.Version;
 import org.jboss.jca.core.tracer.TraceEvent;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 /**
  * HTML report generator for a tracer log
@@ -44,6 +52,24 @@ public class HTMLReport
 {
    private static final String NEW_LINE = System.getProperty("line.separator", "\n");
 
+   /** The pool name of the cached connection manager events */
+   private static final String CCM = "CachedConnectionManager";
+
+   /** The unit of the memory budget of the pool reports, in bytes */
+   private static final long MEMORY_UNIT = 1024L;
+
+   /** The memory used by parsed events and their interactions, relative to their text */
+   private static final long MEMORY_EXPANSION = 4L;
+
+   /** The timestamp order */
+   private static final Comparator<TraceEvent> TIMESTAMP = new Comparator<TraceEvent>()
+   {
+      public int compare(TraceEvent e1, TraceEvent e2)
+      {
+         return Long.compare(e1.getTimestamp(), e2.getTimestamp());
+      }
+   };
+
    /**
     * Write string
     * @param fw The file writer
@@ -2155,227 +2181,139 @@ public class HTMLReport
       }
 
       File logFile = new File(args[argCount]);
-      FileReader logReader = null;
 
       String rootDirectory = "report";
       if (args.length > argCount + 1)
          rootDirectory = args[argCount + 1];
 
-      File root = new File(rootDirectory);
+      final boolean delist = ignoreDelist;
+      final boolean tracking = ignoreTracking;
+      final boolean incomplete = ignoreIncomplete;
+      final boolean sdedit = noSDedit;
+      final File root = new File(rootDirectory);
 
       try
       {
-         logReader = new FileReader(logFile);
          root.mkdirs();
 
-         List<TraceEvent> events = TraceEventHelper.getEvents(logReader, root);
-         Map<String, List<Interaction>> poolData =
-            TraceEventHelper.getPoolData(TraceEventHelper.filterPoolEvents(events),
-                                         ignoreDelist, ignoreTracking, ignoreIncomplete);
-         Map<String, List<TraceEvent>> filteredLifecycle = TraceEventHelper.filterLifecycleEvents(events);
-         List<TraceEvent> filteredCCM = TraceEventHelper.filterCCMEvents(events);
-         Map<String, List<TraceEvent>> filteredCCMPool = TraceEventHelper.filterCCMPoolEvents(events);
-         Map<String, Set<String>> poolMCPs = TraceEventHelper.poolManagedConnectionPools(events);
-         Map<String, List<TraceEvent>> tocConnections = TraceEventHelper.tocConnections(events);
-         Map<String, TraceEvent> tocManagedConnections = TraceEventHelper.tocManagedConnections(events);
-         Map<String, List<TraceEvent>> tocConnectionListeners = TraceEventHelper.tocConnectionListeners(events);
-         Map<String, List<TraceEvent>> tocMCPs = TraceEventHelper.tocManagedConnectionPools(events);
+         final TraceIndex index = TraceIndex.build(logFile, root);
 
          // CCM status calculation
+         List<TraceEvent> filteredCCM = TraceEventHelper.filterCCMEvents(index.getEvents(CCM));
          TraceEventStatus ccmStatus = TraceEventHelper.getCCMStatus(filteredCCM, ignoreIncomplete);
-         Map<String, TraceEventStatus> ccmPoolStatus = new TreeMap<String, TraceEventStatus>();
-         for (Map.Entry<String, List<TraceEvent>> entry : filteredCCMPool.entrySet())
-         {
-            ccmPoolStatus.put(entry.getKey(), TraceEventHelper.getCCMPoolStatus(entry.getValue(), ignoreIncomplete));
-         }
-
-         // Overall pool status
-         Map<String, TraceEventStatus> overallPoolStatus = new TreeMap<String, TraceEventStatus>();
-         
-         for (String poolName : filteredLifecycle.keySet())
-         {
-            List<Interaction> interactions = poolData.get(poolName);
-
-            overallPoolStatus.put(poolName, TraceEventStatus.GREEN);
-
-            if (interactions != null)
-            {
-               List<TraceEventStatus> statuses = new ArrayList<TraceEventStatus>();
-
-               for (Interaction interaction : interactions)
-                  statuses.add(interaction.getStatus());
-
-               overallPoolStatus.put(poolName, TraceEventHelper.mergeStatus(statuses));
-            }
-         }
 
-         FileWriter topLevel = null;
+         // Pools, one at a time per processor, as long as their events fit in the memory budget
+         Map<String, PoolReport> reports = new TreeMap<String, PoolReport>();
+         final Semaphore memory = new Semaphore(getMemoryBudget(), true);
+         ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
          try
          {
-            topLevel = new FileWriter(root.getAbsolutePath() + "/" + "index.html");
-            generateTopLevelIndexHTML(filteredLifecycle.keySet(), overallPoolStatus,
-                                      ccmStatus, ccmPoolStatus,
-                                      TraceEventHelper.getVersion(events), topLevel);
-         }
-         finally
-         {
-            if (topLevel != null)
-            {
-               try
-               {
-                  topLevel.flush();
-                  topLevel.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
-         }
-
+            Map<String, Future<PoolReport>> futures = new TreeMap<String, Future<PoolReport>>();
 
-         for (String poolName : filteredLifecycle.keySet())
-         {
-            List<Interaction> data = poolData.get(poolName);
-
-            FileWriter pool = null;
-            try
+            for (final String poolName : index.getPools())
             {
-               String path = root.getAbsolutePath() + "/" + poolName;
-               File f = new File(path);
-               f.mkdirs();
+               final int units = (int)Math.min(memory.availablePermits(), getMemoryEstimate(index, poolName));
 
-               Map<String, TraceEventStatus> clStatus = new TreeMap<String, TraceEventStatus>();
-               if (data != null)
+               futures.put(poolName, executor.submit(new Callable<PoolReport>()
                {
-                  Map<String, List<Interaction>> clInteractions = TraceEventHelper.getConnectionListenerData(data);
-                  
-                  Iterator<Map.Entry<String, List<Interaction>>> dataIt = clInteractions.entrySet().iterator();
-                  while (dataIt.hasNext())
+                  public PoolReport call() throws Exception
                   {
-                     Map.Entry<String, List<Interaction>> dataEntry = dataIt.next();
-                     String identifier = dataEntry.getKey();
-
-                     // Calculate connection listener status
-                     List<TraceEventStatus> clStatuses = new ArrayList<TraceEventStatus>();
-
-                     for (Interaction interaction : dataEntry.getValue())
-                        clStatuses.add(interaction.getStatus());
-
-                     TraceEventStatus currentCLStatus = TraceEventHelper.mergeStatus(clStatuses);
-                     clStatus.put(identifier, currentCLStatus);
-                     
-                     FileWriter cl = null;
+                     memory.acquire(units);
                      try
                      {
-                        String clPath = path + "/" + identifier;
-                        File clF = new File(clPath);
-                        clF.mkdirs();
-
-                        cl = new FileWriter(clF.getAbsolutePath() + "/" + "index.html");
-
-                        TraceEvent createCallStack =
-                           TraceEventHelper.getType(events, identifier,
-                                                    TraceEvent.CREATE_CONNECTION_LISTENER_GET,
-                                                    TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL,
-                                                    TraceEvent.CREATE_CONNECTION_LISTENER_INCREMENTER);
-                        
-                        TraceEvent destroyCallStack =
-                           TraceEventHelper.getType(events, identifier,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_RETURN,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_IDLE,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_INVALID,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_FLUSH,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_ERROR,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_PREFILL,
-                                                    TraceEvent.DESTROY_CONNECTION_LISTENER_INCREMENTER);
-                        
-                        generateConnectionListenerIndexHTML(identifier, dataEntry.getValue(),
-                                                            currentCLStatus,
-                                                            createCallStack, destroyCallStack,
-                                                            noSDedit, clPath, cl);
+                        return generatePool(index, poolName, root, delist, tracking, incomplete, sdedit);
                      }
                      finally
                      {
-                        if (cl != null)
-                        {
-                           try
-                           {
-                              cl.flush();
-                              cl.close();
-                           }
-                           catch (Exception e)
-                           {
-                              // Ignore
-                           }
-                        }
+                        memory.release(units);
                      }
                   }
-               }
-
-               pool = new FileWriter(f.getAbsolutePath() + "/" + "index.html");
-               generatePoolIndexHTML(poolName, overallPoolStatus.get(poolName), poolMCPs.get(poolName), clStatus, pool);
+               }));
             }
-            finally
+
+            for (Map.Entry<String, Future<PoolReport>> entry : futures.entrySet())
             {
-               if (pool != null)
-               {
-                  try
-                  {
-                     pool.flush();
-                     pool.close();
-                  }
-                  catch (Exception e)
-                  {
-                     // Ignore
-                  }
-               }
+               reports.put(entry.getKey(), entry.getValue().get());
             }
          }
-
-         Set<String> activeCLs = new HashSet<String>();
-         for (List<Interaction> interactions : poolData.values())
+         finally
          {
-            for (Interaction interaction : interactions)
-               activeCLs.add(interaction.getConnectionListener());
+            executor.shutdown();
          }
 
-         Iterator<Map.Entry<String, List<TraceEvent>>> lifeIt = filteredLifecycle.entrySet().iterator();
-         while (lifeIt.hasNext())
+         Map<String, TraceEventStatus> overallPoolStatus = new TreeMap<String, TraceEventStatus>();
+         Map<String, TraceEventStatus> ccmPoolStatus = new TreeMap<String, TraceEventStatus>();
+         Map<String, List<TraceEvent>> tocConnections = new TreeMap<String, List<TraceEvent>>();
+         Map<String, TraceEvent> tocManagedConnections = new TreeMap<String, TraceEvent>();
+         Map<String, List<TraceEvent>> tocConnectionListeners = new TreeMap<String, List<TraceEvent>>();
+         Map<String, List<TraceEvent>> tocMCPs = new TreeMap<String, List<TraceEvent>>();
+         List<Interaction> allInteractions = new ArrayList<Interaction>();
+
+         for (Map.Entry<String, PoolReport> entry : reports.entrySet())
          {
-            Map.Entry<String, List<TraceEvent>> entry = lifeIt.next();
+            PoolReport report = entry.getValue();
 
-            FileWriter lifecycle = null;
-            try
+            if (report.overallStatus != null)
+               overallPoolStatus.put(entry.getKey(), report.overallStatus);
+
+            if (report.ccmStatus != null)
+               ccmPoolStatus.put(entry.getKey(), report.ccmStatus);
+
+            for (Map.Entry<String, List<TraceEvent>> toc : report.tocConnections.entrySet())
             {
-               String path = root.getAbsolutePath() + "/" + entry.getKey();
-               File f = new File(path);
-               f.mkdirs();
+               List<TraceEvent> l = tocConnections.get(toc.getKey());
 
-               lifecycle = new FileWriter(path + "/" + "lifecycle.html");
-               generateLifecycleHTML(entry.getKey(), entry.getValue(), activeCLs, lifecycle);
+               if (l == null)
+               {
+                  l = new ArrayList<TraceEvent>();
+                  tocConnections.put(toc.getKey(), l);
+               }
+
+               l.addAll(toc.getValue());
             }
-            finally
+
+            for (Map.Entry<String, TraceEvent> toc : report.tocManagedConnections.entrySet())
             {
-               if (lifecycle != null)
+               TraceEvent te = tocManagedConnections.get(toc.getKey());
+
+               if (te == null || te.getTimestamp() < toc.getValue().getTimestamp())
+                  tocManagedConnections.put(toc.getKey(), toc.getValue());
+            }
+
+            mergeFirst(tocConnectionListeners, report.tocConnectionListeners);
+            mergeFirst(tocMCPs, report.tocMCPs);
+
+            allInteractions.addAll(report.interactions);
+         }
+
+         for (List<TraceEvent> l : tocConnections.values())
+         {
+            Collections.sort(l, new Comparator<TraceEvent>()
+            {
+               public int compare(TraceEvent e1, TraceEvent e2)
                {
-                  try
-                  {
-                     lifecycle.flush();
-                     lifecycle.close();
-                  }
-                  catch (Exception e)
-                  {
-                     // Ignore
-                  }
+                  return Long.compare(e1.getTimestamp(), e2.getTimestamp());
                }
-            }
+            });
+         }
+
+         FileWriter topLevel = null;
+         try
+         {
+            topLevel = new FileWriter(root.getAbsolutePath() + "/" + "index.html");
+            generateTopLevelIndexHTML(index.getLifecyclePools(), overallPoolStatus,
+                                      ccmStatus, ccmPoolStatus,
+                                      index.getVersion(), topLevel);
+         }
+         finally
+         {
+            close(topLevel);
          }
 
          FileWriter ccm = null;
          try
          {
-            String path = root.getAbsolutePath() + "/CachedConnectionManager";
+            String path = root.getAbsolutePath() + "/" + CCM;
             File f = new File(path);
             f.mkdirs();
 
@@ -2390,202 +2328,415 @@ public class HTMLReport
          }
          finally
          {
-            if (ccm != null)
-            {
-               try
-               {
-                  ccm.flush();
-                  ccm.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
-         }
-
-         Iterator<String> ccmIt = filteredLifecycle.keySet().iterator();
-         while (ccmIt.hasNext())
-         {
-            String ccmPoolKey = ccmIt.next();
-            List<TraceEvent> ccmPoolEvents = filteredCCMPool.get(ccmPoolKey);
-            TraceEventStatus ccmPStatus = ccmPoolStatus.get(ccmPoolKey);
-
-            ccm = null;
-            try
-            {
-               String path = root.getAbsolutePath() + "/" + ccmPoolKey;
-               File f = new File(path);
-               f.mkdirs();
-
-               if (ccmPoolEvents == null)
-                  ccmPoolEvents = new ArrayList<TraceEvent>();
-            
-               if (ccmPStatus == null)
-                  ccmPStatus = TraceEventStatus.GREEN;
-            
-               ccm = new FileWriter(path + "/" + "ccm.html");
-               generateCCMPoolHTML(ccmPoolKey, ccmPoolEvents, ccmPStatus, ccm);
-            }
-            finally
-            {
-               if (ccm != null)
-               {
-                  try
-                  {
-                     ccm.flush();
-                     ccm.close();
-                  }
-                  catch (Exception e)
-                  {
-                     // Ignore
-                  }
-               }
-            }
+            close(ccm);
          }
 
          // Reference
          FileWriter tocC = null;
          try
          {
-            String path = root.getAbsolutePath();
-
-            tocC = new FileWriter(path + "/" + "toc-c.html");
+            tocC = new FileWriter(root.getAbsolutePath() + "/" + "toc-c.html");
             generateToCConnection(tocConnections, tocC);
          }
          finally
          {
-            if (tocC != null)
-            {
-               try
-               {
-                  tocC.flush();
-                  tocC.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
+            close(tocC);
          }
+
          FileWriter tocMC = null;
          try
          {
-            String path = root.getAbsolutePath();
-
-            tocMC = new FileWriter(path + "/" + "toc-mc.html");
+            tocMC = new FileWriter(root.getAbsolutePath() + "/" + "toc-mc.html");
             generateToCManagedConnection(tocManagedConnections, tocMC);
          }
          finally
          {
-            if (tocMC != null)
-            {
-               try
-               {
-                  tocMC.flush();
-                  tocMC.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
+            close(tocMC);
          }
+
          FileWriter tocCL = null;
          try
          {
-            String path = root.getAbsolutePath();
-
-            tocCL = new FileWriter(path + "/" + "toc-cl.html");
+            tocCL = new FileWriter(root.getAbsolutePath() + "/" + "toc-cl.html");
             generateToCConnectionListener(tocConnectionListeners, tocCL);
          }
          finally
          {
-            if (tocCL != null)
-            {
-               try
-               {
-                  tocCL.flush();
-                  tocCL.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
+            close(tocCL);
          }
+
          FileWriter tocMCP = null;
          try
          {
-            String path = root.getAbsolutePath();
-
-            tocMCP = new FileWriter(path + "/" + "toc-mcp.html");
+            tocMCP = new FileWriter(root.getAbsolutePath() + "/" + "toc-mcp.html");
             generateToCManagedConnectionPool(tocMCPs, tocMCP);
          }
          finally
          {
-            if (tocMCP != null)
-            {
-               try
-               {
-                  tocMCP.flush();
-                  tocMCP.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
+            close(tocMCP);
          }
 
          // Transaction
          FileWriter transaction = null;
          try
          {
-            List<Interaction> allInteractions = new ArrayList<Interaction>();
-            
-            for (List<Interaction> interactions : poolData.values())
-               allInteractions.addAll(interactions);
-
             Map<String, List<Interaction>> transactionData = TraceEventHelper.getTransactionData(allInteractions);
-            String path = root.getAbsolutePath();
 
-            transaction = new FileWriter(path + "/" + "transaction.html");
+            transaction = new FileWriter(root.getAbsolutePath() + "/" + "transaction.html");
             generateTransaction(transactionData, transaction);
          }
          finally
          {
-            if (transaction != null)
-            {
-               try
-               {
-                  transaction.flush();
-                  transaction.close();
-               }
-               catch (Exception e)
-               {
-                  // Ignore
-               }
-            }
+            close(transaction);
          }
+
+         index.delete();
       }
       catch (Exception e)
       {
          e.printStackTrace();
       }
-      finally
+   }
+
+   /**
+    * Get the memory budget of the pool reports
+    * @return The number of units of <code>MEMORY_UNIT</code> bytes
+    */
+   private static int getMemoryBudget()
+   {
+      long max = Runtime.getRuntime().maxMemory();
+      if (max == Long.MAX_VALUE)
+         max = Runtime.getRuntime().totalMemory();
+
+      // Leave room for the data kept for the top-level reports
+      return (int)Math.max(1L, Math.min(Integer.MAX_VALUE, max / 2 / MEMORY_UNIT));
+   }
+
+   /**
+    * Estimate the memory used by the report of a pool, which loads the events of one connection
+    * listener at a time, and keeps the lifecycle and cached connection manager events of the pool
+    * @param index The index
+    * @param poolName The name of the pool
+    * @return The number of units of <code>MEMORY_UNIT</code> bytes
+    */
+   private static long getMemoryEstimate(TraceIndex index, String poolName)
+   {
+      long size = index.getLargestConnectionListenerSize(poolName) + index.getSummarySize(poolName);
+      return Math.max(1L, size * MEMORY_EXPANSION / MEMORY_UNIT);
+   }
+
+   /**
+    * Generate the report of a pool, one connection listener at a time
+    * @param index The index
+    * @param poolName The name of the pool
+    * @param root The report directory
+    * @param ignoreDelist Should DELIST be ignored
+    * @param ignoreTracking Should TRACKING be ignored
+    * @param ignoreIncomplete Ignore incomplete traces
+    * @param noSDedit Should SDedit graphs be skipped
+    * @return The data of the pool needed by the top-level reports
+    * @exception Exception If an error occurs
+    */
+   private static PoolReport generatePool(TraceIndex index, String poolName, File root,
+                                          boolean ignoreDelist, boolean ignoreTracking,
+                                          boolean ignoreIncomplete, boolean noSDedit)
+      throws Exception
+   {
+      PoolReport report = new PoolReport();
+      boolean lifecycle = index.getLifecyclePools().contains(poolName);
+
+      String path = root.getAbsolutePath() + "/" + poolName;
+      File f = new File(path);
+      if (lifecycle)
+         f.mkdirs();
+
+      List<TraceEvent> lifecycleEvents = new ArrayList<TraceEvent>();
+      List<TraceEvent> ccmPoolEvents = null;
+      Set<String> mcps = null;
+      List<TraceEventStatus> statuses = new ArrayList<TraceEventStatus>();
+      Map<String, TraceEventStatus> clStatus = new TreeMap<String, TraceEventStatus>();
+      Set<String> activeCLs = new HashSet<String>();
+
+      for (String connectionListener : index.getConnectionListeners(poolName))
       {
-         if (logReader != null)
+         List<TraceEvent> events = index.getEvents(poolName, connectionListener);
+
+         List<Interaction> data =
+            TraceEventHelper.getPoolData(TraceEventHelper.filterPoolEvents(events),
+                                         ignoreDelist, ignoreTracking, ignoreIncomplete).get(poolName);
+         List<TraceEvent> clLifecycleEvents = TraceEventHelper.filterLifecycleEvents(events).get(poolName);
+         List<TraceEvent> clCCMPoolEvents = TraceEventHelper.filterCCMPoolEvents(events).get(poolName);
+         Set<String> clMCPs = TraceEventHelper.poolManagedConnectionPools(events).get(poolName);
+
+         if (clLifecycleEvents != null)
+            lifecycleEvents.addAll(clLifecycleEvents);
+
+         if (clCCMPoolEvents != null)
+         {
+            if (ccmPoolEvents == null)
+               ccmPoolEvents = new ArrayList<TraceEvent>();
+
+            ccmPoolEvents.addAll(clCCMPoolEvents);
+         }
+
+         if (clMCPs != null)
          {
+            if (mcps == null)
+               mcps = new TreeSet<String>();
+
+            mcps.addAll(clMCPs);
+         }
+
+         addReferences(report, events);
+
+         if (data == null)
+            continue;
+
+         for (Interaction interaction : data)
+         {
+            statuses.add(interaction.getStatus());
+
+            if (interaction.getTransaction() != null)
+               report.interactions.add(interaction.summary());
+         }
+
+         if (!lifecycle)
+            continue;
+
+         // The creation and destruction of the connection listener
+         Map<String, TraceEvent> created = new HashMap<String, TraceEvent>();
+         Map<String, TraceEvent> destroyed = new HashMap<String, TraceEvent>();
+
+         if (clLifecycleEvents != null)
+         {
+            for (TraceEvent te : clLifecycleEvents)
+            {
+               if (te.getType() == TraceEvent.CREATE_CONNECTION_LISTENER_GET ||
+                   te.getType() == TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL ||
+                   te.getType() == TraceEvent.CREATE_CONNECTION_LISTENER_INCREMENTER)
+               {
+                  if (!created.containsKey(te.getConnectionListener()))
+                     created.put(te.getConnectionListener(), te);
+               }
+               else if (te.getType() != TraceEvent.MANAGED_CONNECTION_POOL_CREATE &&
+                        te.getType() != TraceEvent.MANAGED_CONNECTION_POOL_DESTROY)
+               {
+                  if (!destroyed.containsKey(te.getConnectionListener()))
+                     destroyed.put(te.getConnectionListener(), te);
+               }
+            }
+         }
+
+         Map<String, List<Interaction>> clInteractions = TraceEventHelper.getConnectionListenerData(data);
+
+         for (Map.Entry<String, List<Interaction>> dataEntry : clInteractions.entrySet())
+         {
+            String identifier = dataEntry.getKey();
+            activeCLs.add(identifier);
+
+            // Calculate connection listener status
+            List<TraceEventStatus> clStatuses = new ArrayList<TraceEventStatus>();
+
+            for (Interaction interaction : dataEntry.getValue())
+               clStatuses.add(interaction.getStatus());
+
+            TraceEventStatus currentCLStatus = TraceEventHelper.mergeStatus(clStatuses);
+            clStatus.put(identifier, currentCLStatus);
+
+            FileWriter cl = null;
             try
             {
-               logReader.close();
+               String clPath = path + "/" + identifier;
+               File clF = new File(clPath);
+               clF.mkdirs();
+
+               cl = new FileWriter(clF.getAbsolutePath() + "/" + "index.html");
+
+               generateConnectionListenerIndexHTML(identifier, dataEntry.getValue(),
+                                                   currentCLStatus,
+                                                   created.get(identifier), destroyed.get(identifier),
+                                                   noSDedit, clPath, cl);
             }
-            catch (Exception e)
+            finally
             {
-               // Ignore
+               close(cl);
             }
          }
       }
+
+      // The connection listeners are interleaved in time
+      Collections.sort(lifecycleEvents, TIMESTAMP);
+      Collections.sort(report.interactions, new Comparator<Interaction>()
+      {
+         public int compare(Interaction i1, Interaction i2)
+         {
+            return Long.compare(i1.getEndTime(), i2.getEndTime());
+         }
+      });
+
+      if (ccmPoolEvents != null)
+      {
+         Collections.sort(ccmPoolEvents, TIMESTAMP);
+         report.ccmStatus = TraceEventHelper.getCCMPoolStatus(ccmPoolEvents, ignoreIncomplete);
+      }
+
+      if (!lifecycle)
+         return report;
+
+      // Overall pool status
+      report.overallStatus = TraceEventStatus.GREEN;
+
+      if (!statuses.isEmpty())
+         report.overallStatus = TraceEventHelper.mergeStatus(statuses);
+
+      FileWriter pool = null;
+      try
+      {
+         pool = new FileWriter(f.getAbsolutePath() + "/" + "index.html");
+         generatePoolIndexHTML(poolName, report.overallStatus, mcps, clStatus, pool);
+      }
+      finally
+      {
+         close(pool);
+      }
+
+      FileWriter lifecycleWriter = null;
+      try
+      {
+         lifecycleWriter = new FileWriter(path + "/" + "lifecycle.html");
+         generateLifecycleHTML(poolName, lifecycleEvents, activeCLs, lifecycleWriter);
+      }
+      finally
+      {
+         close(lifecycleWriter);
+      }
+
+      FileWriter ccm = null;
+      try
+      {
+         ccm = new FileWriter(path + "/" + "ccm.html");
+         generateCCMPoolHTML(poolName, ccmPoolEvents != null ? ccmPoolEvents : new ArrayList<TraceEvent>(),
+                             report.ccmStatus != null ? report.ccmStatus : TraceEventStatus.GREEN, ccm);
+      }
+      finally
+      {
+         close(ccm);
+      }
+
+      return report;
+   }
+
+   /**
+    * Add the references of the events of a connection listener to the report of its pool;
+    * the references only need compact copies of the events
+    * @param report The report
+    * @param events The events
+    * @exception Exception If an error occurs
+    */
+   private static void addReferences(PoolReport report, List<TraceEvent> events) throws Exception
+   {
+      for (Map.Entry<String, List<TraceEvent>> entry : TraceEventHelper.tocConnections(events).entrySet())
+      {
+         List<TraceEvent> l = report.tocConnections.get(entry.getKey());
+
+         if (l == null)
+         {
+            l = new ArrayList<TraceEvent>(entry.getValue().size());
+            report.tocConnections.put(entry.getKey(), l);
+         }
+
+         for (TraceEvent te : entry.getValue())
+            l.add(TraceEventHelper.compact(te, false));
+      }
+
+      for (Map.Entry<String, TraceEvent> entry : TraceEventHelper.tocManagedConnections(events).entrySet())
+      {
+         TraceEvent te = report.tocManagedConnections.get(entry.getKey());
+
+         if (te == null || te.getTimestamp() < entry.getValue().getTimestamp())
+            report.tocManagedConnections.put(entry.getKey(), TraceEventHelper.compact(entry.getValue(), true));
+      }
+
+      Map<String, List<TraceEvent>> first = new TreeMap<String, List<TraceEvent>>();
+      for (Map.Entry<String, List<TraceEvent>> entry : TraceEventHelper.tocConnectionListeners(events).entrySet())
+      {
+         List<TraceEvent> l = new ArrayList<TraceEvent>(1);
+         l.add(TraceEventHelper.compact(entry.getValue().get(0), false));
+         first.put(entry.getKey(), l);
+      }
+      mergeFirst(report.tocConnectionListeners, first);
+
+      first = new TreeMap<String, List<TraceEvent>>();
+      for (Map.Entry<String, List<TraceEvent>> entry :
+              TraceEventHelper.tocManagedConnectionPools(events).entrySet())
+      {
+         List<TraceEvent> l = new ArrayList<TraceEvent>(1);
+         l.add(TraceEventHelper.compact(entry.getValue().get(0), false));
+         first.put(entry.getKey(), l);
+      }
+      mergeFirst(report.tocMCPs, first);
+   }
+
+   /**
+    * Merge references, keeping the first event of each
+    * @param target The target
+    * @param source The source
+    */
+   private static void mergeFirst(Map<String, List<TraceEvent>> target, Map<String, List<TraceEvent>> source)
+   {
+      for (Map.Entry<String, List<TraceEvent>> entry : source.entrySet())
+      {
+         List<TraceEvent> l = target.get(entry.getKey());
+
+         if (l == null || l.get(0).getTimestamp() > entry.getValue().get(0).getTimestamp())
+            target.put(entry.getKey(), entry.getValue());
+      }
+   }
+
+   /**
+    * Close a file writer
+    * @param fw The file writer
+    */
+   private static void close(FileWriter fw)
+   {
+      if (fw != null)
+      {
+         try
+         {
+            fw.flush();
+            fw.close();
+         }
+         catch (Exception e)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * The data of a pool needed by the top-level reports
+    */
+   private static class PoolReport
+   {
+      /** The overall status, if the pool has lifecycle events */
+      TraceEventStatus overallStatus = null;
+
+      /** The CCM status, if the pool has CCM events */
+      TraceEventStatus ccmStatus = null;
+
+      /** ToC: Connections */
+      Map<String, List<TraceEvent>> tocConnections = new TreeMap<String, List<TraceEvent>>();
+
+      /** ToC: Managed connections */
+      Map<String, TraceEvent> tocManagedConnections = new TreeMap<String, TraceEvent>();
+
+      /** ToC: Connection listeners */
+      Map<String, List<TraceEvent>> tocConnectionListeners = new TreeMap<String, List<TraceEvent>>();
+
+      /** ToC: Managed connection pools */
+      Map<String, List<TraceEvent>> tocMCPs = new TreeMap<String, List<TraceEvent>>();
+
+      /** Summaries of the interactions within a transaction */
+      List<Interaction> interactions = new ArrayList<Interaction>();
    }
 }
@@ -49,6 +49,15 @@ public class Interaction
    /** Cached transaction */
    private String transaction;
 
+   /** Pool, if there are no events */
+   private String pool;
+
+   /** Managed connection pool, if there are no events */
+   private String mcp;
+
+   /** Connection listener, if there are no events */
+   private String cl;
+
    /**
     * Constructor
     * @param thread The thread id
@@ -66,6 +75,26 @@ public class Interaction
       this.events = events;
       this.status = status;
       this.transaction = null;
+      this.pool = null;
+      this.mcp = null;
+      this.cl = null;
+   }
+
+   /**
+    * Get a summary of the interaction, without its events
+    * @return The value
+    */
+   public Interaction summary()
+   {
+      Interaction result = new Interaction(thread, startTime, endTime, null, status);
+      result.pool = getPool();
+      result.mcp = getManagedConnectionPool();
+      result.cl = getConnectionListener();
+
+      String tx = getTransaction();
+      result.transaction = tx != null ? tx : "";
+
+      return result;
    }
 
    /**
@@ -97,7 +126,7 @@ public class Interaction
 
    /**
     * Get events
-    * @return The value
+    * @return The value; <code>null</code> for a summary
     */
    public List<TraceEvent> getEvents()
    {
@@ -119,7 +148,7 @@ public class Interaction
     */
    public String getPool()
    {
-      return events.get(0).getPool();
+      return events != null ? events.get(0).getPool() : pool;
    }
 
    /**
@@ -128,7 +157,7 @@ public class Interaction
     */
    public String getManagedConnectionPool()
    {
-      return events.get(0).getManagedConnectionPool();
+      return events != null ? events.get(0).getManagedConnectionPool() : mcp;
    }
 
    /**
@@ -137,7 +166,7 @@ public class Interaction
     */
    public String getConnectionListener()
    {
-      return events.get(0).getConnectionListener();
+      return events != null ? events.get(0).getConnectionListener() : cl;
    }
 
    /**
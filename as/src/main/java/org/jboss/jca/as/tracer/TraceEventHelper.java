@@ -23,6 +23,7 @@
 package org.jboss.jca.as.tracer;
 
 import org.jboss.jca.core.tracer.TraceEvent;
+import org.jboss.jca.core.tracer.TraceFile;
 
 import java.io.File;
 import java.io.FileReader;
@@ -324,6 +325,36 @@ public class TraceEventHelper
       return result;
    }
 
+   /**
+    * Get a compact copy of an event, without its payloads
+    * @param te The event
+    * @param payload Should the first payload be kept
+    * @return The copy
+    */
+   public static TraceEvent compact(TraceEvent te, boolean payload)
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("IJTRACER");
+      sb.append("-");
+      sb.append(te.getPool());
+      sb.append("-");
+      sb.append(te.getManagedConnectionPool());
+      sb.append("-");
+      sb.append(te.getThreadId());
+      sb.append("-");
+      sb.append(te.getType());
+      sb.append("-");
+      sb.append(te.getTimestamp());
+      sb.append("-");
+      sb.append(te.getConnectionListener());
+      sb.append("-");
+      sb.append(payload ? te.getPayload1() : "");
+      sb.append("-");
+
+      return TraceEvent.parse(sb.toString());
+   }
+
    /**
     * Get the events
     * @param fr The file reader
@@ -336,6 +367,51 @@ public class TraceEventHelper
       return getEvents(getData(fr, directory));
    }
 
+   /**
+    * Get the events of a log file, or of a binary trace file
+    * @param file The file
+    * @param directory The directory
+    * @return The events
+    * @exception Exception If an error occurs
+    */
+   public static List<TraceEvent> getEvents(File file, File directory) throws Exception
+   {
+      if (TraceFile.isTraceFile(file))
+      {
+         List<TraceEvent> result = TraceFile.read(file);
+
+         List<String> data = new ArrayList<String>(result.size());
+         for (TraceEvent te : result)
+         {
+            data.add(te.toString());
+         }
+         writeRaw(data, directory);
+
+         return result;
+      }
+
+      FileReader fr = null;
+      try
+      {
+         fr = new FileReader(file);
+         return getEvents(fr, directory);
+      }
+      finally
+      {
+         if (fr != null)
+         {
+            try
+            {
+               fr.close();
+            }
+            catch (IOException ignore)
+            {
+               // Ignore
+            }
+         }
+      }
+   }
+
    /**
     * Get status
     * @param input The input
@@ -1090,13 +1166,26 @@ public class TraceEventHelper
          s = r.readLine();
       }
 
+      writeRaw(result, directory);
+
+      return result;
+   }
+
+   /**
+    * Write the raw data
+    * @param data The data
+    * @param directory The directory
+    * @exception Exception If an error occurs
+    */
+   private static void writeRaw(List<String> data, File directory) throws Exception
+   {
       FileWriter fw = null;
       try
       {
          fw = new FileWriter(directory.getAbsolutePath() + "/" + "raw.txt");
-         for (String data : result)
+         for (String s : data)
          {
-            HTMLReport.writeString(fw, data);
+            HTMLReport.writeString(fw, s);
             HTMLReport.writeEOL(fw);
          }
       }
@@ -1115,9 +1204,6 @@ public class TraceEventHelper
             }
          }
       }
-
-      
-      return result;
    }
 
    /**
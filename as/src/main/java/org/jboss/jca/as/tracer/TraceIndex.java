@@ -0,0 +1,653 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.as.tracer;
+
+import org.jboss.jca.core.tracer.TraceEvent;
+import org.jboss.jca.core.tracer.TraceFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An index of a trace, built in a single pass over a log file or a binary trace file.
+ *
+ * The events are partitioned into a file per pool. Within a partition the events of a
+ * connection listener are written in chunks, so a report can stream the events of one
+ * connection listener at a time instead of loading the whole pool
+ */
+public class TraceIndex
+{
+   /** The name of the index directory */
+   private static final String INDEX = "index";
+
+   /** The size of a chunk of the events of a connection listener */
+   private static final int CHUNK = 16384;
+
+   /** The maximum number of bytes buffered in the chunks being filled */
+   private static final long BUFFERED = 8L * 1024L * 1024L;
+
+   /** The timestamp order */
+   private static final Comparator<TraceEvent> TIMESTAMP = new Comparator<TraceEvent>()
+   {
+      public int compare(TraceEvent e1, TraceEvent e2)
+      {
+         return Long.compare(e1.getTimestamp(), e2.getTimestamp());
+      }
+   };
+
+   /** The directory of the partitions */
+   private final File directory;
+
+   /** Pool -> partition */
+   private final Map<String, Partition> partitions;
+
+   /** The pools with lifecycle events */
+   private final Set<String> lifecyclePools;
+
+   /** Are the partitions ordered by timestamp */
+   private final boolean ordered;
+
+   /** The version event */
+   private TraceEvent version;
+
+   /** The number of events */
+   private long events;
+
+   /** The number of bytes buffered in the chunks being filled */
+   private long buffered;
+
+   /**
+    * Constructor
+    * @param directory The directory of the partitions
+    * @param ordered Are the events in timestamp order
+    */
+   private TraceIndex(File directory, boolean ordered)
+   {
+      this.directory = directory;
+      this.partitions = new TreeMap<String, Partition>();
+      this.lifecyclePools = new TreeSet<String>();
+      this.ordered = ordered;
+      this.version = null;
+      this.events = 0;
+      this.buffered = 0;
+   }
+
+   /**
+    * Build the index of a log file, or of a binary trace file
+    * @param file The file
+    * @param root The report directory; the raw events and the partitions are written there
+    * @return The index
+    * @exception Exception If an error occurs
+    */
+   public static TraceIndex build(File file, File root) throws Exception
+   {
+      File directory = new File(root, INDEX);
+      directory.mkdirs();
+
+      boolean binary = TraceFile.isTraceFile(file);
+      TraceIndex index = new TraceIndex(directory, !binary);
+      Writer raw = new BufferedWriter(new FileWriter(new File(root, "raw.txt")), 65536);
+
+      try
+      {
+         if (binary)
+         {
+            InputStream is = new BufferedInputStream(new FileInputStream(file), 65536);
+            try
+            {
+               TraceFile.Reader reader = new TraceFile.Reader(is);
+               TraceEvent te = reader.next();
+               while (te != null)
+               {
+                  index.add(te, te.toString(), raw);
+                  te = reader.next();
+               }
+            }
+            finally
+            {
+               is.close();
+            }
+         }
+         else
+         {
+            BufferedReader r = new BufferedReader(new FileReader(file), 65536);
+            try
+            {
+               String s = r.readLine();
+               while (s != null)
+               {
+                  int i = s.indexOf("IJTRACER");
+                  if (i != -1)
+                  {
+                     String data = s.substring(i);
+                     index.add(TraceEvent.parse(data), data, raw);
+                  }
+
+                  s = r.readLine();
+               }
+            }
+            finally
+            {
+               r.close();
+            }
+         }
+
+         for (Partition partition : index.partitions.values())
+            index.flush(partition);
+      }
+      finally
+      {
+         for (Partition partition : index.partitions.values())
+         {
+            try
+            {
+               partition.out.close();
+            }
+            catch (IOException ignore)
+            {
+               // Ignore
+            }
+         }
+
+         try
+         {
+            raw.close();
+         }
+         catch (IOException ignore)
+         {
+            // Ignore
+         }
+      }
+
+      return index;
+   }
+
+   /**
+    * Get the pools of the trace
+    * @return The names
+    */
+   public Set<String> getPools()
+   {
+      return Collections.unmodifiableSet(partitions.keySet());
+   }
+
+   /**
+    * Get the pools with lifecycle events, which get a report
+    * @return The names
+    */
+   public Set<String> getLifecyclePools()
+   {
+      return Collections.unmodifiableSet(lifecyclePools);
+   }
+
+   /**
+    * Get the connection listeners of a pool
+    * @param pool The name of the pool
+    * @return The identifiers
+    */
+   public Set<String> getConnectionListeners(String pool)
+   {
+      Partition partition = partitions.get(pool);
+      if (partition == null)
+         return Collections.emptySet();
+
+      return Collections.unmodifiableSet(partition.connectionListeners.keySet());
+   }
+
+   /**
+    * Get the size of the events of a pool
+    * @param pool The name of the pool
+    * @return The number of bytes
+    */
+   public long getSize(String pool)
+   {
+      Partition partition = partitions.get(pool);
+      return partition != null ? partition.size : 0L;
+   }
+
+   /**
+    * Get the size of the events of the connection listener of a pool with the most events
+    * @param pool The name of the pool
+    * @return The number of bytes
+    */
+   public long getLargestConnectionListenerSize(String pool)
+   {
+      Partition partition = partitions.get(pool);
+      if (partition == null)
+         return 0L;
+
+      long result = 0L;
+      for (Chunks chunks : partition.connectionListeners.values())
+         result = Math.max(result, chunks.size);
+
+      return result;
+   }
+
+   /**
+    * Get the size of the lifecycle and cached connection manager events of a pool, which a report
+    * keeps for the whole pool
+    * @param pool The name of the pool
+    * @return The number of bytes
+    */
+   public long getSummarySize(String pool)
+   {
+      Partition partition = partitions.get(pool);
+      return partition != null ? partition.summarySize : 0L;
+   }
+
+   /**
+    * Get the version event
+    * @return The event, or <code>null</code>
+    */
+   public TraceEvent getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * Get the number of events
+    * @return The value
+    */
+   public long getEventCount()
+   {
+      return events;
+   }
+
+   /**
+    * Get the events of a pool
+    * @param pool The name of the pool
+    * @return The events, in timestamp order
+    * @exception Exception If an error occurs
+    */
+   public List<TraceEvent> getEvents(String pool) throws Exception
+   {
+      List<TraceEvent> result = new ArrayList<TraceEvent>();
+
+      Partition partition = partitions.get(pool);
+      if (partition == null)
+         return result;
+
+      RandomAccessFile file = new RandomAccessFile(partition.file, "r");
+      try
+      {
+         for (Chunks chunks : partition.connectionListeners.values())
+            read(file, chunks, result);
+      }
+      finally
+      {
+         file.close();
+      }
+
+      // The connection listeners are interleaved in time
+      Collections.sort(result, TIMESTAMP);
+
+      return result;
+   }
+
+   /**
+    * Get the events of a connection listener of a pool
+    * @param pool The name of the pool
+    * @param connectionListener The identifier of the connection listener
+    * @return The events, in timestamp order
+    * @exception Exception If an error occurs
+    */
+   public List<TraceEvent> getEvents(String pool, String connectionListener) throws Exception
+   {
+      List<TraceEvent> result = new ArrayList<TraceEvent>();
+
+      Partition partition = partitions.get(pool);
+      if (partition == null)
+         return result;
+
+      Chunks chunks = partition.connectionListeners.get(connectionListener);
+      if (chunks == null)
+         return result;
+
+      RandomAccessFile file = new RandomAccessFile(partition.file, "r");
+      try
+      {
+         read(file, chunks, result);
+      }
+      finally
+      {
+         file.close();
+      }
+
+      if (!ordered)
+         Collections.sort(result, TIMESTAMP);
+
+      return result;
+   }
+
+   /**
+    * Delete the partitions
+    */
+   public void delete()
+   {
+      for (Partition partition : partitions.values())
+      {
+         partition.file.delete();
+      }
+
+      directory.delete();
+   }
+
+   /**
+    * Add an event
+    * @param te The event
+    * @param data The text representation of the event
+    * @param raw The writer of the raw events
+    * @exception Exception If an error occurs
+    */
+   private void add(TraceEvent te, String data, Writer raw) throws Exception
+   {
+      events++;
+
+      raw.write(data);
+      raw.write('\n');
+
+      if (te.getType() == TraceEvent.VERSION)
+      {
+         if (version == null)
+            version = te;
+
+         return;
+      }
+
+      if (isLifecycle(te))
+         lifecyclePools.add(te.getPool());
+
+      Partition partition = partitions.get(te.getPool());
+      if (partition == null)
+      {
+         partition = new Partition(new File(directory, Integer.toString(partitions.size()) + ".txt"));
+         partitions.put(te.getPool(), partition);
+      }
+
+      Chunks chunks = partition.connectionListeners.get(te.getConnectionListener());
+      if (chunks == null)
+      {
+         chunks = new Chunks();
+         partition.connectionListeners.put(te.getConnectionListener(), chunks);
+      }
+
+      byte[] line = (data + '\n').getBytes(StandardCharsets.UTF_8);
+      if (chunks.buffer == null)
+         chunks.buffer = new ByteArrayOutputStream(256);
+
+      chunks.buffer.write(line, 0, line.length);
+      chunks.size += line.length;
+      partition.size += line.length;
+      buffered += line.length;
+
+      if (isLifecycle(te) || isCCMConnection(te))
+         partition.summarySize += line.length;
+
+      if (chunks.buffer.size() >= CHUNK)
+      {
+         spill(partition, chunks);
+      }
+      else if (buffered > BUFFERED)
+      {
+         for (Partition p : partitions.values())
+            flush(p);
+      }
+   }
+
+   /**
+    * Write the chunks being filled of a partition
+    * @param partition The partition
+    * @exception IOException If an error occurs
+    */
+   private void flush(Partition partition) throws IOException
+   {
+      for (Chunks chunks : partition.connectionListeners.values())
+      {
+         if (chunks.buffer != null)
+            spill(partition, chunks);
+      }
+   }
+
+   /**
+    * Write the chunk being filled of a connection listener
+    * @param partition The partition
+    * @param chunks The chunks of the connection listener
+    * @exception IOException If an error occurs
+    */
+   private void spill(Partition partition, Chunks chunks) throws IOException
+   {
+      int length = chunks.buffer.size();
+
+      chunks.add(partition.written, length);
+      chunks.buffer.writeTo(partition.out);
+      // A filled buffer isn't kept, as a pool can have many connection listeners
+      chunks.buffer = null;
+
+      partition.written += length;
+      buffered -= length;
+   }
+
+   /**
+    * Read the chunks of a connection listener
+    * @param file The partition
+    * @param chunks The chunks
+    * @param result The events
+    * @exception IOException If an error occurs
+    */
+   private static void read(RandomAccessFile file, Chunks chunks, List<TraceEvent> result) throws IOException
+   {
+      for (int i = 0; i < chunks.count; i++)
+      {
+         byte[] data = new byte[chunks.lengths[i]];
+         file.seek(chunks.offsets[i]);
+         file.readFully(data);
+
+         int start = 0;
+         for (int j = 0; j < data.length; j++)
+         {
+            if (data[j] == '\n')
+            {
+               result.add(TraceEvent.parse(new String(data, start, j - start, StandardCharsets.UTF_8)));
+               start = j + 1;
+            }
+         }
+      }
+   }
+
+   /**
+    * Is the event a lifecycle event
+    * @param te The event
+    * @return The value
+    */
+   private static boolean isLifecycle(TraceEvent te)
+   {
+      switch (te.getType())
+      {
+         case TraceEvent.CREATE_CONNECTION_LISTENER_GET:
+         case TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL:
+         case TraceEvent.CREATE_CONNECTION_LISTENER_INCREMENTER:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_RETURN:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_IDLE:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_INVALID:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_FLUSH:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_ERROR:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_PREFILL:
+         case TraceEvent.DESTROY_CONNECTION_LISTENER_INCREMENTER:
+         case TraceEvent.MANAGED_CONNECTION_POOL_CREATE:
+         case TraceEvent.MANAGED_CONNECTION_POOL_DESTROY:
+            return true;
+         default:
+            return false;
+      }
+   }
+
+   /**
+    * Is the event a cached connection manager event of a connection
+    * @param te The event
+    * @return The value
+    */
+   private static boolean isCCMConnection(TraceEvent te)
+   {
+      switch (te.getType())
+      {
+         case TraceEvent.REGISTER_CCM_CONNECTION:
+         case TraceEvent.UNREGISTER_CCM_CONNECTION:
+         case TraceEvent.CCM_USER_TRANSACTION:
+         case TraceEvent.UNKNOWN_CCM_CONNECTION:
+         case TraceEvent.CLOSE_CCM_CONNECTION:
+            return true;
+         default:
+            return false;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("TraceIndex@").append(Integer.toHexString(System.identityHashCode(this)));
+      sb.append("[directory=").append(directory);
+      sb.append(" pools=").append(partitions.keySet());
+      sb.append(" events=").append(events);
+      sb.append("]");
+
+      return sb.toString();
+   }
+
+   /**
+    * The partition of a pool
+    */
+   private static class Partition
+   {
+      /** The file */
+      final File file;
+
+      /** The output */
+      final OutputStream out;
+
+      /** Connection listener -> chunks */
+      final Map<String, Chunks> connectionListeners;
+
+      /** The number of bytes written */
+      long written;
+
+      /** The number of bytes of the events */
+      long size;
+
+      /** The number of bytes of the lifecycle and cached connection manager events */
+      long summarySize;
+
+      /**
+       * Constructor
+       * @param file The file
+       * @exception IOException If an error occurs
+       */
+      Partition(File file) throws IOException
+      {
+         this.file = file;
+         this.out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+         this.connectionListeners = new TreeMap<String, Chunks>();
+         this.written = 0L;
+         this.size = 0L;
+         this.summarySize = 0L;
+      }
+   }
+
+   /**
+    * The chunks of the events of a connection listener within a partition
+    */
+   private static class Chunks
+   {
+      /** The chunk being filled, if any */
+      ByteArrayOutputStream buffer;
+
+      /** The offsets of the chunks */
+      long[] offsets;
+
+      /** The lengths of the chunks */
+      int[] lengths;
+
+      /** The number of chunks */
+      int count;
+
+      /** The number of bytes of the events */
+      long size;
+
+      /**
+       * Constructor
+       */
+      Chunks()
+      {
+         this.buffer = null;
+         this.offsets = new long[4];
+         this.lengths = new int[4];
+         this.count = 0;
+         this.size = 0L;
+      }
+
+      /**
+       * Add a chunk
+       * @param offset The offset
+       * @param length The length
+       */
+      void add(long offset, int length)
+      {
+         if (count == offsets.length)
+         {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+         }
+
+         offsets[count] = offset;
+         lengths[count] = length;
+         count++;
+      }
+   }
+}
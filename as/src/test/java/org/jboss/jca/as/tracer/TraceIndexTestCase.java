@@ -0,0 +1,267 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.as.tracer;
+
+import org.jboss.jca.core.tracer.TraceEvent;
+import org.jboss.jca.core.tracer.TraceFile;
+import org.jboss.jca.core.tracer.TraceRecorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>TraceIndex</code> unit test.
+ */
+public class TraceIndexTestCase
+{
+   /**
+    * The events of a log file are read back per pool and per connection listener,
+    * in timestamp order, across several chunks
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testLogFile() throws Exception
+   {
+      File root = Files.createTempDirectory("ironjacamar").toFile();
+      File log = new File(root, "server.log");
+
+      List<TraceEvent> events = new ArrayList<TraceEvent>();
+      Writer w = new OutputStreamWriter(new FileOutputStream(log), "UTF-8");
+      try
+      {
+         w.write("12:00:00,000 INFO [org.jboss.jca] Started\n");
+         w.write("12:00:00,001 INFO [org.jboss.jca.Tracer] IJTRACER-Version-NONE-1-100-0-NONE-1.5.0-\n");
+
+         events.add(event(w, "pool-a", 1, TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL, 1L, "cl1", "mc1"));
+         for (int i = 0; i < 500; i++)
+         {
+            // Two connection listeners interleaved, with out of order timestamps
+            long timestamp = 10L + 2L * i + (i % 2 == 0 ? 1L : -1L);
+            events.add(event(w, "pool-a", 2, TraceEvent.GET_CONNECTION_LISTENER, timestamp, "cl1",
+                             "payload_" + i + "_" + longPayload()));
+            events.add(event(w, "pool-a", 3, TraceEvent.GET_CONNECTION_LISTENER, timestamp + 1000L, "cl2", ""));
+            events.add(event(w, "pool-b", 4, TraceEvent.GET_CONNECTION_LISTENER, timestamp, "cl3", ""));
+         }
+         events.add(event(w, "pool-a", 1, TraceEvent.DESTROY_CONNECTION_LISTENER_IDLE, 5000L, "cl1", ""));
+      }
+      finally
+      {
+         w.close();
+      }
+
+      TraceIndex index = TraceIndex.build(log, root);
+
+      assertEquals(events.size() + 1, index.getEventCount());
+      assertEquals(TraceEvent.VERSION, index.getVersion().getType());
+      assertEquals(setOf("pool_a", "pool_b"), index.getPools());
+      assertEquals(setOf("pool_a"), index.getLifecyclePools());
+      assertEquals(setOf("cl1", "cl2"), index.getConnectionListeners("pool_a"));
+      assertEquals(setOf("cl3"), index.getConnectionListeners("pool_b"));
+      assertTrue(index.getConnectionListeners("unknown").isEmpty());
+
+      for (String pool : index.getPools())
+      {
+         long size = 0L;
+         for (String cl : index.getConnectionListeners(pool))
+         {
+            List<TraceEvent> expected = sorted(filter(events, pool, cl));
+            assertEvents(expected, index.getEvents(pool, cl));
+
+            for (TraceEvent te : expected)
+               size += te.toString().length() + 1;
+         }
+
+         assertEquals(size, index.getSize(pool));
+         assertTrue(index.getLargestConnectionListenerSize(pool) <= size);
+         assertEvents(sorted(filter(events, pool, null)), index.getEvents(pool));
+      }
+
+      // The events of the first connection listener span several chunks
+      assertTrue(index.getLargestConnectionListenerSize("pool_a") > 65536L);
+      assertTrue(index.getSummarySize("pool_a") > 0L);
+      assertEquals(0L, index.getSummarySize("pool_b"));
+      assertEquals(events.size() + 1, Files.readAllLines(new File(root, "raw.txt").toPath()).size());
+
+      index.delete();
+      assertFalse(new File(root, "index").exists());
+   }
+
+   /**
+    * The events of a binary trace file are read back per connection listener
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testTraceFile() throws Exception
+   {
+      File root = Files.createTempDirectory("ironjacamar").toFile();
+      File file = new File(root, "trace.bin");
+
+      TraceRecorder recorder = new TraceRecorder(file, 1024);
+      recorder.start();
+
+      Object mcp = new Object();
+      Object[] cls = new Object[] {new Object(), new Object()};
+      for (int i = 0; i < 200; i++)
+      {
+         recorder.record("my-pool", mcp, TraceEvent.GET_CONNECTION_LISTENER, cls[i % 2], null, null);
+         recorder.record("my-pool", mcp, TraceEvent.GET_CONNECTION, cls[i % 2], "handle" + i, null);
+      }
+      recorder.stop();
+
+      List<TraceEvent> events = TraceFile.read(file);
+      TraceIndex index = TraceIndex.build(file, root);
+
+      assertEquals(events.size(), index.getEventCount());
+      assertEquals(setOf("my_pool"), index.getPools());
+      assertTrue(index.getLifecyclePools().isEmpty());
+
+      for (Object o : cls)
+      {
+         String cl = Integer.toHexString(System.identityHashCode(o));
+         assertEvents(filter(events, "my_pool", cl), index.getEvents("my_pool", cl));
+      }
+
+      assertEquals(400, index.getEvents("my_pool").size());
+
+      index.delete();
+   }
+
+   /**
+    * Write an event to a log
+    * @param w The writer
+    * @param pool The pool
+    * @param thread The thread id
+    * @param type The type
+    * @param timestamp The timestamp
+    * @param cl The connection listener
+    * @param payload The first payload
+    * @return The event
+    * @exception Exception Thrown if an error occurs
+    */
+   private static TraceEvent event(Writer w, String pool, long thread, int type, long timestamp,
+                                   String cl, String payload)
+      throws Exception
+   {
+      String data = "IJTRACER-" + pool.replace('-', '_') + "-mcp-" + thread + "-" + type + "-" + timestamp +
+         "-" + cl + "-" + payload + "-";
+
+      w.write("12:00:00,002 INFO [org.jboss.jca.Tracer] " + data + "\n");
+
+      return TraceEvent.parse(data);
+   }
+
+   /**
+    * A payload long enough to fill several chunks
+    * @return The value
+    */
+   private static String longPayload()
+   {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 16; i++)
+         sb.append("0123456789");
+
+      return sb.toString();
+   }
+
+   /**
+    * Filter events
+    * @param events The events
+    * @param pool The pool
+    * @param cl The connection listener, or <code>null</code> for all
+    * @return The events
+    */
+   private static List<TraceEvent> filter(List<TraceEvent> events, String pool, String cl)
+   {
+      List<TraceEvent> result = new ArrayList<TraceEvent>();
+
+      for (TraceEvent te : events)
+      {
+         if (te.getType() != TraceEvent.VERSION && pool.equals(te.getPool()) &&
+             (cl == null || cl.equals(te.getConnectionListener())))
+            result.add(te);
+      }
+
+      return result;
+   }
+
+   /**
+    * Sort events by timestamp, keeping the order of the events with the same timestamp
+    * @param events The events
+    * @return The events
+    */
+   private static List<TraceEvent> sorted(List<TraceEvent> events)
+   {
+      List<TraceEvent> result = new ArrayList<TraceEvent>(events);
+
+      Collections.sort(result, new Comparator<TraceEvent>()
+      {
+         public int compare(TraceEvent e1, TraceEvent e2)
+         {
+            return Long.compare(e1.getTimestamp(), e2.getTimestamp());
+         }
+      });
+
+      return result;
+   }
+
+   /**
+    * Assert that events are the same
+    * @param expected The expected events
+    * @param actual The actual events
+    */
+   private static void assertEvents(List<TraceEvent> expected, List<TraceEvent> actual)
+   {
+      assertEquals(expected.size(), actual.size());
+
+      for (int i = 0; i < expected.size(); i++)
+         assertEquals(expected.get(i).toString(), actual.get(i).toString());
+   }
+
+   /**
+    * Create a set
+    * @param values The values
+    * @return The set
+    */
+   private static Set<String> setOf(String... values)
+   {
+      Set<String> result = new HashSet<String>();
+
+      for (String value : values)
+         result.add(value);
+
+      return result;
+   }
+}
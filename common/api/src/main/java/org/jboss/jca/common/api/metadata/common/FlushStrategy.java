@@ -78,7 +78,17 @@ public enum FlushStrategy
    /**
     * All connections
     */
-   ALL_CONNECTIONS("AllConnections");
+   ALL_CONNECTIONS("AllConnections"),
+
+   /**
+    * Replace
+    */
+   REPLACE("Replace"),
+
+   /**
+    * All replace
+    */
+   ALL_REPLACE("AllReplace");
    
    private final String name;
 
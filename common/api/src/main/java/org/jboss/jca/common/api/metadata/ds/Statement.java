@@ -95,6 +95,20 @@ public interface Statement extends JCAMetadata, ValidatableMetadata
     */
    public Long getPreparedStatementsCacheSize();
 
+   /**
+    * Get the preparedStatementsCachePolicy.
+    *
+    * @return the preparedStatementsCachePolicy.
+    */
+   public String getPreparedStatementsCachePolicy();
+
+   /**
+    * Get the preparedStatementsCacheWarmup.
+    *
+    * @return the preparedStatementsCacheWarmup.
+    */
+   public Long getPreparedStatementsCacheWarmup();
+
    /**
     * Get the trackStatements.
     *
@@ -125,6 +139,14 @@ public interface Statement extends JCAMetadata, ValidatableMetadata
       */
       PREPARED_STATEMENT_CACHE_SIZE("prepared-statement-cache-size"),
       /**
+      * preparedStatementCachePolicy tag
+      */
+      PREPARED_STATEMENT_CACHE_POLICY("prepared-statement-cache-policy"),
+      /**
+      * preparedStatementCacheWarmup tag
+      */
+      PREPARED_STATEMENT_CACHE_WARMUP("prepared-statement-cache-warmup"),
+      /**
       * sharePreparedStatements tag
       */
       SHARE_PREPARED_STATEMENTS("share-prepared-statements");
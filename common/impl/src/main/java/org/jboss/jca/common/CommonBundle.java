@@ -256,4 +256,13 @@ public interface CommonBundle
     */
    @Message(id = 10078, value = "Invalid zero value for %s")
    public String invalidZero(String tag);
+
+   /**
+    * Invalid value
+    * @param tag The tag
+    * @param value The value
+    * @return The value
+    */
+   @Message(id = 10079, value = "Invalid value for %s: %s")
+   public String invalidValue(String tag, String value);
 }
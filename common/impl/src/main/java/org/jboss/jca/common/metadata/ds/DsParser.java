@@ -553,6 +553,8 @@ public class DsParser extends AbstractParser implements MetadataParser<DataSourc
    {
 
       Long preparedStatementsCacheSize = null;
+      String preparedStatementsCachePolicy = null;
+      Long preparedStatementsCacheWarmup = null;
       Boolean sharePreparedStatements = Defaults.SHARE_PREPARED_STATEMENTS;
       TrackStatementsEnum trackStatements = null;
 
@@ -565,7 +567,9 @@ public class DsParser extends AbstractParser implements MetadataParser<DataSourc
                    org.jboss.jca.common.api.metadata.ds.DataSource.Tag.STATEMENT)
                {
 
-                  return new StatementImpl(sharePreparedStatements, preparedStatementsCacheSize, trackStatements);
+                  return new StatementImpl(sharePreparedStatements, preparedStatementsCacheSize,
+                                           preparedStatementsCachePolicy, preparedStatementsCacheWarmup,
+                                           trackStatements);
                }
                else
                {
@@ -583,6 +587,14 @@ public class DsParser extends AbstractParser implements MetadataParser<DataSourc
                      preparedStatementsCacheSize = elementAsLong(reader);
                      break;
                   }
+                  case PREPARED_STATEMENT_CACHE_POLICY : {
+                     preparedStatementsCachePolicy = elementAsString(reader);
+                     break;
+                  }
+                  case PREPARED_STATEMENT_CACHE_WARMUP : {
+                     preparedStatementsCacheWarmup = elementAsLong(reader);
+                     break;
+                  }
                   case TRACK_STATEMENTS : {
                      String elementString = elementAsString(reader);
                      trackStatements = TrackStatementsEnum.valueOf(elementString == null ? "FALSE" : elementString
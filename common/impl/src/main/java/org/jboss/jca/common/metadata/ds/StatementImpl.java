@@ -48,6 +48,10 @@ public class StatementImpl implements Statement
 
    private final TrackStatementsEnum trackStatements;
 
+   private final String preparedStatementsCachePolicy;
+
+   private final Long preparedStatementsCacheWarmup;
+
    /**
     * Create a new StatementImpl.
     *
@@ -58,10 +62,29 @@ public class StatementImpl implements Statement
     */
    public StatementImpl(Boolean sharePreparedStatements, Long preparedStatementsCacheSize,
       TrackStatementsEnum trackStatements) throws ValidateException
+   {
+      this(sharePreparedStatements, preparedStatementsCacheSize, null, null, trackStatements);
+   }
+
+   /**
+    * Create a new StatementImpl.
+    *
+    * @param sharePreparedStatements sharePreparedStatements
+    * @param preparedStatementsCacheSize preparedStatementsCacheSize
+    * @param preparedStatementsCachePolicy preparedStatementsCachePolicy
+    * @param preparedStatementsCacheWarmup preparedStatementsCacheWarmup
+    * @param trackStatements trackStatements
+    * @throws ValidateException ValidateException
+    */
+   public StatementImpl(Boolean sharePreparedStatements, Long preparedStatementsCacheSize,
+      String preparedStatementsCachePolicy, Long preparedStatementsCacheWarmup,
+      TrackStatementsEnum trackStatements) throws ValidateException
    {
       super();
       this.sharePreparedStatements = sharePreparedStatements;
       this.preparedStatementsCacheSize = preparedStatementsCacheSize;
+      this.preparedStatementsCachePolicy = preparedStatementsCachePolicy;
+      this.preparedStatementsCacheWarmup = preparedStatementsCacheWarmup;
       this.trackStatements = trackStatements;
       this.validate();
    }
@@ -88,6 +111,28 @@ public class StatementImpl implements Statement
       return preparedStatementsCacheSize;
    }
 
+   /**
+    * Get the preparedStatementsCachePolicy.
+    *
+    * @return the preparedStatementsCachePolicy.
+    */
+   @Override
+   public final String getPreparedStatementsCachePolicy()
+   {
+      return preparedStatementsCachePolicy;
+   }
+
+   /**
+    * Get the preparedStatementsCacheWarmup.
+    *
+    * @return the preparedStatementsCacheWarmup.
+    */
+   @Override
+   public final Long getPreparedStatementsCacheWarmup()
+   {
+      return preparedStatementsCacheWarmup;
+   }
+
    /**
     * Get the trackStatements.
     *
@@ -105,6 +150,10 @@ public class StatementImpl implements Statement
       final int prime = 31;
       int result = 1;
       result = prime * result + ((preparedStatementsCacheSize == null) ? 0 : preparedStatementsCacheSize.hashCode());
+      result = prime * result + ((preparedStatementsCachePolicy == null) ? 0 :
+         preparedStatementsCachePolicy.hashCode());
+      result = prime * result + ((preparedStatementsCacheWarmup == null) ? 0 :
+         preparedStatementsCacheWarmup.hashCode());
       result = prime * result + ((sharePreparedStatements == null) ? 0 : sharePreparedStatements.hashCode());
       result = prime * result + ((trackStatements == null) ? 0 : trackStatements.hashCode());
       return result;
@@ -127,6 +176,20 @@ public class StatementImpl implements Statement
       }
       else if (!preparedStatementsCacheSize.equals(other.preparedStatementsCacheSize))
          return false;
+      if (preparedStatementsCachePolicy == null)
+      {
+         if (other.preparedStatementsCachePolicy != null)
+            return false;
+      }
+      else if (!preparedStatementsCachePolicy.equals(other.preparedStatementsCachePolicy))
+         return false;
+      if (preparedStatementsCacheWarmup == null)
+      {
+         if (other.preparedStatementsCacheWarmup != null)
+            return false;
+      }
+      else if (!preparedStatementsCacheWarmup.equals(other.preparedStatementsCacheWarmup))
+         return false;
       if (sharePreparedStatements == null)
       {
          if (other.sharePreparedStatements != null)
@@ -160,6 +223,20 @@ public class StatementImpl implements Statement
          sb.append("</").append(Statement.Tag.PREPARED_STATEMENT_CACHE_SIZE).append(">");
       }
 
+      if (preparedStatementsCachePolicy != null)
+      {
+         sb.append("<").append(Statement.Tag.PREPARED_STATEMENT_CACHE_POLICY).append(">");
+         sb.append(preparedStatementsCachePolicy);
+         sb.append("</").append(Statement.Tag.PREPARED_STATEMENT_CACHE_POLICY).append(">");
+      }
+
+      if (preparedStatementsCacheWarmup != null)
+      {
+         sb.append("<").append(Statement.Tag.PREPARED_STATEMENT_CACHE_WARMUP).append(">");
+         sb.append(preparedStatementsCacheWarmup);
+         sb.append("</").append(Statement.Tag.PREPARED_STATEMENT_CACHE_WARMUP).append(">");
+      }
+
       if (sharePreparedStatements != null && Boolean.TRUE.equals(sharePreparedStatements))
       {
          sb.append("<").append(Statement.Tag.SHARE_PREPARED_STATEMENTS).append("/>");
@@ -175,6 +252,15 @@ public class StatementImpl implements Statement
    {
       if (this.preparedStatementsCacheSize != null && this.preparedStatementsCacheSize < 0)
          throw new ValidateException(bundle.invalidNegative(Tag.PREPARED_STATEMENT_CACHE_SIZE.getLocalName()));
+
+      if (this.preparedStatementsCacheWarmup != null && this.preparedStatementsCacheWarmup < 0)
+         throw new ValidateException(bundle.invalidNegative(Tag.PREPARED_STATEMENT_CACHE_WARMUP.getLocalName()));
+
+      if (this.preparedStatementsCachePolicy != null &&
+          !"lru".equalsIgnoreCase(this.preparedStatementsCachePolicy.trim()) &&
+          !"tinylfu".equalsIgnoreCase(this.preparedStatementsCachePolicy.trim()))
+         throw new ValidateException(bundle.invalidValue(Tag.PREPARED_STATEMENT_CACHE_POLICY.getLocalName(),
+                                                         this.preparedStatementsCachePolicy));
    }
 }
 
@@ -475,6 +475,28 @@ public class Merger
                   break;
                }
 
+               case PREPAREDSTATEMENTCACHEPOLICY : {
+                  if (ds != null && ds.getStatement() != null &&
+                      ds.getStatement().getPreparedStatementsCachePolicy() != null)
+                  {
+                     configProperties.add(ConfigPropertyFactory.createConfigProperty(prototype, ds.getStatement()
+                        .getPreparedStatementsCachePolicy()));
+                  }
+
+                  break;
+               }
+
+               case PREPAREDSTATEMENTCACHEWARMUP : {
+                  if (ds != null && ds.getStatement() != null &&
+                      ds.getStatement().getPreparedStatementsCacheWarmup() != null)
+                  {
+                     configProperties.add(ConfigPropertyFactory.createConfigProperty(prototype, ds.getStatement()
+                        .getPreparedStatementsCacheWarmup()));
+                  }
+
+                  break;
+               }
+
                case SHAREPREPAREDSTATEMENTS : {
                   if (ds != null && ds.getStatement() != null)
                   {
@@ -814,6 +836,12 @@ public class Merger
          /** PREPAREDSTATEMENTCACHESIZE **/
          PREPAREDSTATEMENTCACHESIZE("PreparedStatementCacheSize", "java.lang.Integer",
             "The number of cached prepared statements per connection."),
+         /** PREPAREDSTATEMENTCACHEPOLICY **/
+         PREPAREDSTATEMENTCACHEPOLICY("PreparedStatementCachePolicy", "java.lang.String",
+            "The prepared statement cache policy."),
+         /** PREPAREDSTATEMENTCACHEWARMUP **/
+         PREPAREDSTATEMENTCACHEWARMUP("PreparedStatementCacheWarmup", "java.lang.Integer",
+            "The number of the most frequently prepared statements to prepare on new connections."),
          /** SHAREPREPAREDSTATEMENTS **/
          SHAREPREPAREDSTATEMENTS("SharePreparedStatements", "java.lang.Boolean",
             "Whether to share prepared statements."),
@@ -30,6 +30,7 @@ import org.jboss.jca.common.api.metadata.ds.DataSources;
 import org.jboss.jca.common.api.metadata.ds.Driver;
 import org.jboss.jca.common.api.metadata.ds.Statement;
 import org.jboss.jca.common.api.metadata.ds.TransactionIsolation;
+import org.jboss.jca.common.api.validator.ValidateException;
 import org.jboss.jca.common.metadata.XMLParserTestBase;
 
 import java.util.List;
@@ -98,6 +99,16 @@ public class DsParserXMLTestCase extends XMLParserTestBase
 
    }
 
+   /**
+    * Checks that an unknown prepared statement cache policy is rejected
+    * @throws Exception in case of error
+    */
+   @Test(expected = ValidateException.class)
+   public void checkInvalidPreparedStatementCachePolicy() throws Exception
+   {
+      new StatementImpl(Boolean.FALSE, 10L, "fifo", null, null);
+   }
+
    @Override
    public void checkMetadata(JCAMetadata result)
    {
@@ -45,5 +45,11 @@ public enum FlushMode
    /**
     * All
     */
-   ALL;
+   ALL,
+
+   /**
+    * Replace; idle connections are destroyed once a new connection has been added
+    * in their place, and active connections are destroyed upon return
+    */
+   REPLACE;
 }
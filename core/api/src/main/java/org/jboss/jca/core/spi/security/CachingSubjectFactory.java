@@ -0,0 +1,52 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.spi.security;
+
+/**
+ * A subject factory whose subjects can be cached by the connection managers.
+ *
+ * A cached subject is reused for the same security domain and caller identity until
+ * it expires, or until the factory invalidates the subjects of the security domain
+ */
+public interface CachingSubjectFactory extends SubjectFactory
+{
+   /**
+    * Get the identity of the current caller for a security domain. Subjects created for
+    * equal identities must be interchangeable
+    * @param sd The security domain
+    * @return The identity; <code>null</code> if the subject of the caller can't be cached
+    */
+   public Object getCallerIdentity(String sd);
+
+   /**
+    * Add an invalidation listener
+    * @param listener The listener
+    */
+   public void addInvalidationListener(SubjectInvalidationListener listener);
+
+   /**
+    * Remove an invalidation listener
+    * @param listener The listener
+    */
+   public void removeInvalidationListener(SubjectInvalidationListener listener);
+}
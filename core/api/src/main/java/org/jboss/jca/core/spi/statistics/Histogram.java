@@ -0,0 +1,243 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.spi.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Each power of two is split into 16 buckets, so a percentile is reported with a
+ * relative error of at most 1/16, in a fixed amount of memory. Values below 16 are
+ * recorded exactly. The buckets are striped over a few copies, selected by thread,
+ * which are created when first used, so concurrent recording doesn't contend on the
+ * buckets of the common values
+ */
+public final class Histogram
+{
+   /** Bits of a value resolved within a power of two */
+   private static final int SUB_BUCKET_BITS = 4;
+
+   /** Buckets per power of two */
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   /** Highest power of two covered; larger values are recorded as the largest value */
+   private static final int MAX_MAGNITUDE = 40;
+
+   /** The largest value */
+   private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+   /** Number of buckets */
+   private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+   /** Default maximum number of stripes */
+   private static final int MAX_STRIPES = 4;
+
+   /** Number of stripes - 1 */
+   private final int mask;
+
+   /** The stripes */
+   private final AtomicReferenceArray<AtomicLongArray> stripes;
+
+   /** The maximum */
+   private final MaxTracker max;
+
+   /**
+    * Constructor
+    */
+   public Histogram()
+   {
+      this(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+   }
+
+   /**
+    * Constructor
+    * @param stripes The number of stripes; rounded down to a power of two
+    */
+   public Histogram(int stripes)
+   {
+      int n = Integer.highestOneBit(Math.max(1, stripes));
+      this.mask = n - 1;
+      this.stripes = new AtomicReferenceArray<AtomicLongArray>(n);
+      this.max = new MaxTracker(0L);
+   }
+
+   /**
+    * Record a value
+    * @param value The value; negative values are recorded as 0
+    */
+   public void record(long value)
+   {
+      long v = value < 0L ? 0L : (value > MAX_VALUE ? MAX_VALUE : value);
+
+      stripe().incrementAndGet(index(v));
+      max.update(v);
+   }
+
+   /**
+    * Get the number of recorded values
+    * @return The value
+    */
+   public long getCount()
+   {
+      long count = 0L;
+      long[] buckets = snapshot();
+
+      for (int i = 0; i < buckets.length; i++)
+         count += buckets[i];
+
+      return count;
+   }
+
+   /**
+    * Get the largest recorded value
+    * @return The value; or 0 if nothing has been recorded
+    */
+   public long getMax()
+   {
+      return max.get();
+   }
+
+   /**
+    * Get the value at a percentile. The result is the highest value of the bucket holding
+    * the percentile, but never more than the largest recorded value
+    * @param percentile The percentile, between 0 and 100
+    * @return The value; or 0 if nothing has been recorded
+    */
+   public long getValueAtPercentile(double percentile)
+   {
+      long[] buckets = snapshot();
+      long count = 0L;
+
+      for (int i = 0; i < buckets.length; i++)
+         count += buckets[i];
+
+      if (count == 0L)
+         return 0L;
+
+      double p = Math.min(100.0, Math.max(0.0, percentile));
+      long rank = Math.max(1L, (long)Math.ceil(p / 100.0 * count));
+      long seen = 0L;
+
+      for (int i = 0; i < buckets.length; i++)
+      {
+         seen += buckets[i];
+
+         if (seen >= rank)
+            return Math.min(highestValue(i), max.get());
+      }
+
+      return max.get();
+   }
+
+   /**
+    * Clear all recorded values
+    */
+   public void reset()
+   {
+      for (int s = 0; s <= mask; s++)
+      {
+         AtomicLongArray stripe = stripes.get(s);
+         if (stripe != null)
+         {
+            for (int i = 0; i < BUCKETS; i++)
+               stripe.set(i, 0L);
+         }
+      }
+
+      max.reset();
+   }
+
+   /**
+    * Get the stripe of the current thread
+    * @return The stripe
+    */
+   private AtomicLongArray stripe()
+   {
+      long id = Thread.currentThread().getId();
+      int s = (int)(id ^ (id >>> 16)) & mask;
+
+      AtomicLongArray stripe = stripes.get(s);
+      if (stripe == null)
+      {
+         stripes.compareAndSet(s, null, new AtomicLongArray(BUCKETS));
+         stripe = stripes.get(s);
+      }
+
+      return stripe;
+   }
+
+   /**
+    * Sum the buckets of all stripes
+    * @return The buckets
+    */
+   private long[] snapshot()
+   {
+      long[] buckets = new long[BUCKETS];
+
+      for (int s = 0; s <= mask; s++)
+      {
+         AtomicLongArray stripe = stripes.get(s);
+         if (stripe != null)
+         {
+            for (int i = 0; i < BUCKETS; i++)
+               buckets[i] += stripe.get(i);
+         }
+      }
+
+      return buckets;
+   }
+
+   /**
+    * Get the bucket of a value
+    * @param v The value; between 0 and MAX_VALUE
+    * @return The index
+    */
+   private static int index(long v)
+   {
+      if (v < SUB_BUCKETS)
+         return (int)v;
+
+      int magnitude = 63 - Long.numberOfLeadingZeros(v);
+      int shift = magnitude - SUB_BUCKET_BITS;
+
+      return (shift + 1) * SUB_BUCKETS + (int)((v >>> shift) & (SUB_BUCKETS - 1));
+   }
+
+   /**
+    * Get the highest value of a bucket
+    * @param index The index
+    * @return The value
+    */
+   private static long highestValue(int index)
+   {
+      if (index < SUB_BUCKETS)
+         return index;
+
+      int shift = index / SUB_BUCKETS - 1;
+      long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+      return lowest + (1L << shift) - 1;
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.spi.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the maximum of a series of values.
+ *
+ * The value sits on its own cache line, so updating it doesn't invalidate the
+ * neighbouring counters, and only a new maximum is written - recording a value below
+ * the current maximum is a plain read
+ */
+public final class MaxTracker
+{
+   /** Padding around the value, in longs */
+   private static final int PADDING = 8;
+
+   /** The value, at index PADDING */
+   private final AtomicLongArray value;
+
+   /** The initial value */
+   private final long initial;
+
+   /**
+    * Constructor
+    * @param initial The value before anything is recorded
+    */
+   public MaxTracker(long initial)
+   {
+      this.value = new AtomicLongArray(2 * PADDING + 1);
+      this.initial = initial;
+
+      value.set(PADDING, initial);
+   }
+
+   /**
+    * Record a value
+    * @param v The value
+    */
+   public void update(long v)
+   {
+      long current = value.get(PADDING);
+
+      while (v > current)
+      {
+         if (value.compareAndSet(PADDING, current, v))
+            return;
+
+         current = value.get(PADDING);
+      }
+   }
+
+   /**
+    * Get the maximum
+    * @return The value; or the initial value if nothing has been recorded
+    */
+   public long get()
+   {
+      return value.get(PADDING);
+   }
+
+   /**
+    * Reset to the initial value
+    */
+   public void reset()
+   {
+      value.set(PADDING, initial);
+   }
+}
@@ -0,0 +1,273 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.spi.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates a value, such as a time, per key for the keys with the largest totals.
+ *
+ * This is the Space-Saving algorithm: at most <code>capacity</code> keys are counted, and a
+ * new key takes the place of the key with the lowest total, starting from that total. A total
+ * is overestimated by at most the error reported with it, and every key with more than
+ * 1/<code>capacity</code> of the sum of all values is counted. Recording a value for a counted
+ * key doesn't take a lock; only replacing a key does, and a value recorded for a key while
+ * it is being replaced may be lost
+ */
+public final class TopSketch
+{
+   /** Orders entries by total, largest first */
+   private static final Comparator<Entry> BY_TOTAL = new Comparator<Entry>()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public int compare(Entry a, Entry b)
+      {
+         return Long.compare(b.getTotal(), a.getTotal());
+      }
+   };
+
+   /** The maximum number of keys */
+   private final int capacity;
+
+   /** The entries */
+   private final Map<String, Entry> entries;
+
+   /**
+    * Constructor
+    * @param capacity The maximum number of keys
+    */
+   public TopSketch(int capacity)
+   {
+      this.capacity = Math.max(1, capacity);
+      this.entries = new ConcurrentHashMap<String, Entry>();
+   }
+
+   /**
+    * Record a value
+    * @param key The key
+    * @param value The value
+    */
+   public void record(String key, long value)
+   {
+      Entry entry = entries.get(key);
+
+      if (entry == null)
+         entry = admit(key);
+
+      entry.record(value);
+   }
+
+   /**
+    * Get the entries with the largest totals. The entries are snapshots, so they are sorted
+    * by values that don't change while values are recorded
+    * @param n The maximum number of entries
+    * @return The entries, largest total first
+    */
+   public List<Entry> getTop(int n)
+   {
+      List<Entry> result = new ArrayList<Entry>(entries.size());
+      for (Entry entry : entries.values())
+      {
+         result.add(new Entry(entry));
+      }
+
+      Collections.sort(result, BY_TOTAL);
+
+      if (result.size() > n)
+         return new ArrayList<Entry>(result.subList(0, n));
+
+      return result;
+   }
+
+   /**
+    * Reset
+    */
+   public synchronized void reset()
+   {
+      entries.clear();
+   }
+
+   /**
+    * Add an entry for a key, replacing the entry with the lowest total if full
+    * @param key The key
+    * @return The entry
+    */
+   private synchronized Entry admit(String key)
+   {
+      Entry entry = entries.get(key);
+      if (entry != null)
+         return entry;
+
+      long error = 0L;
+
+      if (entries.size() >= capacity)
+      {
+         Entry min = null;
+         for (Entry e : entries.values())
+         {
+            if (min == null || e.getTotal() < min.getTotal())
+               min = e;
+         }
+
+         entries.remove(min.getKey());
+         error = min.getTotal();
+      }
+
+      entry = new Entry(key, error);
+      entries.put(key, entry);
+
+      return entry;
+   }
+
+   /**
+    * The values of a key
+    */
+   public static final class Entry
+   {
+      /** The key */
+      private final String key;
+
+      /** The overestimation of the total */
+      private final long error;
+
+      /** The total */
+      private final LongAdder total;
+
+      /** The number of values */
+      private final LongAdder count;
+
+      /** The maximum value */
+      private final MaxTracker max;
+
+      /**
+       * Constructor
+       * @param key The key
+       * @param error The total of the replaced key
+       */
+      Entry(String key, long error)
+      {
+         this.key = key;
+         this.error = error;
+         this.total = new LongAdder();
+         this.count = new LongAdder();
+         this.max = new MaxTracker(0L);
+
+         total.add(error);
+      }
+
+      /**
+       * Snapshot constructor
+       * @param entry The entry
+       */
+      private Entry(Entry entry)
+      {
+         this.key = entry.key;
+         this.error = entry.error;
+         this.total = new LongAdder();
+         this.count = new LongAdder();
+         this.max = new MaxTracker(entry.getMax());
+
+         total.add(entry.getTotal());
+         count.add(entry.getCount());
+      }
+
+      /**
+       * Record a value
+       * @param value The value
+       */
+      void record(long value)
+      {
+         total.add(value);
+         count.increment();
+         max.update(value);
+      }
+
+      /**
+       * Get the key
+       * @return The value
+       */
+      public String getKey()
+      {
+         return key;
+      }
+
+      /**
+       * Get the total, including the error
+       * @return The value
+       */
+      public long getTotal()
+      {
+         return total.sum();
+      }
+
+      /**
+       * Get the number of values recorded since the key was counted
+       * @return The value
+       */
+      public long getCount()
+      {
+         return count.sum();
+      }
+
+      /**
+       * Get the maximum value recorded since the key was counted
+       * @return The value
+       */
+      public long getMax()
+      {
+         return max.get();
+      }
+
+      /**
+       * Get the overestimation of the total
+       * @return The value
+       */
+      public long getError()
+      {
+         return error;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public String toString()
+      {
+         StringBuilder sb = new StringBuilder();
+         sb.append(key).append("[total=").append(getTotal());
+         sb.append(",count=").append(getCount());
+         sb.append(",max=").append(getMax());
+         if (error > 0L)
+            sb.append(",error=").append(error);
+         sb.append("]");
+         return sb.toString();
+      }
+   }
+}
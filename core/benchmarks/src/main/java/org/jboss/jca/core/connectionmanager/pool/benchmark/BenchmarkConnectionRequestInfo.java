@@ -0,0 +1,67 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.benchmark;
+
+import javax.resource.spi.ConnectionRequestInfo;
+
+/**
+ * A connection request info identified by a number
+ */
+public class BenchmarkConnectionRequestInfo implements ConnectionRequestInfo
+{
+   /** The key */
+   private final int key;
+
+   /**
+    * Constructor
+    * @param key The key
+    */
+   public BenchmarkConnectionRequestInfo(int key)
+   {
+      this.key = key;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int hashCode()
+   {
+      return 31 + key;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+         return true;
+
+      if (!(obj instanceof BenchmarkConnectionRequestInfo))
+         return false;
+
+      return key == ((BenchmarkConnectionRequestInfo)obj).key;
+   }
+}
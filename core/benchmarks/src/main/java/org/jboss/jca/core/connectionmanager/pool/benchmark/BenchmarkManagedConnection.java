@@ -0,0 +1,143 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.benchmark;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.resource.NotSupportedException;
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionEventListener;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.LocalTransaction;
+import javax.resource.spi.ManagedConnection;
+import javax.resource.spi.ManagedConnectionMetaData;
+import javax.security.auth.Subject;
+import javax.transaction.xa.XAResource;
+
+/**
+ * A managed connection without any resource behind it
+ */
+public class BenchmarkManagedConnection implements ManagedConnection
+{
+   /** The listeners */
+   private final List<ConnectionEventListener> listeners;
+
+   /** The log writer */
+   private PrintWriter logWriter;
+
+   /**
+    * Constructor
+    */
+   public BenchmarkManagedConnection()
+   {
+      this.listeners = new CopyOnWriteArrayList<ConnectionEventListener>();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public Object getConnection(Subject subject, ConnectionRequestInfo cxRequestInfo) throws ResourceException
+   {
+      return this;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void destroy() throws ResourceException
+   {
+      listeners.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void cleanup() throws ResourceException
+   {
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void associateConnection(Object connection) throws ResourceException
+   {
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void addConnectionEventListener(ConnectionEventListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void removeConnectionEventListener(ConnectionEventListener listener)
+   {
+      listeners.remove(listener);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public XAResource getXAResource() throws ResourceException
+   {
+      throw new NotSupportedException("XAResource isn't supported");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public LocalTransaction getLocalTransaction() throws ResourceException
+   {
+      throw new NotSupportedException("LocalTransaction isn't supported");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public ManagedConnectionMetaData getMetaData() throws ResourceException
+   {
+      throw new NotSupportedException("ManagedConnectionMetaData isn't supported");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void setLogWriter(PrintWriter out) throws ResourceException
+   {
+      this.logWriter = out;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public PrintWriter getLogWriter() throws ResourceException
+   {
+      return logWriter;
+   }
+}
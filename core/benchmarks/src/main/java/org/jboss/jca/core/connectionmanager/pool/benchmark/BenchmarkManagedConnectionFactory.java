@@ -0,0 +1,123 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.benchmark;
+
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.resource.NotSupportedException;
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionManager;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.ManagedConnection;
+import javax.resource.spi.ManagedConnectionFactory;
+import javax.resource.spi.ValidatingManagedConnectionFactory;
+import javax.security.auth.Subject;
+
+/**
+ * A managed connection factory creating connections without any resource behind them,
+ * so the benchmarks measure the pool only
+ */
+public class BenchmarkManagedConnectionFactory implements ManagedConnectionFactory, ValidatingManagedConnectionFactory
+{
+   /** Serial version uid */
+   private static final long serialVersionUID = 1L;
+
+   /** The log writer */
+   private transient PrintWriter logWriter;
+
+   /**
+    * Constructor
+    */
+   public BenchmarkManagedConnectionFactory()
+   {
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public Object createConnectionFactory(ConnectionManager cxManager) throws ResourceException
+   {
+      throw new NotSupportedException("Connection factories aren't supported");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public Object createConnectionFactory() throws ResourceException
+   {
+      throw new NotSupportedException("Connection factories aren't supported");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cxRequestInfo)
+      throws ResourceException
+   {
+      return new BenchmarkManagedConnection();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @SuppressWarnings("rawtypes")
+   public ManagedConnection matchManagedConnections(Set connectionSet, Subject subject,
+                                                    ConnectionRequestInfo cxRequestInfo)
+      throws ResourceException
+   {
+      // Any connection will do; the pool strategy decides which connections a caller may share
+      Iterator it = connectionSet.iterator();
+      if (it.hasNext())
+         return (ManagedConnection)it.next();
+
+      return null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @SuppressWarnings("rawtypes")
+   public Set getInvalidConnections(Set connectionSet) throws ResourceException
+   {
+      return Collections.EMPTY_SET;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public PrintWriter getLogWriter() throws ResourceException
+   {
+      return logWriter;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void setLogWriter(PrintWriter out) throws ResourceException
+   {
+      this.logWriter = out;
+   }
+}
@@ -0,0 +1,242 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.benchmark;
+
+import org.jboss.jca.common.api.metadata.common.FlushStrategy;
+import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
+import org.jboss.jca.core.connectionmanager.ConnectionManagerFactory;
+import org.jboss.jca.core.connectionmanager.NoTxConnectionManager;
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.api.Pool;
+import org.jboss.jca.core.connectionmanager.pool.api.PoolFactory;
+import org.jboss.jca.core.connectionmanager.pool.api.PoolStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.TransactionSupport.TransactionSupportLevel;
+import javax.security.auth.Subject;
+import javax.security.auth.x500.X500Principal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a getConnection / returnConnection round trip through a pool.
+ *
+ * Every combination of the parameters is run at 1, 8 and as many threads as there
+ * are CPUs; use <code>-p name=value</code> to run a subset. Each thread asks for the
+ * subject and connection request info of one of <code>keys</code> callers, so
+ * PoolByCri and PoolBySubject spread the threads over that many sub-pools
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolBenchmark
+{
+   /** The pool strategy */
+   @Param({"ONE_POOL", "POOL_BY_CRI", "POOL_BY_SUBJECT"})
+   public String strategy;
+
+   /** The managed connection pool implementation */
+   @Param({"org.jboss.jca.core.connectionmanager.pool.mcp.SemaphoreArrayListManagedConnectionPool",
+           "org.jboss.jca.core.connectionmanager.pool.mcp.SemaphoreConcurrentLinkedDequeManagedConnectionPool"})
+   public String mcp;
+
+   /** The maximum pool size */
+   @Param({"10", "100"})
+   public int maxSize;
+
+   /** Fair pool */
+   @Param({"false", "true"})
+   public boolean fair;
+
+   /** Validate on match */
+   @Param({"false", "true"})
+   public boolean validateOnMatch;
+
+   /** Statistics enabled */
+   @Param({"false", "true"})
+   public boolean statistics;
+
+   /** The number of distinct callers */
+   @Param({"4"})
+   public int keys;
+
+   /** The pool */
+   private Pool pool;
+
+   /** The subjects of the callers */
+   private Subject[] subjects;
+
+   /** The connection request infos of the callers */
+   private ConnectionRequestInfo[] cris;
+
+   /** The next caller */
+   private final AtomicInteger nextCaller = new AtomicInteger(0);
+
+   /**
+    * Create the pool
+    */
+   @Setup(Level.Trial)
+   public void setUp()
+   {
+      PoolConfiguration pc = new PoolConfiguration();
+      pc.setMinSize(0);
+      pc.setMaxSize(maxSize);
+      pc.setPrefill(false);
+      pc.setStrictMin(false);
+      pc.setFair(fair);
+      pc.setValidateOnMatch(validateOnMatch);
+
+      PoolFactory pf = new PoolFactory();
+      pool = pf.create(PoolStrategy.valueOf(strategy), new BenchmarkManagedConnectionFactory(), pc,
+                       false, true, mcp);
+      pool.setName("Benchmark");
+
+      ConnectionManagerFactory cmf = new ConnectionManagerFactory();
+      NoTxConnectionManager cm =
+         cmf.createNonTransactional(TransactionSupportLevel.NoTransaction, pool, null, null, false, null,
+                                    true, true, false, Boolean.FALSE, FlushStrategy.FAILING_CONNECTION_ONLY,
+                                    Integer.valueOf(0), Long.valueOf(0L));
+      cm.setJndiName("java:/eis/Benchmark");
+
+      pool.getStatistics().setEnabled(statistics);
+
+      subjects = new Subject[keys];
+      cris = new ConnectionRequestInfo[keys];
+
+      for (int i = 0; i < keys; i++)
+      {
+         subjects[i] = new Subject();
+         subjects[i].getPrincipals().add(new X500Principal("CN=caller" + i));
+         subjects[i].setReadOnly();
+
+         cris[i] = new BenchmarkConnectionRequestInfo(i);
+      }
+   }
+
+   /**
+    * Shutdown the pool
+    */
+   @TearDown(Level.Trial)
+   public void tearDown()
+   {
+      pool.shutdown();
+   }
+
+   /**
+    * One thread
+    * @param caller The caller of the thread
+    * @return The connection listener
+    * @exception ResourceException Thrown if an error occurs
+    */
+   @Benchmark
+   @Threads(1)
+   public ConnectionListener oneThread(Caller caller) throws ResourceException
+   {
+      return getAndReturn(caller);
+   }
+
+   /**
+    * Eight threads
+    * @param caller The caller of the thread
+    * @return The connection listener
+    * @exception ResourceException Thrown if an error occurs
+    */
+   @Benchmark
+   @Threads(8)
+   public ConnectionListener eightThreads(Caller caller) throws ResourceException
+   {
+      return getAndReturn(caller);
+   }
+
+   /**
+    * A thread per CPU
+    * @param caller The caller of the thread
+    * @return The connection listener
+    * @exception ResourceException Thrown if an error occurs
+    */
+   @Benchmark
+   @Threads(Threads.MAX)
+   public ConnectionListener maxThreads(Caller caller) throws ResourceException
+   {
+      return getAndReturn(caller);
+   }
+
+   /**
+    * Get a connection and return it to the pool
+    * @param caller The caller
+    * @return The connection listener
+    * @exception ResourceException Thrown if an error occurs
+    */
+   private ConnectionListener getAndReturn(Caller caller) throws ResourceException
+   {
+      ConnectionListener cl = pool.getConnection(null, caller.subject, caller.cri);
+      pool.returnConnection(cl, false);
+      return cl;
+   }
+
+   /**
+    * The caller a benchmark thread acts as
+    */
+   @State(Scope.Thread)
+   public static class Caller
+   {
+      /** The subject */
+      private Subject subject;
+
+      /** The connection request info */
+      private ConnectionRequestInfo cri;
+
+      /**
+       * Pick the caller
+       * @param benchmark The benchmark
+       */
+      @Setup(Level.Trial)
+      public void setUp(PoolBenchmark benchmark)
+      {
+         int i = benchmark.nextCaller.getAndIncrement() % benchmark.keys;
+
+         subject = benchmark.subjects[i];
+         cri = benchmark.cris[i];
+      }
+   }
+}
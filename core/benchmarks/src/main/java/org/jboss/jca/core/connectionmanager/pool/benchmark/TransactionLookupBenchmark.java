@@ -0,0 +1,283 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.benchmark;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.transaction.LockKey;
+import org.jboss.jca.core.connectionmanager.transaction.TransactionSlots;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the track-by-transaction lookups of a short transaction: the lookup of the
+ * connection of a pool, the registration of a new one, and <code>lookups</code> lookups
+ * that find it.
+ *
+ * <code>lock</code> is the previous behavior, a fair lock per transaction held around
+ * every access to the registry; <code>slots</code> is the lock-free path of the thread
+ * owning the transaction. Each benchmark thread runs its own transactions
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionLookupBenchmark
+{
+   /** The lookup */
+   @Param({"lock", "slots"})
+   public String lookup;
+
+   /** The number of lookups finding the connection */
+   @Param({"1", "4"})
+   public int lookups;
+
+   /** The managed connection pool */
+   private final Object mcp = new Object();
+
+   /** The connection listener */
+   private final ConnectionListener cl =
+      (ConnectionListener)Proxy.newProxyInstance(ConnectionListener.class.getClassLoader(),
+                                                 new Class<?>[] {ConnectionListener.class},
+                                                 (proxy, method, args) -> null);
+
+   /** The transaction synchronization registry */
+   private final BenchmarkTransactionSynchronizationRegistry tsr = new BenchmarkTransactionSynchronizationRegistry();
+
+   /**
+    * One thread
+    * @return The connection listener
+    */
+   @Benchmark
+   @Threads(1)
+   public Object oneThread()
+   {
+      return transaction();
+   }
+
+   /**
+    * Eight threads
+    * @return The connection listener
+    */
+   @Benchmark
+   @Threads(8)
+   public Object eightThreads()
+   {
+      return transaction();
+   }
+
+   /**
+    * Run the lookups of a transaction
+    * @return The connection listener
+    */
+   private Object transaction()
+   {
+      tsr.begin();
+
+      if ("lock".equals(lookup))
+         return locked();
+
+      return slots();
+   }
+
+   /**
+    * The lookups under the transaction lock
+    * @return The connection listener
+    */
+   private Object locked()
+   {
+      Object result = lockedGet();
+
+      if (result == null)
+      {
+         Lock lock = lock();
+         lock.lock();
+         try
+         {
+            result = tsr.getResource(mcp);
+            if (result == null)
+            {
+               tsr.putResource(mcp, cl);
+               result = cl;
+            }
+         }
+         finally
+         {
+            lock.unlock();
+         }
+      }
+
+      for (int i = 0; i < lookups; i++)
+         result = lockedGet();
+
+      return result;
+   }
+
+   /**
+    * A lookup under the transaction lock
+    * @return The connection listener
+    */
+   private Object lockedGet()
+   {
+      Lock lock = lock();
+      lock.lock();
+      try
+      {
+         return tsr.getResource(mcp);
+      }
+      finally
+      {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Get the lock of the transaction
+    * @return The lock
+    */
+   private Lock lock()
+   {
+      Lock lock = (Lock)tsr.getResource(LockKey.INSTANCE);
+      if (lock == null)
+      {
+         lock = new ReentrantLock(true);
+         tsr.putResource(LockKey.INSTANCE, lock);
+      }
+      return lock;
+   }
+
+   /**
+    * The lookups of the owner of the transaction
+    * @return The connection listener
+    */
+   private Object slots()
+   {
+      TransactionSlots slots = TransactionSlots.getTransactionSlots(tsr, true);
+      Object result = slots.get(mcp);
+
+      if (result == null)
+         result = slots.publish(mcp, cl);
+
+      for (int i = 0; i < lookups; i++)
+         result = TransactionSlots.getTransactionSlots(tsr, true).get(mcp);
+
+      return result;
+   }
+
+   /**
+    * A registry holding the resources of the current transaction of a thread
+    */
+   static class BenchmarkTransactionSynchronizationRegistry implements TransactionSynchronizationRegistry
+   {
+      /** The transaction key */
+      private Object key;
+
+      /** The resources */
+      private Map<Object, Object> resources;
+
+      /**
+       * Begin a new transaction
+       */
+      void begin()
+      {
+         key = new Object();
+         resources = new HashMap<Object, Object>(4);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public Object getTransactionKey()
+      {
+         return key;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void putResource(Object key, Object value)
+      {
+         resources.put(key, value);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public Object getResource(Object key)
+      {
+         return resources.get(key);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void registerInterposedSynchronization(Synchronization sync)
+      {
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public int getTransactionStatus()
+      {
+         return Status.STATUS_ACTIVE;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void setRollbackOnly()
+      {
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public boolean getRollbackOnly()
+      {
+         return false;
+      }
+   }
+}
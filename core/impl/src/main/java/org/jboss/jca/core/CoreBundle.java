@@ -469,6 +469,30 @@ public interface CoreBundle
    @Message(id = 661, value = "Pool is shutting down")
    public String poolIsFull();
 
+   /**
+    * No room for a new connection in the connection budget
+    * @param name The pool name
+    * @return The value
+    */
+   @Message(id = 662, value = "No room for a new connection in the connection budget of pool: %s")
+   public String connectionBudgetExhausted(String name);
+
+   /**
+    * Connection creation suspended after repeated failures
+    * @param name The pool name
+    * @return The value
+    */
+   @Message(id = 663, value = "Connection creation for pool %s is suspended after repeated failures")
+   public String connectionCreationSuspended(String name);
+
+   /**
+    * Connection created by a probe is invalid
+    * @param name The pool name
+    * @return The value
+    */
+   @Message(id = 664, value = "Connection created by the probe of pool %s is invalid")
+   public String invalidProbeConnection(String name);
+
    // NAMING (700)
 
    /**
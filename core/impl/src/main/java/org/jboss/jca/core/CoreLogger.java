@@ -524,6 +524,55 @@ public interface CoreLogger extends BasicLogger
    @Message(id = 622, value = "Unsupported pool implementation: %s")
    public void unsupportedPoolImplementation(String clz);
 
+   /**
+    * Connection held for too long
+    * @param name The name of the tracker
+    * @param object The object
+    * @param time The time held in milliseconds
+    * @param thread The name of the allocating thread
+    * @param t The allocation site
+    */
+   @LogMessage(level = WARN)
+   @Message(id = 623, value = "Possible leak in %s: %s held for %d ms by thread %s")
+   public void possibleLeak(String name, Object object, long time, String thread, @Cause Throwable t);
+
+   /**
+    * Unable to create a replacement connection
+    * @param t The exception
+    * @param jndiName The jndi-name
+    */
+   @LogMessage(level = WARN)
+   @Message(id = 624, value = "Unable to create a replacement connection for %s, retiring the flushed connection")
+   public void unableReplaceConnection(@Cause Throwable t, String jndiName);
+
+   /**
+    * Connection creation suspended after repeated failures
+    * @param name The pool name
+    * @param failures The number of failures in a row
+    * @param time The time creations fail at once in milliseconds
+    */
+   @LogMessage(level = WARN)
+   @Message(id = 625, value = "Connection creation for pool %s failed %d times in a row, failing fast for %d ms")
+   public void connectionCreationSuspended(String name, int failures, long time);
+
+   /**
+    * Connection creation recovered
+    * @param name The pool name
+    */
+   @LogMessage(level = INFO)
+   @Message(id = 626, value = "Connection creation for pool %s recovered")
+   public void connectionCreationRecovered(String name);
+
+   /**
+    * Leak tracker full
+    * @param name The name of the tracker
+    * @param capacity The maximum number of tracked objects
+    */
+   @LogMessage(level = INFO)
+   @Message(id = 627, value = "Leak tracker %s is full with %d objects, further allocations aren't tracked " +
+            "until some are released")
+   public void leakTrackerFull(String name, int capacity);
+
    // NAMING (700)
 
    /**
@@ -29,18 +29,24 @@ import org.jboss.jca.core.api.connectionmanager.ccm.CachedConnectionManager;
 import org.jboss.jca.core.api.management.ManagedEnlistmentTrace;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionState;
+import org.jboss.jca.core.connectionmanager.pool.CreationGovernor;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
+import org.jboss.jca.core.security.SubjectCache;
 import org.jboss.jca.core.spi.graceful.GracefulCallback;
+import org.jboss.jca.core.spi.security.CachingSubjectFactory;
 import org.jboss.jca.core.spi.security.SubjectFactory;
 import org.jboss.jca.core.spi.transaction.TransactionIntegration;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
@@ -92,6 +98,9 @@ public abstract class AbstractConnectionManager implements ConnectionManager
    /** SubjectFactory */
    private SubjectFactory subjectFactory;
 
+   /** The subject cache */
+   private volatile SubjectCache subjectCache;
+
    /** The flush strategy */
    private FlushStrategy flushStrategy;
 
@@ -320,6 +329,8 @@ public abstract class AbstractConnectionManager implements ConnectionManager
       if (pool != null)
          pool.shutdown();
 
+      closeSubjectCache();
+
       if (scheduledExecutorService != null)
       {
          if (scheduledGraceful != null && !scheduledGraceful.isDone())
@@ -507,6 +518,7 @@ public abstract class AbstractConnectionManager implements ConnectionManager
    public void setSubjectFactory(SubjectFactory subjectFactory)
    {
       this.subjectFactory = subjectFactory;
+      closeSubjectCache();
    }
 
    /**
@@ -597,6 +609,43 @@ public abstract class AbstractConnectionManager implements ConnectionManager
       return getManagedConnection(null, subject, cri);
    }
 
+   /**
+    * Get a managed connection from the pool without blocking the calling thread
+    * while waiting for a permit. No allocation retry is performed; the stage
+    * completes exceptionally with the failure of the pool instead.
+    *
+    * @param subject a <code>Subject</code> value
+    * @param cri a <code>ConnectionRequestInfo</code> value
+    * @return the stage that completes with the connection listener
+    */
+   public CompletionStage<ConnectionListener> getManagedConnectionAsync(Subject subject, ConnectionRequestInfo cri)
+   {
+      if (shutdown.get())
+      {
+         CompletableFuture<ConnectionListener> result = new CompletableFuture<ConnectionListener>();
+         result.completeExceptionally(new ResourceException(bundle.connectionManagerIsShutdown(jndiName)));
+         return result;
+      }
+
+      if (!isAttributed())
+         return pool.getConnectionAsync(null, subject, cri);
+
+      final String caller = CallerAttribution.getCaller(cachedConnectionManager);
+      final long start = System.currentTimeMillis();
+
+      CompletionStage<ConnectionListener> stage = pool.getConnectionAsync(null, subject, cri);
+      return stage.thenApply(new Function<ConnectionListener, ConnectionListener>()
+      {
+         /**
+          * {@inheritDoc}
+          */
+         public ConnectionListener apply(ConnectionListener cl)
+         {
+            return attribute(cl, caller, start);
+         }
+      });
+   }
+
    /**
     * Get the managed connection from the pool.
     *
@@ -608,6 +657,54 @@ public abstract class AbstractConnectionManager implements ConnectionManager
     */
    protected ConnectionListener getManagedConnection(Transaction transaction, Subject subject,
          ConnectionRequestInfo cri) throws ResourceException
+   {
+      if (!isAttributed())
+         return internalGetManagedConnection(transaction, subject, cri);
+
+      String caller = CallerAttribution.getCaller(cachedConnectionManager);
+      long start = System.currentTimeMillis();
+
+      return attribute(internalGetManagedConnection(transaction, subject, cri), caller, start);
+   }
+
+   /**
+    * Are the connections attributed to their callers
+    * @return The value
+    */
+   private boolean isAttributed()
+   {
+      return CallerAttribution.isEnabled() && pool.getInternalStatistics().isEnabled();
+   }
+
+   /**
+    * Attribute a connection to its caller
+    * @param cl The connection listener
+    * @param caller The caller
+    * @param start The time the caller asked for the connection
+    * @return The connection listener
+    */
+   private ConnectionListener attribute(ConnectionListener cl, String caller, long start)
+   {
+      pool.getInternalStatistics().deltaCallerGetTime(caller, System.currentTimeMillis() - start);
+
+      // A connection shared within a transaction stays with its first caller
+      if (cl.getCaller() == null)
+         cl.setCaller(caller);
+
+      return cl;
+   }
+
+   /**
+    * Get the managed connection from the pool, retrying as configured.
+    *
+    * @param transaction the transaction for track by transaction
+    * @param subject the subject
+    * @param cri the ConnectionRequestInfo
+    * @return a managed connection
+    * @exception ResourceException if an error occurs
+    */
+   private ConnectionListener internalGetManagedConnection(Transaction transaction, Subject subject,
+         ConnectionRequestInfo cri) throws ResourceException
    {
       Exception failure = null;
 
@@ -654,7 +751,7 @@ public abstract class AbstractConnectionManager implements ConnectionManager
                {
                   if (allocationRetryWaitMillis != 0)
                   {
-                     Thread.sleep(allocationRetryWaitMillis);
+                     Thread.sleep(CreationGovernor.retryWait(allocationRetryWaitMillis, i));
                   }
 
                   return pool.getConnection(transaction, subject, cri);
@@ -720,6 +817,16 @@ public abstract class AbstractConnectionManager implements ConnectionManager
          kill = true;
       }
 
+      String caller = cl.getCaller();
+      if (caller != null)
+      {
+         cl.setCaller(null);
+
+         if (cl.getState() != ConnectionState.DESTROYED)
+            localStrategy.getInternalStatistics().deltaCallerUsageTime(caller, System.currentTimeMillis() -
+                                                                       cl.getLastCheckedOutTime());
+      }
+
       try
       {
          localStrategy.returnConnection(cl, kill);
@@ -1008,7 +1115,7 @@ public abstract class AbstractConnectionManager implements ConnectionManager
                {
                   if (allocationRetryWaitMillis != 0)
                   {
-                     Thread.sleep(allocationRetryWaitMillis);
+                     Thread.sleep(CreationGovernor.retryWait(allocationRetryWaitMillis, i));
                   }
 
                   managedConnectionReconnected(cl);
@@ -1160,6 +1267,20 @@ public abstract class AbstractConnectionManager implements ConnectionManager
 
       if (subjectFactory != null && securityDomain != null)
       {
+         if (subjectFactory instanceof CachingSubjectFactory)
+         {
+            SubjectCache sc = subjectCache;
+            if (sc == null)
+               sc = createSubjectCache((CachingSubjectFactory)subjectFactory);
+
+            subject = sc.getSubject(securityDomain);
+            if (subject != null)
+            {
+               log.tracef("Subject: %s", subject);
+               return subject;
+            }
+         }
+
          subject = SecurityActions.createSubject(subjectFactory, securityDomain);
 
          Set<PasswordCredential> credentials = SecurityActions.getPasswordCredentials(subject);
@@ -1177,4 +1298,38 @@ public abstract class AbstractConnectionManager implements ConnectionManager
 
       return subject;
    }
+
+   /**
+    * Get the subject cache
+    * @return The value; <code>null</code> if subjects aren't cached
+    */
+   public SubjectCache getSubjectCache()
+   {
+      return subjectCache;
+   }
+
+   /**
+    * Create the subject cache
+    * @param sf The subject factory
+    * @return The cache
+    */
+   private synchronized SubjectCache createSubjectCache(CachingSubjectFactory sf)
+   {
+      if (subjectCache == null)
+         subjectCache = new SubjectCache(sf, getManagedConnectionFactory());
+
+      return subjectCache;
+   }
+
+   /**
+    * Close the subject cache
+    */
+   private synchronized void closeSubjectCache()
+   {
+      if (subjectCache != null)
+      {
+         subjectCache.close();
+         subjectCache = null;
+      }
+   }
 }
@@ -0,0 +1,120 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager;
+
+import org.jboss.jca.core.api.connectionmanager.ccm.CachedConnectionManager;
+import org.jboss.jca.core.connectionmanager.ccm.CachedConnectionManagerImpl;
+
+/**
+ * Attributes the connections of a pool to their callers.
+ *
+ * When <code>ironjacamar.caller_attribution</code> is <code>true</code>, and the statistics of
+ * the pool are enabled, the time spent obtaining and holding connections is aggregated per caller
+ * in the <code>TopGetTime</code> and <code>TopUsageTime</code> statistics. The caller is the tag
+ * of the current thread if set, otherwise the class of the component on the cached connection
+ * manager stack, otherwise unknown
+ */
+public final class CallerAttribution
+{
+   /** The key of unknown callers */
+   public static final String UNKNOWN = "<unknown>";
+
+   /** Is attribution enabled */
+   private static boolean enabled = false;
+
+   /** The tag of the current thread */
+   private static final ThreadLocal<String> TAG = new ThreadLocal<String>();
+
+   static
+   {
+      String value = SecurityActions.getSystemProperty("ironjacamar.caller_attribution");
+      if (value != null && !value.trim().equals(""))
+         enabled = Boolean.parseBoolean(value.trim());
+   }
+
+   /**
+    * Constructor
+    */
+   private CallerAttribution()
+   {
+   }
+
+   /**
+    * Is attribution enabled
+    * @return The value
+    */
+   public static boolean isEnabled()
+   {
+      return enabled;
+   }
+
+   /**
+    * Tag the connections obtained by the current thread
+    * @param tag The tag; <code>null</code> to remove it
+    */
+   public static void setTag(String tag)
+   {
+      if (tag != null)
+      {
+         TAG.set(tag);
+      }
+      else
+      {
+         TAG.remove();
+      }
+   }
+
+   /**
+    * Get the tag of the current thread
+    * @return The value; <code>null</code> if not tagged
+    */
+   public static String getTag()
+   {
+      return TAG.get();
+   }
+
+   /**
+    * Get the caller of the current thread
+    * @param ccm The cached connection manager; may be <code>null</code>
+    * @return The value
+    */
+   static String getCaller(CachedConnectionManager ccm)
+   {
+      String tag = TAG.get();
+      if (tag != null)
+         return tag;
+
+      if (ccm instanceof CachedConnectionManagerImpl)
+      {
+         Object component = ((CachedConnectionManagerImpl)ccm).getCurrentMetaAwareObject();
+
+         if (component instanceof String)
+            return (String)component;
+
+         if (component != null)
+            return component.getClass().getName();
+      }
+
+      return UNKNOWN;
+   }
+}
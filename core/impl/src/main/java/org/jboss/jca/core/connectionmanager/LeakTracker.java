@@ -0,0 +1,661 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager;
+
+import org.jboss.jca.core.CoreLogger;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Tracks the allocation sites of a sample of objects, such as connection handles or
+ * connection listeners, and reports the ones held longer than a threshold.
+ *
+ * Only sampled objects pay for a stack trace, which is trimmed to the frames after
+ * the IronJacamar core frames. The number of tracked objects is bounded, and objects
+ * are weakly referenced, so the tracker can stay enabled permanently.
+ *
+ * The periodic reports of the objects held longer than the threshold are opt-in, through
+ * <code>ironjacamar.leak_threshold</code>; otherwise the allocations are only available on request
+ */
+public final class LeakTracker
+{
+   /** The logger */
+   private static CoreLogger log = Logger.getMessageLogger(CoreLogger.class, LeakTracker.class.getName());
+
+   /** Thread name */
+   private static final String THREAD_NAME = "LeakTracker";
+
+   /** The frames skipped at the top of a stack trace */
+   private static final String CORE_PACKAGE = "org.jboss.jca.core.";
+
+   /** The scheduler of the reports */
+   private static ScheduledThreadPoolExecutor scheduler = null;
+
+   /** The name */
+   private final String name;
+
+   /** The fraction of the objects tracked */
+   private final double sampleRate;
+
+   /** The maximum number of tracked objects */
+   private final int capacity;
+
+   /** The maximum number of frames of an allocation site */
+   private final int depth;
+
+   /** The time after which a tracked object is reported */
+   private final long threshold;
+
+   /** The allocations */
+   private final ConcurrentMap<Key, Allocation> allocations;
+
+   /** The number of allocations */
+   private final AtomicInteger size;
+
+   /** The number of sampled objects that weren't tracked, as the tracker was full */
+   private final AtomicLong dropped;
+
+   /** Full, since the last object tracked */
+   private final AtomicBoolean full;
+
+   /** Cleared keys */
+   private final ReferenceQueue<Object> queue;
+
+   /** Started */
+   private boolean started;
+
+   /** The report task */
+   private ScheduledFuture<?> report;
+
+   /**
+    * Constructor
+    * @param name The name used in the reports
+    * @param sampleRate The fraction of the objects tracked, between 0 and 1
+    * @param capacity The maximum number of tracked objects
+    * @param depth The maximum number of frames of an allocation site
+    * @param threshold The time in milliseconds after which a tracked object is reported;
+    *                  0 disables the reports
+    */
+   public LeakTracker(String name, double sampleRate, int capacity, int depth, long threshold)
+   {
+      this.name = name;
+      this.sampleRate = sampleRate;
+      this.capacity = capacity;
+      this.depth = depth;
+      this.threshold = threshold;
+      this.allocations = new ConcurrentHashMap<Key, Allocation>();
+      this.size = new AtomicInteger(0);
+      this.dropped = new AtomicLong(0);
+      this.full = new AtomicBoolean(false);
+      this.queue = new ReferenceQueue<Object>();
+      this.started = false;
+      this.report = null;
+   }
+
+   /**
+    * Create a tracker configured by the <code>ironjacamar.leak_*</code> system properties
+    * @param name The name used in the reports
+    * @param defaultSampleRate The sample rate used if <code>ironjacamar.leak_sample_rate</code> isn't set
+    * @return The tracker
+    */
+   public static LeakTracker create(String name, double defaultSampleRate)
+   {
+      double rate = defaultSampleRate;
+      String value = SecurityActions.getSystemProperty("ironjacamar.leak_sample_rate");
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            rate = Double.parseDouble(value.trim());
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return new LeakTracker(name, rate,
+                             (int)getLongProperty("ironjacamar.leak_max_tracked", 1024L),
+                             (int)getLongProperty("ironjacamar.leak_stack_depth", 16L),
+                             getLongProperty("ironjacamar.leak_threshold", 0L));
+   }
+
+   /**
+    * Is the tracker enabled
+    * @return True if objects are sampled; otherwise false
+    */
+   public boolean isEnabled()
+   {
+      return sampleRate > 0.0;
+   }
+
+   /**
+    * Get the sample rate
+    * @return The value
+    */
+   public double getSampleRate()
+   {
+      return sampleRate;
+   }
+
+   /**
+    * Start the periodic reports
+    */
+   public synchronized void start()
+   {
+      started = true;
+
+      if (report != null || threshold <= 0 || !isEnabled())
+         return;
+
+      long interval = Math.max(1000L, threshold / 2);
+      report = getScheduler().scheduleWithFixedDelay(new Report(this), interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Is the tracker started
+    * @return The value
+    */
+   public synchronized boolean isStarted()
+   {
+      return started;
+   }
+
+   /**
+    * Stop the periodic reports, and forget the tracked objects
+    */
+   public synchronized void close()
+   {
+      started = false;
+
+      if (report != null)
+      {
+         report.cancel(false);
+         report = null;
+      }
+
+      allocations.clear();
+      size.set(0);
+      full.set(false);
+   }
+
+   /**
+    * Track an object, if it is sampled
+    * @param o The object
+    * @return True if tracked; otherwise false
+    */
+   public boolean track(Object o)
+   {
+      if (o == null || sampleRate <= 0.0 ||
+          (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate))
+         return false;
+
+      purge();
+
+      if (size.incrementAndGet() > capacity)
+      {
+         size.decrementAndGet();
+         dropped.incrementAndGet();
+
+         // Log once each time the tracker fills up
+         if (full.compareAndSet(false, true))
+            log.leakTrackerFull(name, capacity);
+
+         return false;
+      }
+
+      if (full.get())
+         full.set(false);
+
+      Key key = new Key(o, queue);
+      Allocation allocation = new Allocation(key, System.currentTimeMillis(),
+                                             Thread.currentThread().getName(), capture());
+
+      if (allocations.put(key, allocation) != null)
+         size.decrementAndGet();
+
+      return true;
+   }
+
+   /**
+    * Track the objects of another tracker, keeping their allocation sites, up to the capacity
+    * @param other The other tracker
+    * @return The number of objects tracked
+    */
+   public int migrate(LeakTracker other)
+   {
+      if (other == null || other == this || !isEnabled())
+         return 0;
+
+      purge();
+
+      int migrated = 0;
+      for (Allocation allocation : other.getAllocations())
+      {
+         Object o = allocation.getObject();
+         if (o == null)
+            continue;
+
+         if (size.incrementAndGet() > capacity)
+         {
+            size.decrementAndGet();
+            break;
+         }
+
+         Key key = new Key(o, queue);
+         if (allocations.putIfAbsent(key, new Allocation(key, allocation)) == null)
+         {
+            migrated++;
+         }
+         else
+         {
+            size.decrementAndGet();
+         }
+      }
+
+      return migrated;
+   }
+
+   /**
+    * Stop tracking an object
+    * @param o The object
+    * @return The allocation of the object, or <code>null</code> if it wasn't tracked
+    */
+   public Allocation untrack(Object o)
+   {
+      if (o == null || size.get() == 0)
+         return null;
+
+      Allocation allocation = allocations.remove(new Key(o, null));
+      if (allocation != null)
+         size.decrementAndGet();
+
+      return allocation;
+   }
+
+   /**
+    * Get the number of tracked objects
+    * @return The value
+    */
+   public int size()
+   {
+      purge();
+      return size.get();
+   }
+
+   /**
+    * Get the number of sampled objects that weren't tracked, as the tracker was full
+    * @return The value
+    */
+   public long getDropped()
+   {
+      return dropped.get();
+   }
+
+   /**
+    * Get the allocations of the tracked objects
+    * @return The allocations
+    */
+   public List<Allocation> getAllocations()
+   {
+      purge();
+
+      List<Allocation> result = new ArrayList<Allocation>(allocations.size());
+      for (Allocation allocation : allocations.values())
+      {
+         if (allocation.getObject() != null)
+            result.add(allocation);
+      }
+
+      return Collections.unmodifiableList(result);
+   }
+
+   /**
+    * Report the objects held longer than the threshold, once each
+    * @param now The current time in milliseconds
+    * @return The number of objects reported
+    */
+   public int report(long now)
+   {
+      if (threshold <= 0)
+         return 0;
+
+      purge();
+
+      int reported = 0;
+      for (Allocation allocation : allocations.values())
+      {
+         Object o = allocation.getObject();
+         long held = now - allocation.getTime();
+
+         if (o != null && held >= threshold && allocation.markReported())
+         {
+            log.possibleLeak(name, o, held, allocation.getThreadName(),
+                             allocation.toThrowable("ALLOCATION SITE"));
+            reported++;
+         }
+      }
+
+      return reported;
+   }
+
+   /**
+    * Remove the allocations of the collected objects
+    */
+   private void purge()
+   {
+      Reference<?> ref = queue.poll();
+      while (ref != null)
+      {
+         if (allocations.remove(ref) != null)
+            size.decrementAndGet();
+
+         ref = queue.poll();
+      }
+   }
+
+   /**
+    * Capture the allocation site, without the frames of the tracker and its callers in the core
+    * @return The frames
+    */
+   private StackTraceElement[] capture()
+   {
+      StackTraceElement[] frames = new Throwable().getStackTrace();
+
+      int start = 0;
+      while (start < frames.length - 1 && frames[start].getClassName().startsWith(CORE_PACKAGE))
+         start++;
+
+      return Arrays.copyOfRange(frames, start, Math.min(frames.length, start + depth));
+   }
+
+   /**
+    * Get the scheduler of the reports
+    * @return The scheduler
+    */
+   private static synchronized ScheduledThreadPoolExecutor getScheduler()
+   {
+      if (scheduler == null)
+      {
+         scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+         {
+            public Thread newThread(Runnable r)
+            {
+               Thread thread = new Thread(r, THREAD_NAME);
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         scheduler.setRemoveOnCancelPolicy(true);
+      }
+
+      return scheduler;
+   }
+
+   /**
+    * Get a positive long system property
+    * @param key The key
+    * @param defaultValue The default value
+    * @return The value
+    */
+   private static long getLongProperty(String key, long defaultValue)
+   {
+      String value = SecurityActions.getSystemProperty(key);
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            return Math.max(0L, Long.parseLong(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return defaultValue;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("LeakTracker@").append(Integer.toHexString(System.identityHashCode(this)));
+      sb.append("[name=").append(name);
+      sb.append(" sampleRate=").append(sampleRate);
+      sb.append(" capacity=").append(capacity);
+      sb.append(" depth=").append(depth);
+      sb.append(" threshold=").append(threshold);
+      sb.append(" size=").append(size.get());
+      sb.append(" dropped=").append(dropped.get());
+      sb.append("]");
+
+      return sb.toString();
+   }
+
+   /**
+    * The allocation of a tracked object
+    */
+   public static final class Allocation
+   {
+      /** The key */
+      private final Key key;
+
+      /** The time */
+      private final long time;
+
+      /** The thread name */
+      private final String threadName;
+
+      /** The frames */
+      private final StackTraceElement[] frames;
+
+      /** Reported */
+      private final AtomicBoolean reported;
+
+      /**
+       * Constructor
+       * @param key The key
+       * @param time The time
+       * @param threadName The thread name
+       * @param frames The frames
+       */
+      Allocation(Key key, long time, String threadName, StackTraceElement[] frames)
+      {
+         this.key = key;
+         this.time = time;
+         this.threadName = threadName;
+         this.frames = frames;
+         this.reported = new AtomicBoolean(false);
+      }
+
+      /**
+       * Constructor
+       * @param key The key
+       * @param other The allocation of the same object in another tracker
+       */
+      Allocation(Key key, Allocation other)
+      {
+         this.key = key;
+         this.time = other.time;
+         this.threadName = other.threadName;
+         this.frames = other.frames;
+         this.reported = new AtomicBoolean(other.reported.get());
+      }
+
+      /**
+       * Get the tracked object
+       * @return The object, or <code>null</code> if it has been collected
+       */
+      public Object getObject()
+      {
+         return key.get();
+      }
+
+      /**
+       * Get the time of the allocation
+       * @return The value
+       */
+      public long getTime()
+      {
+         return time;
+      }
+
+      /**
+       * Get the name of the allocating thread
+       * @return The value
+       */
+      public String getThreadName()
+      {
+         return threadName;
+      }
+
+      /**
+       * Get the frames of the allocation site
+       * @return The value
+       */
+      public StackTraceElement[] getStackTrace()
+      {
+         return frames.clone();
+      }
+
+      /**
+       * Get the allocation site as a throwable, for logging
+       * @param message The message
+       * @return The value
+       */
+      public Throwable toThrowable(String message)
+      {
+         Throwable t = new Throwable(message);
+         t.setStackTrace(frames);
+         return t;
+      }
+
+      /**
+       * Mark as reported
+       * @return True if not reported before; otherwise false
+       */
+      boolean markReported()
+      {
+         return reported.compareAndSet(false, true);
+      }
+   }
+
+   /**
+    * A weak key based on the identity of an object
+    */
+   static final class Key extends WeakReference<Object>
+   {
+      /** The hash code */
+      private final int hash;
+
+      /**
+       * Constructor
+       * @param o The object
+       * @param queue The reference queue
+       */
+      Key(Object o, ReferenceQueue<Object> queue)
+      {
+         super(o, queue);
+         this.hash = System.identityHashCode(o);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean equals(Object other)
+      {
+         if (other == this)
+            return true;
+
+         if (other == null || !(other instanceof Key))
+            return false;
+
+         Object o = get();
+         return o != null && o == ((Key)other).get();
+      }
+   }
+
+   /**
+    * The report task, which doesn't keep its tracker reachable
+    */
+   private static class Report implements Runnable
+   {
+      /** The tracker */
+      private final WeakReference<LeakTracker> tracker;
+
+      /**
+       * Constructor
+       * @param tracker The tracker
+       */
+      Report(LeakTracker tracker)
+      {
+         this.tracker = new WeakReference<LeakTracker>(tracker);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void run()
+      {
+         LeakTracker lt = tracker.get();
+         // Cancel the periodic task once the tracker has been collected
+         if (lt == null)
+            throw new IllegalStateException(THREAD_NAME);
+
+         lt.report(System.currentTimeMillis());
+      }
+   }
+}
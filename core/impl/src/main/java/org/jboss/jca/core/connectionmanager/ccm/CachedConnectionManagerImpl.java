@@ -25,6 +25,7 @@ import org.jboss.jca.core.CoreBundle;
 import org.jboss.jca.core.CoreLogger;
 import org.jboss.jca.core.api.connectionmanager.ccm.CachedConnectionManager;
 import org.jboss.jca.core.connectionmanager.ConnectionRecord;
+import org.jboss.jca.core.connectionmanager.LeakTracker;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionCacheListener;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.transaction.TransactionSynchronizer;
@@ -43,7 +44,6 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -107,9 +107,9 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
       ConcurrentMap<ConnectionCacheListener, CopyOnWriteArrayList<ConnectionRecord>>>();
 
    /**
-    * Connection stacktraces
+    * Connection allocation sites
     */
-   private final Map<Object, Throwable> connectionStackTraces = new WeakHashMap<Object, Throwable>();
+   private volatile LeakTracker leakTracker;
 
    /**
     * Creates a new instance.
@@ -121,6 +121,7 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
          throw new IllegalArgumentException("TransactionIntegration is null");
 
       this.transactionIntegration = transactionIntegration;
+      this.leakTracker = LeakTracker.create("CachedConnectionManager", 0.0);
    }
 
    /**
@@ -155,6 +156,16 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
    public void setDebug(boolean v)
    {
       debug = v;
+
+      // Debug tracks every connection, unless a sample rate is configured; the connections
+      // already tracked keep their allocation sites
+      LeakTracker old = leakTracker;
+      LeakTracker tracker = LeakTracker.create("CachedConnectionManager", v ? 1.0 : 0.0);
+      leakTracker = tracker;
+      tracker.migrate(old);
+      if (old.isStarted())
+         tracker.start();
+      old.close();
    }
 
    /**
@@ -197,6 +208,8 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
       if (transactionIntegration.getUserTransactionRegistry() != null)
          transactionIntegration.getUserTransactionRegistry().addListener(this);
 
+      leakTracker.start();
+
       log.debugf("start: %s", this.toString());
    }
 
@@ -209,6 +222,8 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
 
       if (transactionIntegration.getUserTransactionRegistry() != null)
          transactionIntegration.getUserTransactionRegistry().removeListener(this);
+
+      leakTracker.close();
    }
 
    /**
@@ -251,6 +266,16 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
       }
    }
 
+   /**
+    * Get the meta-aware object of the current thread
+    * @return The value; <code>null</code> if none
+    */
+   public Object getCurrentMetaAwareObject()
+   {
+      KeyConnectionAssociation key = peekMetaAwareObject();
+      return key != null ? key.getMetaAwareObject() : null;
+   }
+
    /**
     *
     * @return stack last meta-aware object
@@ -301,13 +326,7 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
                                   org.jboss.jca.core.api.connectionmanager.listener.ConnectionListener cl,
                                   Object connection)
    {
-      if (debug)
-      {
-         synchronized (connectionStackTraces)
-         {
-            connectionStackTraces.put(connection, new Throwable("STACKTRACE"));
-         }
-      }
+      leakTracker.track(connection);
 
       KeyConnectionAssociation key = peekMetaAwareObject();
 
@@ -355,13 +374,10 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
          {
             cas.remove(connection);
          }
-
-         synchronized (connectionStackTraces)
-         {
-            connectionStackTraces.remove(connection);
-         }
       }
 
+      leakTracker.untrack(connection);
+
       KeyConnectionAssociation key = peekMetaAwareObject();
 
       log.tracef("unregistering connection from connection manager: %s, connection: %s, key: %s",
@@ -470,13 +486,10 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
     */
    public int getNumberOfConnections()
    {
-      if (!debug)
+      if (!leakTracker.isEnabled())
          return 0;
 
-      synchronized (connectionStackTraces)
-      {
-         return connectionStackTraces.size();
-      }
+      return leakTracker.size();
    }
 
    /**
@@ -484,27 +497,25 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
     */
    public Map<String, String> listConnections()
    {
-      if (!debug)
+      if (!leakTracker.isEnabled())
          return Collections.unmodifiableMap(Collections.EMPTY_MAP);
 
-      synchronized (connectionStackTraces)
-      {
-         HashMap<String, String> result = new HashMap<String, String>();
-
-         for (Map.Entry<Object, Throwable> entry : connectionStackTraces.entrySet())
-         {
-            Object key = entry.getKey();
-            Throwable stackTrace = entry.getValue();
+      HashMap<String, String> result = new HashMap<String, String>();
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintStream ps = new PrintStream(baos, true);
-            stackTrace.printStackTrace(ps);
+      for (LeakTracker.Allocation allocation : leakTracker.getAllocations())
+      {
+         Object key = allocation.getObject();
+         if (key == null)
+            continue;
 
-            result.put(key.toString(), baos.toString());
-         }
+         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         PrintStream ps = new PrintStream(baos, true);
+         allocation.toThrowable("STACKTRACE").printStackTrace(ps);
 
-         return Collections.unmodifiableMap(result);
+         result.put(key.toString(), baos.toString());
       }
+
+      return Collections.unmodifiableMap(result);
    }
 
    /**
@@ -609,12 +620,8 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
    {
       try
       {
-         Throwable exception;
-
-         synchronized (connectionStackTraces)
-         {
-            exception = connectionStackTraces.remove(connectionHandle);
-         }
+         LeakTracker.Allocation allocation = leakTracker.untrack(connectionHandle);
+         Throwable exception = allocation != null ? allocation.toThrowable("STACKTRACE") : null;
 
          Method m = SecurityActions.getMethod(connectionHandle.getClass(), "close", new Class[]{});
 
@@ -733,7 +740,7 @@ public class CachedConnectionManagerImpl implements CachedConnectionManager
       sb.append(" transactionIntegration=").append(transactionIntegration);
       sb.append(" currentObjects=").append(currentObjects.get());
       sb.append(" objectToConnectionManagerMap=").append(objectToConnectionManagerMap);
-      sb.append(" connectionStackTraces=").append(connectionStackTraces);
+      sb.append(" leakTracker=").append(leakTracker);
       sb.append("]");
 
       return sb.toString();
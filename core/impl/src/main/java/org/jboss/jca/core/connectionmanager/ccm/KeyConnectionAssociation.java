@@ -52,6 +52,15 @@ final class KeyConnectionAssociation
       this.metaAwareObject = metaAwareObject;
    }
 
+   /**
+    * Get the meta aware object
+    * @return The value
+    */
+   Object getMetaAwareObject()
+   {
+      return metaAwareObject;
+   }
+
    /**
     * {@inheritDoc}
     */
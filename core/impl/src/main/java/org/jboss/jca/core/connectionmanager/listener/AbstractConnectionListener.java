@@ -96,6 +96,9 @@ public abstract class AbstractConnectionListener implements ConnectionListener,
    /** Connection check out time */
    private long lastCheckedOut;
 
+   /** The caller the connection is attributed to */
+   private volatile String caller;
+
    /** Enlisted */
    private boolean enlisted;
 
@@ -131,6 +134,7 @@ public abstract class AbstractConnectionListener implements ConnectionListener,
       this.lastReturned = createdTime;
       this.lastValidated = createdTime;
       this.lastCheckedOut = createdTime;
+      this.caller = null;
 
       this.tracking = tracking;
 
@@ -244,6 +248,22 @@ public abstract class AbstractConnectionListener implements ConnectionListener,
       lastCheckedOut = v;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public String getCaller()
+   {
+      return caller;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void setCaller(String v)
+   {
+      caller = v;
+   }
+
    /**
     * {@inheritDoc}
     */   
@@ -511,6 +531,15 @@ public abstract class AbstractConnectionListener implements ConnectionListener,
             connectionListener.destroy();
          }
       }
+      else if (flushStrategy == FlushStrategy.REPLACE)
+      {
+         Collection<ConnectionListener> toDestroy = new ArrayList<ConnectionListener>();
+         managedConnectionPool.flush(FlushMode.REPLACE, toDestroy);
+         for (ConnectionListener connectionListener: toDestroy)
+         {
+            connectionListener.destroy();
+         }
+      }
       else if (flushStrategy == FlushStrategy.ALL_INVALID_IDLE_CONNECTIONS)
       {
          pool.flush(FlushMode.INVALID);
@@ -527,6 +556,10 @@ public abstract class AbstractConnectionListener implements ConnectionListener,
       {
          pool.flush(FlushMode.ALL);
       }
+      else if (flushStrategy == FlushStrategy.ALL_REPLACE)
+      {
+         pool.flush(FlushMode.REPLACE);
+      }
    }
    
    /**
@@ -190,6 +190,20 @@ public interface ConnectionListener extends org.jboss.jca.core.api.connectionman
     */
    public void setLastCheckedOutTime(long v);
 
+   /**
+    * Get the caller the connection is attributed to
+    *
+    * @return The value; <code>null</code> if not attributed
+    */
+   public String getCaller();
+
+   /**
+    * Set the caller the connection is attributed to
+    *
+    * @param v The value
+    */
+   public void setCaller(String v);
+
    /**
     * Get exception
     * @return The exception that occured, or <code>null</code>
@@ -29,6 +29,7 @@ import org.jboss.jca.core.connectionmanager.TxConnectionManager;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.transaction.LockKey;
+import org.jboss.jca.core.connectionmanager.transaction.TransactionSlots;
 import org.jboss.jca.core.connectionmanager.transaction.TransactionSynchronizer;
 import org.jboss.jca.core.connectionmanager.tx.TxConnectionManagerImpl;
 import org.jboss.jca.core.spi.transaction.ConnectableResource;
@@ -574,27 +575,36 @@ public class TxConnectionListener extends AbstractConnectionListener
                TransactionSynchronizationRegistry tsr =
                   getConnectionManager().getTransactionIntegration().getTransactionSynchronizationRegistry();
 
-               Lock lock = (Lock)tsr.getResource(LockKey.INSTANCE);
-               if (lock != null)
+               TransactionSlots slots = TransactionSlots.getTransactionSlots(tsr, false);
+               if (slots != null)
                {
-                  try
-                  {
-                     lock.lockInterruptibly();
-                  }
-                  catch (InterruptedException ie)
+                  // The lock only exists once a thread needed it
+                  Lock lock = (Lock)tsr.getResource(LockKey.INSTANCE);
+                  if (lock != null)
                   {
-                     Thread.interrupted();
+                     try
+                     {
+                        lock.lockInterruptibly();
+                     }
+                     catch (InterruptedException ie)
+                     {
+                        Thread.interrupted();
                      
-                     throw new ResourceException(bundle.unableObtainLock(), ie);
-                  }
+                        throw new ResourceException(bundle.unableObtainLock(), ie);
+                     }
 
-                  try
-                  {
-                     tsr.putResource(mcp, null);
+                     try
+                     {
+                        slots.clear(mcp, this);
+                     }
+                     finally
+                     {
+                        lock.unlock();
+                     }
                   }
-                  finally
+                  else
                   {
-                     lock.unlock();
+                     slots.clear(mcp, this);
                   }
                }
             }
@@ -27,32 +27,44 @@ import org.jboss.jca.core.CoreLogger;
 import org.jboss.jca.core.api.connectionmanager.pool.FlushMode;
 import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
 import org.jboss.jca.core.api.connectionmanager.pool.PoolStatistics;
+import org.jboss.jca.core.connectionmanager.AbstractConnectionManager;
 import org.jboss.jca.core.connectionmanager.ConnectionManager;
 import org.jboss.jca.core.connectionmanager.TxConnectionManager;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.pool.api.Capacity;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 import org.jboss.jca.core.connectionmanager.pool.api.Semaphore;
+import org.jboss.jca.core.connectionmanager.pool.api.StripedSemaphore;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveSizer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.DefaultCapacity;
 import org.jboss.jca.core.connectionmanager.pool.capacity.TimedOutDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.mcp.ConnectionWaiterQueue;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPoolFactory;
 import org.jboss.jca.core.connectionmanager.pool.mcp.NotifyingManagedConnection;
+import org.jboss.jca.core.connectionmanager.pool.mcp.SemaphoreArrayListManagedConnectionPool;
+import org.jboss.jca.core.connectionmanager.pool.mcp.ThreadAffineManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.transaction.LockKey;
+import org.jboss.jca.core.connectionmanager.transaction.TransactionSlots;
+import org.jboss.jca.core.security.SubjectCache;
 import org.jboss.jca.core.spi.transaction.TransactionIntegration;
 import org.jboss.jca.core.tracer.Tracer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
@@ -85,6 +97,33 @@ public abstract class AbstractPool implements Pool
 
    /** The bundle */
    private static CoreBundle bundle = Messages.getBundle(CoreBundle.class);
+
+   /** Number of permit stripes; 0 for a single semaphore */
+   private static int permitStripes = 0;
+
+   static
+   {
+      String value = SecurityActions.getSystemProperty("ironjacamar.striped_permits");
+
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            if (Boolean.parseBoolean(value.trim()))
+            {
+               permitStripes = Runtime.getRuntime().availableProcessors();
+            }
+            else if (!value.trim().equalsIgnoreCase("false"))
+            {
+               permitStripes = Integer.parseInt(value.trim());
+            }
+         }
+         catch (Throwable t)
+         {
+            permitStripes = 0;
+         }
+      }
+   }
    
    /** The managed connection pools, maps key --> pool */
    private final ConcurrentMap<Object, ManagedConnectionPool> mcpPools =
@@ -114,6 +153,12 @@ public abstract class AbstractPool implements Pool
    /** The permits used to control who can checkout a connection */
    private Semaphore permits;
 
+   /** The connection requests waiting for a permit */
+   private ConnectionWaiterQueue waiters;
+
+   /** The physical connections shared by the managed connection pools */
+   private final ConnectionBudget budget;
+
    /** Are the connections sharable */
    private boolean sharable;
 
@@ -155,7 +200,17 @@ public abstract class AbstractPool implements Pool
       this.mcpClass = mcp;
       this.log = getLogger();
       this.statistics = new PoolStatisticsImpl(pc.getMaxSize());
-      this.permits = new Semaphore(pc.getMaxSize(), pc.isFair(), statistics);
+      // The affine fast path takes its permit locally, so the thread affine pool is always striped
+      int stripes = permitStripes;
+      if (stripes <= 1 && ThreadAffineManagedConnectionPool.class.getName().equals(mcp))
+         stripes = Runtime.getRuntime().availableProcessors();
+
+      this.permits = stripes > 1 ?
+         new StripedSemaphore(pc.getMaxSize(), stripes, pc.isFair(), statistics) :
+         new Semaphore(pc.getMaxSize(), pc.isFair(), statistics);
+      this.waiters = new ConnectionWaiterQueue(permits);
+      this.budget = isConnectionBudget() && !SemaphoreArrayListManagedConnectionPool.class.getName().equals(mcp) ?
+         new ConnectionBudget(pc) : null;
       this.capacity = null;
       this.interleaving = false;
       this.noLazyEnlistmentAvailable = new AtomicBoolean(false);
@@ -187,6 +242,14 @@ public abstract class AbstractPool implements Pool
       return permits;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public ConnectionWaiterQueue getWaiterQueue()
+   {
+      return waiters;
+   }
+
    /**
     * Is sharable
     * @return The value
@@ -213,6 +276,8 @@ public abstract class AbstractPool implements Pool
    public void setCapacity(Capacity c)
    {
       capacity = c;
+
+      AdaptiveSizer.bind(c, statistics);
    }
 
 
@@ -447,6 +512,27 @@ public abstract class AbstractPool implements Pool
       return result;
    }
 
+   /**
+    * Get the connection listener slots of the transaction
+    * @return The slots; <code>null</code> if TX isn't active
+    */
+   private TransactionSlots getTransactionSlots()
+   {
+      try
+      {
+         TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
+
+         if (tsr != null)
+            return TransactionSlots.getTransactionSlots(tsr, true);
+      }
+      catch (Throwable t)
+      {
+         // Catch all exceptions
+      }
+
+      return null;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -480,6 +566,92 @@ public abstract class AbstractPool implements Pool
       }
    }
 
+   /**
+    * Share the maximum pool size between the managed connection pools. The budget is opt-in
+    * through <code>ironjacamar.connection_budget</code>, and only the semaphore concurrent linked
+    * deque managed connection pool takes part in it
+    * @return The value
+    */
+   private static boolean isConnectionBudget()
+   {
+      String budget = SecurityActions.getSystemProperty("ironjacamar.connection_budget");
+      return budget != null && Boolean.parseBoolean(budget.trim());
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public ConnectionBudget getConnectionBudget()
+   {
+      return budget;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean reserveConnection(ManagedConnectionPool mcp, boolean reclaim)
+   {
+      if (budget == null || budget.tryReserve())
+         return true;
+
+      if (!reclaim || mcpPools.size() < 2)
+         return false;
+
+      if (reclaimConnection(mcp))
+         return true;
+
+      // The last connections may be reserved by creations in the background; once they are in
+      // their pools they can be reclaimed, so wait for them instead of failing the request
+      long deadline = System.currentTimeMillis() + poolConfiguration.getBlockingTimeout();
+      try
+      {
+         long remaining = poolConfiguration.getBlockingTimeout();
+         while (remaining > 0 && budget.awaitPending(remaining))
+         {
+            if (reclaimConnection(mcp))
+               return true;
+
+            remaining = deadline - System.currentTimeMillis();
+         }
+      }
+      catch (InterruptedException ie)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      return false;
+   }
+
+   /**
+    * Reserve a physical connection in the connection budget by destroying an idle connection
+    * of another managed connection pool
+    * @param mcp The managed connection pool that creates the connection
+    * @return True if the connection can be created; otherwise false
+    */
+   private boolean reclaimConnection(ManagedConnectionPool mcp)
+   {
+      // Borrow from the managed connection pools that are furthest above their fair share,
+      // and from the least recently used ones first
+      int share = Math.max(1, budget.getLimit() / mcpPools.size());
+      List<ReclaimCandidate> candidates = new ArrayList<ReclaimCandidate>(mcpPools.size());
+
+      for (ManagedConnectionPool other : mcpPools.values())
+      {
+         if (other != mcp)
+            candidates.add(new ReclaimCandidate(other, other.getActive() - share, other.getLastUsed()));
+      }
+
+      Collections.sort(candidates);
+
+      for (ReclaimCandidate candidate : candidates)
+      {
+         if (candidate.mcp.reclaimIdleConnection() && budget.tryReserve())
+            return true;
+      }
+
+      return budget.tryReserve();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -624,6 +796,70 @@ public abstract class AbstractPool implements Pool
       return cl;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public CompletionStage<ConnectionListener> getConnectionAsync(Transaction trackByTransaction, Subject subject,
+                                                                 ConnectionRequestInfo cri)
+   {
+      CompletableFuture<ConnectionListener> result = new CompletableFuture<ConnectionListener>();
+
+      if (shutdown.get())
+      {
+         result.completeExceptionally(new ResourceException(bundle.connectionManagerIsShutdown(poolName)));
+         return result;
+      }
+
+      // Track by transaction needs the calling thread, so serve it synchronously
+      TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
+      Object transactionKey = tsr != null ? tsr.getTransactionKey() : null;
+
+      if (trackByTransaction != null && transactionKey != null)
+      {
+         try
+         {
+            result.complete(getConnection(trackByTransaction, subject, cri));
+         }
+         catch (ResourceException re)
+         {
+            result.completeExceptionally(re);
+         }
+         return result;
+      }
+
+      ManagedConnectionPool mcp = null;
+      try
+      {
+         Object key = getKey(subject, cri, noTxSeparatePools && cm.isTransactional());
+         mcp = getManagedConnectionPool(key, subject, cri);
+      }
+      catch (ResourceException re)
+      {
+         result.completeExceptionally(re);
+         return result;
+      }
+
+      return mcp.getConnectionAsync(subject, cri).thenApply(new Function<ConnectionListener, ConnectionListener>()
+      {
+         /**
+          * {@inheritDoc}
+          */
+         public ConnectionListener apply(ConnectionListener cl)
+         {
+            log.tracef("Got connection from pool: %s", cl);
+
+            if (cm instanceof TxConnectionManager && cm.getCachedConnectionManager() == null &&
+                noLazyEnlistmentAvailable.compareAndSet(false, true))
+               log.noLazyEnlistmentAvailable(poolName);
+
+            if (cl.getManagedConnection() instanceof NotifyingManagedConnection)
+               ((NotifyingManagedConnection)cl.getManagedConnection()).notifyRequestBegin();
+
+            return cl;
+         }
+      });
+   }
+
    /**
     * Gets simple connection listener that wraps connection.
     * @param subject Subject instance
@@ -660,7 +896,21 @@ public abstract class AbstractPool implements Pool
    ConnectionListener getTransactionOldConnection(Transaction trackByTransaction, ManagedConnectionPool mcp)
       throws ResourceException
    {
-      TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
+      TransactionSlots slots = getTransactionSlots();
+
+      if (slots == null)
+         throw new ResourceException(bundle.unableObtainLock());
+
+      // The owner of the transaction doesn't need the lock
+      if (slots.isOwner())
+      {
+         ConnectionListener cl = slots.get(mcp);
+         if (cl != null)
+            log.tracef("Previous connection tracked by transaction=%s tx=%s", cl, trackByTransaction);
+
+         return cl;
+      }
+
       Lock lock = getTSRLock();
 
       if (lock == null)
@@ -679,7 +929,7 @@ public abstract class AbstractPool implements Pool
       try
       {
          // Already got one
-         ConnectionListener cl = (ConnectionListener)tsr.getResource(mcp);
+         ConnectionListener cl = slots.get(mcp);
          if (cl != null)
          {
             log.tracef("Previous connection tracked by transaction=%s tx=%s", cl, trackByTransaction);
@@ -729,8 +979,26 @@ public abstract class AbstractPool implements Pool
          return cl;
       }
 
-      TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
-      Lock lock = getTSRLock();
+      TransactionSlots slots = getTransactionSlots();
+
+      // The owner of the transaction publishes without the lock
+      if (slots != null && slots.isOwner())
+      {
+         try
+         {
+            return trackByTransaction(trackByTransaction, mcp, slots, cl);
+         }
+         catch (Throwable t)
+         {
+            log.tracef("Killing connection tracked by transaction=%s tx=%s", cl, trackByTransaction);
+
+            returnConnection(cl, true);
+
+            throw new ResourceException(bundle.unableGetConnectionListener(), t);
+         }
+      }
+
+      Lock lock = slots != null ? getTSRLock() : null;
 
       if (lock == null)
       {
@@ -763,27 +1031,7 @@ public abstract class AbstractPool implements Pool
       }
       try
       {
-         // Check we weren't racing with another transaction
-         ConnectionListener other =
-            (ConnectionListener)tsr.getResource(mcp);
-
-         if (other != null)
-         {
-            returnConnection(cl, false);
-
-            log.tracef("Another thread already got a connection tracked by transaction=%s tx=%s",
-                       other, trackByTransaction);
-
-            cl = other;
-         }
-
-         // This is the connection for this transaction
-         cl.setTrackByTx(true);
-         tsr.putResource(mcp, cl);
-
-         log.tracef("Using connection from pool tracked by transaction=%s tx=%s", cl, trackByTransaction);
-
-         return cl;
+         return trackByTransaction(trackByTransaction, mcp, slots, cl);
       }
       catch (Throwable t)
       {
@@ -802,6 +1050,42 @@ public abstract class AbstractPool implements Pool
       }
    }
 
+   /**
+    * Make a connection listener the one of the transaction, unless another thread
+    * already published one for the pool
+    * @param trackByTransaction transaction instance
+    * @param mcp pool instance
+    * @param slots The slots of the transaction
+    * @param cl The connection listener
+    * @return The connection listener of the transaction
+    * @throws ResourceException Thrown if an error occurs
+    */
+   private ConnectionListener trackByTransaction(Transaction trackByTransaction, ManagedConnectionPool mcp,
+                                                 TransactionSlots slots, ConnectionListener cl)
+      throws ResourceException
+   {
+      // This is the connection for this transaction
+      cl.setTrackByTx(true);
+
+      // Check we weren't racing with another transaction
+      ConnectionListener other = slots.publish(mcp, cl);
+
+      if (other != cl)
+      {
+         cl.setTrackByTx(false);
+         returnConnection(cl, false);
+
+         log.tracef("Another thread already got a connection tracked by transaction=%s tx=%s",
+                    other, trackByTransaction);
+
+         cl = other;
+      }
+
+      log.tracef("Using connection from pool tracked by transaction=%s tx=%s", cl, trackByTransaction);
+
+      return cl;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -867,20 +1151,41 @@ public abstract class AbstractPool implements Pool
     */
    public boolean hasConnection(Subject subject, ConnectionRequestInfo cri)
    {
-      TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
-      Lock lock = getTSRLock();
-
-      if (lock == null)
-         return false;
-
+      TransactionSlots slots = null;
       try
       {
-         lock.lockInterruptibly();
+         TransactionSynchronizationRegistry tsr = getTransactionSynchronizationRegistry();
+
+         if (tsr != null)
+            slots = TransactionSlots.getTransactionSlots(tsr, false);
       }
-      catch (InterruptedException ie)
+      catch (Throwable t)
       {
-         Thread.interrupted();
+         log.debugf(t, "hasConnection error: %s", t.getMessage());
+      }
+
+      // Nothing has been tracked by the transaction
+      if (slots == null)
          return false;
+
+      Lock lock = null;
+
+      if (!slots.isOwner())
+      {
+         lock = getTSRLock();
+
+         if (lock == null)
+            return false;
+
+         try
+         {
+            lock.lockInterruptibly();
+         }
+         catch (InterruptedException ie)
+         {
+            Thread.interrupted();
+            return false;
+         }
       }
       try
       {
@@ -898,7 +1203,7 @@ public abstract class AbstractPool implements Pool
          ManagedConnectionPool mcp = getManagedConnectionPool(key, subject, cri);
 
          // Already got one
-         ConnectionListener cl = (ConnectionListener)tsr.getResource(mcp);
+         ConnectionListener cl = slots.get(mcp);
          if (cl != null)
          {
             return true;
@@ -910,7 +1215,8 @@ public abstract class AbstractPool implements Pool
       }
       finally
       {
-         lock.unlock();
+         if (lock != null)
+            lock.unlock();
       }
 
       return false;
@@ -925,6 +1231,23 @@ public abstract class AbstractPool implements Pool
       return cm;
    }
 
+   /**
+    * Get the hash code of a subject from the subject cache of the connection manager
+    * @param subject The subject
+    * @return The value; <code>null</code> if the subject isn't cached
+    */
+   protected Integer getCachedHashCode(Subject subject)
+   {
+      if (subject != null && cm instanceof AbstractConnectionManager)
+      {
+         SubjectCache sc = ((AbstractConnectionManager)cm).getSubjectCache();
+         if (sc != null)
+            return sc.getHashCode(subject);
+      }
+
+      return null;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1106,9 +1429,10 @@ public abstract class AbstractPool implements Pool
    {
       List<String> result = new ArrayList<String>();
 
-      if (permits.hasQueuedThreads())
+      if (permits.hasQueuedThreads() || waiters.hasQueuedThreads())
       {
          Collection<Thread> queuedThreads = new ArrayList<Thread>(permits.getQueuedThreads());
+         queuedThreads.addAll(waiters.getQueuedThreads());
          for (Thread t : queuedThreads)
          {
             result.add(dumpQueuedThread(t));
@@ -1183,4 +1507,43 @@ public abstract class AbstractPool implements Pool
     * @return The value
     */
    public abstract CoreLogger getLogger();
+
+   /**
+    * A managed connection pool that may give up an idle connection
+    */
+   private static class ReclaimCandidate implements Comparable<ReclaimCandidate>
+   {
+      /** The managed connection pool */
+      private final ManagedConnectionPool mcp;
+
+      /** The number of connections above the fair share */
+      private final int excess;
+
+      /** The last used time */
+      private final long lastUsed;
+
+      /**
+       * Constructor
+       * @param mcp The managed connection pool
+       * @param excess The number of connections above the fair share
+       * @param lastUsed The last used time
+       */
+      ReclaimCandidate(ManagedConnectionPool mcp, int excess, long lastUsed)
+      {
+         this.mcp = mcp;
+         this.excess = excess;
+         this.lastUsed = lastUsed;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public int compareTo(ReclaimCandidate other)
+      {
+         if (excess != other.excess)
+            return excess > other.excess ? -1 : 1;
+
+         return lastUsed < other.lastUsed ? -1 : (lastUsed == other.lastUsed ? 0 : 1);
+      }
+   }
 }
@@ -0,0 +1,180 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool;
+
+import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The number of physical connections shared by the managed connection pools of a pool.
+ *
+ * The limit is the maximum pool size, so a pool with a managed connection pool per subject
+ * or connection request info never holds more physical connections than configured.
+ *
+ * The budget is disabled by default, and is enabled by setting
+ * <code>ironjacamar.connection_budget</code> to <code>true</code>. It only applies to the
+ * semaphore concurrent linked deque managed connection pool; the array list managed connection
+ * pool doesn't take part in it.
+ *
+ * Connections reserved by creations in the background are tracked as pending until the new
+ * connection is in its pool, so a request that finds the budget used up can wait for them
+ * and reclaim the connection instead of failing
+ */
+public final class ConnectionBudget
+{
+   /** The pool configuration */
+   private final PoolConfiguration poolConfiguration;
+
+   /** The number of reserved connections */
+   private final AtomicInteger used;
+
+   /** The number of pending reservations */
+   private int pending;
+
+   /**
+    * Constructor
+    * @param pc The pool configuration
+    */
+   public ConnectionBudget(PoolConfiguration pc)
+   {
+      this.poolConfiguration = pc;
+      this.used = new AtomicInteger(0);
+      this.pending = 0;
+   }
+
+   /**
+    * Reserve a connection, if the limit hasn't been reached
+    * @return True if reserved; otherwise false
+    */
+   public boolean tryReserve()
+   {
+      int limit = getLimit();
+
+      while (true)
+      {
+         int current = used.get();
+         if (current >= limit)
+            return false;
+
+         if (used.compareAndSet(current, current + 1))
+            return true;
+      }
+   }
+
+   /**
+    * Reserve a connection for a creation in the background, if the limit hasn't been reached.
+    * The reservation is pending until {@link #completePending()} is called
+    * @return True if reserved; otherwise false
+    */
+   public boolean tryReservePending()
+   {
+      synchronized (this)
+      {
+         pending++;
+      }
+
+      if (tryReserve())
+         return true;
+
+      completePending();
+      return false;
+   }
+
+   /**
+    * Complete a pending reservation, once the connection is in its pool or the creation failed
+    */
+   public synchronized void completePending()
+   {
+      pending--;
+      notifyAll();
+   }
+
+   /**
+    * Wait for a pending reservation to complete
+    * @param timeout The timeout in milliseconds
+    * @return False if there were no pending reservations; otherwise true
+    * @exception InterruptedException If interrupted
+    */
+   public synchronized boolean awaitPending(long timeout) throws InterruptedException
+   {
+      if (pending == 0)
+         return false;
+
+      wait(timeout);
+      return true;
+   }
+
+   /**
+    * Reserve a connection, even if the limit has been reached
+    */
+   public void reserve()
+   {
+      used.incrementAndGet();
+   }
+
+   /**
+    * Release a connection
+    */
+   public void release()
+   {
+      used.decrementAndGet();
+   }
+
+   /**
+    * Get the number of reserved connections
+    * @return The value
+    */
+   public int getUsed()
+   {
+      return used.get();
+   }
+
+   /**
+    * Get the number of pending reservations
+    * @return The value
+    */
+   public synchronized int getPending()
+   {
+      return pending;
+   }
+
+   /**
+    * Get the limit
+    * @return The value
+    */
+   public int getLimit()
+   {
+      return poolConfiguration.getMaxSize();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return "ConnectionBudget@" + Integer.toHexString(System.identityHashCode(this)) +
+         "[used=" + getUsed() + " limit=" + getLimit() + " pending=" + getPending() + "]";
+   }
+}
@@ -0,0 +1,405 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool;
+
+import org.jboss.jca.core.CoreBundle;
+import org.jboss.jca.core.CoreLogger;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.ManagedConnection;
+import javax.resource.spi.ManagedConnectionFactory;
+import javax.resource.spi.ValidatingManagedConnectionFactory;
+import javax.security.auth.Subject;
+
+import org.jboss.logging.Logger;
+import org.jboss.logging.Messages;
+
+/**
+ * Governs the creation of physical connections for a managed connection pool, so a failing
+ * subject or connection request info doesn't suspend the creations of the others.
+ *
+ * At most <code>ironjacamar.creation_concurrency</code> connections are created at the same
+ * time (default 0, no limit). After <code>ironjacamar.creation_failure_threshold</code> failed
+ * creations in a row (default 0, disabled) the circuit opens, and creations fail at once
+ * instead of waiting for the resource. The circuit stays open for
+ * <code>ironjacamar.creation_backoff</code> milliseconds (default 1000), doubled each time
+ * it opens again up to <code>ironjacamar.creation_backoff_max</code> (default 30000), with
+ * jitter. A single creation is then let through as a probe, which must also pass the validation
+ * of the managed connection factory; the circuit closes if it succeeds, and opens again if not.
+ *
+ * A <code>javax.resource.spi.SecurityException</code> doesn't count as a failure, since the
+ * resource answered.
+ *
+ * The allocation retries wait allocation-retry-wait-millis between attempts, unless
+ * <code>ironjacamar.allocation_retry_backoff</code> is set, in which case the wait doubles with
+ * each retry, with jitter
+ */
+public final class CreationGovernor
+{
+   /** The logger */
+   private static CoreLogger log = Logger.getMessageLogger(CoreLogger.class, CreationGovernor.class.getName());
+
+   /** The bundle */
+   private static CoreBundle bundle = Messages.getBundle(CoreBundle.class);
+
+   /** Default concurrency */
+   private static int defaultConcurrency = getIntProperty("ironjacamar.creation_concurrency", 0);
+
+   /** Default failure threshold */
+   private static int defaultThreshold = getIntProperty("ironjacamar.creation_failure_threshold", 0);
+
+   /** Default backoff */
+   private static long defaultBackoff = getIntProperty("ironjacamar.creation_backoff", 1000);
+
+   /** Default maximum backoff */
+   private static long defaultMaxBackoff = getIntProperty("ironjacamar.creation_backoff_max", 30000);
+
+   /** Back off exponentially between the allocation retries */
+   private static boolean retryBackoff = getBooleanProperty("ironjacamar.allocation_retry_backoff");
+
+   /** The pool name */
+   private volatile String name;
+
+   /** The creation slots; <code>null</code> if not limited */
+   private final java.util.concurrent.Semaphore slots;
+
+   /** The number of failures in a row which opens the circuit */
+   private final int threshold;
+
+   /** The initial time the circuit stays open */
+   private final long backoff;
+
+   /** The maximum time the circuit stays open */
+   private final long maxBackoff;
+
+   /** The number of failures in a row */
+   private int failures;
+
+   /** The number of times the circuit opened since it was closed */
+   private int trips;
+
+   /** The time until the circuit is open; 0 if closed */
+   private long openUntil;
+
+   /** Is a probe in progress */
+   private boolean probing;
+
+   /**
+    * Constructor using the system properties
+    */
+   public CreationGovernor()
+   {
+      this(defaultConcurrency, defaultThreshold, defaultBackoff, defaultMaxBackoff);
+   }
+
+   /**
+    * Constructor
+    * @param concurrency The maximum number of concurrent creations; 0 for no limit
+    * @param threshold The number of failures in a row which opens the circuit; 0 to never open it
+    * @param backoff The initial time the circuit stays open in milliseconds
+    * @param maxBackoff The maximum time the circuit stays open in milliseconds
+    */
+   public CreationGovernor(int concurrency, int threshold, long backoff, long maxBackoff)
+   {
+      this.name = null;
+      this.slots = concurrency > 0 ? new java.util.concurrent.Semaphore(concurrency, true) : null;
+      this.threshold = Math.max(0, threshold);
+      this.backoff = Math.max(1L, backoff);
+      this.maxBackoff = Math.max(this.backoff, maxBackoff);
+      this.failures = 0;
+      this.trips = 0;
+      this.openUntil = 0L;
+      this.probing = false;
+   }
+
+   /**
+    * Set the pool name
+    * @param v The value
+    */
+   public void setName(String v)
+   {
+      name = v;
+   }
+
+   /**
+    * Create a managed connection
+    * @param mcf The managed connection factory
+    * @param subject The subject
+    * @param cri The connection request information
+    * @param timeout The time to wait for a creation slot in milliseconds
+    * @return The managed connection
+    * @exception ResourceException If the circuit is open, or the creation failed
+    */
+   public ManagedConnection createManagedConnection(ManagedConnectionFactory mcf, Subject subject,
+                                                    ConnectionRequestInfo cri, long timeout)
+      throws ResourceException
+   {
+      boolean probe = begin(timeout);
+      Throwable failure = null;
+
+      try
+      {
+         ManagedConnection mc = mcf.createManagedConnection(subject, cri);
+
+         if (probe && !isValid(mcf, mc))
+         {
+            try
+            {
+               mc.destroy();
+            }
+            catch (Throwable t)
+            {
+               log.trace("Exception destroying invalid probe connection", t);
+            }
+
+            throw new ResourceException(bundle.invalidProbeConnection(name));
+         }
+
+         return mc;
+      }
+      catch (ResourceException re)
+      {
+         failure = re;
+         throw re;
+      }
+      catch (RuntimeException e)
+      {
+         failure = e;
+         throw e;
+      }
+      catch (Error e)
+      {
+         failure = e;
+         throw e;
+      }
+      finally
+      {
+         end(probe, failure);
+      }
+   }
+
+   /**
+    * Begin a creation
+    * @param timeout The time to wait for a creation slot in milliseconds
+    * @return True if the creation is a probe of an open circuit; otherwise false
+    * @exception ResourceException If the circuit is open, or no creation slot became available
+    */
+   public boolean begin(long timeout) throws ResourceException
+   {
+      boolean probe = false;
+
+      synchronized (this)
+      {
+         if (openUntil != 0L)
+         {
+            if (probing || System.currentTimeMillis() < openUntil)
+               throw new ResourceException(bundle.connectionCreationSuspended(name));
+
+            probing = true;
+            probe = true;
+         }
+      }
+
+      if (slots != null)
+      {
+         String failure = null;
+         try
+         {
+            if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS))
+               failure = bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(timeout);
+         }
+         catch (InterruptedException ie)
+         {
+            Thread.currentThread().interrupt();
+            failure = bundle.interruptedWhileRequestingPermit();
+         }
+
+         if (failure != null)
+         {
+            if (probe)
+            {
+               synchronized (this)
+               {
+                  probing = false;
+               }
+            }
+
+            throw new ResourceException(failure);
+         }
+      }
+
+      return probe;
+   }
+
+   /**
+    * End a creation
+    * @param probe Was the creation a probe
+    * @param t The failure; <code>null</code> if the connection was created
+    */
+   public void end(boolean probe, Throwable t)
+   {
+      if (slots != null)
+         slots.release();
+
+      boolean failed = t != null && !(t instanceof javax.resource.spi.SecurityException);
+
+      synchronized (this)
+      {
+         if (probe)
+            probing = false;
+
+         if (!failed)
+         {
+            if (trips > 0)
+               log.connectionCreationRecovered(name);
+
+            failures = 0;
+            trips = 0;
+            openUntil = 0L;
+         }
+         else
+         {
+            failures++;
+
+            if (threshold > 0 && (probe || (openUntil == 0L && failures >= threshold)))
+            {
+               long delay = jitter(Math.min(maxBackoff, backoff << Math.min(trips, 20)));
+               trips++;
+               openUntil = System.currentTimeMillis() + delay;
+
+               log.connectionCreationSuspended(name, failures, delay);
+            }
+         }
+      }
+   }
+
+   /**
+    * Is the circuit open
+    * @return The value
+    */
+   public synchronized boolean isOpen()
+   {
+      return openUntil != 0L;
+   }
+
+   /**
+    * Check the connection created by a probe with the managed connection factory
+    * @param mcf The managed connection factory
+    * @param mc The managed connection
+    * @return True if valid, or if the managed connection factory doesn't validate; otherwise false
+    */
+   public static boolean isValid(ManagedConnectionFactory mcf, ManagedConnection mc)
+   {
+      if (!(mcf instanceof ValidatingManagedConnectionFactory))
+         return true;
+
+      try
+      {
+         Set invalid = ((ValidatingManagedConnectionFactory)mcf).getInvalidConnections(Collections.singleton(mc));
+         return invalid == null || invalid.isEmpty();
+      }
+      catch (Throwable t)
+      {
+         log.trace("Exception during probe validation", t);
+         return false;
+      }
+   }
+
+   /**
+    * Get the wait before an allocation retry; the configured wait, unless exponential backoff
+    * is enabled by <code>ironjacamar.allocation_retry_backoff</code>
+    * @param wait The configured wait in milliseconds
+    * @param retry The number of the retry, starting at 0
+    * @return The wait in milliseconds
+    */
+   public static long retryWait(long wait, int retry)
+   {
+      return retryBackoff ? backoff(wait, retry) : wait;
+   }
+
+   /**
+    * Get the wait before a retry; exponential in the number of the retry, with jitter
+    * @param base The wait before the first retry in milliseconds
+    * @param retry The number of the retry, starting at 0
+    * @return The wait in milliseconds, between half of and the full exponential value
+    */
+   public static long backoff(long base, int retry)
+   {
+      if (base <= 0L)
+         return 0L;
+
+      return jitter(Math.min(Math.max(base, defaultMaxBackoff), base << Math.min(retry, 20)));
+   }
+
+   /**
+    * Apply jitter to a wait
+    * @param delay The wait
+    * @return A random wait between half of and the full wait
+    */
+   private static long jitter(long delay)
+   {
+      long half = delay / 2;
+      return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+   }
+
+   /**
+    * Get a boolean system property
+    * @param key The key
+    * @return The value; false if not set
+    */
+   private static boolean getBooleanProperty(String key)
+   {
+      String value = SecurityActions.getSystemProperty(key);
+      return value != null && Boolean.parseBoolean(value.trim());
+   }
+
+   /**
+    * Get an integer system property
+    * @param key The key
+    * @param defaultValue The default value
+    * @return The value
+    */
+   private static int getIntProperty(String key, int defaultValue)
+   {
+      String value = SecurityActions.getSystemProperty(key);
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            return Math.max(0, Integer.parseInt(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return defaultValue;
+   }
+}
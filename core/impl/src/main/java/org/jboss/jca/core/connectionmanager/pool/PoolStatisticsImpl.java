@@ -23,6 +23,9 @@
 package org.jboss.jca.core.connectionmanager.pool;
 
 import org.jboss.jca.core.api.connectionmanager.pool.PoolStatistics;
+import org.jboss.jca.core.spi.statistics.Histogram;
+import org.jboss.jca.core.spi.statistics.MaxTracker;
+import org.jboss.jca.core.spi.statistics.TopSketch;
 import org.jboss.jca.core.spi.transaction.XAResourceStatistics;
 
 import java.io.IOException;
@@ -30,6 +33,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -38,7 +42,8 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
 
 /**
  * Pool statistics
@@ -51,6 +56,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    private static final long serialVersionUID = 9L;
 
    private static final String ACTIVE_COUNT = "ActiveCount";
+   private static final String ACTIVE_FILL_COUNT = "ActiveFillCount";
    private static final String AVAILABLE_COUNT = "AvailableCount";
    private static final String AVERAGE_BLOCKING_TIME = "AverageBlockingTime";
    private static final String AVERAGE_CREATION_TIME = "AverageCreationTime";
@@ -69,7 +75,19 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    private static final String MAX_USED_COUNT = "MaxUsedCount";
    private static final String MAX_WAIT_COUNT = "MaxWaitCount";
    private static final String MAX_WAIT_TIME = "MaxWaitTime";
+   private static final String PENDING_FILL_COUNT = "PendingFillCount";
+   private static final String P50_GET_TIME = "P50GetTime";
+   private static final String P99_GET_TIME = "P99GetTime";
+   private static final String P999_GET_TIME = "P999GetTime";
+   private static final String P50_USAGE_TIME = "P50UsageTime";
+   private static final String P99_USAGE_TIME = "P99UsageTime";
+   private static final String P999_USAGE_TIME = "P999UsageTime";
+   private static final String P50_CREATION_TIME = "P50CreationTime";
+   private static final String P99_CREATION_TIME = "P99CreationTime";
+   private static final String P999_CREATION_TIME = "P999CreationTime";
    private static final String TIMED_OUT = "TimedOut";
+   private static final String TOP_GET_TIME = "TopGetTime";
+   private static final String TOP_USAGE_TIME = "TopUsageTime";
    private static final String TOTAL_BLOCKING_TIME = "TotalBlockingTime";
    private static final String TOTAL_CREATION_TIME = "TotalCreationTime";
    private static final String TOTAL_GET_TIME = "TotalGetTime";
@@ -81,30 +99,57 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    private static final String XA_COMMIT_AVERAGE_TIME = "XACommitAverageTime";
    private static final String XA_COMMIT_TOTAL_TIME = "XACommitTotalTime";
    private static final String XA_COMMIT_MAX_TIME = "XACommitMaxTime";
+   private static final String XA_COMMIT_P50_TIME = "XACommitP50Time";
+   private static final String XA_COMMIT_P99_TIME = "XACommitP99Time";
+   private static final String XA_COMMIT_P999_TIME = "XACommitP999Time";
    private static final String XA_END_COUNT = "XAEndCount";
    private static final String XA_END_AVERAGE_TIME = "XAEndAverageTime";
    private static final String XA_END_TOTAL_TIME = "XAEndTotalTime";
    private static final String XA_END_MAX_TIME = "XAEndMaxTime";
+   private static final String XA_END_P50_TIME = "XAEndP50Time";
+   private static final String XA_END_P99_TIME = "XAEndP99Time";
+   private static final String XA_END_P999_TIME = "XAEndP999Time";
    private static final String XA_FORGET_COUNT = "XAForgetCount";
    private static final String XA_FORGET_AVERAGE_TIME = "XAForgetAverageTime";
    private static final String XA_FORGET_TOTAL_TIME = "XAForgetTotalTime";
    private static final String XA_FORGET_MAX_TIME = "XAForgetMaxTime";
+   private static final String XA_FORGET_P50_TIME = "XAForgetP50Time";
+   private static final String XA_FORGET_P99_TIME = "XAForgetP99Time";
+   private static final String XA_FORGET_P999_TIME = "XAForgetP999Time";
    private static final String XA_PREPARE_COUNT = "XAPrepareCount";
    private static final String XA_PREPARE_AVERAGE_TIME = "XAPrepareAverageTime";
    private static final String XA_PREPARE_TOTAL_TIME = "XAPrepareTotalTime";
    private static final String XA_PREPARE_MAX_TIME = "XAPrepareMaxTime";
+   private static final String XA_PREPARE_P50_TIME = "XAPrepareP50Time";
+   private static final String XA_PREPARE_P99_TIME = "XAPrepareP99Time";
+   private static final String XA_PREPARE_P999_TIME = "XAPrepareP999Time";
    private static final String XA_RECOVER_COUNT = "XARecoverCount";
    private static final String XA_RECOVER_AVERAGE_TIME = "XARecoverAverageTime";
    private static final String XA_RECOVER_TOTAL_TIME = "XARecoverTotalTime";
    private static final String XA_RECOVER_MAX_TIME = "XARecoverMaxTime";
+   private static final String XA_RECOVER_P50_TIME = "XARecoverP50Time";
+   private static final String XA_RECOVER_P99_TIME = "XARecoverP99Time";
+   private static final String XA_RECOVER_P999_TIME = "XARecoverP999Time";
    private static final String XA_ROLLBACK_COUNT = "XARollbackCount";
    private static final String XA_ROLLBACK_AVERAGE_TIME = "XARollbackAverageTime";
    private static final String XA_ROLLBACK_TOTAL_TIME = "XARollbackTotalTime";
    private static final String XA_ROLLBACK_MAX_TIME = "XARollbackMaxTime";
+   private static final String XA_ROLLBACK_P50_TIME = "XARollbackP50Time";
+   private static final String XA_ROLLBACK_P99_TIME = "XARollbackP99Time";
+   private static final String XA_ROLLBACK_P999_TIME = "XARollbackP999Time";
    private static final String XA_START_COUNT = "XAStartCount";
    private static final String XA_START_AVERAGE_TIME = "XAStartAverageTime";
    private static final String XA_START_TOTAL_TIME = "XAStartTotalTime";
    private static final String XA_START_MAX_TIME = "XAStartMaxTime";
+   private static final String XA_START_P50_TIME = "XAStartP50Time";
+   private static final String XA_START_P99_TIME = "XAStartP99Time";
+   private static final String XA_START_P999_TIME = "XAStartP999Time";
+
+   /** The number of callers tracked for the top statistics */
+   private static final int TOP_CAPACITY = 64;
+
+   /** The number of callers reported by the top statistics */
+   private static final int TOP_ENTRIES = 10;
 
    private int maxPoolSize;
    private transient SortedSet<String> names;
@@ -112,51 +157,66 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    private transient Map<Locale, ResourceBundle> rbs;
 
    private transient AtomicBoolean enabled;
-   private transient AtomicInteger createdCount;
-   private transient AtomicInteger destroyedCount;
-   private transient AtomicInteger maxUsedCount;
-   private transient AtomicLong maxCreationTime;
-   private transient AtomicLong maxGetTime;
-   private transient AtomicLong maxPoolTime;
-   private transient AtomicLong maxUsageTime;
-   private transient AtomicInteger maxWaitCount;
-   private transient AtomicLong maxWaitTime;
-   private transient AtomicInteger timedOut;
-   private transient AtomicLong totalBlockingTime;
-   private transient AtomicLong totalBlockingTimeInvocations;
-   private transient AtomicLong totalCreationTime;
-   private transient AtomicLong totalGetTime;
-   private transient AtomicLong totalGetTimeInvocations;
-   private transient AtomicLong totalPoolTime;
-   private transient AtomicLong totalPoolTimeInvocations;
-   private transient AtomicLong totalUsageTime;
-   private transient AtomicLong totalUsageTimeInvocations;
+   private transient LongAdder createdCount;
+   private transient LongAdder destroyedCount;
+   private transient MaxTracker maxUsedCount;
+   private transient MaxTracker maxCreationTime;
+   private transient MaxTracker maxGetTime;
+   private transient MaxTracker maxPoolTime;
+   private transient MaxTracker maxUsageTime;
+   private transient MaxTracker maxWaitCount;
+   private transient MaxTracker maxWaitTime;
+   private transient LongAdder timedOut;
+   private transient LongAdder totalBlockingTime;
+   private transient LongAdder totalBlockingTimeInvocations;
+   private transient LongAdder totalCreationTime;
+   private transient LongAdder totalGetTime;
+   private transient LongAdder totalGetTimeInvocations;
+   private transient LongAdder totalPoolTime;
+   private transient LongAdder totalPoolTimeInvocations;
+   private transient LongAdder totalUsageTime;
+   private transient LongAdder totalUsageTimeInvocations;
    private transient AtomicInteger inUseCount;
-   private transient AtomicInteger blockingFailureCount;
-   private transient AtomicInteger waitCount;
-
-
-   private transient AtomicLong commitCount;
-   private transient AtomicLong commitTotalTime;
-   private transient AtomicLong commitMaxTime;
-   private transient AtomicLong endCount;
-   private transient AtomicLong endTotalTime;
-   private transient AtomicLong endMaxTime;
-   private transient AtomicLong forgetCount;
-   private transient AtomicLong forgetTotalTime;
-   private transient AtomicLong forgetMaxTime;
-   private transient AtomicLong prepareCount;
-   private transient AtomicLong prepareTotalTime;
-   private transient AtomicLong prepareMaxTime;
-   private transient AtomicLong recoverCount;
-   private transient AtomicLong recoverTotalTime;
-   private transient AtomicLong recoverMaxTime;
-   private transient AtomicLong rollbackCount;
-   private transient AtomicLong rollbackTotalTime;
-   private transient AtomicLong rollbackMaxTime;
-   private transient AtomicLong startCount;
-   private transient AtomicLong startTotalTime;
-   private transient AtomicLong startMaxTime;
+   private transient volatile IntSupplier inUseCounter;
+   private transient LongAdder blockingFailureCount;
+   private transient LongAdder waitCount;
+   private transient LongAdder pendingFillCount;
+   private transient LongAdder activeFillCount;
+   private transient Histogram getTimeHistogram;
+   private transient Histogram usageTimeHistogram;
+   private transient Histogram creationTimeHistogram;
+   private transient TopSketch callerGetTime;
+   private transient TopSketch callerUsageTime;
+
+
+   private transient LongAdder commitCount;
+   private transient LongAdder commitTotalTime;
+   private transient MaxTracker commitMaxTime;
+   private transient LongAdder endCount;
+   private transient LongAdder endTotalTime;
+   private transient MaxTracker endMaxTime;
+   private transient LongAdder forgetCount;
+   private transient LongAdder forgetTotalTime;
+   private transient MaxTracker forgetMaxTime;
+   private transient LongAdder prepareCount;
+   private transient LongAdder prepareTotalTime;
+   private transient MaxTracker prepareMaxTime;
+   private transient LongAdder recoverCount;
+   private transient LongAdder recoverTotalTime;
+   private transient MaxTracker recoverMaxTime;
+   private transient LongAdder rollbackCount;
+   private transient LongAdder rollbackTotalTime;
+   private transient MaxTracker rollbackMaxTime;
+   private transient LongAdder startCount;
+   private transient LongAdder startTotalTime;
+   private transient MaxTracker startMaxTime;
+   private transient Histogram commitHistogram;
+   private transient Histogram endHistogram;
+   private transient Histogram forgetHistogram;
+   private transient Histogram prepareHistogram;
+   private transient Histogram recoverHistogram;
+   private transient Histogram rollbackHistogram;
+   private transient Histogram startHistogram;
 
    /**
     * Constructor
@@ -175,50 +235,64 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       this.maxPoolSize = maxPoolSize;
 
-      this.createdCount = new AtomicInteger(0);
-      this.destroyedCount = new AtomicInteger(0);
-      this.maxCreationTime = new AtomicLong(Long.MIN_VALUE);
-      this.maxGetTime = new AtomicLong(Long.MIN_VALUE);
-      this.maxPoolTime = new AtomicLong(Long.MIN_VALUE);
-      this.maxUsageTime = new AtomicLong(Long.MIN_VALUE);
-      this.maxUsedCount = new AtomicInteger(Integer.MIN_VALUE);
-      this.maxWaitCount = new AtomicInteger(0);
-      this.maxWaitTime = new AtomicLong(Long.MIN_VALUE);
-      this.timedOut = new AtomicInteger(0);
-      this.totalBlockingTime = new AtomicLong(0);
-      this.totalBlockingTimeInvocations = new AtomicLong(0);
-      this.totalCreationTime = new AtomicLong(0);
-      this.totalGetTime = new AtomicLong(0);
-      this.totalGetTimeInvocations = new AtomicLong(0);
-      this.totalPoolTime = new AtomicLong(0);
-      this.totalPoolTimeInvocations = new AtomicLong(0);
-      this.totalUsageTime = new AtomicLong(0);
-      this.totalUsageTimeInvocations = new AtomicLong(0);
+      this.createdCount = new LongAdder();
+      this.destroyedCount = new LongAdder();
+      this.maxCreationTime = new MaxTracker(Long.MIN_VALUE);
+      this.maxGetTime = new MaxTracker(Long.MIN_VALUE);
+      this.maxPoolTime = new MaxTracker(Long.MIN_VALUE);
+      this.maxUsageTime = new MaxTracker(Long.MIN_VALUE);
+      this.maxUsedCount = new MaxTracker(Integer.MIN_VALUE);
+      this.maxWaitCount = new MaxTracker(0);
+      this.maxWaitTime = new MaxTracker(Long.MIN_VALUE);
+      this.timedOut = new LongAdder();
+      this.totalBlockingTime = new LongAdder();
+      this.totalBlockingTimeInvocations = new LongAdder();
+      this.totalCreationTime = new LongAdder();
+      this.totalGetTime = new LongAdder();
+      this.totalGetTimeInvocations = new LongAdder();
+      this.totalPoolTime = new LongAdder();
+      this.totalPoolTimeInvocations = new LongAdder();
+      this.totalUsageTime = new LongAdder();
+      this.totalUsageTimeInvocations = new LongAdder();
       this.inUseCount = new AtomicInteger(0);
-      this.blockingFailureCount = new AtomicInteger(0);
-      this.waitCount = new AtomicInteger(0);
-
-      this.commitCount = new AtomicLong(0L);
-      this.commitTotalTime = new AtomicLong(0L);
-      this.commitMaxTime = new AtomicLong(0L);
-      this.endCount = new AtomicLong(0L);
-      this.endTotalTime = new AtomicLong(0L);
-      this.endMaxTime = new AtomicLong(0L);
-      this.forgetCount = new AtomicLong(0L);
-      this.forgetTotalTime = new AtomicLong(0L);
-      this.forgetMaxTime = new AtomicLong(0L);
-      this.prepareCount = new AtomicLong(0L);
-      this.prepareTotalTime = new AtomicLong(0L);
-      this.prepareMaxTime = new AtomicLong(0L);
-      this.recoverCount = new AtomicLong(0L);
-      this.recoverTotalTime = new AtomicLong(0L);
-      this.recoverMaxTime = new AtomicLong(0L);
-      this.rollbackCount = new AtomicLong(0L);
-      this.rollbackTotalTime = new AtomicLong(0L);
-      this.rollbackMaxTime = new AtomicLong(0L);
-      this.startCount = new AtomicLong(0L);
-      this.startTotalTime = new AtomicLong(0L);
-      this.startMaxTime = new AtomicLong(0L);
+      this.blockingFailureCount = new LongAdder();
+      this.waitCount = new LongAdder();
+      this.pendingFillCount = new LongAdder();
+      this.activeFillCount = new LongAdder();
+      this.getTimeHistogram = new Histogram();
+      this.usageTimeHistogram = new Histogram();
+      this.creationTimeHistogram = new Histogram();
+      this.callerGetTime = new TopSketch(TOP_CAPACITY);
+      this.callerUsageTime = new TopSketch(TOP_CAPACITY);
+
+      this.commitCount = new LongAdder();
+      this.commitTotalTime = new LongAdder();
+      this.commitMaxTime = new MaxTracker(0L);
+      this.endCount = new LongAdder();
+      this.endTotalTime = new LongAdder();
+      this.endMaxTime = new MaxTracker(0L);
+      this.forgetCount = new LongAdder();
+      this.forgetTotalTime = new LongAdder();
+      this.forgetMaxTime = new MaxTracker(0L);
+      this.prepareCount = new LongAdder();
+      this.prepareTotalTime = new LongAdder();
+      this.prepareMaxTime = new MaxTracker(0L);
+      this.recoverCount = new LongAdder();
+      this.recoverTotalTime = new LongAdder();
+      this.recoverMaxTime = new MaxTracker(0L);
+      this.rollbackCount = new LongAdder();
+      this.rollbackTotalTime = new LongAdder();
+      this.rollbackMaxTime = new MaxTracker(0L);
+      this.startCount = new LongAdder();
+      this.startTotalTime = new LongAdder();
+      this.startMaxTime = new MaxTracker(0L);
+      this.commitHistogram = new Histogram();
+      this.endHistogram = new Histogram();
+      this.forgetHistogram = new Histogram();
+      this.prepareHistogram = new Histogram();
+      this.recoverHistogram = new Histogram();
+      this.rollbackHistogram = new Histogram();
+      this.startHistogram = new Histogram();
 
       SortedSet<String> n = new TreeSet<String>();
       Map<String, Class> t = new HashMap<String, Class>();
@@ -226,6 +300,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       n.add(ACTIVE_COUNT);
       t.put(ACTIVE_COUNT, int.class);
 
+      n.add(ACTIVE_FILL_COUNT);
+      t.put(ACTIVE_FILL_COUNT, int.class);
+
       n.add(AVAILABLE_COUNT);
       t.put(AVAILABLE_COUNT, int.class);
 
@@ -280,9 +357,45 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       n.add(MAX_WAIT_TIME);
       t.put(MAX_WAIT_TIME, long.class);
 
+      n.add(PENDING_FILL_COUNT);
+      t.put(PENDING_FILL_COUNT, int.class);
+
+      n.add(P50_GET_TIME);
+      t.put(P50_GET_TIME, long.class);
+
+      n.add(P99_GET_TIME);
+      t.put(P99_GET_TIME, long.class);
+
+      n.add(P999_GET_TIME);
+      t.put(P999_GET_TIME, long.class);
+
+      n.add(P50_USAGE_TIME);
+      t.put(P50_USAGE_TIME, long.class);
+
+      n.add(P99_USAGE_TIME);
+      t.put(P99_USAGE_TIME, long.class);
+
+      n.add(P999_USAGE_TIME);
+      t.put(P999_USAGE_TIME, long.class);
+
+      n.add(P50_CREATION_TIME);
+      t.put(P50_CREATION_TIME, long.class);
+
+      n.add(P99_CREATION_TIME);
+      t.put(P99_CREATION_TIME, long.class);
+
+      n.add(P999_CREATION_TIME);
+      t.put(P999_CREATION_TIME, long.class);
+
       n.add(TIMED_OUT);
       t.put(TIMED_OUT, int.class);
 
+      n.add(TOP_GET_TIME);
+      t.put(TOP_GET_TIME, String.class);
+
+      n.add(TOP_USAGE_TIME);
+      t.put(TOP_USAGE_TIME, String.class);
+
       n.add(TOTAL_BLOCKING_TIME);
       t.put(TOTAL_BLOCKING_TIME, long.class);
 
@@ -309,6 +422,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_COMMIT_TOTAL_TIME, long.class);
       n.add(XA_COMMIT_MAX_TIME);
       t.put(XA_COMMIT_MAX_TIME, long.class);
+      n.add(XA_COMMIT_P50_TIME);
+      t.put(XA_COMMIT_P50_TIME, long.class);
+      n.add(XA_COMMIT_P99_TIME);
+      t.put(XA_COMMIT_P99_TIME, long.class);
+      n.add(XA_COMMIT_P999_TIME);
+      t.put(XA_COMMIT_P999_TIME, long.class);
 
       n.add(XA_END_COUNT);
       t.put(XA_END_COUNT, long.class);
@@ -318,6 +437,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_END_TOTAL_TIME, long.class);
       n.add(XA_END_MAX_TIME);
       t.put(XA_END_MAX_TIME, long.class);
+      n.add(XA_END_P50_TIME);
+      t.put(XA_END_P50_TIME, long.class);
+      n.add(XA_END_P99_TIME);
+      t.put(XA_END_P99_TIME, long.class);
+      n.add(XA_END_P999_TIME);
+      t.put(XA_END_P999_TIME, long.class);
 
       n.add(XA_FORGET_COUNT);
       t.put(XA_FORGET_COUNT, long.class);
@@ -327,6 +452,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_FORGET_TOTAL_TIME, long.class);
       n.add(XA_FORGET_MAX_TIME);
       t.put(XA_FORGET_MAX_TIME, long.class);
+      n.add(XA_FORGET_P50_TIME);
+      t.put(XA_FORGET_P50_TIME, long.class);
+      n.add(XA_FORGET_P99_TIME);
+      t.put(XA_FORGET_P99_TIME, long.class);
+      n.add(XA_FORGET_P999_TIME);
+      t.put(XA_FORGET_P999_TIME, long.class);
 
       n.add(XA_PREPARE_COUNT);
       t.put(XA_PREPARE_COUNT, long.class);
@@ -336,6 +467,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_PREPARE_TOTAL_TIME, long.class);
       n.add(XA_PREPARE_MAX_TIME);
       t.put(XA_PREPARE_MAX_TIME, long.class);
+      n.add(XA_PREPARE_P50_TIME);
+      t.put(XA_PREPARE_P50_TIME, long.class);
+      n.add(XA_PREPARE_P99_TIME);
+      t.put(XA_PREPARE_P99_TIME, long.class);
+      n.add(XA_PREPARE_P999_TIME);
+      t.put(XA_PREPARE_P999_TIME, long.class);
 
       n.add(XA_RECOVER_COUNT);
       t.put(XA_RECOVER_COUNT, long.class);
@@ -345,6 +482,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_RECOVER_TOTAL_TIME, long.class);
       n.add(XA_RECOVER_MAX_TIME);
       t.put(XA_RECOVER_MAX_TIME, long.class);
+      n.add(XA_RECOVER_P50_TIME);
+      t.put(XA_RECOVER_P50_TIME, long.class);
+      n.add(XA_RECOVER_P99_TIME);
+      t.put(XA_RECOVER_P99_TIME, long.class);
+      n.add(XA_RECOVER_P999_TIME);
+      t.put(XA_RECOVER_P999_TIME, long.class);
 
       n.add(XA_ROLLBACK_COUNT);
       t.put(XA_ROLLBACK_COUNT, long.class);
@@ -354,6 +497,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_ROLLBACK_TOTAL_TIME, long.class);
       n.add(XA_ROLLBACK_MAX_TIME);
       t.put(XA_ROLLBACK_MAX_TIME, long.class);
+      n.add(XA_ROLLBACK_P50_TIME);
+      t.put(XA_ROLLBACK_P50_TIME, long.class);
+      n.add(XA_ROLLBACK_P99_TIME);
+      t.put(XA_ROLLBACK_P99_TIME, long.class);
+      n.add(XA_ROLLBACK_P999_TIME);
+      t.put(XA_ROLLBACK_P999_TIME, long.class);
 
       n.add(XA_START_COUNT);
       t.put(XA_START_COUNT, long.class);
@@ -363,6 +512,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       t.put(XA_START_TOTAL_TIME, long.class);
       n.add(XA_START_MAX_TIME);
       t.put(XA_START_MAX_TIME, long.class);
+      n.add(XA_START_P50_TIME);
+      t.put(XA_START_P50_TIME, long.class);
+      n.add(XA_START_P99_TIME);
+      t.put(XA_START_P99_TIME, long.class);
+      n.add(XA_START_P999_TIME);
+      t.put(XA_START_P999_TIME, long.class);
 
       this.names = Collections.unmodifiableSortedSet(n);
       this.types = Collections.unmodifiableMap(t);
@@ -438,6 +593,10 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getActiveCount();
       }
+      else if (ACTIVE_FILL_COUNT.equals(name))
+      {
+         return getActiveFillCount();
+      }
       else if (AVAILABLE_COUNT.equals(name))
       {
          return getAvailableCount();
@@ -510,10 +669,58 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getMaxWaitTime();
       }
+      else if (PENDING_FILL_COUNT.equals(name))
+      {
+         return getPendingFillCount();
+      }
+      else if (P50_GET_TIME.equals(name))
+      {
+         return getGetTimePercentile(50.0);
+      }
+      else if (P99_GET_TIME.equals(name))
+      {
+         return getGetTimePercentile(99.0);
+      }
+      else if (P999_GET_TIME.equals(name))
+      {
+         return getGetTimePercentile(99.9);
+      }
+      else if (P50_USAGE_TIME.equals(name))
+      {
+         return getUsageTimePercentile(50.0);
+      }
+      else if (P99_USAGE_TIME.equals(name))
+      {
+         return getUsageTimePercentile(99.0);
+      }
+      else if (P999_USAGE_TIME.equals(name))
+      {
+         return getUsageTimePercentile(99.9);
+      }
+      else if (P50_CREATION_TIME.equals(name))
+      {
+         return getCreationTimePercentile(50.0);
+      }
+      else if (P99_CREATION_TIME.equals(name))
+      {
+         return getCreationTimePercentile(99.0);
+      }
+      else if (P999_CREATION_TIME.equals(name))
+      {
+         return getCreationTimePercentile(99.9);
+      }
       else if (TIMED_OUT.equals(name))
       {
          return getTimedOut();
       }
+      else if (TOP_GET_TIME.equals(name))
+      {
+         return getTopGetTime().toString();
+      }
+      else if (TOP_USAGE_TIME.equals(name))
+      {
+         return getTopUsageTime().toString();
+      }
       else if (TOTAL_BLOCKING_TIME.equals(name))
       {
          return getTotalBlockingTime();
@@ -554,6 +761,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getCommitMaxTime();
       }
+      else if (XA_COMMIT_P50_TIME.equals(name))
+      {
+         return getCommitTimePercentile(50.0);
+      }
+      else if (XA_COMMIT_P99_TIME.equals(name))
+      {
+         return getCommitTimePercentile(99.0);
+      }
+      else if (XA_COMMIT_P999_TIME.equals(name))
+      {
+         return getCommitTimePercentile(99.9);
+      }
       else if (XA_END_COUNT.equals(name))
       {
          return getEndCount();
@@ -570,6 +789,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getEndMaxTime();
       }
+      else if (XA_END_P50_TIME.equals(name))
+      {
+         return getEndTimePercentile(50.0);
+      }
+      else if (XA_END_P99_TIME.equals(name))
+      {
+         return getEndTimePercentile(99.0);
+      }
+      else if (XA_END_P999_TIME.equals(name))
+      {
+         return getEndTimePercentile(99.9);
+      }
       else if (XA_FORGET_COUNT.equals(name))
       {
          return getForgetCount();
@@ -586,6 +817,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getForgetMaxTime();
       }
+      else if (XA_FORGET_P50_TIME.equals(name))
+      {
+         return getForgetTimePercentile(50.0);
+      }
+      else if (XA_FORGET_P99_TIME.equals(name))
+      {
+         return getForgetTimePercentile(99.0);
+      }
+      else if (XA_FORGET_P999_TIME.equals(name))
+      {
+         return getForgetTimePercentile(99.9);
+      }
       else if (XA_PREPARE_COUNT.equals(name))
       {
          return getPrepareCount();
@@ -602,6 +845,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getPrepareMaxTime();
       }
+      else if (XA_PREPARE_P50_TIME.equals(name))
+      {
+         return getPrepareTimePercentile(50.0);
+      }
+      else if (XA_PREPARE_P99_TIME.equals(name))
+      {
+         return getPrepareTimePercentile(99.0);
+      }
+      else if (XA_PREPARE_P999_TIME.equals(name))
+      {
+         return getPrepareTimePercentile(99.9);
+      }
       else if (XA_RECOVER_COUNT.equals(name))
       {
          return getRecoverCount();
@@ -618,6 +873,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getRecoverMaxTime();
       }
+      else if (XA_RECOVER_P50_TIME.equals(name))
+      {
+         return getRecoverTimePercentile(50.0);
+      }
+      else if (XA_RECOVER_P99_TIME.equals(name))
+      {
+         return getRecoverTimePercentile(99.0);
+      }
+      else if (XA_RECOVER_P999_TIME.equals(name))
+      {
+         return getRecoverTimePercentile(99.9);
+      }
       else if (XA_ROLLBACK_COUNT.equals(name))
       {
          return getRollbackCount();
@@ -634,6 +901,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getRollbackMaxTime();
       }
+      else if (XA_ROLLBACK_P50_TIME.equals(name))
+      {
+         return getRollbackTimePercentile(50.0);
+      }
+      else if (XA_ROLLBACK_P99_TIME.equals(name))
+      {
+         return getRollbackTimePercentile(99.0);
+      }
+      else if (XA_ROLLBACK_P999_TIME.equals(name))
+      {
+         return getRollbackTimePercentile(99.9);
+      }
       else if (XA_START_COUNT.equals(name))
       {
          return getStartCount();
@@ -650,6 +929,18 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       {
          return getStartMaxTime();
       }
+      else if (XA_START_P50_TIME.equals(name))
+      {
+         return getStartTimePercentile(50.0);
+      }
+      else if (XA_START_P99_TIME.equals(name))
+      {
+         return getStartTimePercentile(99.0);
+      }
+      else if (XA_START_P999_TIME.equals(name))
+      {
+         return getStartTimePercentile(99.9);
+      }
 
       return null;
    }
@@ -682,10 +973,10 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      if (createdCount.get() < destroyedCount.get())
+      if ((int)createdCount.sum() < (int)destroyedCount.sum())
          clear();
 
-      return createdCount.get() - destroyedCount.get();
+      return (int)createdCount.sum() - (int)destroyedCount.sum();
    }
 
    /**
@@ -696,7 +987,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return maxPoolSize - inUseCount.get();
+      return maxPoolSize - readInUseCount();
    }
 
    /**
@@ -707,7 +998,8 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalBlockingTimeInvocations.get() != 0 ? totalBlockingTime.get() / totalBlockingTimeInvocations.get() : 0;
+      long invocations = totalBlockingTimeInvocations.sum();
+      return invocations != 0 ? totalBlockingTime.sum() / invocations : 0;
    }
 
    /**
@@ -718,7 +1010,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return createdCount.get() != 0 ? totalCreationTime.get() / createdCount.get() : 0;
+      return (int)createdCount.sum() != 0 ? totalCreationTime.sum() / (int)createdCount.sum() : 0;
    }
 
    /**
@@ -729,7 +1021,8 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalGetTimeInvocations.get() != 0 ? totalGetTime.get() / totalGetTimeInvocations.get() : 0;
+      long invocations = totalGetTimeInvocations.sum();
+      return invocations != 0 ? totalGetTime.sum() / invocations : 0;
    }
 
    /**
@@ -740,7 +1033,8 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalUsageTimeInvocations.get() != 0 ? totalUsageTime.get() / totalUsageTimeInvocations.get() : 0;
+      long invocations = totalUsageTimeInvocations.sum();
+      return invocations != 0 ? totalUsageTime.sum() / invocations : 0;
    }
 
    /**
@@ -751,7 +1045,8 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalPoolTimeInvocations.get() != 0 ? totalPoolTime.get() / totalPoolTimeInvocations.get() : 0;
+      long invocations = totalPoolTimeInvocations.sum();
+      return invocations != 0 ? totalPoolTime.sum() / invocations : 0;
    }
 
    /**
@@ -762,7 +1057,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return blockingFailureCount.get();
+      return (int)blockingFailureCount.sum();
    }
 
    /**
@@ -771,7 +1066,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    public void deltaBlockingFailureCount()
    {
       if (enabled.get())
-         blockingFailureCount.incrementAndGet();
+         blockingFailureCount.increment();
    }
 
    /**
@@ -782,7 +1077,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return createdCount.get();
+      return (int)createdCount.sum();
    }
 
    /**
@@ -791,7 +1086,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    public void deltaCreatedCount()
    {
       if (enabled.get())
-         createdCount.incrementAndGet();
+         createdCount.increment();
    }
 
    /**
@@ -802,7 +1097,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return destroyedCount.get();
+      return (int)destroyedCount.sum();
    }
 
    /**
@@ -811,7 +1106,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    public void deltaDestroyedCount()
    {
       if (enabled.get())
-         destroyedCount.incrementAndGet();
+         destroyedCount.increment();
    }
 
    /**
@@ -833,7 +1128,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return inUseCount.get();
+      return readInUseCount();
    }
 
    /**
@@ -846,6 +1141,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       setMaxUsedCount(v);
    }
 
+   /**
+    * Set the counter which computes the in use count when it is read. The in use count
+    * set through {@link #setInUsedCount(int)} then only feeds the max used count
+    * @param v The value
+    */
+   public void setInUseCounter(IntSupplier v)
+   {
+      inUseCounter = v;
+   }
+
+   /**
+    * Read the in use count, and sample the max used count with it if it is computed
+    * @return The value
+    */
+   private int readInUseCount()
+   {
+      IntSupplier counter = inUseCounter;
+      if (counter == null)
+         return inUseCount.get();
+
+      int v = counter.getAsInt();
+      setMaxUsedCount(v);
+      return v;
+   }
+
    /**
     * Get max used count
     * @return The value
@@ -855,7 +1175,10 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return maxUsedCount.get() != Integer.MIN_VALUE ? maxUsedCount.get() : 0;
+      if (inUseCounter != null)
+         readInUseCount();
+
+      return maxUsedCount.get() != Integer.MIN_VALUE ? (int)maxUsedCount.get() : 0;
    }
 
    /**
@@ -864,8 +1187,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
     */
    private void setMaxUsedCount(int v)
    {
-      if (v > maxUsedCount.get())
-         maxUsedCount.set(v);
+      maxUsedCount.update(v);
    }
 
    /**
@@ -879,6 +1201,19 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return maxCreationTime.get() != Long.MIN_VALUE ? maxCreationTime.get() : 0;
    }
 
+   /**
+    * Get the creation time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getCreationTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return creationTimeHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -890,6 +1225,19 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return maxGetTime.get() != Long.MIN_VALUE ? maxGetTime.get() : 0;
    }
 
+   /**
+    * Get the get time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getGetTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return getTimeHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -912,6 +1260,43 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return maxUsageTime.get() != Long.MIN_VALUE ? maxUsageTime.get() : 0;
    }
 
+   /**
+    * Get the callers with the largest total time obtaining physical connections
+    * @return The value
+    */
+   public List<TopSketch.Entry> getTopGetTime()
+   {
+      if (!enabled.get())
+         return Collections.emptyList();
+
+      return callerGetTime.getTop(TOP_ENTRIES);
+   }
+
+   /**
+    * Get the callers with the largest total time using physical connections
+    * @return The value
+    */
+   public List<TopSketch.Entry> getTopUsageTime()
+   {
+      if (!enabled.get())
+         return Collections.emptyList();
+
+      return callerUsageTime.getTop(TOP_ENTRIES);
+   }
+
+   /**
+    * Get the usage time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getUsageTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return usageTimeHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * Get max wait count
     * @return The value
@@ -921,7 +1306,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0;
 
-      return maxWaitCount.get() != Integer.MIN_VALUE ? maxWaitCount.get() : 0;
+      return maxWaitCount.get() != Integer.MIN_VALUE ? (int)maxWaitCount.get() : 0;
    }
 
    /**
@@ -930,8 +1315,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
     */
    public void setMaxWaitCount(int v)
    {
-      if (v > maxWaitCount.get())
-         maxWaitCount.set(v);
+      maxWaitCount.update(v);
    }
 
    /**
@@ -953,7 +1337,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return timedOut.get();
+      return (int)timedOut.sum();
    }
 
    /**
@@ -962,7 +1346,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    public void deltaTimedOut()
    {
       if (enabled.get())
-         timedOut.incrementAndGet();
+         timedOut.increment();
    }
 
    /**
@@ -973,7 +1357,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalBlockingTime.get();
+      return totalBlockingTime.sum();
    }
 
    /**
@@ -984,11 +1368,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       if (enabled.get() && delta > 0)
       {
-         totalBlockingTime.addAndGet(delta);
-         totalBlockingTimeInvocations.incrementAndGet();
-
-         if (delta > maxWaitTime.get())
-            maxWaitTime.set(delta);
+         totalBlockingTime.add(delta);
+         totalBlockingTimeInvocations.increment();
+         maxWaitTime.update(delta);
       }
    }
 
@@ -1000,7 +1382,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalCreationTime.get();
+      return totalCreationTime.sum();
    }
 
    /**
@@ -1011,10 +1393,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       if (enabled.get() && delta > 0)
       {
-         totalCreationTime.addAndGet(delta);
-
-         if (delta > maxCreationTime.get())
-            maxCreationTime.set(delta);
+         totalCreationTime.add(delta);
+         creationTimeHistogram.record(delta);
+         maxCreationTime.update(delta);
       }
    }
 
@@ -1026,7 +1407,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalGetTime.get();
+      return totalGetTime.sum();
    }
 
    /**
@@ -1037,11 +1418,10 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       if (enabled.get() && delta > 0)
       {
-         totalGetTime.addAndGet(delta);
-         totalGetTimeInvocations.incrementAndGet();
-
-         if (delta > maxGetTime.get())
-            maxGetTime.set(delta);
+         totalGetTime.add(delta);
+         totalGetTimeInvocations.increment();
+         getTimeHistogram.record(delta);
+         maxGetTime.update(delta);
       }
    }
 
@@ -1053,7 +1433,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalPoolTime.get();
+      return totalPoolTime.sum();
    }
 
    /**
@@ -1064,11 +1444,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       if (enabled.get() && delta > 0)
       {
-         totalPoolTime.addAndGet(delta);
-         totalPoolTimeInvocations.incrementAndGet();
-
-         if (delta > maxPoolTime.get())
-            maxPoolTime.set(delta);
+         totalPoolTime.add(delta);
+         totalPoolTimeInvocations.increment();
+         maxPoolTime.update(delta);
       }
    }
 
@@ -1080,7 +1458,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0L;
 
-      return totalUsageTime.get();
+      return totalUsageTime.sum();
    }
 
    /**
@@ -1091,14 +1469,35 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    {
       if (enabled.get() && delta > 0)
       {
-         totalUsageTime.addAndGet(delta);
-         totalUsageTimeInvocations.incrementAndGet();
-
-         if (delta > maxUsageTime.get())
-            maxUsageTime.set(delta);
+         totalUsageTime.add(delta);
+         totalUsageTimeInvocations.increment();
+         usageTimeHistogram.record(delta);
+         maxUsageTime.update(delta);
       }
    }
 
+   /**
+    * Add delta to the time a caller spent obtaining a physical connection
+    * @param caller The caller
+    * @param delta The value
+    */
+   public void deltaCallerGetTime(String caller, long delta)
+   {
+      if (enabled.get() && delta >= 0)
+         callerGetTime.record(caller, delta);
+   }
+
+   /**
+    * Add delta to the time a caller spent using a physical connection
+    * @param caller The caller
+    * @param delta The value
+    */
+   public void deltaCallerUsageTime(String caller, long delta)
+   {
+      if (enabled.get() && delta >= 0)
+         callerUsageTime.record(caller, delta);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1107,7 +1506,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!enabled.get())
          return 0;
 
-      return waitCount.get();
+      return (int)waitCount.sum();
    }
 
    /**
@@ -1116,7 +1515,49 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
    public void deltaWaitCount()
    {
       if (enabled.get())
-         waitCount.incrementAndGet();
+         waitCount.increment();
+   }
+
+   /**
+    * Get the number of fill requests waiting for a filler thread
+    * @return The value
+    */
+   public int getPendingFillCount()
+   {
+      if (!enabled.get())
+         return 0;
+
+      return (int)pendingFillCount.sum();
+   }
+
+   /**
+    * Add delta to the pending fill count
+    * @param delta The value
+    */
+   public void deltaPendingFillCount(int delta)
+   {
+      pendingFillCount.add(delta);
+   }
+
+   /**
+    * Get the number of fill requests currently being executed
+    * @return The value
+    */
+   public int getActiveFillCount()
+   {
+      if (!enabled.get())
+         return 0;
+
+      return (int)activeFillCount.sum();
+   }
+
+   /**
+    * Add delta to the active fill count
+    * @param delta The value
+    */
+   public void deltaActiveFillCount(int delta)
+   {
+      activeFillCount.add(delta);
    }
 
    /**
@@ -1127,7 +1568,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return commitCount.get();
+      return commitCount.sum();
    }
 
    /**
@@ -1138,7 +1579,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return commitTotalTime.get();
+      return commitTotalTime.sum();
    }
 
    /**
@@ -1149,8 +1590,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (commitCount.get() > 0)
-         return commitTotalTime.get() / commitCount.get();
+      long count = commitCount.sum();
+      if (count > 0)
+         return commitTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1166,19 +1608,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return commitMaxTime.get();
    }
 
+   /**
+    * Get the XAResource commit time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getCommitTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return commitHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaCommit(long time)
    {
-      commitCount.incrementAndGet();
+      commitCount.increment();
+      commitHistogram.record(time);
 
       if (time > 0)
       {
-         commitTotalTime.addAndGet(time);
-
-         if (time > commitMaxTime.get())
-            commitMaxTime.set(time);
+         commitTotalTime.add(time);
+         commitMaxTime.update(time);
       }
    }
 
@@ -1190,7 +1644,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return endCount.get();
+      return endCount.sum();
    }
 
    /**
@@ -1201,7 +1655,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return endTotalTime.get();
+      return endTotalTime.sum();
    }
 
    /**
@@ -1212,8 +1666,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (endCount.get() > 0)
-         return endTotalTime.get() / endCount.get();
+      long count = endCount.sum();
+      if (count > 0)
+         return endTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1229,19 +1684,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return endMaxTime.get();
    }
 
+   /**
+    * Get the XAResource end time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getEndTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return endHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaEnd(long time)
    {
-      endCount.incrementAndGet();
+      endCount.increment();
+      endHistogram.record(time);
 
       if (time > 0)
       {
-         endTotalTime.addAndGet(time);
-
-         if (time > endMaxTime.get())
-            endMaxTime.set(time);
+         endTotalTime.add(time);
+         endMaxTime.update(time);
       }
    }
 
@@ -1253,7 +1720,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return forgetCount.get();
+      return forgetCount.sum();
    }
 
    /**
@@ -1264,7 +1731,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return forgetTotalTime.get();
+      return forgetTotalTime.sum();
    }
 
    /**
@@ -1275,8 +1742,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (forgetCount.get() > 0)
-         return forgetTotalTime.get() / forgetCount.get();
+      long count = forgetCount.sum();
+      if (count > 0)
+         return forgetTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1292,19 +1760,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return forgetMaxTime.get();
    }
 
+   /**
+    * Get the XAResource forget time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getForgetTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return forgetHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaForget(long time)
    {
-      forgetCount.incrementAndGet();
+      forgetCount.increment();
+      forgetHistogram.record(time);
 
       if (time > 0)
       {
-         forgetTotalTime.addAndGet(time);
-
-         if (time > forgetMaxTime.get())
-            forgetMaxTime.set(time);
+         forgetTotalTime.add(time);
+         forgetMaxTime.update(time);
       }
    }
 
@@ -1316,7 +1796,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return prepareCount.get();
+      return prepareCount.sum();
    }
 
    /**
@@ -1327,7 +1807,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return prepareTotalTime.get();
+      return prepareTotalTime.sum();
    }
 
    /**
@@ -1338,8 +1818,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (prepareCount.get() > 0)
-         return prepareTotalTime.get() / prepareCount.get();
+      long count = prepareCount.sum();
+      if (count > 0)
+         return prepareTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1355,19 +1836,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return prepareMaxTime.get();
    }
 
+   /**
+    * Get the XAResource prepare time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getPrepareTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return prepareHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaPrepare(long time)
    {
-      prepareCount.incrementAndGet();
+      prepareCount.increment();
+      prepareHistogram.record(time);
 
       if (time > 0)
       {
-         prepareTotalTime.addAndGet(time);
-
-         if (time > prepareMaxTime.get())
-            prepareMaxTime.set(time);
+         prepareTotalTime.add(time);
+         prepareMaxTime.update(time);
       }
    }
 
@@ -1379,7 +1872,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return recoverCount.get();
+      return recoverCount.sum();
    }
 
    /**
@@ -1390,7 +1883,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return recoverTotalTime.get();
+      return recoverTotalTime.sum();
    }
 
    /**
@@ -1401,8 +1894,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (recoverCount.get() > 0)
-         return recoverTotalTime.get() / recoverCount.get();
+      long count = recoverCount.sum();
+      if (count > 0)
+         return recoverTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1418,19 +1912,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return recoverMaxTime.get();
    }
 
+   /**
+    * Get the XAResource recover time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getRecoverTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return recoverHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaRecover(long time)
    {
-      recoverCount.incrementAndGet();
+      recoverCount.increment();
+      recoverHistogram.record(time);
 
       if (time > 0)
       {
-         recoverTotalTime.addAndGet(time);
-
-         if (time > recoverMaxTime.get())
-            recoverMaxTime.set(time);
+         recoverTotalTime.add(time);
+         recoverMaxTime.update(time);
       }
    }
 
@@ -1442,7 +1948,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return rollbackCount.get();
+      return rollbackCount.sum();
    }
 
    /**
@@ -1453,7 +1959,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return rollbackTotalTime.get();
+      return rollbackTotalTime.sum();
    }
 
    /**
@@ -1464,8 +1970,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (rollbackCount.get() > 0)
-         return rollbackTotalTime.get() / rollbackCount.get();
+      long count = rollbackCount.sum();
+      if (count > 0)
+         return rollbackTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1481,19 +1988,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return rollbackMaxTime.get();
    }
 
+   /**
+    * Get the XAResource rollback time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getRollbackTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return rollbackHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaRollback(long time)
    {
-      rollbackCount.incrementAndGet();
+      rollbackCount.increment();
+      rollbackHistogram.record(time);
 
       if (time > 0)
       {
-         rollbackTotalTime.addAndGet(time);
-
-         if (time > rollbackMaxTime.get())
-            rollbackMaxTime.set(time);
+         rollbackTotalTime.add(time);
+         rollbackMaxTime.update(time);
       }
    }
 
@@ -1505,7 +2024,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return startCount.get();
+      return startCount.sum();
    }
 
    /**
@@ -1516,7 +2035,7 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      return startTotalTime.get();
+      return startTotalTime.sum();
    }
 
    /**
@@ -1527,8 +2046,9 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       if (!isEnabled())
          return 0L;
 
-      if (startCount.get() > 0)
-         return startTotalTime.get() / startCount.get();
+      long count = startCount.sum();
+      if (count > 0)
+         return startTotalTime.sum() / count;
 
       return 0L;
    }
@@ -1544,19 +2064,31 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       return startMaxTime.get();
    }
 
+   /**
+    * Get the XAResource start time at a percentile
+    * @param percentile The percentile, between 0 and 100
+    * @return The value
+    */
+   public long getStartTimePercentile(double percentile)
+   {
+      if (!enabled.get())
+         return 0L;
+
+      return startHistogram.getValueAtPercentile(percentile);
+   }
+
    /**
     * {@inheritDoc}
     */
    public void deltaStart(long time)
    {
-      startCount.incrementAndGet();
+      startCount.increment();
+      startHistogram.record(time);
 
       if (time > 0)
       {
-         startTotalTime.addAndGet(time);
-
-         if (time > startMaxTime.get())
-            startMaxTime.set(time);
+         startTotalTime.add(time);
+         startMaxTime.update(time);
       }
    }
 
@@ -1565,46 +2097,58 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
     */
    public void clear()
    {
-      this.maxCreationTime.set(Long.MIN_VALUE);
-      this.maxGetTime.set(Long.MIN_VALUE);
-      this.maxPoolTime.set(Long.MIN_VALUE);
-      this.maxUsageTime.set(Long.MIN_VALUE);
-      this.maxUsedCount.set(Integer.MIN_VALUE);
-      this.maxWaitTime.set(Long.MIN_VALUE);
-      this.timedOut.set(0);
-      this.totalBlockingTime.set(0L);
-      this.totalBlockingTimeInvocations.set(0L);
-      this.totalCreationTime.set(0L);
-      this.totalGetTime.set(0L);
-      this.totalGetTimeInvocations.set(0L);
-      this.totalPoolTime.set(0L);
-      this.totalPoolTimeInvocations.set(0L);
-      this.totalUsageTime.set(0L);
-      this.totalUsageTimeInvocations.set(0L);
-      this.blockingFailureCount.set(0);
-      this.waitCount.set(0);
-
-      this.commitCount = new AtomicLong(0L);
-      this.commitTotalTime = new AtomicLong(0L);
-      this.commitMaxTime = new AtomicLong(0L);
-      this.endCount = new AtomicLong(0L);
-      this.endTotalTime = new AtomicLong(0L);
-      this.endMaxTime = new AtomicLong(0L);
-      this.forgetCount = new AtomicLong(0L);
-      this.forgetTotalTime = new AtomicLong(0L);
-      this.forgetMaxTime = new AtomicLong(0L);
-      this.prepareCount = new AtomicLong(0L);
-      this.prepareTotalTime = new AtomicLong(0L);
-      this.prepareMaxTime = new AtomicLong(0L);
-      this.recoverCount = new AtomicLong(0L);
-      this.recoverTotalTime = new AtomicLong(0L);
-      this.recoverMaxTime = new AtomicLong(0L);
-      this.rollbackCount = new AtomicLong(0L);
-      this.rollbackTotalTime = new AtomicLong(0L);
-      this.rollbackMaxTime = new AtomicLong(0L);
-      this.startCount = new AtomicLong(0L);
-      this.startTotalTime = new AtomicLong(0L);
-      this.startMaxTime = new AtomicLong(0L);
+      this.maxCreationTime.reset();
+      this.maxGetTime.reset();
+      this.maxPoolTime.reset();
+      this.maxUsageTime.reset();
+      this.maxUsedCount.reset();
+      this.maxWaitTime.reset();
+      this.timedOut.reset();
+      this.totalBlockingTime.reset();
+      this.totalBlockingTimeInvocations.reset();
+      this.totalCreationTime.reset();
+      this.totalGetTime.reset();
+      this.totalGetTimeInvocations.reset();
+      this.totalPoolTime.reset();
+      this.totalPoolTimeInvocations.reset();
+      this.totalUsageTime.reset();
+      this.totalUsageTimeInvocations.reset();
+      this.blockingFailureCount.reset();
+      this.waitCount.reset();
+      this.getTimeHistogram.reset();
+      this.usageTimeHistogram.reset();
+      this.creationTimeHistogram.reset();
+      this.callerGetTime.reset();
+      this.callerUsageTime.reset();
+
+      this.commitCount.reset();
+      this.commitTotalTime.reset();
+      this.commitMaxTime.reset();
+      this.commitHistogram.reset();
+      this.endCount.reset();
+      this.endTotalTime.reset();
+      this.endMaxTime.reset();
+      this.endHistogram.reset();
+      this.forgetCount.reset();
+      this.forgetTotalTime.reset();
+      this.forgetMaxTime.reset();
+      this.forgetHistogram.reset();
+      this.prepareCount.reset();
+      this.prepareTotalTime.reset();
+      this.prepareMaxTime.reset();
+      this.prepareHistogram.reset();
+      this.recoverCount.reset();
+      this.recoverTotalTime.reset();
+      this.recoverMaxTime.reset();
+      this.recoverHistogram.reset();
+      this.rollbackCount.reset();
+      this.rollbackTotalTime.reset();
+      this.rollbackMaxTime.reset();
+      this.rollbackHistogram.reset();
+      this.startCount.reset();
+      this.startTotalTime.reset();
+      this.startMaxTime.reset();
+      this.startHistogram.reset();
    }
 
    private void writeObject(ObjectOutputStream out) throws IOException
@@ -1635,6 +2179,8 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(ACTIVE_COUNT).append("=").append(getActiveCount());
       sb.append(",");
+      sb.append(ACTIVE_FILL_COUNT).append("=").append(getActiveFillCount());
+      sb.append(",");
       sb.append(AVAILABLE_COUNT).append("=").append(getAvailableCount());
       sb.append(",");
       sb.append(AVERAGE_BLOCKING_TIME).append("=").append(getAverageBlockingTime());
@@ -1671,8 +2217,32 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(MAX_WAIT_TIME).append("=").append(getMaxWaitTime());
       sb.append(",");
+      sb.append(PENDING_FILL_COUNT).append("=").append(getPendingFillCount());
+      sb.append(",");
+      sb.append(P50_GET_TIME).append("=").append(getGetTimePercentile(50.0));
+      sb.append(",");
+      sb.append(P99_GET_TIME).append("=").append(getGetTimePercentile(99.0));
+      sb.append(",");
+      sb.append(P999_GET_TIME).append("=").append(getGetTimePercentile(99.9));
+      sb.append(",");
+      sb.append(P50_USAGE_TIME).append("=").append(getUsageTimePercentile(50.0));
+      sb.append(",");
+      sb.append(P99_USAGE_TIME).append("=").append(getUsageTimePercentile(99.0));
+      sb.append(",");
+      sb.append(P999_USAGE_TIME).append("=").append(getUsageTimePercentile(99.9));
+      sb.append(",");
+      sb.append(P50_CREATION_TIME).append("=").append(getCreationTimePercentile(50.0));
+      sb.append(",");
+      sb.append(P99_CREATION_TIME).append("=").append(getCreationTimePercentile(99.0));
+      sb.append(",");
+      sb.append(P999_CREATION_TIME).append("=").append(getCreationTimePercentile(99.9));
+      sb.append(",");
       sb.append(TIMED_OUT).append("=").append(getTimedOut());
       sb.append(",");
+      sb.append(TOP_GET_TIME).append("=").append(getTopGetTime());
+      sb.append(",");
+      sb.append(TOP_USAGE_TIME).append("=").append(getTopUsageTime());
+      sb.append(",");
       sb.append(TOTAL_BLOCKING_TIME).append("=").append(getTotalBlockingTime());
       sb.append(",");
       sb.append(TOTAL_CREATION_TIME).append("=").append(getTotalCreationTime());
@@ -1694,6 +2264,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_COMMIT_MAX_TIME).append("=").append(getCommitMaxTime());
       sb.append(",");
+      sb.append(XA_COMMIT_P50_TIME).append("=").append(getCommitTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_COMMIT_P99_TIME).append("=").append(getCommitTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_COMMIT_P999_TIME).append("=").append(getCommitTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_END_COUNT).append("=").append(getEndCount());
       sb.append(",");
       sb.append(XA_END_AVERAGE_TIME).append("=").append(getEndAverageTime());
@@ -1702,6 +2278,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_END_MAX_TIME).append("=").append(getEndMaxTime());
       sb.append(",");
+      sb.append(XA_END_P50_TIME).append("=").append(getEndTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_END_P99_TIME).append("=").append(getEndTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_END_P999_TIME).append("=").append(getEndTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_FORGET_COUNT).append("=").append(getForgetCount());
       sb.append(",");
       sb.append(XA_FORGET_AVERAGE_TIME).append("=").append(getForgetAverageTime());
@@ -1710,6 +2292,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_FORGET_MAX_TIME).append("=").append(getForgetMaxTime());
       sb.append(",");
+      sb.append(XA_FORGET_P50_TIME).append("=").append(getForgetTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_FORGET_P99_TIME).append("=").append(getForgetTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_FORGET_P999_TIME).append("=").append(getForgetTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_PREPARE_COUNT).append("=").append(getPrepareCount());
       sb.append(",");
       sb.append(XA_PREPARE_AVERAGE_TIME).append("=").append(getPrepareAverageTime());
@@ -1718,6 +2306,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_PREPARE_MAX_TIME).append("=").append(getPrepareMaxTime());
       sb.append(",");
+      sb.append(XA_PREPARE_P50_TIME).append("=").append(getPrepareTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_PREPARE_P99_TIME).append("=").append(getPrepareTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_PREPARE_P999_TIME).append("=").append(getPrepareTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_RECOVER_COUNT).append("=").append(getRecoverCount());
       sb.append(",");
       sb.append(XA_RECOVER_AVERAGE_TIME).append("=").append(getRecoverAverageTime());
@@ -1726,6 +2320,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_RECOVER_MAX_TIME).append("=").append(getRecoverMaxTime());
       sb.append(",");
+      sb.append(XA_RECOVER_P50_TIME).append("=").append(getRecoverTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_RECOVER_P99_TIME).append("=").append(getRecoverTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_RECOVER_P999_TIME).append("=").append(getRecoverTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_ROLLBACK_COUNT).append("=").append(getRollbackCount());
       sb.append(",");
       sb.append(XA_ROLLBACK_AVERAGE_TIME).append("=").append(getRollbackAverageTime());
@@ -1734,6 +2334,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(",");
       sb.append(XA_ROLLBACK_MAX_TIME).append("=").append(getRollbackMaxTime());
       sb.append(",");
+      sb.append(XA_ROLLBACK_P50_TIME).append("=").append(getRollbackTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_ROLLBACK_P99_TIME).append("=").append(getRollbackTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_ROLLBACK_P999_TIME).append("=").append(getRollbackTimePercentile(99.9));
+      sb.append(",");
       sb.append(XA_START_COUNT).append("=").append(getStartCount());
       sb.append(",");
       sb.append(XA_START_AVERAGE_TIME).append("=").append(getStartAverageTime());
@@ -1741,6 +2347,12 @@ public class PoolStatisticsImpl implements PoolStatistics, XAResourceStatistics
       sb.append(XA_START_TOTAL_TIME).append("=").append(getStartTotalTime());
       sb.append(",");
       sb.append(XA_START_MAX_TIME).append("=").append(getStartMaxTime());
+      sb.append(",");
+      sb.append(XA_START_P50_TIME).append("=").append(getStartTimePercentile(50.0));
+      sb.append(",");
+      sb.append(XA_START_P99_TIME).append("=").append(getStartTimePercentile(99.0));
+      sb.append(",");
+      sb.append(XA_START_P999_TIME).append("=").append(getStartTimePercentile(99.9));
 
       sb.append("]");
       
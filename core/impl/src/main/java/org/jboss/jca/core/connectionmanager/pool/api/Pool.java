@@ -24,9 +24,13 @@ package org.jboss.jca.core.connectionmanager.pool.api;
 import org.jboss.jca.core.CoreLogger;
 import org.jboss.jca.core.connectionmanager.ConnectionManager;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.ConnectionBudget;
 import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+import org.jboss.jca.core.connectionmanager.pool.mcp.ConnectionWaiterQueue;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 
+import java.util.concurrent.CompletionStage;
+
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
 import javax.resource.spi.ManagedConnection;
@@ -75,6 +79,12 @@ public interface Pool extends org.jboss.jca.core.api.connectionmanager.pool.Pool
     */
    public Semaphore getLock();
 
+   /**
+    * Get the connection requests waiting for a permit, shared by the managed connection pools
+    * @return The value
+    */
+   public ConnectionWaiterQueue getWaiterQueue();
+
    /**
     * Get the capacity policy
     * @return The value
@@ -135,6 +145,18 @@ public interface Pool extends org.jboss.jca.core.api.connectionmanager.pool.Pool
    public ConnectionListener getConnection(Transaction trackByTransaction, Subject subject, ConnectionRequestInfo cri)
       throws ResourceException;
 
+   /**
+    * Get a connection without blocking the calling thread while waiting for a permit.
+    * Requests tracked by a transaction are served synchronously
+    * 
+    * @param trackByTransaction for transaction stickiness
+    * @param subject the subject for connection
+    * @param cri the connection request information
+    * @return the stage that completes with a connection event listener wrapping the connection
+    */
+   public CompletionStage<ConnectionListener> getConnectionAsync(Transaction trackByTransaction, Subject subject,
+                                                                 ConnectionRequestInfo cri);
+
    /**
     * Find a connection listener
     * @param mc The managed connection
@@ -197,6 +219,23 @@ public interface Pool extends org.jboss.jca.core.api.connectionmanager.pool.Pool
     */
    public void emptyManagedConnectionPool(ManagedConnectionPool pool);
 
+   /**
+    * Get the number of physical connections shared by the managed connection pools
+    * @return The value; <code>null</code> if the managed connection pools aren't limited together, which is
+    *         the default unless <code>ironjacamar.connection_budget</code> is enabled for a semaphore
+    *         concurrent linked deque pool
+    */
+   public ConnectionBudget getConnectionBudget();
+
+   /**
+    * Reserve a physical connection in the connection budget
+    * @param mcp The managed connection pool that creates the connection
+    * @param reclaim Destroy an idle connection of another managed connection pool if the budget is used up,
+    *                waiting up to the blocking timeout for the connections being created in the background
+    * @return True if the connection can be created; otherwise false
+    */
+   public boolean reserveConnection(ManagedConnectionPool mcp, boolean reclaim);
+
    /**
     * Get the logger
     * @return The value
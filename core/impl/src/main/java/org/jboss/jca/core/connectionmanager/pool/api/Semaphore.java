@@ -54,11 +54,39 @@ public class Semaphore extends java.util.concurrent.Semaphore
     */
    public Semaphore(int maxSize, boolean fairness, PoolStatisticsImpl statistics)
    {
-      super(maxSize, fairness);
+      this(maxSize, maxSize, fairness, statistics);
+   }
+
+   /**
+    * Constructor
+    * @param maxSize The maxumum size
+    * @param permits The permits initially held by the semaphore itself
+    * @param fairness The fairness
+    * @param statistics The statistics module
+    */
+   protected Semaphore(int maxSize, int permits, boolean fairness, PoolStatisticsImpl statistics)
+   {
+      super(permits, fairness);
       this.maxSize = maxSize;
       this.statistics = statistics;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean tryAcquire()
+   {
+      boolean result = super.tryAcquire();
+
+      if (result && statistics.isEnabled())
+      {
+         statistics.setInUsedCount(maxSize - availablePermits());
+      }
+
+      return result;
+   }
+
    /**
     * {@inheritDoc}
     */
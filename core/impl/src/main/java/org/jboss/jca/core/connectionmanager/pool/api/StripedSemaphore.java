@@ -0,0 +1,257 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.api;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntSupplier;
+
+/**
+ * A semaphore which spreads its permits over a number of stripes, so threads acquiring
+ * and releasing permits don't contend on a single counter. A thread works on its home
+ * stripe, and steals from the other stripes when it runs dry.
+ *
+ * Only when all stripes are empty does a thread wait on the semaphore itself; while
+ * threads are waiting, released permits are handed to them through the semaphore
+ * instead of going back to a stripe. Waiting threads are served according to the
+ * fairness of the semaphore, but a thread finding a permit in a stripe may barge.
+ *
+ * The in use count is computed from the stripes when the statistics are read, so a thread
+ * working on its home stripe only touches that stripe. The max used count is sampled when
+ * a thread has to leave its home stripe, and when the statistics are read.
+ */
+public class StripedSemaphore extends Semaphore
+{
+   /** Serial version uid */
+   private static final long serialVersionUID = 1L;
+
+   /** Padding between stripes, in ints, so each stripe has its own cache line */
+   private static final int PADDING = 16;
+
+   /** Max size */
+   private final int maxSize;
+
+   /** Statistics */
+   private final PoolStatisticsImpl statistics;
+
+   /** Number of stripes - 1 */
+   private final int mask;
+
+   /** The stripes */
+   private final AtomicIntegerArray stripes;
+
+   /** Threads about to wait, or waiting, on the semaphore */
+   private final AtomicInteger waiting;
+
+   /**
+    * Constructor
+    * @param maxSize The maxumum size
+    * @param fairness The fairness
+    * @param statistics The statistics module
+    */
+   public StripedSemaphore(int maxSize, boolean fairness, PoolStatisticsImpl statistics)
+   {
+      this(maxSize, Runtime.getRuntime().availableProcessors(), fairness, statistics);
+   }
+
+   /**
+    * Constructor
+    * @param maxSize The maxumum size
+    * @param stripes The number of stripes; rounded down to a power of two, and at most maxSize
+    * @param fairness The fairness
+    * @param statistics The statistics module
+    */
+   public StripedSemaphore(int maxSize, int stripes, boolean fairness, PoolStatisticsImpl statistics)
+   {
+      super(maxSize, 0, fairness, statistics);
+      this.maxSize = maxSize;
+      this.statistics = statistics;
+
+      int n = Integer.highestOneBit(Math.max(1, Math.min(stripes, maxSize)));
+      this.mask = n - 1;
+      this.stripes = new AtomicIntegerArray(n * PADDING);
+      this.waiting = new AtomicInteger(0);
+
+      for (int i = 0; i < n; i++)
+         this.stripes.set(i * PADDING, maxSize / n + (i < maxSize % n ? 1 : 0));
+
+      statistics.setInUseCounter(new IntSupplier()
+      {
+         /**
+          * {@inheritDoc}
+          */
+         public int getAsInt()
+         {
+            return StripedSemaphore.this.maxSize - availablePermits();
+         }
+      });
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean tryAcquire()
+   {
+      return tryAcquireStripe() || super.tryAcquire();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException
+   {
+      if (tryAcquireStripe())
+         return true;
+
+      waiting.incrementAndGet();
+      try
+      {
+         // A permit released before we were counted as waiting went back to a stripe
+         if (tryAcquireStripe())
+            return true;
+
+         return super.tryAcquire(timeout, unit);
+      }
+      finally
+      {
+         waiting.decrementAndGet();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void release()
+   {
+      int home = homeStripe();
+      stripes.incrementAndGet(home);
+
+      // Pass a permit on to the waiting threads - unless one of them took it from a stripe already
+      if (waiting.get() > 0 && (decrementStripe(home) || stealStripe(home)))
+         super.release();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int availablePermits()
+   {
+      int result = super.availablePermits();
+
+      for (int i = 0; i <= mask; i++)
+         result += stripes.get(i * PADDING);
+
+      return result;
+   }
+
+   /**
+    * Get the number of stripes
+    * @return The value
+    */
+   public int getStripes()
+   {
+      return mask + 1;
+   }
+
+   /**
+    * Try to take a permit from the home stripe, or steal one from another stripe. The
+    * statistics are sampled when a permit is stolen, as the other stripes are read anyway
+    * @return True if a permit was taken; otherwise false
+    */
+   private boolean tryAcquireStripe()
+   {
+      int home = homeStripe();
+      if (decrementStripe(home))
+         return true;
+
+      if (stealStripe(home))
+      {
+         sampleInUseCount();
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Steal a permit from the stripes following the home stripe
+    * @param home The home stripe
+    * @return True if a permit was taken; otherwise false
+    */
+   private boolean stealStripe(int home)
+   {
+      int stripe = home / PADDING;
+      for (int i = 1; i <= mask; i++)
+      {
+         if (decrementStripe(((stripe + i) & mask) * PADDING))
+            return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Take a permit from a stripe
+    * @param index The index of the stripe
+    * @return True if a permit was taken; otherwise false
+    */
+   private boolean decrementStripe(int index)
+   {
+      int current = stripes.get(index);
+      while (current > 0)
+      {
+         if (stripes.compareAndSet(index, current, current - 1))
+            return true;
+
+         current = stripes.get(index);
+      }
+
+      return false;
+   }
+
+   /**
+    * Get the index of the home stripe of the current thread
+    * @return The value
+    */
+   private int homeStripe()
+   {
+      long id = Thread.currentThread().getId();
+      return ((int)(id ^ (id >>> 16)) & mask) * PADDING;
+   }
+
+   /**
+    * Sample the in use count
+    */
+   private void sampleInUseCount()
+   {
+      if (statistics.isEnabled())
+         statistics.setInUsedCount(maxSize - availablePermits());
+   }
+}
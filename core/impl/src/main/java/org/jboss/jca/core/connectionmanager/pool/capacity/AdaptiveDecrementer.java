@@ -0,0 +1,147 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.jca.core.connectionmanager.pool.capacity;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.api.CapacityDecrementer;
+
+/**
+ * Decrement the managed connection pool towards the size estimated from its usage, removing
+ * a share of the excess in each idle check.
+ *
+ * Without enabled statistics all timed out connection listeners are decremented
+ */
+public class AdaptiveDecrementer implements CapacityDecrementer
+{
+   /** The sizer */
+   private volatile AdaptiveSizer sizer;
+
+   /** The share of the excess removed per idle check in percent */
+   private int shrink;
+
+   /**
+    * Constructor
+    */
+   public AdaptiveDecrementer()
+   {
+      this.sizer = new AdaptiveSizer();
+      this.shrink = 50;
+   }
+
+   /**
+    * Get the sizer
+    * @return The value
+    */
+   public AdaptiveSizer getSizer()
+   {
+      return sizer;
+   }
+
+   /**
+    * Share the sizer of an incrementer
+    * @param v The value
+    */
+   void setSizer(AdaptiveSizer v)
+   {
+      sizer = v;
+   }
+
+   /**
+    * Set the sampling interval
+    * @param v The value in milliseconds
+    */
+   public void setInterval(long v)
+   {
+      sizer.setInterval(v);
+   }
+
+   /**
+    * Set the headroom
+    * @param v The value in percent
+    */
+   public void setHeadroom(int v)
+   {
+      sizer.setHeadroom(v);
+   }
+
+   /**
+    * Set the decay
+    * @param v The value in percent of the difference per interval
+    */
+   public void setDecay(int v)
+   {
+      sizer.setDecay(v);
+   }
+
+   /**
+    * Set the share of the excess removed per idle check
+    * @param v The value in percent
+    */
+   public void setShrink(int v)
+   {
+      if (v > 0 && v <= 100)
+         shrink = v;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean shouldDestroy(ConnectionListener cl, long timeout, int currentSize, int minPoolSize, int destroyed)
+   {
+      return shouldDestroy(null, cl, timeout, currentSize, minPoolSize, destroyed);
+   }
+
+   /**
+    * Should a connection listener of a managed connection pool be destroyed
+    * @param usage The usage of the managed connection pool; <code>null</code> for the statistics of the pool
+    * @param cl The connection listener
+    * @param timeout The timeout
+    * @param currentSize The current size of the managed connection pool
+    * @param minPoolSize The minimum pool size
+    * @param destroyed The number of connection listeners destroyed so far
+    * @return True if the connection listener should be destroyed; otherwise false
+    */
+   public boolean shouldDestroy(PoolUsage usage, ConnectionListener cl, long timeout, int currentSize,
+                                int minPoolSize, int destroyed)
+   {
+      int target = sizer.getTarget(usage, minPoolSize, Integer.MAX_VALUE);
+
+      if (target < 0)
+         return cl.isTimedOut(timeout);
+
+      if (currentSize <= target)
+         return false;
+
+      // The size is passed after the removals of this idle check
+      int excess = currentSize + destroyed - target;
+
+      return destroyed < (int)Math.ceil(excess * shrink / 100.0);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public String toString()
+   {
+      return getClass().getName() + "(" + shrink + "," + sizer + ")";
+   }
+}
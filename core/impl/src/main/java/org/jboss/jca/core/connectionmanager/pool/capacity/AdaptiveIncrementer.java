@@ -0,0 +1,108 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.jca.core.connectionmanager.pool.capacity;
+
+import org.jboss.jca.core.connectionmanager.pool.api.CapacityIncrementer;
+
+/**
+ * Increment until the size estimated from the usage of the managed connection pool is reached.
+ *
+ * Without enabled statistics no connection is created ahead of demand
+ */
+public class AdaptiveIncrementer implements CapacityIncrementer
+{
+   /** The sizer */
+   private AdaptiveSizer sizer;
+
+   /**
+    * Constructor
+    */
+   public AdaptiveIncrementer()
+   {
+      this.sizer = new AdaptiveSizer();
+   }
+
+   /**
+    * Get the sizer
+    * @return The value
+    */
+   public AdaptiveSizer getSizer()
+   {
+      return sizer;
+   }
+
+   /**
+    * Set the sampling interval
+    * @param v The value in milliseconds
+    */
+   public void setInterval(long v)
+   {
+      sizer.setInterval(v);
+   }
+
+   /**
+    * Set the headroom
+    * @param v The value in percent
+    */
+   public void setHeadroom(int v)
+   {
+      sizer.setHeadroom(v);
+   }
+
+   /**
+    * Set the decay
+    * @param v The value in percent of the difference per interval
+    */
+   public void setDecay(int v)
+   {
+      sizer.setDecay(v);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean shouldCreate(int currentSize, int maxSize, int created)
+   {
+      return currentSize < sizer.getTarget(0, maxSize);
+   }
+
+   /**
+    * Should a connection be created in a managed connection pool
+    * @param usage The usage of the managed connection pool
+    * @param currentSize The current size of the managed connection pool
+    * @param maxSize The maximum size
+    * @param created The number of connections created so far
+    * @return True if a connection should be created; otherwise false
+    */
+   public boolean shouldCreate(PoolUsage usage, int currentSize, int maxSize, int created)
+   {
+      return currentSize < sizer.getTarget(usage, 0, maxSize);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public String toString()
+   {
+      return getClass().getName() + "(" + sizer + ")";
+   }
+}
@@ -0,0 +1,334 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.jca.core.connectionmanager.pool.capacity;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+import org.jboss.jca.core.connectionmanager.pool.api.Capacity;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Estimates the size a managed connection pool needs from its usage.
+ *
+ * By Little's law the average number of connections in use is the rate of checkouts times
+ * the average hold time, which is the growth of the total usage time over an interval divided
+ * by the interval. The growth of the total blocking time gives the average number of requests
+ * waiting for a connection in the same way. The demand is their sum, but never less than the
+ * connections currently in use.
+ *
+ * A higher demand is followed at once, a lower one only decays into the estimate. The target
+ * is the estimate plus a headroom, within the minimum and maximum pool size.
+ *
+ * Each managed connection pool is sized from its own {@link PoolUsage}, as the managed connection
+ * pools of a pool share its capacity policies. Without one the statistics of the whole pool are used
+ */
+public final class AdaptiveSizer
+{
+   /** The statistics */
+   private volatile PoolStatisticsImpl statistics;
+
+   /** The sampling interval in milliseconds */
+   private long interval;
+
+   /** The headroom in percent */
+   private int headroom;
+
+   /** The decay in percent of the difference per interval */
+   private int decay;
+
+   /** The estimates per managed connection pool usage, or for the statistics of the pool */
+   private final Map<Object, Estimate> estimates;
+
+   /**
+    * Constructor
+    */
+   public AdaptiveSizer()
+   {
+      this.statistics = null;
+      this.interval = 1000L;
+      this.headroom = 20;
+      this.decay = 10;
+      this.estimates = new WeakHashMap<Object, Estimate>();
+   }
+
+   /**
+    * Bind the adaptive policies of a capacity to the statistics of a pool. An adaptive
+    * decrementer shares the estimate, and the settings, of an adaptive incrementer
+    * @param capacity The capacity
+    * @param statistics The statistics
+    */
+   public static void bind(Capacity capacity, PoolStatisticsImpl statistics)
+   {
+      if (capacity == null)
+         return;
+
+      AdaptiveSizer sizer = null;
+
+      if (capacity.getIncrementer() instanceof AdaptiveIncrementer)
+      {
+         sizer = ((AdaptiveIncrementer)capacity.getIncrementer()).getSizer();
+         sizer.setStatistics(statistics);
+      }
+
+      if (capacity.getDecrementer() instanceof AdaptiveDecrementer)
+      {
+         AdaptiveDecrementer decrementer = (AdaptiveDecrementer)capacity.getDecrementer();
+
+         if (sizer != null)
+         {
+            decrementer.setSizer(sizer);
+         }
+         else
+         {
+            decrementer.getSizer().setStatistics(statistics);
+         }
+      }
+   }
+
+   /**
+    * Set the statistics
+    * @param v The value
+    */
+   public void setStatistics(PoolStatisticsImpl v)
+   {
+      statistics = v;
+   }
+
+   /**
+    * Set the sampling interval
+    * @param v The value in milliseconds
+    */
+   public synchronized void setInterval(long v)
+   {
+      if (v > 0)
+         interval = v;
+   }
+
+   /**
+    * Set the headroom
+    * @param v The value in percent
+    */
+   public synchronized void setHeadroom(int v)
+   {
+      if (v >= 0)
+         headroom = v;
+   }
+
+   /**
+    * Set the decay
+    * @param v The value in percent of the difference per interval
+    */
+   public synchronized void setDecay(int v)
+   {
+      if (v > 0 && v <= 100)
+         decay = v;
+   }
+
+   /**
+    * Get the target size from the statistics of the pool
+    * @param minSize The minimum size
+    * @param maxSize The maximum size
+    * @return The value; <code>-1</code> if the statistics aren't enabled
+    */
+   public int getTarget(int minSize, int maxSize)
+   {
+      return getTarget(System.currentTimeMillis(), minSize, maxSize);
+   }
+
+   /**
+    * Get the target size from the statistics of the pool
+    * @param now The current time in milliseconds
+    * @param minSize The minimum size
+    * @param maxSize The maximum size
+    * @return The value; <code>-1</code> if the statistics aren't enabled
+    */
+   public synchronized int getTarget(long now, int minSize, int maxSize)
+   {
+      PoolStatisticsImpl ps = statistics;
+
+      if (ps == null || !ps.isEnabled())
+         return -1;
+
+      return getTarget(getEstimate(ps), now, ps.getTotalUsageTime(), ps.getTotalBlockingTime(),
+                       ps.getInUseCount(), minSize, maxSize);
+   }
+
+   /**
+    * Get the target size of a managed connection pool
+    * @param usage The usage of the managed connection pool; <code>null</code> for the statistics of the pool
+    * @param minSize The minimum size
+    * @param maxSize The maximum size
+    * @return The value; <code>-1</code> if the statistics aren't enabled
+    */
+   public int getTarget(PoolUsage usage, int minSize, int maxSize)
+   {
+      return getTarget(usage, System.currentTimeMillis(), minSize, maxSize);
+   }
+
+   /**
+    * Get the target size of a managed connection pool
+    * @param usage The usage of the managed connection pool; <code>null</code> for the statistics of the pool
+    * @param now The current time in milliseconds
+    * @param minSize The minimum size
+    * @param maxSize The maximum size
+    * @return The value; <code>-1</code> if the statistics aren't enabled
+    */
+   public synchronized int getTarget(PoolUsage usage, long now, int minSize, int maxSize)
+   {
+      if (usage == null)
+         return getTarget(now, minSize, maxSize);
+
+      if (!usage.isEnabled())
+         return -1;
+
+      return getTarget(getEstimate(usage), now, usage.getTotalUsageTime(), usage.getTotalBlockingTime(),
+                       usage.getInUseCount(), minSize, maxSize);
+   }
+
+   /**
+    * Get the estimated demand of the whole pool
+    * @return The average number of connections in use or waited for
+    */
+   public synchronized double getDemand()
+   {
+      double result = 0.0;
+
+      for (Estimate estimate : estimates.values())
+         result += estimate.demand;
+
+      return result;
+   }
+
+   /**
+    * Get the estimated demand of a managed connection pool
+    * @param usage The usage of the managed connection pool; <code>null</code> for the statistics of the pool
+    * @return The average number of connections in use or waited for
+    */
+   public synchronized double getDemand(PoolUsage usage)
+   {
+      Estimate estimate = estimates.get(usage);
+      return estimate != null ? estimate.demand : 0.0;
+   }
+
+   /**
+    * Get the estimate of a source of usage
+    * @param source The source
+    * @return The estimate
+    */
+   private Estimate getEstimate(Object source)
+   {
+      Estimate estimate = estimates.get(source);
+
+      if (estimate == null)
+      {
+         estimate = new Estimate();
+         estimates.put(source, estimate);
+      }
+
+      return estimate;
+   }
+
+   /**
+    * Update an estimate, and get the target size
+    * @param estimate The estimate
+    * @param now The current time in milliseconds
+    * @param usage The total usage time
+    * @param blocking The total blocking time
+    * @param inUse The number of connections in use
+    * @param minSize The minimum size
+    * @param maxSize The maximum size
+    * @return The value
+    */
+   private int getTarget(Estimate estimate, long now, long usage, long blocking, int inUse,
+                         int minSize, int maxSize)
+   {
+      // First sample, or the statistics were cleared
+      if (estimate.lastSample == Long.MIN_VALUE || usage < estimate.lastUsage || blocking < estimate.lastBlocking)
+      {
+         estimate.lastSample = now;
+         estimate.lastUsage = usage;
+         estimate.lastBlocking = blocking;
+         estimate.demand = Math.max(estimate.demand, inUse);
+      }
+      else if (now - estimate.lastSample >= interval)
+      {
+         double elapsed = now - estimate.lastSample;
+         double observed = Math.max((usage - estimate.lastUsage) / elapsed, inUse) +
+            (blocking - estimate.lastBlocking) / elapsed;
+
+         if (observed >= estimate.demand)
+         {
+            estimate.demand = observed;
+         }
+         else
+         {
+            estimate.demand -= (estimate.demand - observed) * decay / 100.0;
+         }
+
+         estimate.lastSample = now;
+         estimate.lastUsage = usage;
+         estimate.lastBlocking = blocking;
+      }
+      else if (inUse > estimate.demand)
+      {
+         estimate.demand = inUse;
+      }
+
+      int target = (int)Math.ceil(estimate.demand * (100 + headroom) / 100.0);
+
+      return Math.max(minSize, Math.min(maxSize, target));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public synchronized String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("interval=").append(interval);
+      sb.append(",headroom=").append(headroom);
+      sb.append(",decay=").append(decay);
+      sb.append(",demand=").append(String.format("%.2f", getDemand()));
+
+      return sb.toString();
+   }
+
+   /**
+    * The estimate of the demand of a source of usage
+    */
+   private static class Estimate
+   {
+      /** The time of the last sample */
+      long lastSample = Long.MIN_VALUE;
+
+      /** The total usage time at the last sample */
+      long lastUsage;
+
+      /** The total blocking time at the last sample */
+      long lastBlocking;
+
+      /** The estimated demand */
+      double demand;
+   }
+}
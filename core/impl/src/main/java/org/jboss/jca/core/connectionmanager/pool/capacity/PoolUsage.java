@@ -0,0 +1,122 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.capacity;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * The usage of a single managed connection pool, which the adaptive policies size it from.
+ *
+ * The times are added to the statistics of the pool as well, and are only collected
+ * while the statistics are enabled
+ */
+public final class PoolUsage
+{
+   /** The statistics of the pool */
+   private final PoolStatisticsImpl statistics;
+
+   /** The number of connections in use */
+   private final IntSupplier inUse;
+
+   /** The total usage time */
+   private final LongAdder usageTime;
+
+   /** The total blocking time of the requests */
+   private final LongAdder blockingTime;
+
+   /**
+    * Constructor
+    * @param statistics The statistics of the pool
+    * @param inUse The number of connections in use by the managed connection pool
+    */
+   public PoolUsage(PoolStatisticsImpl statistics, IntSupplier inUse)
+   {
+      this.statistics = statistics;
+      this.inUse = inUse;
+      this.usageTime = new LongAdder();
+      this.blockingTime = new LongAdder();
+   }
+
+   /**
+    * Are the statistics enabled
+    * @return The value
+    */
+   public boolean isEnabled()
+   {
+      return statistics.isEnabled();
+   }
+
+   /**
+    * Add to the usage time
+    * @param delta The time in milliseconds a connection was used
+    */
+   public void deltaTotalUsageTime(long delta)
+   {
+      statistics.deltaTotalUsageTime(delta);
+
+      if (delta > 0 && statistics.isEnabled())
+         usageTime.add(delta);
+   }
+
+   /**
+    * Add to the blocking time of the requests
+    * @param delta The time in milliseconds a request waited for a connection
+    */
+   public void deltaTotalBlockingTime(long delta)
+   {
+      statistics.deltaTotalBlockingTime(delta);
+
+      if (delta > 0 && statistics.isEnabled())
+         blockingTime.add(delta);
+   }
+
+   /**
+    * Get the total usage time
+    * @return The value in milliseconds
+    */
+   public long getTotalUsageTime()
+   {
+      return usageTime.sum();
+   }
+
+   /**
+    * Get the total blocking time of the requests
+    * @return The value in milliseconds
+    */
+   public long getTotalBlockingTime()
+   {
+      return blockingTime.sum();
+   }
+
+   /**
+    * Get the number of connections in use
+    * @return The value
+    */
+   public int getInUseCount()
+   {
+      return inUse.getAsInt();
+   }
+}
@@ -24,7 +24,8 @@ package org.jboss.jca.core.connectionmanager.pool.idle;
 
 import org.jboss.jca.core.CoreLogger;
 
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Iterator;
+import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -38,6 +39,9 @@ import org.jboss.logging.Logger;
 
 /**
  * Idle remover
+ *
+ * The registered pools are kept in order of their next removal, so a wake-up only
+ * notifies the pools that are due, each at half of its own interval
  * 
  * @author <a href="mailto:gurkanerdogdu@yahoo.com">Gurkan Erdogdu</a>
  * @author <a href="mailto:jesper.pedersen@ironjacamar.org">Jesper Pedersen</a>
@@ -53,21 +57,14 @@ public class IdleRemover
    /** Singleton instance */
    private static IdleRemover instance = new IdleRemover();
    
-   /** Registered pool instances */
-   private CopyOnWriteArrayList<IdleConnectionRemovalSupport> registeredPools = 
-      new CopyOnWriteArrayList<IdleConnectionRemovalSupport>();
+   /** Registered pool instances, ordered by their next removal */
+   private PriorityQueue<RegisteredPool> registeredPools = new PriorityQueue<RegisteredPool>();
    
    /** Executor service */
    private ExecutorService executorService;
    
    /** Is the executor external */
    private boolean isExternal;
-
-   /** The interval */
-   private long interval;
-
-   /** The next scan */
-   private long next;
    
    /** Shutdown */
    private AtomicBoolean shutdown;
@@ -85,8 +82,6 @@ public class IdleRemover
    {
       this.executorService = null;
       this.isExternal = false;
-      this.interval = Long.MAX_VALUE;
-      this.next = Long.MAX_VALUE;
       this.shutdown = new AtomicBoolean(false);
       this.lock = new ReentrantLock(true);
       this.condition = lock.newCondition();
@@ -131,8 +126,6 @@ public class IdleRemover
       }
 
       this.shutdown.set(false);
-      this.interval = Long.MAX_VALUE;
-      this.next = Long.MAX_VALUE;
 
       this.executorService.execute(new IdleRemoverRunner());
    }
@@ -151,7 +144,15 @@ public class IdleRemover
          instance.executorService = null;
       }
 
-      instance.registeredPools.clear();
+      try
+      {
+         instance.lock.lock();
+         instance.registeredPools.clear();
+      }
+      finally
+      {
+         instance.lock.unlock();
+      }
    }
    
    /**
@@ -182,24 +183,26 @@ public class IdleRemover
       try
       {
          this.lock.lock();
-         
-         this.registeredPools.addIfAbsent(mcp);
-         
-         if (interval > 1 && interval / 2 < this.interval) 
+
+         for (RegisteredPool rp : registeredPools)
+         {
+            if (rp.mcp == mcp)
+               return;
+         }
+
+         RegisteredPool rp = new RegisteredPool(mcp, interval > 1 ? interval / 2 : Long.MAX_VALUE);
+         rp.next = nextTime(System.currentTimeMillis(), rp.interval);
+         registeredPools.offer(rp);
+
+         if (registeredPools.peek() == rp)
          {
-            this.interval = interval / 2;
-            long maybeNext = System.currentTimeMillis() + this.interval;
-            if (next > maybeNext && maybeNext > 0) 
+            if (logger.isDebugEnabled())
             {
-               next = maybeNext;
-               if (logger.isDebugEnabled())
-               {
-                  logger.debug("About to notify thread: old next: " + next + ", new next: " + maybeNext);
-               }               
-               
-               this.condition.signal();
-            }
-         }         
+               logger.debug("About to notify thread: new next: " + rp.next);
+            }               
+
+            this.condition.signal();
+         }
       } 
       finally
       {
@@ -209,18 +212,41 @@ public class IdleRemover
    
    private void internalUnregisterPool(IdleConnectionRemovalSupport mcp)
    {
-      this.registeredPools.remove(mcp);
-      
-      if (this.registeredPools.size() == 0) 
+      try
       {
-         if (logger.isDebugEnabled())
+         this.lock.lock();
+
+         Iterator<RegisteredPool> it = registeredPools.iterator();
+         while (it.hasNext())
          {
-            logger.debug("Setting interval to Long.MAX_VALUE");  
+            if (it.next().mcp == mcp)
+            {
+               it.remove();
+               break;
+            }
          }
-         
-         interval = Long.MAX_VALUE;
+      }
+      finally
+      {
+         this.lock.unlock();
       }
    }
+
+   /**
+    * Get the time of the next removal
+    * @param now The current time
+    * @param interval The interval
+    * @return The value
+    */
+   private static long nextTime(long now, long interval)
+   {
+      long next = now + interval;
+
+      if (next < 0)
+         next = Long.MAX_VALUE;
+
+      return next;
+   }
          
    /**
     * Thread factory.
@@ -238,6 +264,41 @@ public class IdleRemover
          return thread;
       }      
    }
+
+   /**
+    * A registered pool
+    */
+   private static class RegisteredPool implements Comparable<RegisteredPool>
+   {
+      /** The pool */
+      private final IdleConnectionRemovalSupport mcp;
+
+      /** The interval */
+      private final long interval;
+
+      /** The next removal */
+      private long next;
+
+      /**
+       * Constructor
+       * @param mcp The pool
+       * @param interval The interval
+       */
+      RegisteredPool(IdleConnectionRemovalSupport mcp, long interval)
+      {
+         this.mcp = mcp;
+         this.interval = interval;
+         this.next = Long.MAX_VALUE;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public int compareTo(RegisteredPool other)
+      {
+         return next < other.next ? -1 : (next == other.next ? 0 : 1);
+      }
+   }
    
    /**
     * IdleRemoverRunner
@@ -258,28 +319,38 @@ public class IdleRemover
             
             while (!shutdown.get())
             {
-               boolean result = instance.condition.await(instance.interval, TimeUnit.MILLISECONDS);
+               RegisteredPool rp = registeredPools.peek();
+               long wait = rp != null ? rp.next - System.currentTimeMillis() : Long.MAX_VALUE;
 
-               if (logger.isTraceEnabled())
+               if (wait > 0)
                {
-                  logger.trace("Result of await: " + result);
+                  boolean result = instance.condition.await(wait, TimeUnit.MILLISECONDS);
+
+                  if (logger.isTraceEnabled())
+                  {
+                     logger.trace("Result of await: " + result);
+                  }
+
+                  continue;
                }
 
+               registeredPools.poll();
+               rp.next = nextTime(System.currentTimeMillis(), rp.interval);
+               registeredPools.offer(rp);
+
                if (logger.isDebugEnabled())
                {
-                  logger.debug("Notifying pools, interval: " + interval);  
+                  logger.debug("Notifying pool: " + rp.mcp + ", interval: " + rp.interval);  
                }
-     
-               for (IdleConnectionRemovalSupport mcp : registeredPools)
+
+               lock.unlock();
+               try
                {
-                  mcp.removeIdleConnections();
+                  rp.mcp.removeIdleConnections();
                }
-
-               next = System.currentTimeMillis() + interval;
-               
-               if (next < 0)
+               finally
                {
-                  next = Long.MAX_VALUE;  
+                  lock.lock();
                }
             }            
          }
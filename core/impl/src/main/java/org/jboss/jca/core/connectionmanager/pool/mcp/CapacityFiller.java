@@ -21,31 +21,16 @@
  */
 package org.jboss.jca.core.connectionmanager.pool.mcp;
 
-import java.util.LinkedList;
-import java.util.concurrent.atomic.AtomicBoolean;
-
 /**
  * Capacity filler
  * 
  * @author <a href="mailto:jesper.pedersen@ironjacamar.org">Jesper Pedersen</a>
  */
-class CapacityFiller implements Runnable
+class CapacityFiller
 {
    /** Singleton instance */
    private static final CapacityFiller INSTANCE = new CapacityFiller();
 
-   /** Managed connection pool list */
-   private final LinkedList<CapacityRequest> crs = new LinkedList<CapacityRequest>();
-
-   /** Filler thread */
-   private final Thread fillerThread;
-
-   /** Thread name */
-   private static final String THREAD_FILLER_NAME = "JCA CapacityFiller";
-
-   /**Thread is configured or not*/
-   private AtomicBoolean threadStarted = new AtomicBoolean(false);
-
    /**
     * Schedule capacity request
     * @param cr The value
@@ -60,73 +45,24 @@ class CapacityFiller implements Runnable
     */
    CapacityFiller()
    {
-      fillerThread = new Thread(this, THREAD_FILLER_NAME);
-      fillerThread.setDaemon(true);
-   }
-
-   /**
-    * {@inheritDoc}
-    */
-   public void run()
-   {
-      final ClassLoader myClassLoader = SecurityActions.getClassLoader(getClass());
-      SecurityActions.setThreadContextClassLoader(myClassLoader);
-
-      while (true)
-      {
-         boolean empty = false;
-
-         while (!empty)
-         {
-            CapacityRequest cr = null;
-
-            synchronized (crs)
-            {
-               empty = crs.isEmpty();
-               if (!empty)
-                  cr = crs.removeFirst();
-            }
-
-            if (!empty)
-            {
-               cr.getManagedConnectionPool().increaseCapacity(cr.getSubject(), cr.getConnectionRequestInfo());
-            }
-         }
-
-         try 
-         {
-            synchronized (crs)
-            {
-               while (crs.isEmpty())
-               {
-                  crs.wait();                        
-               }
-            }
-         }
-         catch (InterruptedException ie)
-         {
-            Thread.currentThread().interrupt();
-            return;
-         }
-      }
    }
 
    /**
     * Internal: Schedule
     * @param cr The value
     */
-   private void internalSchedule(CapacityRequest cr)
+   private void internalSchedule(final CapacityRequest cr)
    {
-      if (this.threadStarted.compareAndSet(false, true))         
-      {
-         this.fillerThread.start();
-      }
-      
       // Multiple instances of the same ManagedConnectionPool is allowed
-      synchronized (crs)
+      FillerExecutor.execute(cr.getManagedConnectionPool(), cr.getStatistics(), new Runnable()
       {
-         crs.addLast(cr);
-         crs.notifyAll();
-      }
+         /**
+          * {@inheritDoc}
+          */
+         public void run()
+         {
+            cr.getManagedConnectionPool().increaseCapacity(cr.getSubject(), cr.getConnectionRequestInfo());
+         }
+      });
    }
 }
@@ -22,6 +22,8 @@
 
 package org.jboss.jca.core.connectionmanager.pool.mcp;
 
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
 import javax.resource.spi.ConnectionRequestInfo;
 import javax.security.auth.Subject;
 
@@ -41,6 +43,9 @@ class CapacityRequest
    /** ConnectionRequestInfo */
    private ConnectionRequestInfo cri;
 
+   /** Statistics */
+   private PoolStatisticsImpl statistics;
+
    /**
     * Constructor
     * @param mcp The managed connection pool
@@ -48,10 +53,24 @@ class CapacityRequest
     * @param cri The connection request info object
     */
    CapacityRequest(ManagedConnectionPool mcp, Subject subject, ConnectionRequestInfo cri)
+   {
+      this(mcp, subject, cri, null);
+   }
+
+   /**
+    * Constructor
+    * @param mcp The managed connection pool
+    * @param subject The subject
+    * @param cri The connection request info object
+    * @param statistics The statistics of the pool
+    */
+   CapacityRequest(ManagedConnectionPool mcp, Subject subject, ConnectionRequestInfo cri,
+                   PoolStatisticsImpl statistics)
    {
       this.mcp = mcp;
       this.subject = subject;
       this.cri = cri;
+      this.statistics = statistics;
    }
 
    /**
@@ -81,6 +100,15 @@ class CapacityRequest
       return cri;
    }
 
+   /**
+    * Get the statistics
+    * @return The value
+    */
+   PoolStatisticsImpl getStatistics()
+   {
+      return statistics;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -0,0 +1,110 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+
+import java.util.Collection;
+
+/**
+ * Replaces the idle connections of a managed connection pool flushed by <code>FlushMode.REPLACE</code>.
+ *
+ * The replacements are created on the connection creator threads, so they don't queue up behind
+ * the fill tasks of the pool, and they are started at no more than
+ * <code>ironjacamar.flush_replace_rate</code> per second (default 20, 0 for no limit) to spare the
+ * resource a burst of connection requests. A replaced connection is destroyed once its replacement
+ * is in the pool
+ */
+class ConnectionReplacer
+{
+   /** The interval between two replacements of the same flush in milliseconds */
+   private static final long INTERVAL = getInterval();
+
+   /**
+    * Replace connections
+    * @param mcp The managed connection pool
+    * @param cls The connection listeners to replace
+    */
+   static void replace(final ManagedConnectionPool mcp, Collection<ConnectionListener> cls)
+   {
+      long delay = 0L;
+
+      for (final ConnectionListener cl : cls)
+      {
+         final Runnable task = new Runnable()
+         {
+            /**
+             * {@inheritDoc}
+             */
+            public void run()
+            {
+               mcp.replaceConnectionListener(cl);
+            }
+         };
+
+         if (delay == 0L)
+         {
+            ConnectionWaiterScheduler.create(task);
+         }
+         else
+         {
+            ConnectionWaiterScheduler.schedule(new Runnable()
+            {
+               /**
+                * {@inheritDoc}
+                */
+               public void run()
+               {
+                  ConnectionWaiterScheduler.create(task);
+               }
+            }, delay);
+         }
+
+         delay += INTERVAL;
+      }
+   }
+
+   /**
+    * Get the interval between two replacements
+    * @return The value
+    */
+   private static long getInterval()
+   {
+      int rate = 20;
+
+      String value = SecurityActions.getSystemProperty("ironjacamar.flush_replace_rate");
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            rate = Math.max(0, Integer.parseInt(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return rate > 0 ? Math.max(1L, 1000L / rate) : 0L;
+   }
+}
@@ -0,0 +1,330 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.security.auth.Subject;
+
+/**
+ * Represents a connection request waiting for a managed connection pool. A waiter is
+ * either completed with a connection listener handed off from a returning thread, or
+ * - for a permit only waiter - granted a permit with which the waiting thread obtains
+ * the connection itself.
+ *
+ * An asynchronous request is always completed on a worker thread, so its dependent
+ * stages never run on the thread returning a connection or creating one
+ */
+class ConnectionWaiter
+{
+   /** The managed connection pool */
+   private Owner owner;
+
+   /** Subject */
+   private Subject subject;
+
+   /** ConnectionRequestInfo */
+   private ConnectionRequestInfo cri;
+
+   /** Start of the wait */
+   private long startWait;
+
+   /** Only a permit is requested */
+   private boolean permitOnly;
+
+   /** Completed with a newly created connection listener */
+   private volatile boolean created;
+
+   /** The future handed to the caller */
+   private CompletableFuture<ConnectionListener> future;
+
+   /** Claimed by either a completion or the timeout */
+   private AtomicBoolean claimed;
+
+   /** The timeout task */
+   private volatile ScheduledFuture<?> timeout;
+
+   /** The thread blocked on the waiter; <code>null</code> for an asynchronous request */
+   private Thread thread;
+
+   /**
+    * Constructor for an asynchronous request
+    * @param owner The managed connection pool
+    * @param subject The subject
+    * @param cri The connection request info object
+    * @param startWait The start of the wait
+    */
+   ConnectionWaiter(Owner owner, Subject subject, ConnectionRequestInfo cri, long startWait)
+   {
+      this(owner, subject, cri, startWait, false, null);
+   }
+
+   /**
+    * Constructor for a request the calling thread blocks on
+    * @param owner The managed connection pool
+    * @param subject The subject
+    * @param cri The connection request info object
+    * @param startWait The start of the wait
+    * @param permitOnly Only a permit is requested, as the waiting thread obtains the connection itself
+    */
+   ConnectionWaiter(Owner owner, Subject subject, ConnectionRequestInfo cri, long startWait, boolean permitOnly)
+   {
+      this(owner, subject, cri, startWait, permitOnly, Thread.currentThread());
+   }
+
+   /**
+    * Constructor
+    * @param owner The managed connection pool
+    * @param subject The subject
+    * @param cri The connection request info object
+    * @param startWait The start of the wait
+    * @param permitOnly Only a permit is requested, as the waiting thread obtains the connection itself
+    * @param thread The thread blocked on the waiter
+    */
+   private ConnectionWaiter(Owner owner, Subject subject, ConnectionRequestInfo cri, long startWait,
+                            boolean permitOnly, Thread thread)
+   {
+      this.owner = owner;
+      this.subject = subject;
+      this.cri = cri;
+      this.startWait = startWait;
+      this.permitOnly = permitOnly;
+      this.future = new CompletableFuture<ConnectionListener>();
+      this.claimed = new AtomicBoolean(false);
+      this.timeout = null;
+      this.thread = thread;
+   }
+
+   /**
+    * Get the managed connection pool
+    * @return The value
+    */
+   Owner getOwner()
+   {
+      return owner;
+   }
+
+   /**
+    * Get the subject
+    * @return The value
+    */
+   Subject getSubject()
+   {
+      return subject;
+   }
+
+   /**
+    * Get the connection request info object
+    * @return The value
+    */
+   ConnectionRequestInfo getConnectionRequestInfo()
+   {
+      return cri;
+   }
+
+   /**
+    * Get the start of the wait
+    * @return The value
+    */
+   long getStartWait()
+   {
+      return startWait;
+   }
+
+   /**
+    * Is only a permit requested
+    * @return The value
+    */
+   boolean isPermitOnly()
+   {
+      return permitOnly;
+   }
+
+   /**
+    * Get the thread blocked on the waiter
+    * @return The value; <code>null</code> if none
+    */
+   Thread getThread()
+   {
+      return thread;
+   }
+
+   /**
+    * Get the future
+    * @return The value
+    */
+   CompletableFuture<ConnectionListener> getFuture()
+   {
+      return future;
+   }
+
+   /**
+    * Set the timeout task
+    * @param v The value
+    */
+   void setTimeout(ScheduledFuture<?> v)
+   {
+      timeout = v;
+   }
+
+   /**
+    * Claim the waiter. Only the party that claims the waiter may complete it
+    * @return True if claimed; false if the waiter was already claimed
+    */
+   boolean claim()
+   {
+      return claimed.compareAndSet(false, true);
+   }
+
+   /**
+    * Is the waiter claimed
+    * @return The value
+    */
+   boolean isClaimed()
+   {
+      return claimed.get();
+   }
+
+   /**
+    * Complete the waiter with a connection listener
+    * @param cl The connection listener
+    */
+   void complete(final ConnectionListener cl)
+   {
+      cancelTimeout();
+
+      if (isDirect())
+      {
+         future.complete(cl);
+      }
+      else
+      {
+         ConnectionWaiterScheduler.execute(new Runnable()
+         {
+            public void run()
+            {
+               future.complete(cl);
+            }
+         });
+      }
+   }
+
+   /**
+    * Complete the waiter with a newly created connection listener, which still has to
+    * be added to the pool by the waiting thread
+    * @param cl The connection listener
+    */
+   void created(ConnectionListener cl)
+   {
+      created = true;
+      complete(cl);
+   }
+
+   /**
+    * Was the waiter completed with a newly created connection listener
+    * @return The value
+    */
+   boolean isCreated()
+   {
+      return created;
+   }
+
+   /**
+    * Hand a permit to the waiter. The waiter is completed with a <code>null</code> connection listener
+    */
+   void grantPermit()
+   {
+      complete(null);
+   }
+
+   /**
+    * Complete the waiter with an error
+    * @param re The exception
+    */
+   void fail(ResourceException re)
+   {
+      fail((Throwable)re);
+   }
+
+   /**
+    * Complete the waiter with an error
+    * @param t The error
+    */
+   void fail(final Throwable t)
+   {
+      cancelTimeout();
+
+      if (isDirect())
+      {
+         future.completeExceptionally(t);
+      }
+      else
+      {
+         ConnectionWaiterScheduler.execute(new Runnable()
+         {
+            public void run()
+            {
+               future.completeExceptionally(t);
+            }
+         });
+      }
+   }
+
+   /**
+    * Can the future be completed on the calling thread. That is the case if a thread is
+    * blocked on it, or the calling thread is a worker thread
+    * @return The value
+    */
+   private boolean isDirect()
+   {
+      return thread != null || ConnectionWaiterScheduler.isWorker();
+   }
+
+   /**
+    * Cancel the timeout task
+    */
+   private void cancelTimeout()
+   {
+      ScheduledFuture<?> t = timeout;
+      if (t != null)
+         t.cancel(false);
+   }
+
+   /**
+    * The managed connection pool a waiter is waiting for
+    */
+   interface Owner
+   {
+      /**
+       * Hand a permit held on behalf of a claimed waiter to it
+       * @param waiter The waiter
+       */
+      void grant(ConnectionWaiter waiter);
+   }
+}
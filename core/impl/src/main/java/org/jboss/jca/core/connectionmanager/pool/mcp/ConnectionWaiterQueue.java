@@ -0,0 +1,348 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.api.Semaphore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The connection requests waiting for a permit of a pool, oldest first. The queue is
+ * shared by all managed connection pools of the pool, as they share its permits, so a
+ * permit released by any managed connection pool serves the longest waiting request.
+ *
+ * Every permit is acquired and released through the queue, so a released permit is
+ * handed to the longest waiting request directly, and background tasks wait in line
+ * with the requests
+ */
+public class ConnectionWaiterQueue
+{
+   /** The owner of the waiters of background tasks, which only need a permit */
+   private static final ConnectionWaiter.Owner PERMIT = new ConnectionWaiter.Owner()
+   {
+      /**
+       * {@inheritDoc}
+       */
+      public void grant(ConnectionWaiter waiter)
+      {
+         waiter.grantPermit();
+      }
+   };
+
+   /** The permits */
+   private final Semaphore permits;
+
+   /** The waiters */
+   private final ConcurrentLinkedDeque<ConnectionWaiter> waiters;
+
+   /**
+    * Constructor
+    * @param permits The permits of the pool
+    */
+   public ConnectionWaiterQueue(Semaphore permits)
+   {
+      this.permits = permits;
+      this.waiters = new ConcurrentLinkedDeque<ConnectionWaiter>();
+   }
+
+   /**
+    * Queue a waiter behind the requests already waiting
+    * @param waiter The waiter
+    */
+   void add(ConnectionWaiter waiter)
+   {
+      waiters.addLast(waiter);
+
+      // A permit may have been released while we were queuing
+      if (permits.availablePermits() > 0)
+         serve();
+   }
+
+   /**
+    * Wait for a waiter to be served by the calling thread
+    * @param waiter The waiter
+    * @param timeout The timeout in milliseconds
+    * @return The connection listener handed off, or <code>null</code> if a permit was granted
+    * @exception InterruptedException Thrown if the wait was interrupted
+    * @exception ExecutionException Thrown if the waiter failed
+    * @exception TimeoutException Thrown if the timeout expired
+    */
+   ConnectionListener await(ConnectionWaiter waiter, long timeout)
+      throws InterruptedException, ExecutionException, TimeoutException
+   {
+      return waiter.getFuture().get(timeout, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Get a permit for a background task, waiting behind the requests already queued
+    * @param timeout The timeout in milliseconds
+    * @return True if a permit was obtained; false if the timeout expired
+    * @exception InterruptedException Thrown if the wait was interrupted
+    */
+   boolean acquire(long timeout) throws InterruptedException
+   {
+      if (waiters.isEmpty() && tryAcquire())
+         return true;
+
+      ConnectionWaiter waiter = new ConnectionWaiter(PERMIT, null, null, System.currentTimeMillis(), true);
+      add(waiter);
+
+      try
+      {
+         await(waiter, timeout);
+         return true;
+      }
+      catch (TimeoutException te)
+      {
+         if (waiter.claim())
+         {
+            waiters.remove(waiter);
+            return false;
+         }
+      }
+      catch (InterruptedException ie)
+      {
+         if (waiter.claim())
+         {
+            waiters.remove(waiter);
+            throw ie;
+         }
+
+         // The permit is being granted, so hand it on
+         awaitGranted(waiter);
+         release();
+         throw ie;
+      }
+      catch (ExecutionException ee)
+      {
+         return false;
+      }
+
+      return awaitGranted(waiter);
+   }
+
+   /**
+    * Wait for the grant of a permit to a waiter which has been claimed by a releasing thread
+    * @param waiter The waiter
+    * @return True if the permit was granted; otherwise false
+    */
+   private boolean awaitGranted(ConnectionWaiter waiter)
+   {
+      boolean interrupted = false;
+      try
+      {
+         while (true)
+         {
+            try
+            {
+               waiter.getFuture().get();
+               return true;
+            }
+            catch (InterruptedException ie)
+            {
+               interrupted = true;
+            }
+            catch (ExecutionException ee)
+            {
+               return false;
+            }
+         }
+      }
+      finally
+      {
+         if (interrupted)
+            Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Remove a waiter
+    * @param waiter The waiter
+    * @return True if removed; otherwise false
+    */
+   boolean remove(ConnectionWaiter waiter)
+   {
+      return waiters.remove(waiter);
+   }
+
+   /**
+    * Try to get a permit without waiting
+    * @return True if a permit was obtained; otherwise false
+    */
+   boolean tryAcquire()
+   {
+      try
+      {
+         return permits.tryAcquire(0L, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException ie)
+      {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   /**
+    * Try to get a permit without waiting, and without registering the calling thread as a
+    * waiter. With striped permits only the stripe of the calling thread is touched while it
+    * has permits, so the permit is accounted for locally
+    * @return True if a permit was obtained; otherwise false
+    */
+   boolean tryAcquireLocal()
+   {
+      return permits.tryAcquire();
+   }
+
+   /**
+    * Release a permit. The permit is handed to the longest waiting request if there is
+    * one, otherwise it is returned to the pool and waiters queued meanwhile are served
+    */
+   void release()
+   {
+      ConnectionWaiter waiter = waiters.pollFirst();
+      while (waiter != null)
+      {
+         if (waiter.claim())
+         {
+            waiter.getOwner().grant(waiter);
+            return;
+         }
+
+         waiter = waiters.pollFirst();
+      }
+
+      permits.release();
+      serve();
+   }
+
+   /**
+    * Serve queued waiters for as long as permits are available. A waiter is granted
+    * its permit through the managed connection pool it is waiting for
+    */
+   void serve()
+   {
+      while (!waiters.isEmpty() && tryAcquire())
+      {
+         ConnectionWaiter waiter = waiters.pollFirst();
+
+         if (waiter != null && waiter.claim())
+         {
+            waiter.getOwner().grant(waiter);
+         }
+         else
+         {
+            permits.release();
+         }
+      }
+   }
+
+   /**
+    * Claim a waiter of a managed connection pool
+    * @param owner The managed connection pool
+    * @param oldest Only claim the waiter if it is the longest waiting request of the pool
+    * @return The waiter, or <code>null</code> if there is none
+    */
+   ConnectionWaiter poll(ConnectionWaiter.Owner owner, boolean oldest)
+   {
+      Iterator<ConnectionWaiter> it = waiters.iterator();
+      while (it.hasNext())
+      {
+         ConnectionWaiter waiter = it.next();
+
+         if (!waiter.isClaimed())
+         {
+            if (waiter.getOwner() == owner)
+            {
+               if (waiter.claim())
+               {
+                  waiters.remove(waiter);
+                  return waiter;
+               }
+            }
+            else if (oldest)
+            {
+               return null;
+            }
+         }
+      }
+
+      return null;
+   }
+
+   /**
+    * Is the queue empty
+    * @return The value
+    */
+   public boolean isEmpty()
+   {
+      return waiters.isEmpty();
+   }
+
+   /**
+    * Get the number of waiters
+    * @return The value
+    */
+   public int size()
+   {
+      return waiters.size();
+   }
+
+   /**
+    * Are threads blocked waiting for a permit
+    * @return The value
+    */
+   public boolean hasQueuedThreads()
+   {
+      for (ConnectionWaiter waiter : waiters)
+      {
+         if (waiter.getThread() != null && !waiter.isClaimed())
+            return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Get the threads blocked waiting for a permit
+    * @return The threads
+    */
+   public Collection<Thread> getQueuedThreads()
+   {
+      Collection<Thread> result = new ArrayList<Thread>();
+
+      for (ConnectionWaiter waiter : waiters)
+      {
+         if (waiter.getThread() != null && !waiter.isClaimed())
+            result.add(waiter.getThread());
+      }
+
+      return result;
+   }
+}
@@ -0,0 +1,189 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler for asynchronous connection requests.
+ *
+ * A single timer thread enforces the blocking timeout of all waiting requests, and
+ * a small worker pool serves waiters once a permit becomes available, so neither
+ * blocks the thread that released the permit. Connections created off the request
+ * thread are created by a separate pool, as creation may block for a long time
+ */
+class ConnectionWaiterScheduler
+{
+   /** Singleton instance */
+   private static final ConnectionWaiterScheduler INSTANCE = new ConnectionWaiterScheduler();
+
+   /** Timer thread name */
+   private static final String THREAD_TIMER_NAME = "JCA ConnectionWaiter Timer";
+
+   /** Worker thread name */
+   private static final String THREAD_WORKER_NAME = "JCA ConnectionWaiter";
+
+   /** Creator thread name */
+   private static final String THREAD_CREATOR_NAME = "JCA ConnectionCreator";
+
+   /** The timer */
+   private final ScheduledThreadPoolExecutor timer;
+
+   /** The workers */
+   private final ThreadPoolExecutor workers;
+
+   /** The connection creators */
+   private final ThreadPoolExecutor creators;
+
+   /**
+    * Schedule a timeout
+    * @param task The task
+    * @param millis The delay in milliseconds
+    * @return The scheduled task
+    */
+   static ScheduledFuture<?> schedule(Runnable task, long millis)
+   {
+      return INSTANCE.timer.schedule(task, millis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Execute a task on a worker thread
+    * @param task The task
+    */
+   static void execute(Runnable task)
+   {
+      INSTANCE.workers.execute(task);
+   }
+
+   /**
+    * Is the calling thread a worker thread
+    * @return The value
+    */
+   static boolean isWorker()
+   {
+      return Thread.currentThread() instanceof WorkerThread;
+   }
+
+   /**
+    * Execute a connection creation
+    * @param task The task
+    */
+   static void create(Runnable task)
+   {
+      INSTANCE.creators.execute(task);
+   }
+
+   /**
+    * Constructor
+    */
+   private ConnectionWaiterScheduler()
+   {
+      timer = new ScheduledThreadPoolExecutor(1, new WaiterThreadFactory(THREAD_TIMER_NAME, false));
+      timer.setRemoveOnCancelPolicy(true);
+
+      int size = Math.max(2, Runtime.getRuntime().availableProcessors());
+      workers = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                                       new LinkedBlockingQueue<Runnable>(),
+                                       new WaiterThreadFactory(THREAD_WORKER_NAME, true));
+      workers.allowCoreThreadTimeOut(true);
+
+      int creatorSize = size;
+      String value = SecurityActions.getSystemProperty("ironjacamar.async_creation_threads");
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            creatorSize = Math.max(1, Integer.parseInt(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      creators = new ThreadPoolExecutor(creatorSize, creatorSize, 60L, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<Runnable>(),
+                                        new WaiterThreadFactory(THREAD_CREATOR_NAME, false));
+      creators.allowCoreThreadTimeOut(true);
+   }
+
+   /**
+    * Thread factory
+    */
+   private static class WaiterThreadFactory implements ThreadFactory
+   {
+      /** Thread name */
+      private final String name;
+
+      /** Create worker threads */
+      private final boolean worker;
+
+      /** Thread counter */
+      private final AtomicInteger counter = new AtomicInteger(0);
+
+      /**
+       * Constructor
+       * @param name The thread name
+       * @param worker Create worker threads
+       */
+      WaiterThreadFactory(String name, boolean worker)
+      {
+         this.name = name;
+         this.worker = worker;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public Thread newThread(Runnable r)
+      {
+         String threadName = name + " " + counter.incrementAndGet();
+         Thread thread = worker ? new WorkerThread(r, threadName) : new Thread(r, threadName);
+         thread.setDaemon(true);
+
+         return thread;
+      }
+   }
+
+   /**
+    * Worker thread
+    */
+   private static class WorkerThread extends Thread
+   {
+      /**
+       * Constructor
+       * @param r The runnable
+       * @param name The thread name
+       */
+      WorkerThread(Runnable r, String name)
+      {
+         super(r, name);
+      }
+   }
+}
@@ -22,6 +22,8 @@
 
 package org.jboss.jca.core.connectionmanager.pool.mcp;
 
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
 /**
  * Represents a fill request for a managed connection pool
  *
@@ -35,15 +37,30 @@ class FillRequest
    /** Fill size */
    private int fillSize;
 
+   /** Statistics */
+   private PoolStatisticsImpl statistics;
+
    /**
     * Constructor
     * @param mcp The managed connection pool
     * @param fillSize The fill size
     */
    FillRequest(ManagedConnectionPool mcp, int fillSize)
+   {
+      this(mcp, fillSize, null);
+   }
+
+   /**
+    * Constructor
+    * @param mcp The managed connection pool
+    * @param fillSize The fill size
+    * @param statistics The statistics of the pool
+    */
+   FillRequest(ManagedConnectionPool mcp, int fillSize, PoolStatisticsImpl statistics)
    {
       this.mcp = mcp;
       this.fillSize = fillSize;
+      this.statistics = statistics;
    }
 
    /**
@@ -64,6 +81,15 @@ class FillRequest
       return fillSize;
    }
 
+   /**
+    * Get the statistics
+    * @return The value
+    */
+   PoolStatisticsImpl getStatistics()
+   {
+      return statistics;
+   }
+
    /**
     * {@inheritDoc}
     */
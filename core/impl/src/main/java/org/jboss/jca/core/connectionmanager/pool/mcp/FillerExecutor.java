@@ -0,0 +1,274 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.CoreLogger;
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Shared executor for the pool and capacity fillers.
+ *
+ * Fill tasks are queued per managed connection pool, and each pool runs at most
+ * <code>ironjacamar.filler_pool_threads</code> tasks at the same time, so a pool with a
+ * slow resource can't occupy all of the <code>ironjacamar.filler_threads</code> filler
+ * threads while other pools are waiting to be filled
+ */
+class FillerExecutor
+{
+   /** The logger */
+   private static CoreLogger log = Logger.getMessageLogger(CoreLogger.class, FillerExecutor.class.getName());
+
+   /** Singleton instance */
+   private static final FillerExecutor INSTANCE = new FillerExecutor();
+
+   /** Thread name */
+   private static final String THREAD_FILLER_NAME = "JCA PoolFiller";
+
+   /** The filler threads */
+   private final ThreadPoolExecutor executor;
+
+   /** The maximum number of concurrent tasks for a single pool */
+   private final int poolThreads;
+
+   /** The task queues per managed connection pool */
+   private final Map<ManagedConnectionPool, Lane> lanes;
+
+   /**
+    * Execute a fill task
+    * @param mcp The managed connection pool
+    * @param statistics The statistics of the pool; may be <code>null</code>
+    * @param task The task
+    */
+   static void execute(ManagedConnectionPool mcp, PoolStatisticsImpl statistics, Runnable task)
+   {
+      INSTANCE.internalExecute(mcp, statistics, task);
+   }
+
+   /**
+    * Get the maximum number of concurrent tasks for a single pool
+    * @return The value
+    */
+   static int getPoolThreads()
+   {
+      return INSTANCE.poolThreads;
+   }
+
+   /**
+    * Constructor
+    */
+   private FillerExecutor()
+   {
+      int size = getIntProperty("ironjacamar.filler_threads",
+                                Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+      executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<Runnable>(),
+                                        new FillerThreadFactory());
+      executor.allowCoreThreadTimeOut(true);
+
+      // Half of the filler threads, so a pool is filled in parallel while others can still be filled
+      poolThreads = Math.min(size, getIntProperty("ironjacamar.filler_pool_threads", Math.max(2, size / 2)));
+      lanes = new IdentityHashMap<ManagedConnectionPool, Lane>();
+   }
+
+   /**
+    * Execute a fill task
+    * @param mcp The managed connection pool
+    * @param statistics The statistics of the pool
+    * @param task The task
+    */
+   private void internalExecute(ManagedConnectionPool mcp, PoolStatisticsImpl statistics, Runnable task)
+   {
+      Lane lane = null;
+
+      synchronized (lanes)
+      {
+         Lane l = lanes.get(mcp);
+         if (l == null)
+         {
+            l = new Lane(mcp, statistics);
+            lanes.put(mcp, l);
+         }
+
+         l.tasks.addLast(task);
+
+         if (l.active < poolThreads)
+         {
+            l.active++;
+            lane = l;
+         }
+      }
+
+      if (statistics != null)
+         statistics.deltaPendingFillCount(1);
+
+      if (lane != null)
+         executor.execute(lane);
+   }
+
+   /**
+    * Get an integer system property
+    * @param key The key
+    * @param defaultValue The default value
+    * @return The value
+    */
+   private static int getIntProperty(String key, int defaultValue)
+   {
+      String value = SecurityActions.getSystemProperty(key);
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            return Math.max(1, Integer.parseInt(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return defaultValue;
+   }
+
+   /**
+    * The fill tasks of a managed connection pool
+    */
+   private class Lane implements Runnable
+   {
+      /** The managed connection pool */
+      private final ManagedConnectionPool mcp;
+
+      /** The statistics */
+      private final PoolStatisticsImpl statistics;
+
+      /** The queued tasks */
+      private final LinkedList<Runnable> tasks;
+
+      /** The number of filler threads working on this lane */
+      private int active;
+
+      /**
+       * Constructor
+       * @param mcp The managed connection pool
+       * @param statistics The statistics
+       */
+      Lane(ManagedConnectionPool mcp, PoolStatisticsImpl statistics)
+      {
+         this.mcp = mcp;
+         this.statistics = statistics;
+         this.tasks = new LinkedList<Runnable>();
+         this.active = 0;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void run()
+      {
+         while (true)
+         {
+            Runnable task = null;
+
+            synchronized (lanes)
+            {
+               if (tasks.isEmpty())
+               {
+                  active--;
+
+                  if (active == 0)
+                     lanes.remove(mcp);
+
+                  return;
+               }
+
+               task = tasks.removeFirst();
+            }
+
+            if (statistics != null)
+            {
+               statistics.deltaPendingFillCount(-1);
+               statistics.deltaActiveFillCount(1);
+            }
+
+            try
+            {
+               task.run();
+            }
+            catch (Throwable t)
+            {
+               log.debug("Exception during pool fill", t);
+            }
+            finally
+            {
+               if (statistics != null)
+                  statistics.deltaActiveFillCount(-1);
+            }
+         }
+      }
+   }
+
+   /**
+    * Thread factory
+    */
+   private static class FillerThreadFactory implements ThreadFactory
+   {
+      /** Thread counter */
+      private final AtomicInteger counter = new AtomicInteger(0);
+
+      /**
+       * {@inheritDoc}
+       */
+      public Thread newThread(final Runnable r)
+      {
+         final ClassLoader cl = SecurityActions.getClassLoader(FillerExecutor.class);
+
+         Runnable target = new Runnable()
+         {
+            /**
+             * {@inheritDoc}
+             */
+            public void run()
+            {
+               SecurityActions.setThreadContextClassLoader(cl);
+               r.run();
+            }
+         };
+
+         Thread thread = new Thread(target, THREAD_FILLER_NAME + " " + counter.incrementAndGet());
+         thread.setDaemon(true);
+
+         return thread;
+      }
+   }
+}
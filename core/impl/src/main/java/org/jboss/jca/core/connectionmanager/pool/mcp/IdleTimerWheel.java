@@ -0,0 +1,145 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.connectionmanager.pool.mcp.SemaphoreConcurrentLinkedDequeManagedConnectionPool
+   .ConnectionListenerWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timer wheel for the idle timeout of the connection listeners of a pool.
+ *
+ * A listener is put into the bucket of its deadline, which is the last returned time plus the
+ * idle timeout. Since all deadlines are within one idle timeout from now, a single level of
+ * buckets covers them. A listener is only in one bucket at a time; when it is returned again
+ * before its bucket expires it stays where it is, and is moved to a new bucket when the old one
+ * expires. So returning a connection is normally free, and expiring a bucket only touches the
+ * listeners that were idle at their recorded deadline
+ */
+class IdleTimerWheel
+{
+   /** The number of buckets */
+   private static final int WHEEL_SIZE = 64;
+
+   /** The idle timeout */
+   private final long timeout;
+
+   /** The duration of a bucket */
+   private final long tick;
+
+   /** The buckets */
+   private final List<ConnectionListenerWrapper>[] buckets;
+
+   /** The last expired tick */
+   private volatile long lastTick;
+
+   /**
+    * Constructor
+    * @param timeout The idle timeout in milliseconds
+    */
+   @SuppressWarnings("unchecked")
+   IdleTimerWheel(long timeout)
+   {
+      this.timeout = timeout;
+      this.tick = Math.max(1L, (timeout + WHEEL_SIZE - 2) / (WHEEL_SIZE - 1));
+      this.buckets = new List[WHEEL_SIZE];
+
+      for (int i = 0; i < WHEEL_SIZE; i++)
+      {
+         buckets[i] = new ArrayList<ConnectionListenerWrapper>();
+      }
+
+      this.lastTick = System.currentTimeMillis() / tick;
+   }
+
+   /**
+    * Get the idle timeout
+    * @return The value
+    */
+   long getTimeout()
+   {
+      return timeout;
+   }
+
+   /**
+    * Schedule a listener at its deadline, unless it is already scheduled
+    * @param clw The listener
+    */
+   void schedule(ConnectionListenerWrapper clw)
+   {
+      if (!clw.markIdleScheduled())
+         return;
+
+      long deadline = (clw.getConnectionListener().getLastReturnedTime() + timeout) / tick;
+
+      // The tick of a bucket is only passed under the lock of that bucket, so the tick is
+      // checked again once the lock is held; if it was passed, use the next bucket
+      while (true)
+      {
+         long deadlineTick = Math.max(deadline, lastTick + 1);
+         List<ConnectionListenerWrapper> bucket = buckets[(int)(deadlineTick % WHEEL_SIZE)];
+         synchronized (bucket)
+         {
+            if (deadlineTick > lastTick)
+            {
+               bucket.add(clw);
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Take the listeners out of the buckets that expired since the last call. The listeners
+    * are no longer scheduled, and must be scheduled again if they aren't destroyed
+    * @param now The current time
+    * @return The listeners
+    */
+   synchronized List<ConnectionListenerWrapper> expire(long now)
+   {
+      List<ConnectionListenerWrapper> result = new ArrayList<ConnectionListenerWrapper>();
+      long nowTick = now / tick;
+      long from = Math.max(lastTick + 1, nowTick - WHEEL_SIZE + 1);
+
+      for (long t = from; t <= nowTick; t++)
+      {
+         List<ConnectionListenerWrapper> bucket = buckets[(int)(t % WHEEL_SIZE)];
+         synchronized (bucket)
+         {
+            lastTick = t;
+
+            for (ConnectionListenerWrapper clw : bucket)
+            {
+               clw.clearIdleScheduled();
+               result.add(clw);
+            }
+
+            bucket.clear();
+         }
+      }
+
+      return result;
+   }
+}
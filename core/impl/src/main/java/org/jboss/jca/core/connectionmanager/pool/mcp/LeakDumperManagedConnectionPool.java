@@ -23,19 +23,20 @@
 package org.jboss.jca.core.connectionmanager.pool.mcp;
 
 import org.jboss.jca.core.CoreLogger;
+import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
+import org.jboss.jca.core.connectionmanager.ConnectionManager;
+import org.jboss.jca.core.connectionmanager.LeakTracker;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.ManagedConnectionFactory;
 import javax.security.auth.Subject;
 
 import org.jboss.logging.Logger;
@@ -60,13 +61,8 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
    /** Leak lock */
    private static Object leakLock = new Object();
 
-   /** The tracker map of connection listeners */
-   private final ConcurrentMap<ConnectionListener, Throwable> tracker =
-      new ConcurrentHashMap<ConnectionListener, Throwable>();
-
-   /** The time map of connection listeners */
-   private final ConcurrentMap<ConnectionListener, Long> times =
-      new ConcurrentHashMap<ConnectionListener, Long>();
+   /** The tracker of connection listeners */
+   private LeakTracker tracker;
 
    static
    {
@@ -83,6 +79,20 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
     */
    public LeakDumperManagedConnectionPool()
    {
+      this.tracker = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void initialize(ManagedConnectionFactory mcf, ConnectionManager cm, Subject subject,
+                          ConnectionRequestInfo cri, PoolConfiguration pc, Pool p)
+   {
+      tracker = LeakTracker.create(p.getName(), 1.0);
+      tracker.start();
+
+      super.initialize(mcf, cm, subject, cri, pc, p);
    }
 
    /**
@@ -93,8 +103,7 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
    {
       ConnectionListener cl = super.getConnection(subject, cri);
 
-      tracker.put(cl, new Throwable("ALLOCATION LEAK"));
-      times.put(cl, Long.valueOf(System.currentTimeMillis()));
+      tracker.track(cl);
 
       return cl;
    }
@@ -105,8 +114,7 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
    @Override
    public void returnConnection(ConnectionListener cl, boolean kill, boolean cleanup)
    {
-      tracker.remove(cl);
-      times.remove(cl);
+      tracker.untrack(cl);
       super.returnConnection(cl, kill, cleanup);
    }
 
@@ -115,18 +123,10 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
     */
    public void connectionListenerDestroyed(ConnectionListener cl)
    {
-      if (tracker.containsKey(cl))
-      {
-         Throwable t = tracker.get(cl);
-         Long l = times.get(cl);
-         log.connectionLeak(getPoolName(), Integer.toHexString(System.identityHashCode(cl)), l.longValue(), t);
-
-         if (useFile)
-            dump(cl, t, l.longValue());
+      LeakTracker.Allocation allocation = tracker.untrack(cl);
+      if (allocation != null)
+         leak(cl, allocation);
 
-         tracker.remove(cl);
-         times.remove(cl);
-      }
       super.connectionListenerDestroyed(cl);
    }
 
@@ -136,29 +136,34 @@ public class LeakDumperManagedConnectionPool extends SemaphoreArrayListManagedCo
    @Override
    public void shutdown()
    {
-      if (tracker.size() > 0)
+      for (LeakTracker.Allocation allocation : tracker.getAllocations())
       {
-         Iterator<Map.Entry<ConnectionListener, Throwable>> it = tracker.entrySet().iterator();
-         while (it.hasNext())
-         {
-            Map.Entry<ConnectionListener, Throwable> entry = it.next();
-            Long l = times.get(entry.getKey());
+         Object cl = allocation.getObject();
+         if (cl != null)
+            leak(cl, allocation);
+      }
 
-            log.connectionLeak(getPoolName(), Integer.toHexString(System.identityHashCode(entry.getKey())),
-                               l.longValue(), entry.getValue());
+      tracker.close();
 
-            if (useFile)
-               dump(entry.getKey(), entry.getValue(), l.longValue());
-         }
+      super.shutdown();
+   }
 
-         tracker.clear();
-         times.clear();
-      }
+   /**
+    * Report a leak
+    * @param cl The connection listener
+    * @param allocation The allocation
+    */
+   private void leak(Object cl, LeakTracker.Allocation allocation)
+   {
+      Throwable t = allocation.toThrowable("ALLOCATION LEAK");
 
-      super.shutdown();
+      log.connectionLeak(getPoolName(), Integer.toHexString(System.identityHashCode(cl)), allocation.getTime(), t);
+
+      if (useFile)
+         dump(cl, t, allocation.getTime());
    }
 
-   private void dump(ConnectionListener cl, Throwable t, long time)
+   private void dump(Object cl, Throwable t, long time)
    {
       synchronized (leakLock)
       {
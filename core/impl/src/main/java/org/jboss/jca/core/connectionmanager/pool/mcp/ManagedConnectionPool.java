@@ -30,6 +30,7 @@ import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 import org.jboss.jca.core.connectionmanager.pool.idle.IdleConnectionRemovalSupport;
 
 import java.util.Collection;
+import java.util.concurrent.CompletionStage;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
@@ -71,6 +72,16 @@ public interface ManagedConnectionPool extends IdleConnectionRemovalSupport
     * @throws ResourceException exception
     */
    public ConnectionListener getConnection(Subject subject, ConnectionRequestInfo cri) throws ResourceException;
+
+   /**
+    * Returns a connection listener without blocking the calling thread. If no permit is
+    * available the request is queued in FIFO order, and the stage completes once a connection
+    * is returned to the pool, or exceptionally when the blocking timeout expires.
+    * @param subject subject
+    * @param cri connection request info
+    * @return The stage that completes with the connection listener
+    */
+   public CompletionStage<ConnectionListener> getConnectionAsync(Subject subject, ConnectionRequestInfo cri);
    
    /**
     * Find a connection listener
@@ -166,6 +177,20 @@ public interface ManagedConnectionPool extends IdleConnectionRemovalSupport
     */
    public ConnectionListener removeConnectionListener();
 
+   /**
+    * Destroy the least recently used idle connection, to make room in the connection
+    * budget of the pool
+    * @return True if a connection was destroyed; otherwise false
+    */
+   public boolean reclaimIdleConnection();
+
+   /**
+    * Add a new connection to the pool in place of an idle connection flushed by
+    * <code>FlushMode.REPLACE</code>, and destroy the flushed connection afterwards
+    * @param cl The connection listener to replace
+    */
+   public void replaceConnectionListener(ConnectionListener cl);
+
    /**
     * Notify that a connection listener belonging to this pool was destroyed.
     */
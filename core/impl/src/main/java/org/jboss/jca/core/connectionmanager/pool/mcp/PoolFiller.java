@@ -21,8 +21,8 @@
  */
 package org.jboss.jca.core.connectionmanager.pool.mcp;
 
-import java.util.LinkedList;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * PoolFiller
@@ -33,23 +33,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @author <a href="mailto:gurkanerdogdu@yahoo.com">Gurkan Erdogdu</a>
  * @author <a href="mailto:jesper.pedersen@ironjacamar.org">Jesper Pedersen</a>
  */
-class PoolFiller implements Runnable
+class PoolFiller
 {
-
    /** Singleton instance */
    private static final PoolFiller FILLER = new PoolFiller();
 
-   /** Pools list */
-   private final LinkedList<FillRequest> pools = new LinkedList<FillRequest>();
-
-   /** Filler thread */
-   private final Thread fillerThread;
-
-   /** Thread name */
-   private static final String THREAD_FILLER_NAME = "JCA PoolFiller";
-
-   /**Thread is configured or not*/
-   private AtomicBoolean threadStarted = new AtomicBoolean(false);
+   /** Fill requests which haven't been started yet */
+   private final Set<FillRequest> pending = new HashSet<FillRequest>();
 
    /**
     * Fill given pool
@@ -65,75 +55,41 @@ class PoolFiller implements Runnable
     */
    PoolFiller()
    {
-      fillerThread = new Thread(this, THREAD_FILLER_NAME);
-      fillerThread.setDaemon(true);
    }
 
    /**
-    * {@inheritDoc}
+    * Fill pool
+    * @param fr The fill request
     */
-   public void run()
+   private void internalFillPool(final FillRequest fr)
    {
-      final ClassLoader myClassLoader = SecurityActions.getClassLoader(getClass());
-      SecurityActions.setThreadContextClassLoader(myClassLoader);
-
-      while (true)
+      synchronized (pending)
       {
-         boolean empty = false;
-
-         while (!empty)
-         {
-            FillRequest fr = null;
-
-            synchronized (pools)
-            {
-               empty = pools.isEmpty();
-               if (!empty)
-                  fr = pools.removeFirst();
-            }
+         if (!pending.add(fr))
+            return;
+      }
 
-            if (!empty)
-            {
-               fr.getManagedConnectionPool().fillTo(fr.getFillSize());
-            }
-         }
+      // Concurrent fills of the same pool are safe, since each creation
+      // reserves its share of the deficit of the pool before it starts
+      int tasks = Math.max(1, Math.min(FillerExecutor.getPoolThreads(), fr.getFillSize()));
 
-         try 
+      for (int i = 0; i < tasks; i++)
+      {
+         FillerExecutor.execute(fr.getManagedConnectionPool(), fr.getStatistics(), new Runnable()
          {
-            synchronized (pools)
+            /**
+             * {@inheritDoc}
+             */
+            public void run()
             {
-               while (pools.isEmpty())
+               synchronized (pending)
                {
-                  pools.wait();                        
+                  pending.remove(fr);
                }
-            }
-         }
-         catch (InterruptedException ie)
-         {
-            Thread.currentThread().interrupt();
-            return;
-         }
-      }
-   }
 
-   /**
-    * Fill pool
-    * @param fr The fill request
-    */
-   private void internalFillPool(FillRequest fr)
-   {
-      if (this.threadStarted.compareAndSet(false, true))         
-      {
-         this.fillerThread.start();
-      }
-      
-      synchronized (pools)
-      {
-         if (!pools.contains(fr))
-         {
-            pools.addLast(fr);
-            pools.notifyAll();
-         }
+               fr.getManagedConnectionPool().fillTo(fr.getFillSize());
+            }
+         });
       }
    }
 }
@@ -29,14 +29,20 @@ import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
 import org.jboss.jca.core.connectionmanager.ConnectionManager;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionState;
+import org.jboss.jca.core.connectionmanager.pool.CreationGovernor;
 import org.jboss.jca.core.connectionmanager.pool.api.CapacityDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.api.CapacityIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 import org.jboss.jca.core.connectionmanager.pool.api.PrefillPool;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.DefaultCapacity;
+import org.jboss.jca.core.connectionmanager.pool.capacity.PoolUsage;
 import org.jboss.jca.core.connectionmanager.pool.capacity.TimedOutDecrementer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.TimedOutFIFODecrementer;
 import org.jboss.jca.core.connectionmanager.pool.idle.IdleRemover;
 import org.jboss.jca.core.connectionmanager.pool.validator.ConnectionValidator;
+import org.jboss.jca.core.connectionmanager.pool.validator.ValidationBatch;
 import org.jboss.jca.core.tracer.Tracer;
 
 import java.util.ArrayList;
@@ -44,9 +50,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
@@ -118,6 +129,18 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
    /** The checked out connections */
    private final ArrayList<ConnectionListener> checkedOut = new ArrayList<ConnectionListener>();
 
+   /** Connections being created to fill the pool, guarded by cls */
+   private int filling;
+
+   /** Connection requests waiting for a permit, shared with the other managed connection pools */
+   private ConnectionWaiterQueue waiters;
+
+   /** The governor of the connection creations */
+   private CreationGovernor governor;
+
+   /** Grants permits to the waiters of this managed connection pool */
+   private ConnectionWaiter.Owner owner;
+
    /** Supports lazy association */
    private Boolean supportsLazyAssociation;
 
@@ -127,6 +150,9 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
    /** Last used */
    private long lastUsed;
 
+   /** The usage, which the adaptive capacity policies size this managed connection pool from */
+   private PoolUsage usage;
+
    /**
     * Constructor
     */
@@ -164,6 +190,36 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       this.poolValidationLoggingEnabled = !PoolConfiguration.getPoolsWithDisabledValidationLogging().contains(pool.getName());
       this.debug = log.isDebugEnabled();
       this.cls = new ArrayList<ConnectionListener>(this.maxSize);
+      this.usage = new PoolUsage(p.getInternalStatistics(), new IntSupplier()
+      {
+         public int getAsInt()
+         {
+            return checkedOut.size();
+         }
+      });
+      this.waiters = p.getWaiterQueue();
+      this.governor = new CreationGovernor();
+      this.governor.setName(pool.getName());
+      this.owner = new ConnectionWaiter.Owner()
+      {
+         public void grant(final ConnectionWaiter waiter)
+         {
+            if (waiter.isPermitOnly())
+            {
+               waiter.grantPermit();
+            }
+            else
+            {
+               ConnectionWaiterScheduler.execute(new Runnable()
+               {
+                  public void run()
+                  {
+                     serveWaiter(waiter);
+                  }
+               });
+            }
+         }
+      };
       this.supportsLazyAssociation = null;
       this.lastIdleCheck = System.currentTimeMillis();
       this.lastUsed = Long.MAX_VALUE;
@@ -171,7 +227,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       // Schedule managed connection pool for prefill
       if ((pc.isPrefill() || pc.isStrictMin()) && p instanceof PrefillPool && pc.getInitialSize() > 0)
       {
-         PoolFiller.fillPool(new FillRequest(this, pc.getInitialSize()));
+         PoolFiller.fillPool(new FillRequest(this, pc.getInitialSize(), pool.getInternalStatistics()));
       }
 
       if (poolConfiguration.getIdleTimeoutMinutes() > 0)
@@ -262,7 +318,8 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
           (poolConfiguration.isPrefill() || poolConfiguration.isStrictMin()) &&
           pool instanceof PrefillPool &&
           poolConfiguration.getMinSize() > 0)
-         PoolFiller.fillPool(new FillRequest(this, poolConfiguration.getMinSize()));
+         PoolFiller.fillPool(new FillRequest(this, poolConfiguration.getMinSize(),
+                                                pool.getInternalStatistics()));
    }
 
    /**
@@ -318,271 +375,451 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       }
 
       long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
+
+      // In fair mode newcomers never barge ahead of queued requests
+      if (!(poolConfiguration.isFair() && !waiters.isEmpty()) && waiters.tryAcquire())
+      {
+         if (pool.getInternalStatistics().isEnabled())
+            usage.deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+
+         return getConnectionWithPermit(subject, cri, startWait);
+      }
+
+      // Wait for a permit in the same queue as the asynchronous requests, so neither starves the other
+      ConnectionWaiter waiter = new ConnectionWaiter(owner, subject, cri, startWait, true);
+      waiters.add(waiter);
+      awaitPermit(waiter);
+
+      if (pool.getInternalStatistics().isEnabled())
+         usage.deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+
+      return getConnectionWithPermit(subject, cri, startWait);
+   }
+
+   /**
+    * Wait for a queued waiter to be granted a permit
+    * @param waiter The waiter
+    * @exception ResourceException Thrown if the blocking timeout expired, or the wait was interrupted
+    */
+   private void awaitPermit(ConnectionWaiter waiter) throws ResourceException
+   {
+      long start = System.currentTimeMillis();
+      boolean interrupted = false;
       try
       {
-         if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS))
+         waiters.await(waiter, poolConfiguration.getBlockingTimeout());
+         return;
+      }
+      catch (TimeoutException te)
+      {
+         if (waiter.claim())
          {
+            waiters.remove(waiter);
+
             if (pool.getInternalStatistics().isEnabled())
-               pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+               pool.getInternalStatistics().deltaBlockingFailureCount();
+
+            // We timed out
+            throw new ResourceException(bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(
+                  poolConfiguration.getBlockingTimeout()));
+         }
+      }
+      catch (InterruptedException ie)
+      {
+         Thread.interrupted();
+
+         if (waiter.claim())
+         {
+            waiters.remove(waiter);
+
+            long end = System.currentTimeMillis() - start;
+            usage.deltaTotalBlockingTime(end);
+            throw new ResourceException(bundle.interruptedWhileRequestingPermit(end));
+         }
+
+         interrupted = true;
+      }
+      catch (ExecutionException ee)
+      {
+         // Fall through
+      }
+
+      // The waiter has been claimed, so its outcome is imminent
+      try
+      {
+         waiter.getFuture().join();
+      }
+      catch (CompletionException ce)
+      {
+         if (ce.getCause() instanceof ResourceException)
+            throw (ResourceException)ce.getCause();
 
-            //We have a permit to get a connection. Is there one in the pool already?
-            ConnectionListener cl = null;
-            do
+         throw new ResourceException(ce.getCause());
+      }
+      finally
+      {
+         if (interrupted)
+            Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Get a connection listener once a permit has been obtained. The permit is
+    * released again if no connection listener could be obtained
+    *
+    * @param subject The subject
+    * @param cri The connection request info
+    * @param startWait The start of the wait for the connection
+    * @return The connection listener
+    * @exception ResourceException Thrown if a connection can't be obtained
+    */
+   private ConnectionListener getConnectionWithPermit(Subject subject, ConnectionRequestInfo cri, long startWait)
+      throws ResourceException
+   {
+      //We have a permit to get a connection. Is there one in the pool already?
+      ConnectionListener cl = null;
+      do
+      {
+         if (!isRunning())
+         {
+            waiters.release();
+            throw new ResourceException(
+               bundle.thePoolHasBeenShutdown(pool.getName(),
+                                             Integer.toHexString(System.identityHashCode(this))));
+         }
+
+         synchronized (cls)
+         {
+            if (cls.size() > 0)
             {
-               if (!isRunning())
+               if (fifo)
                {
-                  pool.getLock().release();
-                  throw new ResourceException(
-                     bundle.thePoolHasBeenShutdown(pool.getName(),
-                                                   Integer.toHexString(System.identityHashCode(this))));
+                  cl = cls.remove(0);
                }
-
-               synchronized (cls)
+               else
                {
-                  if (cls.size() > 0)
-                  {
-                     if (fifo)
-                     {
-                        cl = cls.remove(0);
-                     }
-                     else
-                     {
-                        cl = cls.remove(cls.size() - 1);
-                     }
-                     checkedOut.add(cl);
-                  }
+                  cl = cls.remove(cls.size() - 1);
                }
+               checkedOut.add(cl);
+            }
+         }
+
+         if (cl != null)
+         {
+            //Yes, we retrieved a ManagedConnection from the pool. Does it match?
+            try
+            {
+               Object matchedMC = mcf.matchManagedConnections(Collections.singleton(cl.getManagedConnection()),
+                                                              subject, cri);
 
-               if (cl != null)
+               boolean valid = true;
+               if (matchedMC != null)
                {
-                  //Yes, we retrieved a ManagedConnection from the pool. Does it match?
-                  try
+                  if (poolConfiguration.isValidateOnMatch())
                   {
-                     Object matchedMC = mcf.matchManagedConnections(Collections.singleton(cl.getManagedConnection()),
-                                                                    subject, cri);
-
-                     boolean valid = true;
-                     if (matchedMC != null)
+                     if (mcf instanceof ValidatingManagedConnectionFactory)
                      {
-                        if (poolConfiguration.isValidateOnMatch())
+                        try
                         {
-                           if (mcf instanceof ValidatingManagedConnectionFactory)
-                           {
-                              try
-                              {
-                                 ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
-                                 Set candidateSet = Collections.singleton(cl.getManagedConnection());
-                                 candidateSet = vcf.getInvalidConnections(candidateSet);
-
-                                 if (candidateSet != null && candidateSet.size() > 0)
-                                 {
-                                    valid = false;
-                                 }
-                              }
-                              catch (Throwable t)
-                              {
-                                 valid = false;
-                                 if (log.isTraceEnabled())
-                                    log.trace("Exception while ValidateOnMatch: " + t.getMessage(), t);
-                              }
-                           }
-                           else
+                           ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
+                           Set candidateSet = Collections.singleton(cl.getManagedConnection());
+                           candidateSet = vcf.getInvalidConnections(candidateSet);
+
+                           if (candidateSet != null && candidateSet.size() > 0)
                            {
-                              log.validateOnMatchNonCompliantManagedConnectionFactory(mcf.getClass().getName());
+                              valid = false;
                            }
                         }
-
-                        if (valid)
+                        catch (Throwable t)
                         {
-                           log.tracef("supplying ManagedConnection from pool: %s", cl);
-
-                           clPermits.put(cl, cl);
-
-                           lastUsed = System.currentTimeMillis();
-                           cl.setLastCheckedOutTime(lastUsed);
-
-                           if (pool.getInternalStatistics().isEnabled())
-                           {
-                              pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
-                              pool.getInternalStatistics().deltaTotalPoolTime(lastUsed - cl.getLastReturnedTime());
-                           }
-
-                           if (Tracer.isEnabled())
-                              Tracer.getConnectionListener(pool.getName(), this, cl, true, pool.isInterleaving(),
-                                                           Tracer.isRecordCallstacks() ?
-                                                           new Throwable("CALLSTACK") : null);
-
-                           return cl;
+                           valid = false;
+                           if (log.isTraceEnabled())
+                              log.trace("Exception while ValidateOnMatch: " + t.getMessage(), t);
                         }
                      }
-
-                     // Match did not succeed but no exception was thrown.
-                     // Either we have the matching strategy wrong or the
-                     // connection died while being checked.  We need to
-                     // distinguish these cases, but for now we always
-                     // destroy the connection.
-                     if (valid)
-                     {
-                        log.destroyingConnectionNotSuccessfullyMatched(cl);
-                     }
                      else
                      {
-                        if(poolValidationLoggingEnabled)
-                        {
-                           log.destroyingConnectionNotValidated(cl);
-                        }
+                        log.validateOnMatchNonCompliantManagedConnectionFactory(mcf.getClass().getName());
                      }
+                  }
 
-                     synchronized (cls)
-                     {
-                        checkedOut.remove(cl);
-                     }
+                  if (valid)
+                  {
+                     log.tracef("supplying ManagedConnection from pool: %s", cl);
 
-                     if (pool.getInternalStatistics().isEnabled())
-                        pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
-                                                                        cl.getLastReturnedTime());
+                     clPermits.put(cl, cl);
 
-                     if (Tracer.isEnabled())
-                        Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, true, false, false,
-                                                         false, false,
-                                                         Tracer.isRecordCallstacks() ?
-                                                         new Throwable("CALLSTACK") : null);
-                     
-                     cl.destroy();
-                     cl = null;
-                  }
-                  catch (Throwable t)
-                  {
-                     log.throwableWhileTryingMatchManagedConnectionThenDestroyingConnection(cl, t);
+                     lastUsed = System.currentTimeMillis();
+                     cl.setLastCheckedOutTime(lastUsed);
 
-                     synchronized (cls)
+                     if (pool.getInternalStatistics().isEnabled())
                      {
-                        checkedOut.remove(cl);
+                        pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+                        pool.getInternalStatistics().deltaTotalPoolTime(lastUsed - cl.getLastReturnedTime());
                      }
 
-                     if (pool.getInternalStatistics().isEnabled())
-                        pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
-                                                                        cl.getLastReturnedTime());
-
                      if (Tracer.isEnabled())
-                        Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false, true,
-                                                         false, false,
-                                                         Tracer.isRecordCallstacks() ?
-                                                         new Throwable("CALLSTACK") : null);
-                     
-                     cl.destroy();
-                     cl = null;
+                        Tracer.getConnectionListener(pool.getName(), this, cl, true, pool.isInterleaving(),
+                                                     Tracer.isRecordCallstacks() ?
+                                                     new Throwable("CALLSTACK") : null);
+
+                     return cl;
                   }
+               }
 
-                  // We made it here, something went wrong and we should validate
-                  // if we should continue attempting to acquire a connection
-                  if (poolConfiguration.isUseFastFail())
+               // Match did not succeed but no exception was thrown.
+               // Either we have the matching strategy wrong or the
+               // connection died while being checked.  We need to
+               // distinguish these cases, but for now we always
+               // destroy the connection.
+               if (valid)
+               {
+                  log.destroyingConnectionNotSuccessfullyMatched(cl);
+               }
+               else
+               {
+                  if(poolValidationLoggingEnabled)
                   {
-                     if (log.isTraceEnabled())
-                        log.trace("Fast failing for connection attempt. No more attempts will be made to " +
-                               "acquire connection from pool and a new connection will be created immeadiately");
-                     break;
+                     log.destroyingConnectionNotValidated(cl);
                   }
+               }
 
+               synchronized (cls)
+               {
+                  checkedOut.remove(cl);
                }
-            }
-            while (cls.size() > 0);
 
-            // OK, we couldnt find a working connection from the pool.  Make a new one.
-            try
-            {
-               // No, the pool was empty, so we have to make a new one.
-               cl = createConnectionEventListener(subject, cri);
+               if (pool.getInternalStatistics().isEnabled())
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                                                                  cl.getLastReturnedTime());
 
                if (Tracer.isEnabled())
-                  Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
-                                                  true, false, false,
-                                                  Tracer.isRecordCallstacks() ?
-                                                  new Throwable("CALLSTACK") : null);
+                  Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, true, false, false,
+                                                   false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               cl.destroy();
+               cl = null;
+            }
+            catch (Throwable t)
+            {
+               log.throwableWhileTryingMatchManagedConnectionThenDestroyingConnection(cl, t);
 
                synchronized (cls)
                {
-                  checkedOut.add(cl);
+                  checkedOut.remove(cl);
                }
 
-               log.tracef("supplying new ManagedConnection: %s", cl);
+               if (pool.getInternalStatistics().isEnabled())
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                                                                  cl.getLastReturnedTime());
 
-               clPermits.put(cl, cl);
+               if (Tracer.isEnabled())
+                  Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false, true,
+                                                   false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               cl.destroy();
+               cl = null;
+            }
 
-               lastUsed = System.currentTimeMillis();
+            // We made it here, something went wrong and we should validate
+            // if we should continue attempting to acquire a connection
+            if (poolConfiguration.isUseFastFail())
+            {
+               if (log.isTraceEnabled())
+                  log.trace("Fast failing for connection attempt. No more attempts will be made to " +
+                         "acquire connection from pool and a new connection will be created immeadiately");
+               break;
+            }
 
-               if (pool.getInternalStatistics().isEnabled())
-                  pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+         }
+      }
+      while (cls.size() > 0);
 
-               // Trigger prefill
-               prefill();
+      // OK, we couldnt find a working connection from the pool.  Make a new one.
+      try
+      {
+         // No, the pool was empty, so we have to make a new one.
+         cl = createConnectionEventListener(subject, cri);
 
-               // Trigger capacity increase
-               if (pool.getCapacity().getIncrementer() != null)
-                  CapacityFiller.schedule(new CapacityRequest(this, subject, cri));
-               
-               if (Tracer.isEnabled())
-                  Tracer.getConnectionListener(pool.getName(), this, cl, false, pool.isInterleaving(),
-                                               Tracer.isRecordCallstacks() ?
-                                               new Throwable("CALLSTACK") : null);
+         if (Tracer.isEnabled())
+            Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
+                                            true, false, false,
+                                            Tracer.isRecordCallstacks() ?
+                                            new Throwable("CALLSTACK") : null);
 
-               return cl;
-            }
-            catch (Throwable t)
-            {
-               if (cl != null || !(t instanceof RetryableException))
-                  log.throwableWhileAttemptingGetNewGonnection(cl, t);
+         synchronized (cls)
+         {
+            checkedOut.add(cl);
+         }
 
-               if (cl != null)
-               {
-                  // Return permit and rethrow
-                  synchronized (cls)
-                  {
-                     checkedOut.remove(cl);
-                  }
+         log.tracef("supplying new ManagedConnection: %s", cl);
 
-                  if (Tracer.isEnabled())
-                     Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false, true,
-                                                      false, false,
-                                                      Tracer.isRecordCallstacks() ?
-                                                      new Throwable("CALLSTACK") : null);
-                     
-                  cl.destroy();
-               }
+         clPermits.put(cl, cl);
 
-               pool.getLock().release();
+         lastUsed = System.currentTimeMillis();
 
-               if (t instanceof ResourceException)
-               {
-                  throw (ResourceException)t;
-               }
-               else
-               {
-                  throw new ResourceException(bundle.unexpectedThrowableWhileTryingCreateConnection(cl), t);
-               }
+         if (pool.getInternalStatistics().isEnabled())
+            pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+
+         // Trigger prefill
+         prefill();
+
+         // Trigger capacity increase
+         if (pool.getCapacity().getIncrementer() != null)
+            CapacityFiller.schedule(new CapacityRequest(this, subject, cri, pool.getInternalStatistics()));
+         
+         if (Tracer.isEnabled())
+            Tracer.getConnectionListener(pool.getName(), this, cl, false, pool.isInterleaving(),
+                                         Tracer.isRecordCallstacks() ?
+                                         new Throwable("CALLSTACK") : null);
+
+         return cl;
+      }
+      catch (Throwable t)
+      {
+         if (cl != null || !(t instanceof RetryableException))
+            log.throwableWhileAttemptingGetNewGonnection(cl, t);
+
+         if (cl != null)
+         {
+            // Return permit and rethrow
+            synchronized (cls)
+            {
+               checkedOut.remove(cl);
             }
+
+            if (Tracer.isEnabled())
+               Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false, true,
+                                                false, false,
+                                                Tracer.isRecordCallstacks() ?
+                                                new Throwable("CALLSTACK") : null);
+               
+            cl.destroy();
+         }
+
+         waiters.release();
+
+         if (t instanceof ResourceException)
+         {
+            throw (ResourceException)t;
          }
          else
          {
-            if (pool.getInternalStatistics().isEnabled())
-               pool.getInternalStatistics().deltaBlockingFailureCount();
+            throw new ResourceException(bundle.unexpectedThrowableWhileTryingCreateConnection(cl), t);
+         }
+      }
+   }
 
-            // We timed out
-            throw new ResourceException(bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(
-                  poolConfiguration.getBlockingTimeout()));
+   /**
+    * {@inheritDoc}
+    */
+   public CompletionStage<ConnectionListener> getConnectionAsync(Subject subject, ConnectionRequestInfo cri)
+   {
+      subject = (subject == null) ? defaultSubject : subject;
+      cri = (cri == null) ? defaultCri : cri;
+
+      long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
+      final ConnectionWaiter waiter = new ConnectionWaiter(owner, subject, cri, startWait);
+
+      if (!isRunning())
+      {
+         waiter.claim();
+         waiter.fail(new ResourceException(
+            bundle.thePoolHasBeenShutdown(pool.getName(), Integer.toHexString(System.identityHashCode(this)))));
+         return waiter.getFuture();
+      }
+
+      // Only take the fast path when nobody is queued ahead of us
+      if (waiters.isEmpty() && waiters.tryAcquire())
+      {
+         waiter.claim();
+         owner.grant(waiter);
+         return waiter.getFuture();
+      }
+
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaWaitCount();
+
+      waiter.setTimeout(ConnectionWaiterScheduler.schedule(new Runnable()
+      {
+         public void run()
+         {
+            timeoutWaiter(waiter);
          }
+      }, poolConfiguration.getBlockingTimeout()));
+
+      log.tracef("Queued asynchronous connection request: %s (%d waiting)", pool.getName(), waiters.size() + 1);
 
+      waiters.add(waiter);
+
+      return waiter.getFuture();
+   }
+
+   /**
+    * Serve a claimed waiter using a permit already held on its behalf
+    * @param waiter The waiter
+    */
+   private void serveWaiter(ConnectionWaiter waiter)
+   {
+      if (pool.getInternalStatistics().isEnabled())
+         usage.deltaTotalBlockingTime(System.currentTimeMillis() - waiter.getStartWait());
+
+      try
+      {
+         waiter.complete(getConnectionWithPermit(waiter.getSubject(), waiter.getConnectionRequestInfo(),
+                                                 waiter.getStartWait()));
       }
-      catch (InterruptedException ie)
+      catch (ResourceException re)
       {
-         Thread.interrupted();
+         waiter.fail(re);
+      }
+   }
 
-         long end = pool.getInternalStatistics().isEnabled() ? (System.currentTimeMillis() - startWait) : 0L;
-         pool.getInternalStatistics().deltaTotalBlockingTime(end);
-         throw new ResourceException(bundle.interruptedWhileRequestingPermit(end));
+   /**
+    * The blocking timeout of a waiter expired
+    * @param waiter The waiter
+    */
+   private void timeoutWaiter(ConnectionWaiter waiter)
+   {
+      if (waiter.claim())
+      {
+         waiters.remove(waiter);
+         failWaiterTimeout(waiter);
       }
    }
 
+   /**
+    * Fail the queued waiters of this managed connection pool as it is shutting down
+    */
+   private void failWaiters()
+   {
+      ConnectionWaiter waiter = waiters.poll(owner, false);
+      while (waiter != null)
+      {
+         waiter.fail(new ResourceException(
+            bundle.thePoolHasBeenShutdown(pool.getName(), Integer.toHexString(System.identityHashCode(this)))));
+
+         waiter = waiters.poll(owner, false);
+      }
+   }
+
+   /**
+    * Fail a claimed waiter due to the blocking timeout
+    * @param waiter The waiter
+    */
+   private void failWaiterTimeout(ConnectionWaiter waiter)
+   {
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaBlockingFailureCount();
+
+      waiter.fail(new ResourceException(
+         bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(poolConfiguration.getBlockingTimeout())));
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -640,6 +877,15 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       return null;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public boolean reclaimIdleConnection()
+   {
+      // Not part of the connection budget
+      return false;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -654,7 +900,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
    public void returnConnection(ConnectionListener cl, boolean kill, boolean cleanup)
    {
       if (pool.getInternalStatistics().isEnabled() && cl.getState() != ConnectionState.DESTROYED)
-         pool.getInternalStatistics().deltaTotalUsageTime(System.currentTimeMillis() - cl.getLastCheckedOutTime());
+         usage.deltaTotalUsageTime(System.currentTimeMillis() - cl.getLastCheckedOutTime());
 
       if (log.isTraceEnabled())
       {
@@ -681,7 +927,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
          ConnectionListener present = clPermits.remove(cl);
          if (present != null)
          {
-            pool.getLock().release();
+            waiters.release();
          }
 
          return;
@@ -726,7 +972,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
 
             if (clPermits.remove(cl) != null)
             {
-               pool.getLock().release();
+               waiters.release();
             }
          }
       }
@@ -748,7 +994,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
 
             if (clPermits.remove(cl) != null)
             {
-               pool.getLock().release();
+               waiters.release();
             }
          }
       }
@@ -774,6 +1020,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
    public void flush(FlushMode mode, Collection<ConnectionListener> toDestroy)
    {
       ArrayList<ConnectionListener> keep = null;
+      ArrayList<ConnectionListener> replace = null;
 
       synchronized (cls)
       {
@@ -791,15 +1038,14 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                cl.setState(ConnectionState.DESTROY);
 
                if (pool.getInternalStatistics().isEnabled())
-                  pool.getInternalStatistics().deltaTotalUsageTime(System.currentTimeMillis() -
-                                                                   cl.getLastCheckedOutTime());
+                  usage.deltaTotalUsageTime(System.currentTimeMillis() - cl.getLastCheckedOutTime());
 
                toDestroy.add(cl);
 
                ConnectionListener present = clPermits.remove(cl);
                if (present != null)
                {
-                  pool.getLock().release();
+                  waiters.release();
                }
             }
          }
@@ -815,9 +1061,24 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                cl.setState(ConnectionState.DESTROY);
             }
          }
+         else if (FlushMode.REPLACE == mode)
+         {
+            log.tracef("Replacing pool checkedOut=%s inPool=%s", checkedOut , cls);
+
+            // Mark checked out connections as requiring destruction upon return
+            for (ConnectionListener cl : checkedOut)
+            {
+               log.tracef("Replace flush marking checked out connection for destruction %s", cl);
+
+               cl.setState(ConnectionState.DESTROY);
+            }
+
+            // Idle connections are destroyed once their replacement is in the pool
+            replace = new ArrayList<ConnectionListener>(cls);
+         }
 
          // Destroy connections in the pool
-         while (cls.size() > 0)
+         while (replace == null && cls.size() > 0)
          {
             ConnectionListener cl = cls.remove(0);
             boolean kill = true;
@@ -866,10 +1127,90 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
             cls.addAll(keep);
       }
 
+      // We need to replace some connections
+      if (replace != null && replace.size() > 0)
+         ConnectionReplacer.replace(this, replace);
+
       // Trigger prefill
       prefill();
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public void replaceConnectionListener(ConnectionListener cl)
+   {
+      synchronized (cls)
+      {
+         if (!isRunning() || !cls.contains(cl))
+            return;
+      }
+
+      ConnectionListener replacement = null;
+      try
+      {
+         replacement = createConnectionEventListener(defaultSubject, defaultCri);
+      }
+      catch (ResourceException re)
+      {
+         log.unableReplaceConnection(re, cm.getJndiName());
+      }
+
+      boolean added = false;
+      boolean retire = false;
+
+      synchronized (cls)
+      {
+         if (replacement != null && isRunning())
+         {
+            log.tracef("Replacing cl=%s with cl=%s", cl, replacement);
+
+            cls.add(replacement);
+            added = true;
+         }
+
+         retire = cls.remove(cl);
+
+         // Checked out after the flush, so destroy it upon return
+         if (!retire && checkedOut.contains(cl))
+            cl.setState(ConnectionState.DESTROY);
+      }
+
+      if (replacement != null)
+      {
+         if (Tracer.isEnabled())
+            Tracer.createConnectionListener(pool.getName(), this, replacement, replacement.getManagedConnection(),
+                                            false, true, false,
+                                            Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+         if (!added)
+         {
+            if (Tracer.isEnabled())
+               Tracer.destroyConnectionListener(pool.getName(), this, replacement, false, false, false, false,
+                                                false, true, false,
+                                                Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+            replacement.destroy();
+         }
+         else
+         {
+            waiters.serve();
+         }
+      }
+
+      if (retire)
+      {
+         if (pool.getInternalStatistics().isEnabled())
+            pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() - cl.getLastReturnedTime());
+
+         if (Tracer.isEnabled())
+            Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, true, false, false, false,
+                                             Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+         cl.destroy();
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -934,10 +1275,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
             // We always check the first connection listener, since it is the oldest
             ConnectionListener cl = cls.get(0);
 
-            destroy = decrementer.shouldDestroy(cl, timeout,
-                                                cls.size() + checkedOut.size(),
-                                                poolConfiguration.getMinSize(),
-                                                destroyed);
+            destroy = shouldDestroy(decrementer, cl, timeout, cls.size() + checkedOut.size(), destroyed);
 
             if (destroy)
             {
@@ -1025,6 +1363,8 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
          IdleRemover.getInstance().unregisterPool(this);
          ConnectionValidator.getInstance().unregisterPool(this);
 
+         failWaiters();
+
          if (checkedOut.size() > 0)
          {
             for (ConnectionListener cl : checkedOut)
@@ -1045,6 +1385,24 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       }
    }
 
+   /**
+    * Reserve the creation of a connection within the deficit of the pool up to a size, so
+    * concurrent fills don't create more connections than needed
+    * @param size The size
+    * @return True if reserved; false if the pool has, or is being filled to, the size already
+    */
+   private boolean reserveFill(int size)
+   {
+      synchronized (cls)
+      {
+         if (cls.size() + checkedOut.size() + filling >= size)
+            return false;
+
+         filling++;
+         return true;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1084,7 +1442,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
          try
          {
             long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
-            if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS))
+            if (waiters.acquire(poolConfiguration.getBlockingTimeout()))
             {
                if (pool.getInternalStatistics().isEnabled())
                   pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
@@ -1095,13 +1453,14 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                      return;
                   }
 
-                  // We already have enough connections
-                  if (isSize(size))
+                  // We already have, or are creating, enough connections
+                  if (!reserveFill(size))
                   {
                      return;
                   }
 
                   // Create a connection to fill the pool
+                  boolean reserved = true;
                   try
                   {
                      ConnectionListener cl = createConnectionEventListener(defaultSubject, defaultCri);
@@ -1115,6 +1474,9 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                      boolean added = false;
                      synchronized (cls)
                      {
+                        filling--;
+                        reserved = false;
+
                         if (!isSize(size))
                         {
                            log.tracef("Filling pool cl=%s", cl);
@@ -1141,10 +1503,20 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                      log.unableFillPool(re, cm.getJndiName());
                      return;
                   }
+                  finally
+                  {
+                     if (reserved)
+                     {
+                        synchronized (cls)
+                        {
+                           filling--;
+                        }
+                     }
+                  }
                }
                finally
                {
-                  pool.getLock().release();
+                  waiters.release();
                }
             }
          }
@@ -1157,6 +1529,43 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
       }
    }
 
+   /**
+    * Should the capacity incrementer create a connection
+    * @param currentSize The current size
+    * @param created The number of connections created so far
+    * @return True if a connection should be created; otherwise false
+    */
+   private boolean shouldCreate(int currentSize, int created)
+   {
+      CapacityIncrementer incrementer = pool.getCapacity().getIncrementer();
+
+      // The adaptive policies size each managed connection pool from its own usage
+      if (incrementer instanceof AdaptiveIncrementer)
+         return ((AdaptiveIncrementer)incrementer).shouldCreate(usage, currentSize,
+                                                                poolConfiguration.getMaxSize(), created);
+
+      return incrementer.shouldCreate(currentSize, poolConfiguration.getMaxSize(), created);
+   }
+
+   /**
+    * Should the capacity decrementer destroy a connection listener
+    * @param decrementer The decrementer
+    * @param cl The connection listener
+    * @param timeout The timeout
+    * @param currentSize The current size
+    * @param destroyed The number of connection listeners destroyed so far
+    * @return True if the connection listener should be destroyed; otherwise false
+    */
+   private boolean shouldDestroy(CapacityDecrementer decrementer, ConnectionListener cl, long timeout,
+                                 int currentSize, int destroyed)
+   {
+      if (decrementer instanceof AdaptiveDecrementer)
+         return ((AdaptiveDecrementer)decrementer).shouldDestroy(usage, cl, timeout, currentSize,
+                                                                 poolConfiguration.getMinSize(), destroyed);
+
+      return decrementer.shouldDestroy(cl, timeout, currentSize, poolConfiguration.getMinSize(), destroyed);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1171,7 +1580,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
          try
          {
             long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
-            if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS))
+            if (waiters.acquire(poolConfiguration.getBlockingTimeout()))
             {
                if (pool.getInternalStatistics().isEnabled())
                   pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
@@ -1188,8 +1597,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                      currentSize = cls.size() + checkedOut.size();
                   }
 
-                  create = pool.getCapacity().getIncrementer().shouldCreate(currentSize,
-                                                                            poolConfiguration.getMaxSize(), created);
+                  create = shouldCreate(currentSize, created);
 
                   if (create)
                   {
@@ -1237,7 +1645,7 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                }
                finally
                {
-                  pool.getLock().release();
+                  waiters.release();
                }
             }
          }
@@ -1263,7 +1671,8 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
    {
       long start = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
 
-      ManagedConnection mc = mcf.createManagedConnection(subject, cri);
+      ManagedConnection mc =
+         governor.createManagedConnection(mcf, subject, cri, poolConfiguration.getBlockingTimeout());
 
       if (pool.getInternalStatistics().isEnabled())
       {
@@ -1336,107 +1745,136 @@ public class SemaphoreArrayListManagedConnectionPool implements ManagedConnectio
                                                         pool.getInternalStatistics().getInUseCount(), maxSize));
       }
 
-      if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS))
+      if (waiters.acquire(poolConfiguration.getBlockingTimeout()))
       {
-         boolean anyDestroyed = false;
+         final AtomicBoolean anyDestroyed = new AtomicBoolean(false);
 
          try
          {
-            while (true)
+            ValidationBatch batch = ConnectionValidator.getInstance().fork(new Runnable()
             {
-               ConnectionListener cl = null;
-               boolean destroyed = false;
-
-               synchronized (cls)
+               /**
+                * {@inheritDoc}
+                */
+               public void run()
                {
-                  if (cls.size() == 0)
-                  {
-                     break;
-                  }
-
-                  cl = removeForFrequencyCheck();
+                  // The helpers only validate connections taken out of the pool, so they need no permit
+                  validateDueConnections(anyDestroyed);
                }
+            });
 
-               if (cl == null)
-               {
-                  break;
-               }
+            try
+            {
+               validateDueConnections(anyDestroyed);
+            }
+            finally
+            {
+               batch.join();
+            }
+         }
+         finally
+         {
+            waiters.release();
 
-               try
-               {
-                  Set candidateSet = Collections.singleton(cl.getManagedConnection());
+            if (anyDestroyed.get())
+               prefill();
+         }
+      }
+   }
 
-                  if (mcf instanceof ValidatingManagedConnectionFactory)
-                  {
-                     ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
-                     candidateSet = vcf.getInvalidConnections(candidateSet);
+   /**
+    * Validate the connection listeners that are due for background validation, one
+    * at a time. Each listener is only out of the pool while it is validated
+    * @param anyDestroyed Set if a listener was destroyed
+    */
+   private void validateDueConnections(AtomicBoolean anyDestroyed)
+   {
+      while (true)
+      {
+         ConnectionListener cl = null;
+         boolean destroyed = false;
 
-                     if ((candidateSet != null && candidateSet.size() > 0) || !isRunning())
-                     {
-                        if (cl.getState() != ConnectionState.DESTROY)
-                        {
-                           if (pool.getInternalStatistics().isEnabled())
-                              pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
-                                                                              cl.getLastReturnedTime());
+         synchronized (cls)
+         {
+            if (cls.size() == 0)
+            {
+               break;
+            }
 
-                           if (Tracer.isEnabled())
-                              Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, true,
-                                                               false, false, false, false,
-                                                               Tracer.isRecordCallstacks() ?
-                                                               new Throwable("CALLSTACK") : null);
-                     
-                           cl.destroy();
-                           cl = null;
-                           destroyed = true;
-                           anyDestroyed = true;
-                        }
-                     }
-                  }
-                  else
-                  {
-                     log.backgroundValidationNonCompliantManagedConnectionFactory();
-                  }
-               }
-               catch (ResourceException re)
+            cl = removeForFrequencyCheck();
+         }
+
+         if (cl == null)
+         {
+            break;
+         }
+
+         try
+         {
+            Set candidateSet = Collections.singleton(cl.getManagedConnection());
+
+            if (mcf instanceof ValidatingManagedConnectionFactory)
+            {
+               ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
+               candidateSet = vcf.getInvalidConnections(candidateSet);
+
+               if ((candidateSet != null && candidateSet.size() > 0) || !isRunning())
                {
-                  if (cl != null)
+                  if (cl.getState() != ConnectionState.DESTROY)
                   {
                      if (pool.getInternalStatistics().isEnabled())
                         pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
                                                                         cl.getLastReturnedTime());
 
                      if (Tracer.isEnabled())
-                        Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false,
-                                                         false, true, false, false,
+                        Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, true,
+                                                         false, false, false, false,
                                                          Tracer.isRecordCallstacks() ?
                                                          new Throwable("CALLSTACK") : null);
-                     
+               
                      cl.destroy();
                      cl = null;
                      destroyed = true;
-                     anyDestroyed = true;
-                  }
-
-                  log.connectionValidatorIgnoredUnexpectedError(re);
-               }
-               finally
-               {
-                  if (!destroyed)
-                  {
-                     synchronized (cls)
-                     {
-                        returnForFrequencyCheck(cl);
-                     }
+                     anyDestroyed.set(true);
                   }
                }
             }
+            else
+            {
+               log.backgroundValidationNonCompliantManagedConnectionFactory();
+            }
          }
-         finally
+         catch (ResourceException re)
          {
-            pool.getLock().release();
+            if (cl != null)
+            {
+               if (pool.getInternalStatistics().isEnabled())
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                                                                  cl.getLastReturnedTime());
 
-            if (anyDestroyed)
-               prefill();
+               if (Tracer.isEnabled())
+                  Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false,
+                                                   false, true, false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               cl.destroy();
+               cl = null;
+               destroyed = true;
+               anyDestroyed.set(true);
+            }
+
+            log.connectionValidatorIgnoredUnexpectedError(re);
+         }
+         finally
+         {
+            if (!destroyed)
+            {
+               synchronized (cls)
+               {
+                  returnForFrequencyCheck(cl);
+               }
+            }
          }
       }
    }
@@ -29,29 +29,42 @@ import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
 import org.jboss.jca.core.connectionmanager.ConnectionManager;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.listener.ConnectionState;
+import org.jboss.jca.core.connectionmanager.pool.ConnectionBudget;
+import org.jboss.jca.core.connectionmanager.pool.CreationGovernor;
 import org.jboss.jca.core.connectionmanager.pool.api.CapacityDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.api.CapacityIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
 import org.jboss.jca.core.connectionmanager.pool.api.PrefillPool;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.DefaultCapacity;
+import org.jboss.jca.core.connectionmanager.pool.capacity.PoolUsage;
 import org.jboss.jca.core.connectionmanager.pool.capacity.TimedOutDecrementer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.TimedOutFIFODecrementer;
 import org.jboss.jca.core.connectionmanager.pool.idle.IdleRemover;
 import org.jboss.jca.core.connectionmanager.pool.validator.ConnectionValidator;
+import org.jboss.jca.core.connectionmanager.pool.validator.ValidationBatch;
 import org.jboss.jca.core.tracer.Tracer;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
 
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
@@ -115,21 +128,51 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
    /** all connection event listeners */
    private Map<ConnectionListener, ConnectionListenerWrapper> cls;
 
+   /** Connection requests waiting for a connection or a permit, shared with the other managed connection pools */
+   private ConnectionWaiterQueue waiters;
+
+   /** Grants permits to the waiters of this managed connection pool */
+   private ConnectionWaiter.Owner owner;
+
+   /** Fair hand-off */
+   private boolean fair;
+
+   /** Create connections off the request thread */
+   private boolean asyncCreation;
+
+   /** Requests holding a permit, waiting for a connection to be created */
+   private ConcurrentLinkedDeque<ConnectionWaiter> creationWaiters;
+
    /** Current pool size **/
    private AtomicInteger poolSize = new AtomicInteger();
 
    /** Current checked out connections **/
    private AtomicInteger checkedOutSize = new AtomicInteger();
 
+   /** Connections being created to fill the pool */
+   private AtomicInteger filling = new AtomicInteger();
+
    /** Supports lazy association */
    private Boolean supportsLazyAssociation;
 
    /** Last idle check */
    private long lastIdleCheck;
 
+   /** The idle timeouts of the available connection listeners */
+   private IdleTimerWheel idleWheel;
+
+   /** The physical connections shared with the other managed connection pools */
+   private ConnectionBudget budget;
+
+   /** The governor of the connection creations */
+   private CreationGovernor governor;
+
    /** Last used */
    private long lastUsed;
 
+   /** The usage, which the adaptive capacity policies size this managed connection pool from */
+   private PoolUsage usage;
+
    private boolean poolValidationLoggingEnabled = true;
 
    /**
@@ -170,16 +213,39 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       this.debug = log.isDebugEnabled();
       this.clq = new ConcurrentLinkedDeque<ConnectionListenerWrapper>();
       this.cls = new ConcurrentHashMap<ConnectionListener, ConnectionListenerWrapper>();
+      this.waiters = p.getWaiterQueue();
+      this.owner = new ConnectionWaiter.Owner()
+      {
+         public void grant(ConnectionWaiter waiter)
+         {
+            transferPermit(waiter);
+         }
+      };
+      this.fair = pc.isFair();
+      this.creationWaiters = new ConcurrentLinkedDeque<ConnectionWaiter>();
+      this.asyncCreation = Boolean.valueOf(SecurityActions.getSystemProperty("ironjacamar.async_creation"));
       this.poolSize.set(0);
       this.checkedOutSize.set(0);
+      this.usage = new PoolUsage(p.getInternalStatistics(), new IntSupplier()
+      {
+         public int getAsInt()
+         {
+            return checkedOutSize.get();
+         }
+      });
       this.supportsLazyAssociation = null;
       this.lastIdleCheck = System.currentTimeMillis();
       this.lastUsed = Long.MAX_VALUE;
+      this.budget = p.getConnectionBudget();
+      this.governor = new CreationGovernor();
+      this.governor.setName(pool.getName());
+      this.idleWheel = pc.getIdleTimeoutMinutes() > 0 ?
+         new IdleTimerWheel(pc.getIdleTimeoutMinutes() * 1000L * 60) : null;
 
       // Schedule managed connection pool for prefill
       if ((pc.isPrefill() || pc.isStrictMin()) && p instanceof PrefillPool && pc.getInitialSize() > 0) 
       {
-         PoolFiller.fillPool(new FillRequest(this, pc.getInitialSize()));
+         PoolFiller.fillPool(new FillRequest(this, pc.getInitialSize(), pool.getInternalStatistics()));
       }
 
       if (poolConfiguration.getIdleTimeoutMinutes() > 0) 
@@ -261,7 +327,8 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
           (poolConfiguration.isPrefill() || poolConfiguration.isStrictMin()) && 
           pool instanceof PrefillPool && 
           poolConfiguration.getMinSize() > 0)
-         PoolFiller.fillPool(new FillRequest(this, poolConfiguration.getMinSize()));
+         PoolFiller.fillPool(new FillRequest(this, poolConfiguration.getMinSize(),
+                                                pool.getInternalStatistics()));
    }
 
    /**
@@ -298,6 +365,10 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       subject = (subject == null) ? defaultSubject : subject;
       cri = (cri == null) ? defaultCri : cri;
 
+      ConnectionListener affine = getAffineConnection(subject, cri);
+      if (affine != null)
+         return affine;
+
       if (pool.isFull()) 
       {
          if (pool.getInternalStatistics().isEnabled())
@@ -325,270 +396,843 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       }
 
       long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
-      try 
+
+      // In fair mode newcomers never barge ahead of queued requests
+      if (!(fair && !waiters.isEmpty()) && waiters.tryAcquire())
       {
-         if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS)) 
+         if (pool.getInternalStatistics().isEnabled())
+            usage.deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+
+         return getConnectionWithPermit(subject, cri, startWait);
+      }
+
+      // Wait for either a returned connection or a permit
+      ConnectionWaiter waiter = new ConnectionWaiter(owner, subject, cri, startWait, true);
+      enqueueWaiter(waiter);
+
+      ConnectionListener cl = awaitWaiter(waiter);
+      if (cl != null)
+         return cl;
+
+      if (pool.getInternalStatistics().isEnabled())
+         usage.deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+
+      return getConnectionWithPermit(subject, cri, startWait);
+   }
+
+   /**
+    * Wait for a queued waiter to be served
+    * @param waiter The waiter
+    * @return The connection listener handed off, or <code>null</code> if a permit was granted
+    * @exception ResourceException Thrown if the blocking timeout expired, or the wait was interrupted
+    */
+   private ConnectionListener awaitWaiter(ConnectionWaiter waiter) throws ResourceException
+   {
+      long timeout = poolConfiguration.getBlockingTimeout();
+      long start = System.currentTimeMillis();
+      try
+      {
+         return waiters.await(waiter, timeout);
+      }
+      catch (TimeoutException te)
+      {
+         if (waiter.claim())
          {
-            if (pool.getInternalStatistics().isEnabled())
-               pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
+            waiters.remove(waiter);
+            failWaiterTimeout(waiter);
+         }
+      }
+      catch (InterruptedException ie)
+      {
+         Thread.interrupted();
 
-            // We have a permit to get a connection. Is there one in the pool already?
-            ConnectionListenerWrapper clw = null;
-            do 
-            {
-               if (!isRunning()) 
-               {
-                  pool.getLock().release();
+         if (waiter.claim())
+         {
+            waiters.remove(waiter);
 
-                  throw new ResourceException(
-                     bundle.thePoolHasBeenShutdown(pool.getName(),
-                                                   Integer.toHexString(System.identityHashCode(this))));
-               }
+            long end = System.currentTimeMillis() - start;
+            usage.deltaTotalBlockingTime(end);
+            throw new ResourceException(bundle.interruptedWhileRequestingPermit(end));
+         }
+      }
+      catch (ExecutionException ee)
+      {
+         // Fall through
+      }
 
-               if (fifo)
-               {
-                  clw = clq.pollFirst();
-               }
-               else
-               {
-                  clw = clq.pollLast();
-               }
+      // The waiter has been claimed, so its outcome is imminent
+      try
+      {
+         return awaitClaimed(waiter);
+      }
+      catch (ExecutionException ee)
+      {
+         if (ee.getCause() instanceof ResourceException)
+            throw (ResourceException)ee.getCause();
 
-               if (clw != null) 
-               {
-                  clw.setCheckedOut(true);
-                  checkedOutSize.incrementAndGet();
+         throw new ResourceException(ee.getCause());
+      }
+   }
 
-                  // Yes, we retrieved a ManagedConnection from the pool.
-                  // Does it match?
-                  try 
-                  {
-                     Object matchedMC = mcf.matchManagedConnections(Collections.singleton(
-                        clw.getConnectionListener().getManagedConnection()), subject, cri);
+   /**
+    * Wait for a requested connection creation, or a matching returned connection. The wait
+    * is bounded by the blocking timeout, and can be interrupted; the connection is added to
+    * the pool once created in that case
+    * @param creation The creation waiter
+    * @return The connection listener
+    * @exception ResourceException Thrown if the creation failed, the blocking timeout expired,
+    *                              or the wait was interrupted
+    */
+   private ConnectionListener awaitCreation(ConnectionWaiter creation) throws ResourceException
+   {
+      long timeout = poolConfiguration.getBlockingTimeout();
+      long start = System.currentTimeMillis();
+      try
+      {
+         return creation.getFuture().get(timeout, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException te)
+      {
+         if (creation.claim())
+         {
+            creationWaiters.remove(creation);
 
-                     boolean valid = true;
+            if (pool.getInternalStatistics().isEnabled())
+               pool.getInternalStatistics().deltaBlockingFailureCount();
 
-                     if (matchedMC != null)
-                     {
-                        if (poolConfiguration.isValidateOnMatch())
-                        {
-                           if (mcf instanceof ValidatingManagedConnectionFactory)
-                           {
-                              try
-                              {
-                                 ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
-                                 Set candidateSet =
-                                    Collections.singleton(clw.getConnectionListener().getManagedConnection());
-                                 candidateSet = vcf.getInvalidConnections(candidateSet);
-
-                                 if (candidateSet != null && candidateSet.size() > 0)
-                                 {
-                                    valid = false;
-                                 }
-                              }
-                              catch (Throwable t)
-                              {
-                                 valid = false;
-                                 if (log.isTraceEnabled())
-                                    log.trace("Exception while ValidateOnMatch: " + t.getMessage(), t);
-                              }
-                           }
-                           else
-                           {
-                              log.validateOnMatchNonCompliantManagedConnectionFactory(mcf.getClass().getName());
-                           }
-                        }
+            throw new ResourceException(bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(timeout));
+         }
+      }
+      catch (InterruptedException ie)
+      {
+         Thread.interrupted();
 
-                        if (valid)
-                        {
-                           log.tracef("supplying ManagedConnection from pool: %s", clw.getConnectionListener());
+         if (creation.claim())
+         {
+            creationWaiters.remove(creation);
 
-                           lastUsed = System.currentTimeMillis();
-                           clw.getConnectionListener().setLastCheckedOutTime(lastUsed);
+            long end = System.currentTimeMillis() - start;
+            usage.deltaTotalBlockingTime(end);
+            throw new ResourceException(bundle.interruptedWhileRequestingPermit(end));
+         }
+      }
+      catch (ExecutionException ee)
+      {
+         // Fall through
+      }
 
-                           if (pool.getInternalStatistics().isEnabled())
-                           {
-                              pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
-                              pool.getInternalStatistics().deltaTotalPoolTime(lastUsed -
-                                 clw.getConnectionListener().getLastReturnedTime());
-                           }
+      // The creation has been claimed, so its outcome is imminent
+      try
+      {
+         return awaitClaimed(creation);
+      }
+      catch (ExecutionException ee)
+      {
+         if (ee.getCause() instanceof ResourceException)
+            throw (ResourceException)ee.getCause();
 
-                           if (Tracer.isEnabled())
-                              Tracer.getConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                           true, pool.isInterleaving(),
-                                                           Tracer.isRecordCallstacks() ?
-                                                           new Throwable("CALLSTACK") : null);
+         throw new ResourceException(ee.getCause());
+      }
+   }
 
-                           clw.setHasPermit(true);
+   /**
+    * Wait, without being interruptible, for the outcome of a claimed waiter
+    * @param waiter The waiter
+    * @return The connection listener, or <code>null</code> if a permit was granted
+    * @exception ExecutionException Thrown if the waiter failed
+    */
+   private ConnectionListener awaitClaimed(ConnectionWaiter waiter) throws ExecutionException
+   {
+      boolean interrupted = false;
+      try
+      {
+         while (true)
+         {
+            try
+            {
+               return waiter.getFuture().get();
+            }
+            catch (InterruptedException ie)
+            {
+               interrupted = true;
+            }
+         }
+      }
+      finally
+      {
+         if (interrupted)
+            Thread.currentThread().interrupt();
+      }
+   }
 
-                           return clw.getConnectionListener();
-                        }
-                     }
+   /**
+    * Get a connection listener once a permit has been obtained. The permit is
+    * released again if no connection listener could be obtained
+    *
+    * @param subject The subject
+    * @param cri The connection request info
+    * @param startWait The start of the wait for the connection
+    * @return The connection listener
+    * @exception ResourceException Thrown if a connection can't be obtained
+    */
+   private ConnectionListener getConnectionWithPermit(Subject subject, ConnectionRequestInfo cri, long startWait)
+      throws ResourceException
+   {
+      // We have a permit to get a connection. Is there one in the pool already?
+      ConnectionListenerWrapper clw = null;
+      do 
+      {
+         if (!isRunning()) 
+         {
+            waiters.release();
 
-                     // Match did not succeed but no exception was
-                     // thrown.
-                     // Either we have the matching strategy wrong or the
-                     // connection died while being checked. We need to
-                     // distinguish these cases, but for now we always
-                     // destroy the connection.
-                     if (valid)
-                     {
-                        log.destroyingConnectionNotSuccessfullyMatched(clw.getConnectionListener());
-                     }
-                     else
+            throw new ResourceException(
+               bundle.thePoolHasBeenShutdown(pool.getName(),
+                                             Integer.toHexString(System.identityHashCode(this))));
+         }
+
+         clw = pollAvailable(fifo);
+
+         if (clw != null) 
+         {
+            clw.setCheckedOut(true);
+            checkedOutSize.incrementAndGet();
+
+            // Yes, we retrieved a ManagedConnection from the pool.
+            // Does it match?
+            try 
+            {
+               Object matchedMC = mcf.matchManagedConnections(Collections.singleton(
+                  clw.getConnectionListener().getManagedConnection()), subject, cri);
+
+               boolean valid = true;
+
+               if (matchedMC != null)
+               {
+                  if (poolConfiguration.isValidateOnMatch())
+                  {
+                     if (mcf instanceof ValidatingManagedConnectionFactory)
                      {
-                        if (poolValidationLoggingEnabled)
+                        try
                         {
-                           log.destroyingConnectionNotValidated(clw.getConnectionListener());
+                           ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
+                           Set candidateSet =
+                              Collections.singleton(clw.getConnectionListener().getManagedConnection());
+                           candidateSet = vcf.getInvalidConnections(candidateSet);
+
+                           if (candidateSet != null && candidateSet.size() > 0)
+                           {
+                              valid = false;
+                           }
+                        }
+                        catch (Throwable t)
+                        {
+                           valid = false;
+                           if (log.isTraceEnabled())
+                              log.trace("Exception while ValidateOnMatch: " + t.getMessage(), t);
                         }
                      }
-
-                     if (pool.getInternalStatistics().isEnabled())
+                     else
                      {
-                        pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
-                           clw.getConnectionListener().getLastReturnedTime());
+                        log.validateOnMatchNonCompliantManagedConnectionFactory(mcf.getClass().getName());
                      }
+                  }
 
-                     if (Tracer.isEnabled())
-                        Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                         false, false, true, false, false, false, false,
-                                                         Tracer.isRecordCallstacks() ?
-                                                         new Throwable("CALLSTACK") : null);
-                     
-                     removeConnectionListenerFromPool(clw);
-                     clw.getConnectionListener().destroy();
-                     clw = null;
-                  } 
-                  catch (Throwable t) 
+                  if (valid)
                   {
-                     log.throwableWhileTryingMatchManagedConnectionThenDestroyingConnection(
-                        clw.getConnectionListener(), t);
+                     log.tracef("supplying ManagedConnection from pool: %s", clw.getConnectionListener());
+
+                     lastUsed = System.currentTimeMillis();
+                     clw.getConnectionListener().setLastCheckedOutTime(lastUsed);
 
                      if (pool.getInternalStatistics().isEnabled())
                      {
-                        pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                        pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+                        pool.getInternalStatistics().deltaTotalPoolTime(lastUsed -
                            clw.getConnectionListener().getLastReturnedTime());
                      }
 
                      if (Tracer.isEnabled())
-                        Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                         false, false, false, false, true, false, false,
-                                                         Tracer.isRecordCallstacks() ?
-                                                         new Throwable("CALLSTACK") : null);
-                     
-                     removeConnectionListenerFromPool(clw);
-                     clw.getConnectionListener().destroy();
-                     clw = null;
+                        Tracer.getConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                                     true, pool.isInterleaving(),
+                                                     Tracer.isRecordCallstacks() ?
+                                                     new Throwable("CALLSTACK") : null);
+
+                     clw.setHasPermit(true);
+
+                     return clw.getConnectionListener();
                   }
+               }
 
-                  // We made it here, something went wrong and we should
-                  // validate
-                  // if we should continue attempting to acquire a
-                  // connection
-                  if (poolConfiguration.isUseFastFail()) 
+               // Match did not succeed but no exception was
+               // thrown.
+               // Either we have the matching strategy wrong or the
+               // connection died while being checked. We need to
+               // distinguish these cases, but for now we always
+               // destroy the connection.
+               if (valid)
+               {
+                  log.destroyingConnectionNotSuccessfullyMatched(clw.getConnectionListener());
+               }
+               else
+               {
+                  if (poolValidationLoggingEnabled)
                   {
-                     if (log.isTraceEnabled())
-                        log.trace("Fast failing for connection attempt. No more attempts will be made to "
-                              + "acquire connection from pool and a new connection will be created immeadiately");
-                     break;
+                     log.destroyingConnectionNotValidated(clw.getConnectionListener());
                   }
+               }
 
-               } 
-            } 
-            while (clq.size() > 0);
+               if (pool.getInternalStatistics().isEnabled())
+               {
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                     clw.getConnectionListener().getLastReturnedTime());
+               }
 
-            // OK, we couldnt find a working connection from the pool. Make
-            // a new one.
-            try 
+               if (Tracer.isEnabled())
+                  Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                                   false, false, true, false, false, false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               removeConnectionListenerFromPool(clw);
+               clw.getConnectionListener().destroy();
+               clw = null;
+            } 
+            catch (Throwable t) 
             {
-               // No, the pool was empty, so we have to make a new one.
-               clw = new ConnectionListenerWrapper(createConnectionEventListener(subject, cri), true, true);
+               log.throwableWhileTryingMatchManagedConnectionThenDestroyingConnection(
+                  clw.getConnectionListener(), t);
+
+               if (pool.getInternalStatistics().isEnabled())
+               {
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                     clw.getConnectionListener().getLastReturnedTime());
+               }
 
                if (Tracer.isEnabled())
-                  Tracer.createConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                  clw.getConnectionListener().getManagedConnection(),
-                                                  true, false, false,
-                                                  Tracer.isRecordCallstacks() ?
-                                                  new Throwable("CALLSTACK") : null);
+                  Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                                   false, false, false, false, true, false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               removeConnectionListenerFromPool(clw);
+               clw.getConnectionListener().destroy();
+               clw = null;
+            }
 
-               clw.setCheckedOut(true);
-               checkedOutSize.incrementAndGet();
+            // We made it here, something went wrong and we should
+            // validate
+            // if we should continue attempting to acquire a
+            // connection
+            if (poolConfiguration.isUseFastFail()) 
+            {
+               if (log.isTraceEnabled())
+                  log.trace("Fast failing for connection attempt. No more attempts will be made to "
+                        + "acquire connection from pool and a new connection will be created immeadiately");
+               break;
+            }
 
-               cls.put(clw.getConnectionListener(), clw);
+         } 
+      } 
+      while (clq.size() > 0);
 
-               log.tracef("supplying new ManagedConnection: %s", clw.getConnectionListener());
+      // OK, we couldnt find a working connection from the pool. Make
+      // a new one.
+      try 
+      {
+         ConnectionListener created = null;
+         if (asyncCreation)
+         {
+            ConnectionWaiter creation = requestCreation(subject, cri, startWait);
+            created = awaitCreation(creation);
 
-               lastUsed = System.currentTimeMillis();
+            // A returned connection came first
+            if (!creation.isCreated())
+               return created;
+         }
+         else
+         {
+            created = createConnectionEventListener(subject, cri);
+         }
 
-               if (pool.getInternalStatistics().isEnabled())
-                  pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+         // No, the pool was empty, so we have to make a new one.
+         clw = new ConnectionListenerWrapper(created, true, true);
 
-               prefill();
+         if (Tracer.isEnabled())
+            Tracer.createConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                            clw.getConnectionListener().getManagedConnection(),
+                                            true, false, false,
+                                            Tracer.isRecordCallstacks() ?
+                                            new Throwable("CALLSTACK") : null);
 
-               // Trigger capacity increase
-               if (pool.getCapacity().getIncrementer() != null)
-                  CapacityFiller.schedule(new CapacityRequest(this, subject, cri));
+         clw.setCheckedOut(true);
+         checkedOutSize.incrementAndGet();
 
-               if (Tracer.isEnabled())
-                  Tracer.getConnectionListener(pool.getName(), this, clw.getConnectionListener(), false, 
-                                               pool.isInterleaving(),
-                                               Tracer.isRecordCallstacks() ?
-                                               new Throwable("CALLSTACK") : null);
+         cls.put(clw.getConnectionListener(), clw);
 
-               return clw.getConnectionListener();
-            } 
-            catch (Throwable t) 
-            {
-               if (clw != null || !(t instanceof RetryableException))
-                  log.throwableWhileAttemptingGetNewGonnection(clw != null ? clw.getConnectionListener() : null, t);
+         log.tracef("supplying new ManagedConnection: %s", clw.getConnectionListener());
 
-               // Return permit and rethrow
-               if (clw != null) 
-               {
-                  if (Tracer.isEnabled())
-                     Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                      false, false, false, false, true, false, false,
-                                                      Tracer.isRecordCallstacks() ?
-                                                      new Throwable("CALLSTACK") : null);
-                     
-                  removeConnectionListenerFromPool(clw);
-                  clw.getConnectionListener().destroy();
-               }
+         lastUsed = System.currentTimeMillis();
+
+         if (pool.getInternalStatistics().isEnabled())
+            pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+
+         prefill();
+
+         // Trigger capacity increase
+         if (pool.getCapacity().getIncrementer() != null)
+            CapacityFiller.schedule(new CapacityRequest(this, subject, cri, pool.getInternalStatistics()));
 
-               pool.getLock().release();
+         if (Tracer.isEnabled())
+            Tracer.getConnectionListener(pool.getName(), this, clw.getConnectionListener(), false, 
+                                         pool.isInterleaving(),
+                                         Tracer.isRecordCallstacks() ?
+                                         new Throwable("CALLSTACK") : null);
 
-               if (t instanceof ResourceException)
+         return clw.getConnectionListener();
+      } 
+      catch (Throwable t) 
+      {
+         if (clw != null || !(t instanceof RetryableException))
+            log.throwableWhileAttemptingGetNewGonnection(clw != null ? clw.getConnectionListener() : null, t);
+
+         // Return permit and rethrow
+         if (clw != null) 
+         {
+            if (Tracer.isEnabled())
+               Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                                false, false, false, false, true, false, false,
+                                                Tracer.isRecordCallstacks() ?
+                                                new Throwable("CALLSTACK") : null);
+               
+            removeConnectionListenerFromPool(clw);
+            clw.getConnectionListener().destroy();
+         }
+
+         waiters.release();
+
+         if (t instanceof ResourceException)
+         {
+            throw (ResourceException)t;
+         }
+         else
+         {
+            throw new ResourceException(
+               bundle.unexpectedThrowableWhileTryingCreateConnection(
+                       clw != null ? clw.getConnectionListener() : null), t);
+         }
+      }
+   }
+
+   /**
+    * Get a connection listener the calling thread has an affinity to, before going
+    * through the shared pool. The default implementation has no affinity
+    *
+    * @param subject The subject
+    * @param cri The connection request info
+    * @return The connection listener, or <code>null</code> if the shared pool should be used
+    */
+   protected ConnectionListener getAffineConnection(Subject subject, ConnectionRequestInfo cri)
+   {
+      return null;
+   }
+
+   /**
+    * A connection listener was returned to the shared pool by the calling thread
+    * @param cl The connection listener
+    */
+   protected void connectionReturned(ConnectionListener cl)
+   {
+   }
+
+   /**
+    * Check out a specific idle connection listener without waiting. The listener is
+    * claimed through its own state once a permit is held, so it can only be checked out by
+    * one thread; validation on match isn't supported, so <code>null</code> is returned if
+    * it is configured. The permit is taken from the stripe of the calling thread when the
+    * permits are striped
+    *
+    * @param cl The connection listener
+    * @param subject The subject
+    * @param cri The connection request info
+    * @return The connection listener, or <code>null</code> if it doesn't match, isn't idle or
+    *         no permit is available
+    */
+   protected ConnectionListener checkOutIdle(ConnectionListener cl, Subject subject, ConnectionRequestInfo cri)
+   {
+      if (poolConfiguration.isValidateOnMatch() || (fair && !waiters.isEmpty()) || !isRunning())
+         return null;
+
+      ConnectionListenerWrapper clw = cls.get(cl);
+      if (clw == null || !clw.isAvailable())
+         return null;
+
+      long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
+
+      if (!waiters.tryAcquireLocal())
+         return null;
+
+      // Taken out of the pool through its own state; its queue entry is dropped by the next poll
+      if (!clw.claimAvailable())
+      {
+         waiters.release();
+         return null;
+      }
+
+      boolean matched = false;
+      try
+      {
+         matched = mcf.matchManagedConnections(Collections.singleton(cl.getManagedConnection()),
+                                               subject, cri) != null;
+      }
+      catch (Throwable t)
+      {
+         // Leave it to the shared pool to deal with the connection
+      }
+
+      if (!matched)
+      {
+         offerAvailable(clw);
+         waiters.release();
+         return null;
+      }
+
+      clw.setCheckedOut(true);
+      checkedOutSize.incrementAndGet();
+      clw.setHasPermit(true);
+
+      lastUsed = System.currentTimeMillis();
+      cl.setLastCheckedOutTime(lastUsed);
+
+      if (pool.getInternalStatistics().isEnabled())
+      {
+         pool.getInternalStatistics().deltaTotalGetTime(lastUsed - startWait);
+         pool.getInternalStatistics().deltaTotalPoolTime(lastUsed - cl.getLastReturnedTime());
+      }
+
+      if (Tracer.isEnabled())
+         Tracer.getConnectionListener(pool.getName(), this, cl, true, pool.isInterleaving(),
+                                      Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+      log.tracef("supplying affine ManagedConnection from pool: %s", cl);
+
+      return cl;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public CompletionStage<ConnectionListener> getConnectionAsync(Subject subject, ConnectionRequestInfo cri)
+   {
+      subject = (subject == null) ? defaultSubject : subject;
+      cri = (cri == null) ? defaultCri : cri;
+
+      long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
+      final ConnectionWaiter waiter = new ConnectionWaiter(owner, subject, cri, startWait);
+
+      if (!isRunning())
+      {
+         waiter.claim();
+         waiter.fail(new ResourceException(
+            bundle.thePoolHasBeenShutdown(pool.getName(), Integer.toHexString(System.identityHashCode(this)))));
+         return waiter.getFuture();
+      }
+
+      // In fair mode newcomers never barge ahead of queued requests
+      if (!(fair && !waiters.isEmpty()) && waiters.tryAcquire())
+      {
+         waiter.claim();
+         transferPermit(waiter);
+         return waiter.getFuture();
+      }
+
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaWaitCount();
+
+      waiter.setTimeout(ConnectionWaiterScheduler.schedule(new Runnable()
+      {
+         public void run()
+         {
+            timeoutWaiter(waiter);
+         }
+      }, poolConfiguration.getBlockingTimeout()));
+
+      enqueueWaiter(waiter);
+
+      return waiter.getFuture();
+   }
+
+   /**
+    * Queue a waiter behind the requests already waiting
+    * @param waiter The waiter
+    */
+   private void enqueueWaiter(ConnectionWaiter waiter)
+   {
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().setMaxWaitCount(waiters.size() + 1);
+
+      log.tracef("Queued connection request: %s (%d waiting)", pool.getName(), waiters.size() + 1);
+
+      waiters.add(waiter);
+   }
+
+   /**
+    * Serve a claimed waiter using a permit already held on its behalf
+    * @param waiter The waiter
+    */
+   private void serveWaiter(ConnectionWaiter waiter)
+   {
+      if (pool.getInternalStatistics().isEnabled())
+         usage.deltaTotalBlockingTime(System.currentTimeMillis() - waiter.getStartWait());
+
+      try
+      {
+         waiter.complete(getConnectionWithPermit(waiter.getSubject(), waiter.getConnectionRequestInfo(),
+                                                 waiter.getStartWait()));
+      }
+      catch (ResourceException re)
+      {
+         waiter.fail(re);
+      }
+   }
+
+   /**
+    * Hand a returned connection listener directly to a claimed waiter, keeping the permit
+    * @param clw The connection listener wrapper
+    * @param waiter The waiter
+    * @return True if the connection listener was handed off; otherwise false
+    */
+   private boolean handOff(ConnectionListenerWrapper clw, ConnectionWaiter waiter)
+   {
+      if (!matches(clw.getConnectionListener(), waiter))
+         return false;
+
+      assign(clw, waiter);
+
+      return true;
+   }
+
+   /**
+    * Does a connection listener match the request of a waiter
+    * @param cl The connection listener
+    * @param waiter The waiter
+    * @return True if it matches; otherwise false
+    */
+   private boolean matches(ConnectionListener cl, ConnectionWaiter waiter)
+   {
+      try
+      {
+         return mcf.matchManagedConnections(Collections.singleton(cl.getManagedConnection()),
+                                            waiter.getSubject(), waiter.getConnectionRequestInfo()) != null;
+      }
+      catch (Throwable t)
+      {
+         log.tracef(t, "Unable to match %s for hand-off", cl);
+         return false;
+      }
+   }
+
+   /**
+    * Assign a returned connection listener to a claimed waiter, keeping the permit
+    * @param clw The connection listener wrapper
+    * @param waiter The waiter
+    */
+   private void assign(ConnectionListenerWrapper clw, ConnectionWaiter waiter)
+   {
+      ConnectionListener cl = clw.getConnectionListener();
+
+      clw.setCheckedOut(true);
+      checkedOutSize.incrementAndGet();
+      clw.setHasPermit(true);
+
+      lastUsed = System.currentTimeMillis();
+      cl.setLastCheckedOutTime(lastUsed);
+
+      if (pool.getInternalStatistics().isEnabled())
+      {
+         usage.deltaTotalBlockingTime(lastUsed - waiter.getStartWait());
+         pool.getInternalStatistics().deltaTotalGetTime(lastUsed - waiter.getStartWait());
+      }
+
+      if (Tracer.isEnabled())
+         Tracer.getConnectionListener(pool.getName(), this, cl, true, pool.isInterleaving(),
+                                      Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+      log.tracef("Handing off returned ManagedConnection: %s", cl);
+
+      waiter.complete(cl);
+   }
+
+   /**
+    * Create a connection listener on a creator thread. The waiter is completed with the new
+    * connection listener, unless a matching connection is returned to the pool first; in that
+    * case the new connection listener is added to the pool once created
+    *
+    * @param subject The subject
+    * @param cri The connection request info
+    * @param startWait The start of the wait for the connection
+    * @return The waiter
+    */
+   private ConnectionWaiter requestCreation(final Subject subject, final ConnectionRequestInfo cri, long startWait)
+   {
+      final ConnectionWaiter waiter = new ConnectionWaiter(owner, subject, cri, startWait, false);
+      creationWaiters.addLast(waiter);
+
+      ConnectionWaiterScheduler.create(new Runnable()
+      {
+         public void run()
+         {
+            ConnectionListener cl = null;
+            try
+            {
+               cl = createConnectionEventListener(subject, cri);
+            }
+            catch (Throwable t)
+            {
+               if (waiter.claim())
                {
-                  throw (ResourceException)t;
+                  creationWaiters.remove(waiter);
+                  waiter.fail(t);
                }
                else
                {
-                  throw new ResourceException(
-                     bundle.unexpectedThrowableWhileTryingCreateConnection(
-                             clw != null ? clw.getConnectionListener() : null), t);
+                  log.tracef(t, "Unable to create a connection for the pool: %s", pool.getName());
                }
+               return;
             }
-         } 
-         else 
+
+            if (waiter.claim())
+            {
+               creationWaiters.remove(waiter);
+               waiter.created(cl);
+            }
+            else
+            {
+               addCreatedConnection(cl);
+            }
+         }
+      });
+
+      return waiter;
+   }
+
+   /**
+    * Hand a returned connection listener to a request waiting for a connection to be created
+    * @param clw The connection listener wrapper
+    * @return True if the connection listener was handed off; otherwise false
+    */
+   private boolean handOffToCreation(ConnectionListenerWrapper clw)
+   {
+      for (ConnectionWaiter waiter : creationWaiters)
+      {
+         if (!waiter.isClaimed() && matches(clw.getConnectionListener(), waiter) && waiter.claim())
          {
-            if (pool.getInternalStatistics().isEnabled())
-               pool.getInternalStatistics().deltaBlockingFailureCount();
+            creationWaiters.remove(waiter);
+            assign(clw, waiter);
+            return true;
+         }
+      }
 
-            // We timed out
-            throw new ResourceException(
-               bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(
-                  poolConfiguration.getBlockingTimeout()));
+      return false;
+   }
+
+   /**
+    * Add a connection listener created for a request which has been served already to the pool
+    * @param cl The connection listener
+    */
+   private void addCreatedConnection(ConnectionListener cl)
+   {
+      if (Tracer.isEnabled())
+         Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
+                                         false, false, false,
+                                         Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+      ConnectionListenerWrapper clw = new ConnectionListenerWrapper(cl, false, false);
+      cls.put(cl, clw);
+      offerAvailable(clw);
+      scheduleIdle(clw);
+
+      // We have to add 1, since poolSize is already incremented
+      if (!isRunning() || isSize(poolConfiguration.getMaxSize() + 1))
+      {
+         if (removeAvailable(clw))
+         {
+            if (Tracer.isEnabled())
+               Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false,
+                                                false, true, false,
+                                                Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+            removeConnectionListenerFromPool(clw);
+            cl.destroy();
          }
+      }
+      else
+      {
+         log.tracef("Added created ManagedConnection to the pool: %s", cl);
+      }
+   }
 
-      } 
-      catch (InterruptedException ie) 
+   /**
+    * Transfer a permit to a claimed waiter. An asynchronous request is served on a worker thread
+    * @param waiter The waiter
+    */
+   private void transferPermit(final ConnectionWaiter waiter)
+   {
+      if (waiter.isPermitOnly())
       {
-         Thread.interrupted();
+         waiter.grantPermit();
+      }
+      else
+      {
+         ConnectionWaiterScheduler.execute(new Runnable()
+         {
+            public void run()
+            {
+               serveWaiter(waiter);
+            }
+         });
+      }
+   }
 
-         long end = pool.getInternalStatistics().isEnabled() ? (System.currentTimeMillis() - startWait) : 0L;
-         pool.getInternalStatistics().deltaTotalBlockingTime(end);
-         throw new ResourceException(bundle.interruptedWhileRequestingPermit(end));
-      } 
+   /**
+    * The blocking timeout of a waiter expired
+    * @param waiter The waiter
+    */
+   private void timeoutWaiter(ConnectionWaiter waiter)
+   {
+      if (waiter.claim())
+      {
+         waiters.remove(waiter);
+         failWaiterTimeout(waiter);
+      }
+   }
+
+   /**
+    * Fail the queued waiters of this managed connection pool as it is shutting down
+    */
+   private void failWaiters()
+   {
+      ConnectionWaiter waiter = waiters.poll(owner, false);
+      while (waiter != null)
+      {
+         waiter.fail(new ResourceException(
+            bundle.thePoolHasBeenShutdown(pool.getName(), Integer.toHexString(System.identityHashCode(this)))));
+
+         waiter = waiters.poll(owner, false);
+      }
+   }
+
+   /**
+    * Fail a claimed waiter due to the blocking timeout
+    * @param waiter The waiter
+    */
+   private void failWaiterTimeout(ConnectionWaiter waiter)
+   {
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaBlockingFailureCount();
+
+      waiter.fail(new ResourceException(
+         bundle.noMManagedConnectionsAvailableWithinConfiguredBlockingTimeout(poolConfiguration.getBlockingTimeout())));
    }
 
    /**
@@ -626,7 +1270,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
    public void returnConnection(ConnectionListener cl, boolean kill, boolean cleanup) 
    {
       if (pool.getInternalStatistics().isEnabled() && cl.getState() != ConnectionState.DESTROYED)
-         pool.getInternalStatistics().deltaTotalUsageTime(System.currentTimeMillis() - cl.getLastCheckedOutTime());
+         usage.deltaTotalUsageTime(System.currentTimeMillis() - cl.getLastCheckedOutTime());
 
       if (log.isTraceEnabled()) 
       {
@@ -662,7 +1306,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          if (clw != null && clw.hasPermit()) 
          {
             clw.setHasPermit(false);
-            pool.getLock().release();
+            waiters.release();
          }
 
          return;
@@ -693,6 +1337,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       }
 
       boolean releasePermit = false;
+      ConnectionWaiter waiter = null;
       if (clw != null)
       {
          if (clw.hasPermit())
@@ -722,9 +1367,32 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       else 
       {
          cl.toPool();
-         if (!clq.contains(clw)) 
+
+         // Hand the connection to the longest waiting request, keeping the permit. In fair mode
+         // only if that request waits for this managed connection pool, otherwise the permit
+         // is released for the request of the other managed connection pool
+         if (releasePermit && !waiters.isEmpty())
+         {
+            waiter = waiters.poll(owner, fair);
+
+            // With validation on match the waiter takes over the permit instead, and validates
+            // the connection once it checks it out of the pool
+            if (waiter != null && !poolConfiguration.isValidateOnMatch() && handOff(clw, waiter))
+               return;
+         }
+
+         // A request waiting for a connection to be created already holds a permit
+         if (waiter == null && releasePermit && !poolConfiguration.isValidateOnMatch() &&
+             !creationWaiters.isEmpty() && handOffToCreation(clw))
+         {
+            waiters.release();
+            return;
+         }
+
+         if (offerAvailable(clw))
          {
-            clq.addLast(clw);
+            scheduleIdle(clw);
+            connectionReturned(cl);
          } 
          else 
          {
@@ -746,9 +1414,14 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          cl.destroy();
       }
 
-      if (releasePermit)
+      if (waiter != null)
+      {
+         // No match, so the waiter takes over the permit instead
+         transferPermit(waiter);
+      }
+      else if (releasePermit)
       {
-         pool.getLock().release();
+         waiters.release();
       }
    }
 
@@ -758,6 +1431,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
    public void flush(FlushMode mode, Collection<ConnectionListener> toDestroy)
    {
       ArrayList<ConnectionListenerWrapper> destroy = null;
+      ArrayList<ConnectionListener> replace = null;
 
       synchronized (cls)
       {
@@ -785,13 +1459,12 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                   checkedOutSize.decrementAndGet();
 
                   if (pool.getInternalStatistics().isEnabled())
-                     pool.getInternalStatistics().deltaTotalUsageTime(System.currentTimeMillis() -
-                                                                      entry.getKey().getLastCheckedOutTime());
+                     usage.deltaTotalUsageTime(System.currentTimeMillis() - entry.getKey().getLastCheckedOutTime());
 
                   if (entry.getValue().hasPermit())
                   {
                      entry.getValue().setHasPermit(false);
-                     pool.getLock().release();
+                     waiters.release();
                   }
 
                   entry.getKey().setState(ConnectionState.DESTROY);
@@ -829,6 +1502,30 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                }
             }
 
+         }
+         else if (FlushMode.REPLACE == mode) 
+         {
+            if (log.isTraceEnabled()) 
+            {
+               SortedSet<ConnectionListener> checkedOut = new TreeSet<ConnectionListener>();
+               for (Entry<ConnectionListener, ConnectionListenerWrapper> entry : cls.entrySet()) 
+               {
+                  if (entry.getValue().isCheckedOut())
+                     checkedOut.add(entry.getKey());
+               }
+               log.tracef("Replacing pool checkedOut=%s inPool=%s", checkedOut , cls);
+            }
+
+            for (Entry<ConnectionListener, ConnectionListenerWrapper> entry : cls.entrySet()) 
+            {
+               if (entry.getValue().isCheckedOut()) 
+               {
+                  log.tracef("Replace flush marking checked out connection for destruction %s", entry.getKey());
+                  
+                  entry.getKey().setState(ConnectionState.DESTROY);
+               }
+            }
+
          }
 
          // Destroy connections in the pool
@@ -838,6 +1535,20 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
             ConnectionListenerWrapper clw = clqIter.next();
             boolean kill = true;
 
+            // Checked out through its thread affinity
+            if (!clw.isAvailable())
+               continue;
+
+            if (FlushMode.REPLACE == mode)
+            {
+               // Destroyed once the replacement is in the pool
+               if (replace == null)
+                  replace = new ArrayList<ConnectionListener>();
+
+               replace.add(clw.getConnectionListener());
+               continue;
+            }
+
             if (FlushMode.INVALID == mode && clw.getConnectionListener().getState().equals(ConnectionState.NORMAL)) 
             {
                if (mcf instanceof ValidatingManagedConnectionFactory) 
@@ -866,7 +1577,9 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                   pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
                                                                   clw.getConnectionListener().getLastReturnedTime());
 
-               clq.remove(clw);
+               if (!removeAvailable(clw))
+                  continue;
+
                doRemoveConnectionListenerFromPool(clw.getConnectionListener());
 
                if (destroy == null)
@@ -890,6 +1603,10 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          }
       }
 
+      // We need to replace some connections
+      if (replace != null)
+         ConnectionReplacer.replace(this, replace);
+
       // Trigger prefill
       prefill();
    }
@@ -955,8 +1672,19 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                                                         pool.getInternalStatistics().getInUseCount(), maxSize));
       }
 
+      boolean timedOutDecrementer =
+         TimedOutDecrementer.class.getName().equals(decrementer.getClass().getName()) ||
+         TimedOutFIFODecrementer.class.getName().equals(decrementer.getClass().getName());
+
+      if (timedOutDecrementer && idleWheel != null && idleWheel.getTimeout() == timeoutSetting)
+      {
+         // Only look at the listeners that were idle at their deadline
+         destroy = false;
+         removeExpiredConnections(now, timeout, destroyConnections);
+      }
+
       Iterator<ConnectionListenerWrapper> clwIter = clq.iterator();
-      while (clwIter.hasNext() && destroy) 
+      while (destroy && clwIter.hasNext()) 
       {
          // Nothing left to destroy
          if (clq.size() == 0)
@@ -964,14 +1692,22 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
 
          ConnectionListenerWrapper clw = clwIter.next();
 
-         destroy = decrementer.shouldDestroy(clw.getConnectionListener(),
-                                             timeout, poolSize.get(),
-                                             poolConfiguration.getMinSize(), destroyed);
+         // Checked out through its thread affinity
+         if (!clw.isAvailable())
+            continue;
+
+         destroy = shouldDestroy(decrementer, clw.getConnectionListener(), timeout, poolSize.get(), destroyed);
 
          if (destroy) 
          {
             if (shouldRemove() || !isRunning())
             {
+               if (!removeAvailable(clw))
+               {
+                  log.tracef("Available connection queue did not contain: %s", clw.getConnectionListener());
+                  continue;
+               }
+
                if (pool.getInternalStatistics().isEnabled())
                   pool.getInternalStatistics().deltaTimedOut();
 
@@ -981,9 +1717,6 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                if (doRemoveConnectionListenerFromPool(clw.getConnectionListener()) == null)
                   log.tracef("Connection Pool did not contain: %s", clw.getConnectionListener());
 
-               if (!clq.remove(clw)) 
-                  log.tracef("Available connection queue did not contain: %s", clw.getConnectionListener());
-
                destroyConnections.add(clw);
                destroyed++;
             } 
@@ -1055,6 +1788,8 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       IdleRemover.getInstance().unregisterPool(this);
       ConnectionValidator.getInstance().unregisterPool(this);
 
+      failWaiters();
+
       if (checkedOutSize.get() > 0)
       {
          for (Entry<ConnectionListener, ConnectionListenerWrapper> entry : cls.entrySet())
@@ -1076,6 +1811,27 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       }
    }
 
+   /**
+    * Reserve the creation of a connection within the deficit of the pool up to a size, so
+    * concurrent fills don't create more connections than needed
+    * 
+    * @param size The size
+    * @return True if reserved; false if the pool has, or is being filled to, the size already
+    */
+   private boolean reserveFill(int size)
+   {
+      while (true)
+      {
+         int inFlight = filling.get();
+
+         if (poolSize.get() + inFlight >= size)
+            return false;
+
+         if (filling.compareAndSet(inFlight, inFlight + 1))
+            return true;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -1124,7 +1880,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          try 
          {
             long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
-            if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS)) 
+            if (waiters.acquire(poolConfiguration.getBlockingTimeout())) 
             {
                if (pool.getInternalStatistics().isEnabled())
                   pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
@@ -1135,53 +1891,71 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                      return;
                   }
 
-                  // We already have enough connections
-                  if (isSize(size)) 
+                  // We already have, or are creating, enough connections
+                  if (!reserveFill(size))
                   {
                      return;
                   }
 
-                  // Create a connection to fill the pool
-                  try 
+                  try
                   {
-                     // this increments pool size
-                     final ConnectionListener cl = createConnectionEventListener(defaultSubject, defaultCri);
+                     // The connections of the other managed connection pools use up the budget
+                     if (!reservePending())
+                     {
+                        return;
+                     }
 
-                     if (Tracer.isEnabled())
-                        Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
-                                                        false, true, false,
-                                                        Tracer.isRecordCallstacks() ?
-                                                        new Throwable("CALLSTACK") : null);
+                     // Create a connection to fill the pool
+                     try 
+                     {
+                        // this increments pool size
+                        final ConnectionListener cl = createConnectionEventListener(defaultSubject, defaultCri, true);
+
+                        if (Tracer.isEnabled())
+                           Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
+                                                           false, true, false,
+                                                           Tracer.isRecordCallstacks() ?
+                                                           new Throwable("CALLSTACK") : null);
 
-                     final ConnectionListenerWrapper clw = new ConnectionListenerWrapper(cl, false, false);
-                     // we need to add clw before checking for pool size; if we exceeded pool size, removing without
-                     // adding will cause pool size to not be decremented at removeConnectionListenerFromPool
-                     cls.put(cl, clw);
-                     clq.addLast(cls.get(cl));
+                        final ConnectionListenerWrapper clw = new ConnectionListenerWrapper(cl, false, false);
+                        // we need to add clw before checking for pool size; if we exceeded pool size, removing without
+                        // adding will cause pool size to not be decremented at removeConnectionListenerFromPool
+                        cls.put(cl, clw);
+                        offerAvailable(clw);
+                        scheduleIdle(clw);
 
-                     // We have to add 1, since poolSize is already incremented
-                     if (isSize(size + 1))
+                        // We have to add 1, since poolSize is already incremented
+                        if (isSize(size + 1))
+                        {
+                           if (Tracer.isEnabled())
+                              Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false,
+                                    false, true, false,
+                                    Tracer.isRecordCallstacks() ?
+                                          new Throwable("CALLSTACK") : null);
+                           removeConnectionListenerFromPool(clw);
+                           clw.getConnectionListener().destroy();
+                           return;
+                        }
+                        log.tracef("Filling pool cl=%s", cl);
+                     }
+                     catch (ResourceException re) 
                      {
-                        if (Tracer.isEnabled())
-                           Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, false,
-                                 false, true, false,
-                                 Tracer.isRecordCallstacks() ?
-                                       new Throwable("CALLSTACK") : null);
-                        removeConnectionListenerFromPool(clw);
-                        clw.getConnectionListener().destroy();
+                        log.unableFillPool(re, cm.getJndiName());
                         return;
                      }
-                     log.tracef("Filling pool cl=%s", cl);
+                     finally
+                     {
+                        completePending();
+                     }
                   }
-                  catch (ResourceException re) 
+                  finally
                   {
-                     log.unableFillPool(re, cm.getJndiName());
-                     return;
+                     filling.decrementAndGet();
                   }
                } 
                finally 
                {
-                  pool.getLock().release();
+                  waiters.release();
                }
             }
          } 
@@ -1194,6 +1968,43 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       }
    }
 
+   /**
+    * Should the capacity incrementer create a connection
+    * @param currentSize The current size
+    * @param created The number of connections created so far
+    * @return True if a connection should be created; otherwise false
+    */
+   private boolean shouldCreate(int currentSize, int created)
+   {
+      CapacityIncrementer incrementer = pool.getCapacity().getIncrementer();
+
+      // The adaptive policies size each managed connection pool from its own usage
+      if (incrementer instanceof AdaptiveIncrementer)
+         return ((AdaptiveIncrementer)incrementer).shouldCreate(usage, currentSize,
+                                                                poolConfiguration.getMaxSize(), created);
+
+      return incrementer.shouldCreate(currentSize, poolConfiguration.getMaxSize(), created);
+   }
+
+   /**
+    * Should the capacity decrementer destroy a connection listener
+    * @param decrementer The decrementer
+    * @param cl The connection listener
+    * @param timeout The timeout
+    * @param currentSize The current size
+    * @param destroyed The number of connection listeners destroyed so far
+    * @return True if the connection listener should be destroyed; otherwise false
+    */
+   private boolean shouldDestroy(CapacityDecrementer decrementer, ConnectionListener cl, long timeout,
+                                 int currentSize, int destroyed)
+   {
+      if (decrementer instanceof AdaptiveDecrementer)
+         return ((AdaptiveDecrementer)decrementer).shouldDestroy(usage, cl, timeout, currentSize,
+                                                                 poolConfiguration.getMinSize(), destroyed);
+
+      return decrementer.shouldDestroy(cl, timeout, currentSize, poolConfiguration.getMinSize(), destroyed);
+   }
+
    @Override
    public void increaseCapacity(Subject subject, ConnectionRequestInfo cri) 
    {
@@ -1206,7 +2017,7 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          try 
          {
             long startWait = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
-            if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS)) 
+            if (waiters.acquire(poolConfiguration.getBlockingTimeout())) 
             {
                if (pool.getInternalStatistics().isEnabled())
                   pool.getInternalStatistics().deltaTotalBlockingTime(System.currentTimeMillis() - startWait);
@@ -1217,15 +2028,19 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                      return;
                   }
 
-                  create = pool.getCapacity().getIncrementer().shouldCreate(poolSize.get(),
-                                                                            poolConfiguration.getMaxSize(), created);
+                  create = shouldCreate(poolSize.get(), created);
+
+                  if (create && !reservePending())
+                  {
+                     return;
+                  }
 
                   if (create) 
                   {
                      try 
                      {
                         // this increments pool size
-                        final ConnectionListener cl = createConnectionEventListener(subject, cri);
+                        final ConnectionListener cl = createConnectionEventListener(subject, cri, true);
 
                         if (Tracer.isEnabled())
                            Tracer.createConnectionListener(pool.getName(), this, cl, cl.getManagedConnection(),
@@ -1237,7 +2052,8 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                         // we need to add clw before checking for pool size; if we exceeded pool size, removing without
                         // adding will cause pool size to not be decremented at removeConnectionListenerFromPool
                         cls.put(cl, clw);
-                        clq.addLast(cls.get(cl));
+                        offerAvailable(clw);
+                        scheduleIdle(clw);
 
                         // We have to add 1, since poolSize is already incremented
                         if (isSize(poolConfiguration.getMaxSize() + 1))
@@ -1262,51 +2078,194 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
                         log.unableFillPool(re, cm.getJndiName());
                         return;
                      }
+                     finally
+                     {
+                        completePending();
+                     }
                   }
                } 
                finally 
                {
-                  pool.getLock().release();
+                  waiters.release();
                }
             }
          } 
          catch (InterruptedException ignored) 
          {
-            Thread.interrupted();
+            Thread.interrupted();
+
+            log.trace("Interrupted while requesting permit in increaseCapacity");
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void addConnectionListener(ConnectionListener cl) 
+   {
+      if (budget != null)
+         budget.reserve();
+
+      ConnectionListenerWrapper clw = new ConnectionListenerWrapper(cl, false, false);
+      cls.put(cl, clw);
+      offerAvailable(clw);
+      scheduleIdle(clw);
+      poolSize.incrementAndGet();
+
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaCreatedCount();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public ConnectionListener removeConnectionListener() 
+   {
+      if (cls.size() > 0) 
+      {
+         if (pool.getInternalStatistics().isEnabled())
+            pool.getInternalStatistics().deltaDestroyedCount();
+         ConnectionListenerWrapper clw = pollAvailable(true);
+         if (clw == null)
+            return null;
+
+         doRemoveConnectionListenerFromPool(clw.getConnectionListener());
+         return clw.getConnectionListener();
+      }
+
+      return null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean reclaimIdleConnection()
+   {
+      if (!isRunning())
+         return false;
+
+      ConnectionListenerWrapper clw = pollAvailable(true);
+      if (clw == null)
+         return false;
+
+      ConnectionListener cl = clw.getConnectionListener();
+
+      if (doRemoveConnectionListenerFromPool(cl) == null)
+         return false;
+
+      log.tracef("Reclaiming idle connection cl=%s", cl);
+
+      if (pool.getInternalStatistics().isEnabled())
+         pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() - cl.getLastReturnedTime());
+
+      if (Tracer.isEnabled())
+         Tracer.destroyConnectionListener(pool.getName(), this, cl, false, true, false, false, false, false, false,
+                                          Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+      cl.destroy();
+
+      // An unused managed connection pool gives up all of its room
+      if (isEmpty())
+         pool.emptyManagedConnectionPool(this);
+
+      return true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void replaceConnectionListener(ConnectionListener cl)
+   {
+      ConnectionListenerWrapper clw = cls.get(cl);
+      if (clw == null || !isRunning())
+         return;
+
+      // Take the connection out of the pool, so it isn't checked out while it is replaced
+      if (!removeAvailable(clw))
+      {
+         // Checked out after the flush, so destroy it upon return
+         if (cls.containsKey(cl))
+            cl.setState(ConnectionState.DESTROY);
+
+         return;
+      }
+
+      // The replacement takes over the place of the connection in the connection budget, so it
+      // is neither limited by the budget nor reclaims a connection of another managed connection
+      // pool. Both are counted until the connection is destroyed below
+      if (budget != null)
+         budget.reserve();
+
+      ConnectionListener replacement = null;
+      try
+      {
+         replacement = createConnectionEventListener(defaultSubject, defaultCri, true);
+      }
+      catch (ResourceException re)
+      {
+         log.unableReplaceConnection(re, cm.getJndiName());
+      }
+
+      if (replacement != null)
+      {
+         if (Tracer.isEnabled())
+            Tracer.createConnectionListener(pool.getName(), this, replacement, replacement.getManagedConnection(),
+                                            false, true, false,
+                                            Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+         ConnectionListenerWrapper replacementClw = new ConnectionListenerWrapper(replacement, false, false);
+         cls.put(replacement, replacementClw);
+
+         log.tracef("Replacing cl=%s with cl=%s", cl, replacement);
+
+         if (!isRunning())
+         {
+            if (Tracer.isEnabled())
+               Tracer.destroyConnectionListener(pool.getName(), this, replacement, false, false, false, false,
+                                                false, true, false,
+                                                Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
 
-            log.trace("Interrupted while requesting permit in increaseCapacity");
+            removeConnectionListenerFromPool(replacementClw);
+            replacement.destroy();
+         }
+         else if (poolConfiguration.isValidateOnMatch() || creationWaiters.isEmpty() ||
+                  !handOffToCreation(replacementClw))
+         {
+            offerAvailable(replacementClw);
+            scheduleIdle(replacementClw);
+            waiters.serve();
          }
       }
-   }
 
-   /**
-    * {@inheritDoc}
-    */
-   public void addConnectionListener(ConnectionListener cl) 
-   {
-      cls.put(cl, new ConnectionListenerWrapper(cl, false, false));
-      clq.addLast(cls.get(cl));
-      poolSize.incrementAndGet();
+      if (doRemoveConnectionListenerFromPool(cl) == null)
+         return;
 
       if (pool.getInternalStatistics().isEnabled())
-         pool.getInternalStatistics().deltaCreatedCount();
+         pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() - cl.getLastReturnedTime());
+
+      if (Tracer.isEnabled())
+         Tracer.destroyConnectionListener(pool.getName(), this, cl, false, false, false, true, false, false, false,
+                                          Tracer.isRecordCallstacks() ? new Throwable("CALLSTACK") : null);
+
+      cl.destroy();
    }
 
    /**
-    * {@inheritDoc}
+    * Create a connection event listener
+    * 
+    * @param subject
+    *            the subject
+    * @param cri
+    *            the connection request information
+    * @return the new listener
+    * @throws ResourceException
+    *             for any error
     */
-   public ConnectionListener removeConnectionListener() 
+   private ConnectionListener createConnectionEventListener(Subject subject, ConnectionRequestInfo cri) 
+      throws ResourceException 
    {
-      if (cls.size() > 0) 
-      {
-         if (pool.getInternalStatistics().isEnabled())
-            pool.getInternalStatistics().deltaDestroyedCount();
-         ConnectionListenerWrapper clw = clq.removeFirst();
-         doRemoveConnectionListenerFromPool(clw.getConnectionListener());
-         return clw.getConnectionListener();
-      }
-
-      return null;
+      return createConnectionEventListener(subject, cri, false);
    }
 
    /**
@@ -1316,16 +2275,44 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
     *            the subject
     * @param cri
     *            the connection request information
+    * @param reserved
+    *            is the connection already reserved in the connection budget
     * @return the new listener
     * @throws ResourceException
     *             for any error
     */
-   private ConnectionListener createConnectionEventListener(Subject subject, ConnectionRequestInfo cri) 
+   private ConnectionListener createConnectionEventListener(Subject subject, ConnectionRequestInfo cri,
+                                                            boolean reserved) 
       throws ResourceException 
    {
+      if (!reserved && !pool.reserveConnection(this, true))
+         throw new ResourceException(bundle.connectionBudgetExhausted(pool.getName()));
+
       long start = pool.getInternalStatistics().isEnabled() ? System.currentTimeMillis() : 0L;
 
-      ManagedConnection mc = mcf.createManagedConnection(subject, cri);
+      ManagedConnection mc = null;
+      try
+      {
+         mc = governor.createManagedConnection(mcf, subject, cri, poolConfiguration.getBlockingTimeout());
+      }
+      catch (ResourceException re)
+      {
+         if (budget != null)
+            budget.release();
+         throw re;
+      }
+      catch (RuntimeException e)
+      {
+         if (budget != null)
+            budget.release();
+         throw e;
+      }
+      catch (Error e)
+      {
+         if (budget != null)
+            budget.release();
+         throw e;
+      }
 
       if (pool.getInternalStatistics().isEnabled()) 
       {
@@ -1342,6 +2329,8 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       {
          if (pool.getInternalStatistics().isEnabled())
             pool.getInternalStatistics().deltaDestroyedCount();
+         if (budget != null)
+            budget.release();
          mc.destroy();
          throw re;
       }
@@ -1356,6 +2345,26 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          pool.getInternalStatistics().deltaDestroyedCount();
    }
 
+   /**
+    * Reserve a connection in the connection budget for a creation in the background. Requests
+    * that find the budget used up wait for the reservation until it is completed
+    * @return True if the connection can be created; otherwise false
+    */
+   private boolean reservePending()
+   {
+      return budget == null || budget.tryReservePending();
+   }
+
+   /**
+    * Complete a reservation of {@link #reservePending()}, once the connection is in the pool
+    * or the creation failed
+    */
+   private void completePending()
+   {
+      if (budget != null)
+         budget.completePending();
+   }
+
    /**
     * Remove Connection Listener from pool and update counters and statistics
     *
@@ -1366,7 +2375,10 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
    {
       if (clw != null)
       {
-         clq.remove(clw);
+         clw.claimAvailable();
+         if (clq.remove(clw))
+            clw.clearQueued();
+
          doRemoveConnectionListenerFromPool(clw.getConnectionListener());
 
          //update counter and statistics
@@ -1382,10 +2394,127 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       ConnectionListenerWrapper w = cls.remove(cl);
       if (w != null) {
          poolSize.decrementAndGet();
+         if (budget != null)
+            budget.release();
       }
       return w;
 }
    
+   /**
+    * Make a connection listener available in the pool. A listener keeps at most one entry
+    * in the queue, which is reused if it is still there
+    *
+    * @param clw The wrapper
+    * @return False if the listener was available already
+    */
+   private boolean offerAvailable(ConnectionListenerWrapper clw)
+   {
+      if (!clw.markAvailable())
+         return false;
+
+      if (clw.markQueued())
+         clq.addLast(clw);
+
+      return true;
+   }
+
+   /**
+    * Take the next available connection listener out of the pool. Queue entries of listeners
+    * that were claimed through their own state are dropped on the way
+    *
+    * @param first Take the first entry; otherwise the last
+    * @return The wrapper, or <code>null</code> if none is available
+    */
+   private ConnectionListenerWrapper pollAvailable(boolean first)
+   {
+      ConnectionListenerWrapper clw = first ? clq.pollFirst() : clq.pollLast();
+      while (clw != null)
+      {
+         clw.clearQueued();
+
+         if (clw.claimAvailable())
+            return clw;
+
+         clw = first ? clq.pollFirst() : clq.pollLast();
+      }
+
+      return null;
+   }
+
+   /**
+    * Take a specific available connection listener out of the pool
+    *
+    * @param clw The wrapper
+    * @return True if taken; false if it wasn't available
+    */
+   private boolean removeAvailable(ConnectionListenerWrapper clw)
+   {
+      if (!clw.claimAvailable())
+         return false;
+
+      if (clq.remove(clw))
+         clw.clearQueued();
+
+      return true;
+   }
+
+   /**
+    * Schedule an available connection listener for idle removal
+    * 
+    * @param clw The listener
+    */
+   private void scheduleIdle(ConnectionListenerWrapper clw)
+   {
+      if (idleWheel != null)
+         idleWheel.schedule(clw);
+   }
+
+   /**
+    * Take the idle connection listeners that timed out out of the pool
+    * 
+    * @param now The current time
+    * @param timeout The listeners returned before this time are timed out
+    * @param destroyConnections The listeners to destroy
+    */
+   private void removeExpiredConnections(long now, long timeout, List<ConnectionListenerWrapper> destroyConnections)
+   {
+      for (ConnectionListenerWrapper clw : idleWheel.expire(now))
+      {
+         ConnectionListener cl = clw.getConnectionListener();
+
+         // Destroyed, or checked out and scheduled again when returned
+         if (cls.get(cl) != clw || clw.isCheckedOut())
+            continue;
+
+         if (!cl.isTimedOut(timeout) || !(shouldRemove() || !isRunning()))
+         {
+            idleWheel.schedule(clw);
+            continue;
+         }
+
+         // Being validated, and scheduled again when returned
+         if (!removeAvailable(clw))
+            continue;
+
+         if (!cl.isTimedOut(timeout))
+         {
+            offerAvailable(clw);
+            idleWheel.schedule(clw);
+            continue;
+         }
+
+         if (pool.getInternalStatistics().isEnabled())
+            pool.getInternalStatistics().deltaTimedOut();
+
+         log.tracef("Idle connection cl=%s", cl);
+
+         if (doRemoveConnectionListenerFromPool(cl) == null)
+            log.tracef("Connection Pool did not contain: %s", cl);
+
+         destroyConnections.add(clw);
+      }
+   }
+
    /**
     * Should any connections be removed from the pool
     * 
@@ -1414,73 +2543,82 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
 
       log.tracef("Attempting to validate connections for pool %s", this);
 
-      if (pool.getLock().tryAcquire(poolConfiguration.getBlockingTimeout(), TimeUnit.MILLISECONDS)) 
+      if (waiters.acquire(poolConfiguration.getBlockingTimeout())) 
       {
-         boolean anyDestroyed = false;
+         final AtomicBoolean anyDestroyed = new AtomicBoolean(false);
 
          try 
          {
-            while (true) 
+            ValidationBatch batch = ConnectionValidator.getInstance().fork(new Runnable()
             {
-               ConnectionListener cl = null;
-               boolean destroyed = false;
-
-               synchronized (cls)
+               /**
+                * {@inheritDoc}
+                */
+               public void run()
                {
-                  if (clq.size() == 0) 
-                  {
-                     break;
-                  }
-
-                  cl = removeForFrequencyCheck();
+                  // The helpers only validate connections taken out of the pool, so they need no permit
+                  validateDueConnections(anyDestroyed);
                }
+            });
 
-               if (cl == null) 
-               {
-                  break;
-               }
+            try
+            {
+               validateDueConnections(anyDestroyed);
+            }
+            finally
+            {
+               batch.join();
+            }
+         } 
+         finally 
+         {
+            waiters.release();
 
-               try 
-               {
-                  Set candidateSet = Collections.singleton(cl.getManagedConnection());
+            if (anyDestroyed.get())
+                prefill();
+         }
+      }
+   }
 
-                  if (mcf instanceof ValidatingManagedConnectionFactory) 
-                  {
-                     ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
-                     candidateSet = vcf.getInvalidConnections(candidateSet);
+   /**
+    * Validate the connection listeners that are due for background validation, one
+    * at a time. Each listener is only out of the pool while it is validated
+    * @param anyDestroyed Set if a listener was destroyed
+    */
+   private void validateDueConnections(AtomicBoolean anyDestroyed)
+   {
+      while (true) 
+      {
+         ConnectionListener cl = null;
+         boolean destroyed = false;
 
-                     if ((candidateSet != null && candidateSet.size() > 0) || !isRunning())
-                     {
-                        if (cl.getState() != ConnectionState.DESTROY) 
-                        {
-                           ConnectionListenerWrapper clw = doRemoveConnectionListenerFromPool(cl);
+         synchronized (cls)
+         {
+            if (clq.size() == 0) 
+            {
+               break;
+            }
 
-                           if (pool.getInternalStatistics().isEnabled())
-                              pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
-                                 clw.getConnectionListener().getLastReturnedTime());
+            cl = removeForFrequencyCheck();
+         }
 
-                           if (Tracer.isEnabled())
-                              Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                               false, false, true, false, false, false, false,
-                                                               Tracer.isRecordCallstacks() ?
-                                                               new Throwable("CALLSTACK") : null);
-                     
-                           removeConnectionListenerFromPool(clw);
-                           clw.getConnectionListener().destroy();
-                           clw = null;
-                           destroyed = true;
-                           anyDestroyed = true;
-                        }
-                     }
-                  } 
-                  else 
-                  {
-                     log.backgroundValidationNonCompliantManagedConnectionFactory();
-                  }
-               } 
-               catch (ResourceException re) 
+         if (cl == null) 
+         {
+            break;
+         }
+
+         try 
+         {
+            Set candidateSet = Collections.singleton(cl.getManagedConnection());
+
+            if (mcf instanceof ValidatingManagedConnectionFactory) 
+            {
+               ValidatingManagedConnectionFactory vcf = (ValidatingManagedConnectionFactory) mcf;
+               candidateSet = vcf.getInvalidConnections(candidateSet);
+
+               if ((candidateSet != null && candidateSet.size() > 0) || !isRunning())
                {
-                  if (cl != null) 
+                  if (cl.getState() != ConnectionState.DESTROY) 
                   {
                      ConnectionListenerWrapper clw = doRemoveConnectionListenerFromPool(cl);
 
@@ -1490,41 +2628,61 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
 
                      if (Tracer.isEnabled())
                         Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
-                                                         false, false, false, false, true, false, false,
+                                                         false, false, true, false, false, false, false,
                                                          Tracer.isRecordCallstacks() ?
                                                          new Throwable("CALLSTACK") : null);
-                     
+               
                      removeConnectionListenerFromPool(clw);
                      clw.getConnectionListener().destroy();
                      clw = null;
                      destroyed = true;
-                     anyDestroyed = true;
-                  }
-
-                  log.connectionValidatorIgnoredUnexpectedError(re);
-               } 
-               finally 
-               {
-                  if (!destroyed) 
-                  {
-                     synchronized (cls)
-                     {
-                         if(cl != null) {
-                             returnForFrequencyCheck(cl);
-                         } else {
-                             log.debug(" connection listener is not properly setup. ");
-                         }
-                     }
+                     anyDestroyed.set(true);
                   }
                }
+            } 
+            else 
+            {
+               log.backgroundValidationNonCompliantManagedConnectionFactory();
             }
          } 
-         finally 
+         catch (ResourceException re) 
          {
-            pool.getLock().release();
+            if (cl != null) 
+            {
+               ConnectionListenerWrapper clw = doRemoveConnectionListenerFromPool(cl);
 
-            if (anyDestroyed)
-                prefill();
+               if (pool.getInternalStatistics().isEnabled())
+                  pool.getInternalStatistics().deltaTotalPoolTime(System.currentTimeMillis() -
+                     clw.getConnectionListener().getLastReturnedTime());
+
+               if (Tracer.isEnabled())
+                  Tracer.destroyConnectionListener(pool.getName(), this, clw.getConnectionListener(),
+                                                   false, false, false, false, true, false, false,
+                                                   Tracer.isRecordCallstacks() ?
+                                                   new Throwable("CALLSTACK") : null);
+               
+               removeConnectionListenerFromPool(clw);
+               clw.getConnectionListener().destroy();
+               clw = null;
+               destroyed = true;
+               anyDestroyed.set(true);
+            }
+
+            log.connectionValidatorIgnoredUnexpectedError(re);
+         } 
+         finally 
+         {
+            if (!destroyed) 
+            {
+               synchronized (cls)
+               {
+                   if(cl != null) {
+                       returnForFrequencyCheck(cl);
+                   } else {
+                       log.debug(" connection listener is not properly setup. ");
+                   }
+               }
+            }
          }
       }
    }
@@ -1558,9 +2716,9 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
          clw = iter.next();
          long lastCheck = clw.getConnectionListener().getLastValidatedTime();
 
-         if ((System.currentTimeMillis() - lastCheck) >= poolConfiguration.getBackgroundValidationMillis()) 
+         if ((System.currentTimeMillis() - lastCheck) >= poolConfiguration.getBackgroundValidationMillis() &&
+             removeAvailable(clw)) 
          {
-            clq.remove(clw);
             break;
          } 
          else 
@@ -1587,7 +2745,10 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       log.debug("Returning for connection within frequency");
 
       cl.setLastValidatedTime(System.currentTimeMillis());
-      clq.addLast(cls.get(cl));
+
+      ConnectionListenerWrapper clw = cls.get(cl);
+      offerAvailable(clw);
+      scheduleIdle(clw);
    }
 
    /**
@@ -1711,6 +2872,9 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       private volatile ConnectionListener cl;
       private volatile boolean checkedOut;
       private volatile boolean hasPermit;
+      private final AtomicBoolean idleScheduled = new AtomicBoolean(false);
+      private final AtomicBoolean available = new AtomicBoolean(false);
+      private final AtomicBoolean queued = new AtomicBoolean(false);
 
       /**
        * Constructor
@@ -1796,5 +2960,71 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPool implements Mana
       {
          this.hasPermit = hasPermit;
       }
+
+      /**
+       * Mark the Connection Listener as scheduled for idle removal
+       * 
+       * @return True if it wasn't scheduled before
+       */
+      boolean markIdleScheduled()
+      {
+         return idleScheduled.compareAndSet(false, true);
+      }
+
+      /**
+       * Clear the idle removal schedule of the Connection Listener
+       */
+      void clearIdleScheduled()
+      {
+         idleScheduled.set(false);
+      }
+
+      /**
+       * Is the Connection Listener available in the pool
+       * 
+       * @return The value
+       */
+      boolean isAvailable()
+      {
+         return available.get();
+      }
+
+      /**
+       * Mark the Connection Listener as available in the pool
+       * 
+       * @return True if it wasn't available before
+       */
+      boolean markAvailable()
+      {
+         return available.compareAndSet(false, true);
+      }
+
+      /**
+       * Claim the Connection Listener, taking it out of the pool
+       * 
+       * @return True if claimed; false if it wasn't available
+       */
+      boolean claimAvailable()
+      {
+         return available.compareAndSet(true, false);
+      }
+
+      /**
+       * Mark the Connection Listener as having an entry in the available queue
+       * 
+       * @return True if it didn't have one before
+       */
+      boolean markQueued()
+      {
+         return queued.compareAndSet(false, true);
+      }
+
+      /**
+       * Clear the entry of the Connection Listener in the available queue
+       */
+      void clearQueued()
+      {
+         queued.set(false);
+      }
    }
 }
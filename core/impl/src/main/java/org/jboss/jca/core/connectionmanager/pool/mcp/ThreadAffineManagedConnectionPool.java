@@ -0,0 +1,98 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.mcp;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+
+import java.lang.ref.WeakReference;
+
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.security.auth.Subject;
+
+/**
+ * A managed connection pool which remembers the connection last returned by each thread,
+ * and offers it to that thread again before going through the shared deque, similar to a
+ * ConcurrentBag. The connection stays in the shared deque while idle, so any other thread
+ * can still take it, and the idle remover, validation and flush see it as usual.
+ *
+ * The pool permits are always striped for this managed connection pool, so the permit of a
+ * connection taken through its affinity comes from the stripe of the calling thread.
+ */
+public class ThreadAffineManagedConnectionPool extends SemaphoreConcurrentLinkedDequeManagedConnectionPool
+{
+   /** The connection last returned by the thread */
+   private final ThreadLocal<WeakReference<ConnectionListener>> affinity =
+      new ThreadLocal<WeakReference<ConnectionListener>>();
+
+   /**
+    * Constructor
+    */
+   public ThreadAffineManagedConnectionPool()
+   {
+      super();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   protected ConnectionListener getAffineConnection(Subject subject, ConnectionRequestInfo cri)
+   {
+      WeakReference<ConnectionListener> ref = affinity.get();
+      if (ref == null)
+         return null;
+
+      ConnectionListener last = ref.get();
+      ConnectionListener cl = last != null ? checkOutIdle(last, subject, cri) : null;
+
+      if (cl == null)
+         affinity.remove();
+
+      return cl;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void returnConnection(ConnectionListener cl, boolean kill, boolean cleanup)
+   {
+      super.returnConnection(cl, kill, cleanup);
+
+      if (kill)
+      {
+         WeakReference<ConnectionListener> ref = affinity.get();
+         if (ref != null && ref.get() == cl)
+            affinity.remove();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   protected void connectionReturned(ConnectionListener cl)
+   {
+      affinity.set(new WeakReference<ConnectionListener>(cl));
+   }
+}
@@ -72,7 +72,7 @@ public class PoolBySubject extends AbstractPrefillPool
    @Override
    protected Object getKey(Subject subject, ConnectionRequestInfo cri, boolean separateNoTx) throws ResourceException
    {
-      return new SubjectKey(subject, separateNoTx);
+      return new SubjectKey(subject, separateNoTx, getCachedHashCode(subject));
    }
 
    /**
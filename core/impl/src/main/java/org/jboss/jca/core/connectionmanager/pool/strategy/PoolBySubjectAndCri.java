@@ -66,7 +66,7 @@ public class PoolBySubjectAndCri extends AbstractPool
    @Override
    protected Object getKey(Subject subject, ConnectionRequestInfo cri, boolean separateNoTx) throws ResourceException
    {
-      return new SubjectCriKey(subject, cri, separateNoTx);
+      return new SubjectCriKey(subject, cri, separateNoTx, getCachedHashCode(subject));
    }
 
    /**
@@ -69,6 +69,9 @@ class SecurityActions
     */
    static boolean equals(final Subject s1, final Subject s2)
    {
+      if (s1 == s2)
+         return true;
+
       if (System.getSecurityManager() == null)
          return s1 != null ? s1.equals(s2) : s2 == null;
 
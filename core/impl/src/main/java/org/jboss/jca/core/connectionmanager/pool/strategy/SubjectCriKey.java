@@ -55,6 +55,9 @@ class SubjectCriKey
    /** Separate no tx */
    private boolean separateNoTx;
 
+   /** The cached hash code of the subject, or <code>null</code> */
+   private final Integer subjectHashCode;
+
    /**
     * 
     * @param subject subject instance
@@ -62,10 +65,23 @@ class SubjectCriKey
     * @param separateNoTx seperateNoTx
     */
    SubjectCriKey(Subject subject, ConnectionRequestInfo cri, boolean separateNoTx)
+   {
+      this(subject, cri, separateNoTx, null);
+   }
+
+   /**
+    * 
+    * @param subject subject instance
+    * @param cri connection request info
+    * @param separateNoTx seperateNoTx
+    * @param subjectHashCode The cached hash code of the subject, or <code>null</code>
+    */
+   SubjectCriKey(Subject subject, ConnectionRequestInfo cri, boolean separateNoTx, Integer subjectHashCode)
    {
       this.subject = (subject == null) ? NOSUBJECT : subject;
       this.cri = (cri == null) ? NOCRI : cri;
       this.separateNoTx = separateNoTx;
+      this.subjectHashCode = subjectHashCode;
    }
    
    /**
@@ -76,7 +92,8 @@ class SubjectCriKey
    {
       if (hashCode == Integer.MAX_VALUE)
       {
-         hashCode = SecurityActions.hashCode(subject) ^ cri.hashCode();  
+         int h = subjectHashCode != null ? subjectHashCode.intValue() : SecurityActions.hashCode(subject);
+         hashCode = h ^ cri.hashCode();  
       }
       
       return hashCode;
@@ -50,9 +50,23 @@ class SubjectKey
     * @param separateNoTx separateNoTx
     */
    SubjectKey(Subject subject, boolean separateNoTx)
+   {
+      this(subject, separateNoTx, null);
+   }
+
+   /**
+    * Creates a new instance.
+    * @param subject subject 
+    * @param separateNoTx separateNoTx
+    * @param subjectHashCode The cached hash code of the subject, or <code>null</code>
+    */
+   SubjectKey(Subject subject, boolean separateNoTx, Integer subjectHashCode)
    {
       this.subject = (subject == null) ? NOSUBJECT : subject;
       this.separateNoTx = separateNoTx;
+
+      if (subjectHashCode != null && subjectHashCode.intValue() != Integer.MAX_VALUE)
+         this.hashCode = subjectHashCode.intValue();
    }
 
    /**
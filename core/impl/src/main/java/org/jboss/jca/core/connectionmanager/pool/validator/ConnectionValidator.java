@@ -25,13 +25,18 @@ package org.jboss.jca.core.connectionmanager.pool.validator;
 import org.jboss.jca.core.CoreLogger;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -39,6 +44,13 @@ import org.jboss.logging.Logger;
 
 /**
  * Connection validator
+ *
+ * Each registered pool has its own schedule at half of its validation interval, and the
+ * validation runs of the pools are executed by a bounded set of
+ * <code>ironjacamar.validator_threads</code> threads, so a pool with a slow resource
+ * doesn't delay the validation of the other pools. A pool is never validated by more than
+ * one run at the same time, but a run can {@link #fork fork} helpers, such that up to
+ * <code>ironjacamar.validator_batch</code> connections of the pool are validated concurrently
  * 
  * @author <a href="mailto:gurkanerdogdu@yahoo.com">Gurkan Erdogdu</a>
  * @author <a href="mailto:jesper.pedersen@ironjacamar.org">Jesper Pedersen</a>
@@ -56,20 +68,22 @@ public class ConnectionValidator
    private static ConnectionValidator instance = new ConnectionValidator();
    
    /** Registered pool instances */
-   private CopyOnWriteArrayList<ManagedConnectionPool> registeredPools = 
-      new CopyOnWriteArrayList<ManagedConnectionPool>();
+   private Map<ManagedConnectionPool, PoolValidation> registeredPools;
    
    /** Executor service */
    private ExecutorService executorService;
 
    /** Is the executor external */
    private boolean isExternal;
-   
-   /** The interval */
-   private long interval;
 
-   /** The next scan */
-   private long next;
+   /** The scheduler */
+   private ScheduledThreadPoolExecutor scheduler;
+
+   /** The number of validator threads */
+   private int threads;
+
+   /** The number of connections of a pool validated concurrently */
+   private int batchSize;
    
    /** Shutdown */
    private AtomicBoolean shutdown;
@@ -77,21 +91,20 @@ public class ConnectionValidator
    /** Lock */
    private Lock lock;
    
-   /** Condition */
-   private Condition condition;
-   
    /**
     * Private constructor.
     */
    private ConnectionValidator()
    {
+      this.registeredPools = new IdentityHashMap<ManagedConnectionPool, PoolValidation>();
       this.executorService = null;
       this.isExternal = false;
-      this.interval = Long.MAX_VALUE;
-      this.next = Long.MAX_VALUE;
-      this.shutdown = new AtomicBoolean(false);
+      this.scheduler = null;
+      this.threads = getIntProperty("ironjacamar.validator_threads",
+                                    Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+      this.batchSize = getIntProperty("ironjacamar.validator_batch", 4);
+      this.shutdown = new AtomicBoolean(true);
       this.lock = new ReentrantLock(true);
-      this.condition = lock.newCondition();
    }
 
    /**
@@ -121,22 +134,47 @@ public class ConnectionValidator
       }
    }
 
+   /**
+    * Get the number of connections of a pool that are validated concurrently
+    * @return The value
+    */
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
    /**
     * Start
     * @exception Throwable Thrown if an error occurs
     */
    public void start() throws Throwable
    {
-      if (!isExternal)
+      try
       {
-         this.executorService = Executors.newSingleThreadExecutor(new ValidatorThreadFactory());
-      }
+         lock.lock();
 
-      this.shutdown.set(false);
-      this.interval = Long.MAX_VALUE;
-      this.next = Long.MAX_VALUE;
+         if (!isExternal)
+         {
+            ThreadPoolExecutor tpe = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                                                            new LinkedBlockingQueue<Runnable>(),
+                                                            new ValidatorThreadFactory(true));
+            tpe.allowCoreThreadTimeOut(true);
+            this.executorService = tpe;
+         }
 
-      this.executorService.execute(new ConnectionValidatorRunner());
+         this.scheduler = new ScheduledThreadPoolExecutor(1, new ValidatorThreadFactory(false));
+         this.scheduler.setRemoveOnCancelPolicy(true);
+         this.shutdown.set(false);
+
+         for (PoolValidation pv : registeredPools.values())
+         {
+            pv.schedule();
+         }
+      }
+      finally
+      {
+         lock.unlock();
+      }
    }
 
    /**
@@ -145,15 +183,34 @@ public class ConnectionValidator
     */
    public void stop() throws Throwable
    {
-      instance.shutdown.set(true);
+      try
+      {
+         instance.lock.lock();
+         instance.shutdown.set(true);
 
-      if (!isExternal)
+         for (PoolValidation pv : instance.registeredPools.values())
+         {
+            pv.cancel();
+         }
+
+         if (instance.scheduler != null)
+         {
+            instance.scheduler.shutdownNow();
+            instance.scheduler = null;
+         }
+
+         if (!isExternal && instance.executorService != null)
+         {
+            instance.executorService.shutdownNow();
+            instance.executorService = null;
+         }
+
+         instance.registeredPools.clear();
+      }
+      finally
       {
-         instance.executorService.shutdownNow();
-         instance.executorService = null;
+         instance.lock.unlock();
       }
-
-      instance.registeredPools.clear();
    }
    
    /**
@@ -178,6 +235,37 @@ public class ConnectionValidator
 
       instance.internalUnregisterPool(mcp);
    }
+
+   /**
+    * Fork helpers for a validation run of a pool. The task is executed by up to
+    * <code>getBatchSize() - 1</code> validator threads, and must return once there is
+    * nothing left to validate. The run must call {@link ValidationBatch#join} after it
+    * has done its own share of the work
+    * @param task The task
+    * @return The batch
+    */
+   public ValidationBatch fork(Runnable task)
+   {
+      ValidationBatch batch = new ValidationBatch(task);
+      ExecutorService es = executorService;
+
+      if (es != null && !shutdown.get())
+      {
+         for (int i = 1; i < batchSize; i++)
+         {
+            try
+            {
+               es.execute(batch.helper());
+            }
+            catch (RejectedExecutionException ree)
+            {
+               break;
+            }
+         }
+      }
+
+      return batch;
+   }
    
    private void internalRegisterPool(ManagedConnectionPool mcp, long interval)
    {
@@ -185,22 +273,13 @@ public class ConnectionValidator
       {
          this.lock.lock();
          
-         this.registeredPools.addIfAbsent(mcp);
-         
-         if (interval > 1 && interval / 2 < this.interval) 
+         if (!registeredPools.containsKey(mcp))
          {
-            this.interval = interval / 2;
-            long maybeNext = System.currentTimeMillis() + this.interval;
-            if (next > maybeNext && maybeNext > 0) 
-            {
-               next = maybeNext;
-               if (logger.isDebugEnabled())
-               {
-                  logger.debug("About to notify thread: old next: " + next + ", new next: " + maybeNext);
-               }               
-               
-               this.condition.signal();
-            }
+            PoolValidation pv = new PoolValidation(mcp, Math.max(1L, interval / 2));
+            registeredPools.put(mcp, pv);
+
+            if (!shutdown.get())
+               pv.schedule();
          }
       } 
       finally
@@ -211,17 +290,43 @@ public class ConnectionValidator
    
    private void internalUnregisterPool(ManagedConnectionPool mcp)
    {
-      this.registeredPools.remove(mcp);
-      
-      if (this.registeredPools.size() == 0) 
+      try
+      {
+         this.lock.lock();
+
+         PoolValidation pv = registeredPools.remove(mcp);
+
+         if (pv != null)
+            pv.cancel();
+      }
+      finally
+      {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Get an integer system property
+    * @param key The key
+    * @param defaultValue The default value
+    * @return The value
+    */
+   private static int getIntProperty(String key, int defaultValue)
+   {
+      String value = SecurityActions.getSystemProperty(key);
+      if (value != null && !value.trim().equals(""))
       {
-         if (logger.isDebugEnabled())
+         try
          {
-            logger.debug("Setting interval to Long.MAX_VALUE");  
+            return Math.max(1, Integer.parseInt(value.trim()));
+         }
+         catch (Throwable t)
+         {
+            // Use the default
          }
-         
-         interval = Long.MAX_VALUE;
       }
+
+      return defaultValue;
    }
 
    /**
@@ -229,12 +334,30 @@ public class ConnectionValidator
     */
    private static class ValidatorThreadFactory implements ThreadFactory
    {
+      /** Number the threads */
+      private final boolean numbered;
+
+      /** Thread counter */
+      private final AtomicInteger counter = new AtomicInteger(0);
+
+      /**
+       * Constructor
+       * @param numbered Number the threads
+       */
+      ValidatorThreadFactory(boolean numbered)
+      {
+         this.numbered = numbered;
+      }
+
       /**
        * {@inheritDoc}
        */
       public Thread newThread(Runnable r)
       {
-         Thread thread = new Thread(r, ConnectionValidator.THREAD_NAME);
+         String name = numbered ? ConnectionValidator.THREAD_NAME + " " + counter.incrementAndGet() :
+            ConnectionValidator.THREAD_NAME;
+
+         Thread thread = new Thread(r, name);
          thread.setDaemon(true);
          
          return thread;
@@ -242,67 +365,114 @@ public class ConnectionValidator
    }
    
    /**
-    * ConnectionValidatorRunner.
-    *
+    * The validation schedule of a pool
     */
-   private class ConnectionValidatorRunner implements Runnable
+   private class PoolValidation implements Runnable
    {
+      /** The pool */
+      private final ManagedConnectionPool mcp;
+
+      /** The period in milliseconds */
+      private final long period;
+
+      /** Is a validation run active */
+      private final AtomicBoolean running;
+
+      /** The scheduled ticks */
+      private ScheduledFuture<?> future;
+
       /**
-       * {@inheritDoc}
+       * Constructor
+       * @param mcp The pool
+       * @param period The period
        */
-      public void run()
+      PoolValidation(ManagedConnectionPool mcp, long period)
       {
-         final ClassLoader oldTccl = SecurityActions.getThreadContextClassLoader();
-         SecurityActions.setThreadContextClassLoader(ConnectionValidator.class.getClassLoader());
-         
-         try
-         {
+         this.mcp = mcp;
+         this.period = period;
+         this.running = new AtomicBoolean(false);
+         this.future = null;
+      }
 
+      /**
+       * Schedule the validation runs
+       */
+      void schedule()
+      {
+         future = scheduler.scheduleAtFixedRate(this, period, period, TimeUnit.MILLISECONDS);
+      }
 
-            while (!shutdown.get())
-            {
-               try
-               {
-                  lock.lock();
+      /**
+       * Cancel the validation runs
+       */
+      void cancel()
+      {
+         if (future != null)
+         {
+            future.cancel(false);
+            future = null;
+         }
+      }
 
-                  boolean result = instance.condition.await(instance.interval, TimeUnit.MILLISECONDS);
+      /**
+       * Dispatch a validation run unless the previous one is still active
+       */
+      public void run()
+      {
+         if (shutdown.get())
+            return;
 
-                  if (logger.isTraceEnabled())
-                  {
-                     logger.trace("Result of await: " + result);
-                  }
+         if (!running.compareAndSet(false, true))
+         {
+            if (logger.isTraceEnabled())
+               logger.tracef("Validation of pool %s still active", mcp);
 
-                  if (logger.isDebugEnabled())
-                  {
-                     logger.debug("Notifying pools, interval: " + interval);
-                  }
-               } finally {
-                  lock.unlock();
-               }
+            return;
+         }
 
-               for (ManagedConnectionPool mcp : registeredPools)
+         try
+         {
+            executorService.execute(new Runnable()
+            {
+               /**
+                * {@inheritDoc}
+                */
+               public void run()
                {
-                  mcp.validateConnections();
+                  validate();
                }
+            });
+         }
+         catch (RuntimeException e)
+         {
+            running.set(false);
 
-               try {
-                  lock.lock();
-                  next = System.currentTimeMillis() + interval;
+            if (!shutdown.get())
+               logger.connectionValidatorIgnoredUnexpectedRuntimeException(e);
+         }
+      }
 
-                  if (next < 0)
-                  {
-                     next = Long.MAX_VALUE;
-                  }
-               } finally {
-                  lock.unlock();
-               }
+      /**
+       * Validate the connections of the pool
+       */
+      private void validate()
+      {
+         final ClassLoader oldTccl = SecurityActions.getThreadContextClassLoader();
+         SecurityActions.setThreadContextClassLoader(ConnectionValidator.class.getClassLoader());
+         
+         try
+         {
+            if (logger.isDebugEnabled())
+               logger.debug("Notifying pool: " + mcp + ", interval: " + period);
 
-            }            
+            mcp.validateConnections();
          }
          catch (InterruptedException e)
          {
             if (!shutdown.get())
                logger.returningConnectionValidatorInterrupted();
+
+            Thread.currentThread().interrupt();
          }
          catch (RuntimeException e)
          {
@@ -314,6 +484,7 @@ public class ConnectionValidator
          }         
          finally
          {
+            running.set(false);
             SecurityActions.setThreadContextClassLoader(oldTccl);
          }
       }
@@ -0,0 +1,138 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.pool.validator;
+
+import org.jboss.jca.core.CoreLogger;
+
+import org.jboss.logging.Logger;
+
+/**
+ * The helpers forked for a validation run of a pool.
+ *
+ * Helpers that haven't started when the run joins the batch are skipped, since the run
+ * only joins once there is nothing left to validate; so the run never waits for a helper
+ * that is queued behind other validation runs
+ */
+public final class ValidationBatch
+{
+   /** Logger instance */
+   private static CoreLogger logger = Logger.getMessageLogger(CoreLogger.class, ValidationBatch.class.getName());
+
+   /** The task */
+   private final Runnable task;
+
+   /** The number of started helpers */
+   private int started;
+
+   /** The number of finished helpers */
+   private int finished;
+
+   /** Is the batch joined */
+   private boolean joined;
+
+   /**
+    * Constructor
+    * @param task The task
+    */
+   ValidationBatch(Runnable task)
+   {
+      this.task = task;
+      this.started = 0;
+      this.finished = 0;
+      this.joined = false;
+   }
+
+   /**
+    * Wait for the started helpers to finish, and skip the others
+    */
+   public void join()
+   {
+      boolean interrupted = false;
+
+      synchronized (this)
+      {
+         joined = true;
+
+         while (finished < started)
+         {
+            try
+            {
+               wait();
+            }
+            catch (InterruptedException ie)
+            {
+               interrupted = true;
+            }
+         }
+      }
+
+      if (interrupted)
+         Thread.currentThread().interrupt();
+   }
+
+   /**
+    * Create a helper
+    * @return The helper
+    */
+   Runnable helper()
+   {
+      return new Runnable()
+      {
+         /**
+          * {@inheritDoc}
+          */
+         public void run()
+         {
+            synchronized (ValidationBatch.this)
+            {
+               if (joined)
+                  return;
+
+               started++;
+            }
+
+            final ClassLoader oldTccl = SecurityActions.getThreadContextClassLoader();
+            SecurityActions.setThreadContextClassLoader(ValidationBatch.class.getClassLoader());
+
+            try
+            {
+               task.run();
+            }
+            catch (Throwable t)
+            {
+               logger.debug("Exception during validation", t);
+            }
+            finally
+            {
+               synchronized (ValidationBatch.this)
+               {
+                  finished++;
+                  ValidationBatch.this.notifyAll();
+               }
+
+               SecurityActions.setThreadContextClassLoader(oldTccl);
+            }
+         }
+      };
+   }
+}
@@ -0,0 +1,270 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.jca.core.connectionmanager.transaction;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * The connection listeners tracked by a transaction, one slot per managed connection pool.
+ *
+ * A slot is claimed by a compare-and-set, so the thread that started to use the
+ * transaction can look up and publish its connection listeners without a lock. Other
+ * threads working on the same transaction are expected to take the transaction lock
+ * ({@link LockKey}) around their compound operations.
+ */
+public final class TransactionSlots
+{
+   /** The key in the transaction synchronization registry */
+   private static final Object KEY = new Key();
+
+   /** The monitors guarding the creation of the slots */
+   private static final Object[] CREATION = new Object[64];
+
+   /** Slots updater */
+   private static final AtomicReferenceFieldUpdater<TransactionSlots, Slot[]> SLOTS =
+      AtomicReferenceFieldUpdater.newUpdater(TransactionSlots.class, Slot[].class, "slots");
+
+   static
+   {
+      for (int i = 0; i < CREATION.length; i++)
+         CREATION[i] = new Object();
+   }
+
+   /** The owner */
+   private final Thread owner;
+
+   /** The slots */
+   private volatile Slot[] slots;
+
+   /**
+    * Constructor
+    * @param owner The owner
+    */
+   TransactionSlots(Thread owner)
+   {
+      this.owner = owner;
+      this.slots = new Slot[0];
+   }
+
+   /**
+    * Get the slots of the current transaction
+    * @param tsr The transaction synchronization registry
+    * @param create Create the slots if they don't exist
+    * @return The slots; <code>null</code> if there is no transaction, or no slots and <code>create</code>
+    *         isn't set
+    */
+   public static TransactionSlots getTransactionSlots(TransactionSynchronizationRegistry tsr, boolean create)
+   {
+      Object key = tsr.getTransactionKey();
+
+      if (key == null)
+         return null;
+
+      TransactionSlots result = (TransactionSlots)tsr.getResource(KEY);
+
+      if (result == null && create)
+      {
+         // Once per transaction, so an uncontended monitor is enough to stop two threads
+         // of the same transaction from installing different slots
+         synchronized (CREATION[(key.hashCode() & 0x7fffffff) % CREATION.length])
+         {
+            result = (TransactionSlots)tsr.getResource(KEY);
+
+            if (result == null)
+            {
+               result = new TransactionSlots(Thread.currentThread());
+               tsr.putResource(KEY, result);
+            }
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Is the current thread the owner of the transaction; the thread that created the slots
+    * @return True if the owner, otherwise false
+    */
+   public boolean isOwner()
+   {
+      return Thread.currentThread() == owner;
+   }
+
+   /**
+    * Get the connection listener of a pool
+    * @param pool The managed connection pool
+    * @return The connection listener; <code>null</code> if none
+    */
+   public ConnectionListener get(Object pool)
+   {
+      Slot slot = slot(pool, false);
+
+      return slot != null ? slot.cl : null;
+   }
+
+   /**
+    * Publish the connection listener of a pool, unless another one got there first
+    * @param pool The managed connection pool
+    * @param cl The connection listener
+    * @return The connection listener of the pool; <code>cl</code> if it was published
+    */
+   public ConnectionListener publish(Object pool, ConnectionListener cl)
+   {
+      Slot slot = slot(pool, true);
+
+      for (;;)
+      {
+         if (Slot.CL.compareAndSet(slot, null, cl))
+            return cl;
+
+         ConnectionListener other = slot.cl;
+
+         if (other != null)
+            return other;
+      }
+   }
+
+   /**
+    * Clear the slot of a pool, if it still holds the connection listener
+    * @param pool The managed connection pool
+    * @param cl The connection listener
+    * @return True if the slot was cleared; otherwise false
+    */
+   public boolean clear(Object pool, ConnectionListener cl)
+   {
+      Slot slot = slot(pool, false);
+
+      return slot != null && Slot.CL.compareAndSet(slot, cl, null);
+   }
+
+   /**
+    * Set the connection listener of a pool
+    * @param pool The managed connection pool
+    * @param cl The connection listener; <code>null</code> to clear the slot
+    */
+   public void set(Object pool, ConnectionListener cl)
+   {
+      Slot slot = slot(pool, cl != null);
+
+      if (slot != null)
+         slot.cl = cl;
+   }
+
+   /**
+    * Find the slot of a pool
+    * @param pool The managed connection pool
+    * @param create Add the slot if it doesn't exist
+    * @return The slot
+    */
+   private Slot slot(Object pool, boolean create)
+   {
+      for (;;)
+      {
+         Slot[] current = slots;
+
+         for (Slot slot : current)
+         {
+            if (slot.pool == pool)
+               return slot;
+         }
+
+         if (!create)
+            return null;
+
+         Slot[] update = new Slot[current.length + 1];
+         System.arraycopy(current, 0, update, 0, current.length);
+         update[current.length] = new Slot(pool);
+
+         if (SLOTS.compareAndSet(this, current, update))
+            return update[current.length];
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("TransactionSlots@").append(Integer.toHexString(System.identityHashCode(this)));
+      sb.append("[owner=").append(owner.getName());
+      sb.append(" slots=").append(slots.length);
+      sb.append("]");
+
+      return sb.toString();
+   }
+
+   /**
+    * The slot of a managed connection pool
+    */
+   static final class Slot
+   {
+      /** Connection listener updater */
+      static final AtomicReferenceFieldUpdater<Slot, ConnectionListener> CL =
+         AtomicReferenceFieldUpdater.newUpdater(Slot.class, ConnectionListener.class, "cl");
+
+      /** The managed connection pool */
+      final Object pool;
+
+      /** The connection listener */
+      volatile ConnectionListener cl;
+
+      /**
+       * Constructor
+       * @param pool The managed connection pool
+       */
+      Slot(Object pool)
+      {
+         this.pool = pool;
+      }
+   }
+
+   /**
+    * The key of the slots
+    */
+   static final class Key
+   {
+      /**
+       * Equals
+       * @param other The other object
+       * @return True if equal; otherwise false
+       */
+      public boolean equals(Object other)
+      {
+         return other instanceof Key;
+      }
+
+      /**
+       * Hash code
+       * @return The value
+       */
+      public int hashCode()
+      {
+         return 43;
+      }
+   }
+}
@@ -30,6 +30,7 @@ import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
 import org.jboss.jca.core.connectionmanager.listener.TxConnectionListener;
 import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.transaction.LockKey;
+import org.jboss.jca.core.connectionmanager.transaction.TransactionSlots;
 import org.jboss.jca.core.spi.transaction.TransactionIntegration;
 import org.jboss.jca.core.spi.transaction.TransactionTimeoutConfiguration;
 import org.jboss.jca.core.spi.transaction.TxUtils;
@@ -487,7 +488,12 @@ public class TxConnectionManagerImpl extends AbstractConnectionManager implement
 
                try
                {
-                  transactionSynchronizationRegistry.putResource(mcp, cl);
+                  // The owner of the transaction may publish without the lock
+                  ConnectionListener other =
+                     TransactionSlots.getTransactionSlots(transactionSynchronizationRegistry, true).publish(mcp, cl);
+
+                  if (other != cl)
+                     log.tracef("Already a connection tracked by transaction=%s (new=%s)", other, cl);
                }
                catch (Throwable t)
                {
@@ -834,19 +840,28 @@ public class TxConnectionManagerImpl extends AbstractConnectionManager implement
                }
                try
                {
-                  ConnectionListener existing =
-                     (ConnectionListener)transactionSynchronizationRegistry.getResource(cl.getManagedConnectionPool());
+                  TransactionSlots slots =
+                     TransactionSlots.getTransactionSlots(transactionSynchronizationRegistry, true);
+
+                  // We need to set track-by-transaction before we enlist, and claim the slot the same
+                  // way as the owner of the transaction, which doesn't take the lock
+                  cl.setTrackByTx(true);
+                  ConnectionListener existing = slots.publish(cl.getManagedConnectionPool(), cl);
 
-                  if (existing == null)
+                  if (existing == cl)
                   {
                      // We are the first ManagedConnection to enlist in this transaction
                      log.tracef("New connection tracked by transaction=%s", cl);
 
-                     // We need to set track-by-transaction before we enlist
-                     cl.setTrackByTx(true);
-                     cl.enlist();
-
-                     transactionSynchronizationRegistry.putResource(cl.getManagedConnectionPool(), cl);
+                     try
+                     {
+                        cl.enlist();
+                     }
+                     catch (Throwable t)
+                     {
+                        slots.clear(cl.getManagedConnectionPool(), cl);
+                        throw t;
+                     }
                   }
                   else
                   {
@@ -855,6 +870,8 @@ public class TxConnectionManagerImpl extends AbstractConnectionManager implement
 
                      if (cl.supportsLazyAssociation())
                      {
+                        cl.setTrackByTx(false);
+
                         // Dissociate if possible, as the reconnect will pick up the track-by-transaction cl
                         // and we can return this cl to the pool
                         DissociatableManagedConnection dmc = (DissociatableManagedConnection)cl.getManagedConnection();
@@ -21,9 +21,11 @@
  */
 package org.jboss.jca.core.security;
 
-import org.jboss.jca.core.spi.security.SubjectFactory;
+import org.jboss.jca.core.spi.security.CachingSubjectFactory;
+import org.jboss.jca.core.spi.security.SubjectInvalidationListener;
 
 import java.security.Principal;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.resource.spi.security.PasswordCredential;
 import javax.security.auth.Subject;
@@ -31,7 +33,7 @@ import javax.security.auth.Subject;
 /**
  * Implements a basic subject factory
  */
-public class DefaultSubjectFactory implements SubjectFactory
+public class DefaultSubjectFactory implements CachingSubjectFactory
 {
    /** The security domain name */
    private String securityDomain;
@@ -42,6 +44,10 @@ public class DefaultSubjectFactory implements SubjectFactory
    /** The password */
    private String password;
 
+   /** The invalidation listeners */
+   private CopyOnWriteArrayList<SubjectInvalidationListener> listeners =
+      new CopyOnWriteArrayList<SubjectInvalidationListener>();
+
    /**
     * Create a new DefaultSubjectFactory.
     */
@@ -80,6 +86,7 @@ public class DefaultSubjectFactory implements SubjectFactory
    public void setUserName(String v)
    {
       this.userName = v;
+      invalidate();
    }
 
    /**
@@ -89,6 +96,7 @@ public class DefaultSubjectFactory implements SubjectFactory
    public void setPassword(String v)
    {
       this.password = v;
+      invalidate();
    }
 
    @Override
@@ -118,6 +126,42 @@ public class DefaultSubjectFactory implements SubjectFactory
       return createSubject();
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   public Object getCallerIdentity(String sd)
+   {
+      // The subject only depends on the configured user
+      return userName;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void addInvalidationListener(SubjectInvalidationListener listener)
+   {
+      listeners.addIfAbsent(listener);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void removeInvalidationListener(SubjectInvalidationListener listener)
+   {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Invalidate the cached subjects
+    */
+   private void invalidate()
+   {
+      for (SubjectInvalidationListener listener : listeners)
+      {
+         listener.invalidate(null);
+      }
+   }
+
    @Override
    public int hashCode()
    {
@@ -22,9 +22,15 @@
 
 package org.jboss.jca.core.security;
 
+import org.jboss.jca.core.spi.security.SubjectFactory;
+
 import java.io.InputStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Set;
+
+import javax.resource.spi.security.PasswordCredential;
+import javax.security.auth.Subject;
 
 /**
  * Privileged Blocks
@@ -57,4 +63,83 @@ class SecurityActions
          }
       });
    }
+
+   /**
+    * Get a system property
+    * @param name The property name
+    * @return The property value
+    */
+   static String getSystemProperty(final String name)
+   {
+      if (System.getSecurityManager() == null)
+         return System.getProperty(name);
+
+      return AccessController.doPrivileged(new PrivilegedAction<String>() 
+      {
+         public String run()
+         {
+            return System.getProperty(name);
+         }
+      });
+   }
+
+   /**
+    * Get a Subject instance
+    * @param subjectFactory The subject factory
+    * @param domain The domain
+    * @return The instance
+    */
+   static Subject createSubject(final SubjectFactory subjectFactory, final String domain)
+   {
+      if (System.getSecurityManager() == null)
+         return subjectFactory.createSubject(domain);
+
+      return AccessController.doPrivileged(new PrivilegedAction<Subject>() 
+      {
+         public Subject run()
+         {
+            return subjectFactory.createSubject(domain);
+         }
+      });
+   }
+
+   /**
+    * Get the PasswordCredential from the Subject
+    * @param subject The subject
+    * @return The instances
+    */
+   static Set<PasswordCredential> getPasswordCredentials(final Subject subject)
+   {
+      if (System.getSecurityManager() == null)
+         return subject.getPrivateCredentials(PasswordCredential.class);
+
+      return AccessController.doPrivileged(new PrivilegedAction<Set<PasswordCredential>>() 
+      {
+         public Set<PasswordCredential> run()
+         {
+            return subject.getPrivateCredentials(PasswordCredential.class);
+         }
+      });
+   }
+
+   /**
+    * Get the hash code for a Subject
+    * @param subject The Subject
+    * @return The hash code
+    */
+   static int hashCode(final Subject subject)
+   {
+      if (System.getSecurityManager() == null)
+         return subject.hashCode();
+
+      Integer hashCode = AccessController.doPrivileged(new PrivilegedAction<Integer>() 
+      {
+         public Integer run()
+         {
+            return subject.hashCode();
+         }
+      });
+
+      return hashCode.intValue();
+   }
 }
@@ -0,0 +1,408 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.security;
+
+import org.jboss.jca.core.spi.security.CachingSubjectFactory;
+import org.jboss.jca.core.spi.security.SubjectInvalidationListener;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.resource.spi.ManagedConnectionFactory;
+import javax.resource.spi.security.PasswordCredential;
+import javax.security.auth.Subject;
+
+/**
+ * Cache for the subjects of a connection manager.
+ *
+ * Subjects are cached per security domain and caller identity for
+ * <code>ironjacamar.subject_cache_timeout</code> milliseconds (default 60000, 0 disables
+ * the cache), or until the subject factory invalidates them. At most
+ * <code>ironjacamar.subject_cache_size</code> subjects (default 1000) are cached, and the expired
+ * ones are purged once per timeout. The hash code of a cached subject is computed once, so the
+ * pools of the connection manager can look it up without hashing its credentials.
+ *
+ * Only subject factories implementing {@link CachingSubjectFactory} are cached, as the cache relies
+ * on the caller identity and the invalidations of the factory. The PicketBox subject factory doesn't
+ * implement it, so its subjects are created for every request as before
+ */
+public class SubjectCache implements SubjectInvalidationListener
+{
+
+   /** The default timeout */
+   private static final long DEFAULT_TIMEOUT = 60000L;
+
+   /** The default maximum number of cached subjects */
+   private static final long DEFAULT_MAX_SIZE = 1000L;
+
+   /** The subject factory */
+   private final CachingSubjectFactory subjectFactory;
+
+   /** The managed connection factory */
+   private final ManagedConnectionFactory mcf;
+
+   /** The timeout */
+   private final long timeout;
+
+   /** The maximum number of cached subjects */
+   private final long maxSize;
+
+   /** The cached subjects */
+   private final ConcurrentMap<Key, Entry> entries;
+
+   /** The hash codes of the cached subjects */
+   private final ConcurrentMap<SubjectReference, Integer> hashCodes;
+
+   /** The queue of the collected subjects */
+   private final ReferenceQueue<Subject> collected;
+
+   /** The time of the next purge of the expired subjects */
+   private final AtomicLong nextPurge;
+
+   /** The number of invalidations */
+   private final AtomicInteger invalidations;
+
+   /** Is the cache closed */
+   private volatile boolean closed;
+
+   /**
+    * Constructor
+    * @param subjectFactory The subject factory
+    * @param mcf The managed connection factory of the password credentials
+    */
+   public SubjectCache(CachingSubjectFactory subjectFactory, ManagedConnectionFactory mcf)
+   {
+      this.subjectFactory = subjectFactory;
+      this.mcf = mcf;
+      this.timeout = getLongProperty("ironjacamar.subject_cache_timeout", DEFAULT_TIMEOUT);
+      this.maxSize = getLongProperty("ironjacamar.subject_cache_size", DEFAULT_MAX_SIZE);
+      this.entries = new ConcurrentHashMap<Key, Entry>();
+      this.hashCodes = new ConcurrentHashMap<SubjectReference, Integer>();
+      this.collected = new ReferenceQueue<Subject>();
+      this.nextPurge = new AtomicLong(System.currentTimeMillis() + timeout);
+      this.invalidations = new AtomicInteger(0);
+      this.closed = false;
+
+      subjectFactory.addInvalidationListener(this);
+   }
+
+   /**
+    * Get the subject of the current caller
+    * @param sd The security domain
+    * @return The subject; <code>null</code> if it can't be cached
+    */
+   public Subject getSubject(String sd)
+   {
+      if (timeout <= 0 || closed)
+         return null;
+
+      Object identity = subjectFactory.getCallerIdentity(sd);
+      if (identity == null)
+         return null;
+
+      Key key = new Key(sd, identity);
+      long now = System.currentTimeMillis();
+
+      Entry entry = entries.get(key);
+      if (entry != null)
+      {
+         if (entry.expires > now)
+            return entry.subject;
+
+         remove(key, entry);
+      }
+
+      int generation = invalidations.get();
+      Subject subject = SecurityActions.createSubject(subjectFactory, sd);
+
+      Set<PasswordCredential> credentials = SecurityActions.getPasswordCredentials(subject);
+      if (credentials != null && credentials.size() > 0)
+      {
+         for (PasswordCredential pc : credentials)
+         {
+            pc.setManagedConnectionFactory(mcf);
+         }
+      }
+
+      purge(now);
+
+      // Don't cache a subject created before an invalidation
+      if (generation != invalidations.get() || closed || entries.size() >= maxSize)
+         return subject;
+
+      Entry newEntry = new Entry(subject, now + timeout);
+      hashCodes.put(new SubjectReference(subject, collected), Integer.valueOf(SecurityActions.hashCode(subject)));
+
+      Entry old = entries.put(key, newEntry);
+      if (old != null)
+         hashCodes.remove(new SubjectReference(old.subject));
+
+      // An invalidation may have missed the new entry
+      if (generation != invalidations.get() || closed)
+         remove(key, newEntry);
+
+      return subject;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void invalidate(String sd)
+   {
+      invalidations.incrementAndGet();
+
+      Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+      while (it.hasNext())
+      {
+         Map.Entry<Key, Entry> e = it.next();
+
+         if (sd == null || sd.equals(e.getKey().sd))
+         {
+            it.remove();
+            hashCodes.remove(new SubjectReference(e.getValue().subject));
+         }
+      }
+   }
+
+   /**
+    * Close the cache
+    */
+   public void close()
+   {
+      closed = true;
+      subjectFactory.removeInvalidationListener(this);
+      invalidate(null);
+      hashCodes.clear();
+   }
+
+   /**
+    * Remove a cached subject
+    * @param key The key
+    * @param entry The entry
+    */
+   private void remove(Key key, Entry entry)
+   {
+      if (entries.remove(key, entry))
+         hashCodes.remove(new SubjectReference(entry.subject));
+   }
+
+   /**
+    * Purge the expired subjects, at most once per timeout
+    * @param now The current time
+    */
+   private void purge(long now)
+   {
+      long next = nextPurge.get();
+      if (now < next || !nextPurge.compareAndSet(next, now + timeout))
+         return;
+
+      Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+      while (it.hasNext())
+      {
+         Map.Entry<Key, Entry> e = it.next();
+
+         if (e.getValue().expires <= now)
+            remove(e.getKey(), e.getValue());
+      }
+
+      SubjectReference ref = (SubjectReference)collected.poll();
+      while (ref != null)
+      {
+         hashCodes.remove(ref);
+         ref = (SubjectReference)collected.poll();
+      }
+   }
+
+   /**
+    * Get the hash code of a cached subject
+    * @param subject The subject
+    * @return The value; <code>null</code> if the subject isn't cached
+    */
+   public Integer getHashCode(Subject subject)
+   {
+      if (hashCodes.isEmpty())
+         return null;
+
+      return hashCodes.get(new SubjectReference(subject));
+   }
+
+   /**
+    * Get a long system property
+    * @param name The name of the property
+    * @param defaultValue The default value
+    * @return The value
+    */
+   private static long getLongProperty(String name, long defaultValue)
+   {
+      String value = SecurityActions.getSystemProperty(name);
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            return Long.parseLong(value.trim());
+         }
+         catch (Throwable t)
+         {
+            // Use the default
+         }
+      }
+
+      return defaultValue;
+   }
+
+   /**
+    * The key of a cached subject
+    */
+   private static class Key
+   {
+      /** The security domain */
+      private final String sd;
+
+      /** The caller identity */
+      private final Object identity;
+
+      /**
+       * Constructor
+       * @param sd The security domain
+       * @param identity The caller identity
+       */
+      Key(String sd, Object identity)
+      {
+         this.sd = sd;
+         this.identity = identity;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int hashCode()
+      {
+         return 31 * (sd != null ? sd.hashCode() : 0) + identity.hashCode();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+
+         if (!(obj instanceof Key))
+            return false;
+
+         Key other = (Key)obj;
+
+         return (sd == null ? other.sd == null : sd.equals(other.sd)) && identity.equals(other.identity);
+      }
+   }
+
+   /**
+    * A cached subject
+    */
+   private static class Entry
+   {
+      /** The subject */
+      private final Subject subject;
+
+      /** The expiry time */
+      private final long expires;
+
+      /**
+       * Constructor
+       * @param subject The subject
+       * @param expires The expiry time
+       */
+      Entry(Subject subject, long expires)
+      {
+         this.subject = subject;
+         this.expires = expires;
+      }
+   }
+
+   /**
+    * Weak reference to a subject by identity. A collected reference is only equal to itself,
+    * so it can still be removed from the hash codes
+    */
+   private static class SubjectReference extends WeakReference<Subject>
+   {
+      /** The identity hash code of the subject */
+      private final int hash;
+
+      /**
+       * Constructor
+       * @param subject The subject
+       */
+      SubjectReference(Subject subject)
+      {
+         super(subject);
+         this.hash = System.identityHashCode(subject);
+      }
+
+      /**
+       * Constructor
+       * @param subject The subject
+       * @param queue The queue the reference is put on once the subject is collected
+       */
+      SubjectReference(Subject subject, ReferenceQueue<Subject> queue)
+      {
+         super(subject, queue);
+         this.hash = System.identityHashCode(subject);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+
+         if (!(obj instanceof SubjectReference))
+            return false;
+
+         Subject subject = get();
+
+         return subject != null && ((SubjectReference)obj).get() == subject;
+      }
+   }
+}
@@ -0,0 +1,306 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.tracer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary trace file format written by the {@link TraceRecorder}.
+ *
+ * A file starts with a header, followed by string and event records. A string is written
+ * once, before the first event using it, and events refer to it by its identifier. Events
+ * are fixed size, and are written in batches per thread, so they are ordered by their
+ * timestamp when read
+ */
+public final class TraceFile
+{
+   /** The magic number, 0x89 followed by "IJT" so that a text log is never taken for a trace file */
+   public static final int MAGIC = 0x89494A54;
+
+   /** The format version */
+   public static final int FORMAT = 1;
+
+   /** String record */
+   static final byte STRING = 0;
+
+   /** Event record */
+   static final byte EVENT = 1;
+
+   /** No value */
+   static final byte NONE = 0;
+
+   /** Identity of an object */
+   static final byte IDENTITY = 1;
+
+   /** Identifier of a string */
+   static final byte TEXT = 2;
+
+   /**
+    * Constructor
+    */
+   private TraceFile()
+   {
+   }
+
+   /**
+    * Is the file a binary trace file, that is, does it start with the magic number followed
+    * by the format version
+    * @param file The file
+    * @return True if it is; otherwise false
+    * @exception IOException Thrown if the file can't be read
+    */
+   public static boolean isTraceFile(File file) throws IOException
+   {
+      DataInputStream dis = new DataInputStream(new FileInputStream(file));
+      try
+      {
+         return dis.readInt() == MAGIC && dis.readInt() == FORMAT;
+      }
+      catch (EOFException eof)
+      {
+         return false;
+      }
+      finally
+      {
+         dis.close();
+      }
+   }
+
+   /**
+    * Read the events of a binary trace file
+    * @param file The file
+    * @return The events, ordered by their timestamp
+    * @exception IOException Thrown if the file can't be read
+    */
+   public static List<TraceEvent> read(File file) throws IOException
+   {
+      InputStream is = new BufferedInputStream(new FileInputStream(file), 65536);
+      try
+      {
+         return read(is);
+      }
+      finally
+      {
+         is.close();
+      }
+   }
+
+   /**
+    * Read the events of a binary trace
+    * @param is The input stream
+    * @return The events, ordered by their timestamp
+    * @exception IOException Thrown if the trace can't be read
+    */
+   public static List<TraceEvent> read(InputStream is) throws IOException
+   {
+      Reader reader = new Reader(is);
+      List<TraceEvent> result = new ArrayList<TraceEvent>();
+
+      TraceEvent te = reader.next();
+      while (te != null)
+      {
+         result.add(te);
+         te = reader.next();
+      }
+
+      Collections.sort(result, new Comparator<TraceEvent>()
+      {
+         public int compare(TraceEvent e1, TraceEvent e2)
+         {
+            return Long.compare(e1.getTimestamp(), e2.getTimestamp());
+         }
+      });
+
+      return result;
+   }
+
+   /**
+    * Write the header
+    * @param out The output
+    * @exception IOException Thrown if an error occurs
+    */
+   static void writeHeader(DataOutput out) throws IOException
+   {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+   }
+
+   /**
+    * Write a string record
+    * @param out The output
+    * @param id The identifier
+    * @param value The value
+    * @exception IOException Thrown if an error occurs
+    */
+   static void writeString(DataOutput out, int id, String value) throws IOException
+   {
+      byte[] data = value.getBytes(StandardCharsets.UTF_8);
+
+      out.writeByte(STRING);
+      out.writeInt(id);
+      out.writeInt(data.length);
+      out.write(data);
+   }
+
+   /**
+    * Write the fixed part of an event record; followed by four values
+    * @param out The output
+    * @param pool The identifier of the pool name
+    * @param threadId The thread id
+    * @param type The type
+    * @param timestamp The timestamp
+    * @exception IOException Thrown if an error occurs
+    */
+   static void writeEvent(DataOutput out, int pool, long threadId, int type, long timestamp) throws IOException
+   {
+      out.writeByte(EVENT);
+      out.writeInt(pool);
+      out.writeLong(threadId);
+      out.writeInt(type);
+      out.writeLong(timestamp);
+   }
+
+   /**
+    * Write a value of an event record
+    * @param out The output
+    * @param kind The kind of value
+    * @param value The identity of an object, or the identifier of a string
+    * @exception IOException Thrown if an error occurs
+    */
+   static void writeValue(DataOutput out, byte kind, int value) throws IOException
+   {
+      out.writeByte(kind);
+      out.writeInt(value);
+   }
+
+   /**
+    * Read a value of an event record
+    * @param in The input
+    * @param strings The strings
+    * @param none The representation of no value
+    * @return The value
+    * @exception IOException Thrown if an error occurs
+    */
+   private static String readValue(DataInput in, Map<Integer, String> strings, String none) throws IOException
+   {
+      byte kind = in.readByte();
+      int value = in.readInt();
+
+      if (kind == IDENTITY)
+         return Integer.toHexString(value);
+
+      if (kind == TEXT)
+         return strings.get(Integer.valueOf(value));
+
+      return none;
+   }
+
+   /**
+    * Reads the events of a binary trace one at a time, in the order they were written
+    */
+   public static final class Reader
+   {
+      /** The input */
+      private final DataInputStream dis;
+
+      /** The strings */
+      private final Map<Integer, String> strings;
+
+      /**
+       * Constructor
+       * @param is The input stream, positioned at the header
+       * @exception IOException Thrown if the input isn't a trace
+       */
+      public Reader(InputStream is) throws IOException
+      {
+         this.dis = new DataInputStream(is);
+         this.strings = new HashMap<Integer, String>();
+
+         if (dis.readInt() != MAGIC)
+            throw new IOException("Not a trace file");
+
+         int format = dis.readInt();
+         if (format != FORMAT)
+            throw new IOException("Unsupported trace file format: " + format);
+      }
+
+      /**
+       * Read the next event
+       * @return The event, or <code>null</code> at the end of the trace
+       * @exception IOException Thrown if the trace can't be read
+       */
+      public TraceEvent next() throws IOException
+      {
+         try
+         {
+            int tag = dis.read();
+            while (tag == STRING)
+            {
+               int id = dis.readInt();
+               byte[] data = new byte[dis.readInt()];
+               dis.readFully(data);
+               strings.put(Integer.valueOf(id), new String(data, StandardCharsets.UTF_8));
+
+               tag = dis.read();
+            }
+
+            if (tag == -1)
+               return null;
+
+            if (tag != EVENT)
+               throw new IOException("Corrupted trace file: " + tag);
+
+            String pool = strings.get(Integer.valueOf(dis.readInt()));
+            long threadId = dis.readLong();
+            int type = dis.readInt();
+            long timestamp = dis.readLong();
+            String mcp = readValue(dis, strings, "NONE");
+            String cl = readValue(dis, strings, "NONE");
+            String payload1 = readValue(dis, strings, "");
+            String payload2 = readValue(dis, strings, "");
+
+            return new TraceEvent(pool, mcp, threadId, type, timestamp, cl, payload1, payload2);
+         }
+         catch (EOFException eof)
+         {
+            // The last record was truncated
+            return null;
+         }
+      }
+   }
+}
@@ -0,0 +1,506 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.tracer;
+
+import org.jboss.jca.Version;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Records trace events into per-thread ring buffers, which a background thread drains
+ * into a binary {@link TraceFile}.
+ *
+ * Recording an event only stores the identities and references of its values, so the
+ * formatting of identifiers and call stacks happens on the writer thread. A thread never
+ * waits for the writer; if its ring buffer is full the event is dropped and counted
+ */
+public final class TraceRecorder implements Runnable
+{
+   /** The logger */
+   private static Logger log = Logger.getLogger(TraceRecorder.class);
+
+   /** Thread name */
+   private static final String THREAD_NAME = "Tracer";
+
+   /** The time the writer waits when there are no events, in nanoseconds */
+   private static final long IDLE = TimeUnit.MILLISECONDS.toNanos(10L);
+
+   /** The file */
+   private final File file;
+
+   /** The number of events of a ring buffer */
+   private final int capacity;
+
+   /** The ring buffers */
+   private final CopyOnWriteArrayList<Ring> rings;
+
+   /** The ring buffer of the current thread */
+   private final ThreadLocal<Ring> ring;
+
+   /** The number of dropped events */
+   private final AtomicLong dropped;
+
+   /** The strings written, only used by the writer */
+   private final Map<String, Integer> strings;
+
+   /** The output, only used by the writer */
+   private DataOutputStream out;
+
+   /** The writer thread */
+   private volatile Thread writer;
+
+   /** Running */
+   private volatile boolean running;
+
+   /**
+    * Constructor
+    * @param file The file
+    * @param capacity The number of events buffered per thread
+    */
+   public TraceRecorder(File file, int capacity)
+   {
+      int size = 1;
+      while (size < Math.max(2, capacity))
+         size <<= 1;
+
+      this.file = file;
+      this.capacity = size;
+      this.rings = new CopyOnWriteArrayList<Ring>();
+      this.ring = new ThreadLocal<Ring>();
+      this.dropped = new AtomicLong(0);
+      this.strings = new HashMap<String, Integer>();
+      this.out = null;
+      this.writer = null;
+      this.running = false;
+   }
+
+   /**
+    * Open the file, and start the writer
+    * @exception IOException Thrown if the file can't be opened
+    */
+   public synchronized void start() throws IOException
+   {
+      if (running)
+         return;
+
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+      TraceFile.writeHeader(out);
+
+      TraceFile.writeEvent(out, pool(Version.VERSION), Thread.currentThread().getId(),
+                           TraceEvent.VERSION, System.nanoTime());
+      TraceFile.writeValue(out, TraceFile.NONE, 0);
+      TraceFile.writeValue(out, TraceFile.NONE, 0);
+      TraceFile.writeValue(out, TraceFile.NONE, 0);
+      TraceFile.writeValue(out, TraceFile.NONE, 0);
+
+      running = true;
+
+      Thread t = new Thread(this, THREAD_NAME);
+      t.setDaemon(true);
+      writer = t;
+      t.start();
+
+      Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+      {
+         public void run()
+         {
+            stop();
+         }
+      }, THREAD_NAME));
+   }
+
+   /**
+    * Write the remaining events, and close the file
+    */
+   public void stop()
+   {
+      Thread t;
+      synchronized (this)
+      {
+         if (!running)
+            return;
+
+         running = false;
+         t = writer;
+         writer = null;
+      }
+
+      if (t != null)
+      {
+         LockSupport.unpark(t);
+         try
+         {
+            t.join();
+         }
+         catch (InterruptedException ie)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   /**
+    * Get the number of events dropped as a ring buffer was full
+    * @return The value
+    */
+   public long getDropped()
+   {
+      return dropped.get();
+   }
+
+   /**
+    * Record an event
+    * @param pool The name of the pool
+    * @param mcp The managed connection pool, or <code>null</code>
+    * @param type The type
+    * @param cl The connection listener, or <code>null</code>
+    * @param payload1 The first payload; a string, a throwable, another object identified by its
+    *                 identity, or <code>null</code>
+    * @param payload2 The second payload; like the first one
+    */
+   public void record(String pool, Object mcp, int type, Object cl, Object payload1, Object payload2)
+   {
+      Ring r = ring.get();
+      if (r == null)
+      {
+         r = new Ring(Thread.currentThread(), capacity);
+         ring.set(r);
+         rings.add(r);
+      }
+
+      if (!r.offer(pool, mcp, type, cl, payload1, payload2))
+         dropped.incrementAndGet();
+   }
+
+   /**
+    * The writer
+    */
+   public void run()
+   {
+      try
+      {
+         while (running)
+         {
+            if (drain() == 0)
+            {
+               out.flush();
+               LockSupport.parkNanos(IDLE);
+            }
+         }
+
+         drain();
+      }
+      catch (Throwable t)
+      {
+         log.debugf(t, "Unable to write trace events to %s", file);
+      }
+      finally
+      {
+         try
+         {
+            out.close();
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Drain the ring buffers
+    * @return The number of events written
+    * @exception IOException Thrown if an error occurs
+    */
+   private int drain() throws IOException
+   {
+      int written = 0;
+
+      Iterator<Ring> it = rings.iterator();
+      while (it.hasNext())
+      {
+         Ring r = it.next();
+         written += r.drain(this);
+
+         if (r.isTerminated() && r.isEmpty())
+            rings.remove(r);
+      }
+
+      return written;
+   }
+
+   /**
+    * Write an event
+    * @param r The ring buffer
+    * @param slot The slot
+    * @exception IOException Thrown if an error occurs
+    */
+   private void write(Ring r, int slot) throws IOException
+   {
+      // Strings are written before the event using them
+      int pool = pool(r.pools[slot]);
+      for (int i = 0; i < Ring.VALUES; i++)
+      {
+         int index = slot * Ring.VALUES + i;
+
+         if (r.kinds[index] == TraceFile.TEXT)
+         {
+            Object o = r.references[index];
+            String s = o instanceof Throwable ? Tracer.toString((Throwable)o) : (String)o;
+            r.values[index] = string(s);
+         }
+      }
+
+      TraceFile.writeEvent(out, pool, r.threadId, r.types[slot], r.timestamps[slot]);
+
+      for (int i = 0; i < Ring.VALUES; i++)
+      {
+         int index = slot * Ring.VALUES + i;
+         TraceFile.writeValue(out, r.kinds[index], r.values[index]);
+      }
+   }
+
+   /**
+    * Get the identifier of a pool name, like a {@link TraceEvent} represents it
+    * @param pool The name of the pool
+    * @return The identifier
+    * @exception IOException Thrown if an error occurs
+    */
+   private int pool(String pool) throws IOException
+   {
+      return string(pool != null ? pool.replace('-', '_') : "Empty");
+   }
+
+   /**
+    * Get the identifier of a string, and write it if it is new
+    * @param s The string
+    * @return The identifier
+    * @exception IOException Thrown if an error occurs
+    */
+   private int string(String s) throws IOException
+   {
+      Integer id = strings.get(s);
+      if (id == null)
+      {
+         id = Integer.valueOf(strings.size());
+         strings.put(s, id);
+         TraceFile.writeString(out, id.intValue(), s);
+      }
+
+      return id.intValue();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("TraceRecorder@").append(Integer.toHexString(System.identityHashCode(this)));
+      sb.append("[file=").append(file);
+      sb.append(" capacity=").append(capacity);
+      sb.append(" rings=").append(rings.size());
+      sb.append(" dropped=").append(dropped.get());
+      sb.append(" running=").append(running);
+      sb.append("]");
+
+      return sb.toString();
+   }
+
+   /**
+    * A single producer, single consumer ring buffer of fixed size events
+    */
+   private static final class Ring
+   {
+      /** The number of values of an event: mcp, cl, payload1 and payload2 */
+      static final int VALUES = 4;
+
+      /** The thread */
+      final WeakReference<Thread> thread;
+
+      /** The thread id */
+      final long threadId;
+
+      /** The mask of the slot index */
+      final int mask;
+
+      /** The timestamps */
+      final long[] timestamps;
+
+      /** The types */
+      final int[] types;
+
+      /** The pool names */
+      final String[] pools;
+
+      /** The kinds of the values */
+      final byte[] kinds;
+
+      /** The identities of the values */
+      final int[] values;
+
+      /** The strings and throwables of the values */
+      final Object[] references;
+
+      /** The next event to write, only advanced by the writer */
+      final AtomicLong head;
+
+      /** The next event to record, only advanced by the owning thread */
+      final AtomicLong tail;
+
+      /**
+       * Constructor
+       * @param thread The owning thread
+       * @param capacity The capacity, a power of two
+       */
+      Ring(Thread thread, int capacity)
+      {
+         this.thread = new WeakReference<Thread>(thread);
+         this.threadId = thread.getId();
+         this.mask = capacity - 1;
+         this.timestamps = new long[capacity];
+         this.types = new int[capacity];
+         this.pools = new String[capacity];
+         this.kinds = new byte[capacity * VALUES];
+         this.values = new int[capacity * VALUES];
+         this.references = new Object[capacity * VALUES];
+         this.head = new AtomicLong(0);
+         this.tail = new AtomicLong(0);
+      }
+
+      /**
+       * Offer an event
+       * @param pool The name of the pool
+       * @param mcp The managed connection pool
+       * @param type The type
+       * @param cl The connection listener
+       * @param payload1 The first payload
+       * @param payload2 The second payload
+       * @return True if recorded; false if the ring buffer is full
+       */
+      boolean offer(String pool, Object mcp, int type, Object cl, Object payload1, Object payload2)
+      {
+         long t = tail.get();
+         if (t - head.get() > mask)
+            return false;
+
+         int slot = (int)(t & mask);
+         timestamps[slot] = System.nanoTime();
+         types[slot] = type;
+         pools[slot] = pool;
+
+         int index = slot * VALUES;
+         set(index, mcp);
+         set(index + 1, cl);
+         set(index + 2, payload1);
+         set(index + 3, payload2);
+
+         tail.lazySet(t + 1);
+         return true;
+      }
+
+      /**
+       * Write the recorded events
+       * @param recorder The recorder
+       * @return The number of events written
+       * @exception IOException Thrown if an error occurs
+       */
+      int drain(TraceRecorder recorder) throws IOException
+      {
+         long h = head.get();
+         long t = tail.get();
+
+         for (long i = h; i < t; i++)
+         {
+            int slot = (int)(i & mask);
+            recorder.write(this, slot);
+
+            pools[slot] = null;
+            for (int j = 0; j < VALUES; j++)
+               references[slot * VALUES + j] = null;
+         }
+
+         head.lazySet(t);
+         return (int)(t - h);
+      }
+
+      /**
+       * Is the ring buffer empty
+       * @return The value
+       */
+      boolean isEmpty()
+      {
+         return head.get() == tail.get();
+      }
+
+      /**
+       * Has the owning thread terminated
+       * @return The value
+       */
+      boolean isTerminated()
+      {
+         Thread t = thread.get();
+         return t == null || !t.isAlive();
+      }
+
+      /**
+       * Set a value
+       * @param index The index
+       * @param o The value
+       */
+      private void set(int index, Object o)
+      {
+         if (o == null)
+         {
+            kinds[index] = TraceFile.NONE;
+            values[index] = 0;
+         }
+         else if (o instanceof String || o instanceof Throwable)
+         {
+            kinds[index] = TraceFile.TEXT;
+            references[index] = o;
+         }
+         else
+         {
+            kinds[index] = TraceFile.IDENTITY;
+            values[index] = System.identityHashCode(o);
+         }
+      }
+   }
+}
@@ -24,6 +24,7 @@ package org.jboss.jca.core.tracer;
 import org.jboss.jca.Version;
 
 import java.io.CharArrayWriter;
+import java.io.File;
 import java.io.PrintWriter;
 
 import org.jboss.logging.Logger;
@@ -38,6 +39,9 @@ public class Tracer
    /** Tracer logger */
    private static Logger log = Logger.getLogger(Tracer.class);
    
+   /** The recorder, if the events are written to a trace file */
+   private static TraceRecorder recorder = null;
+
    /** Is the tracer enabled */
    private static boolean enabled = log.isTraceEnabled();
 
@@ -49,9 +53,31 @@ public class Tracer
 
    static
    {
-      log.tracef("%s", new TraceEvent(Version.VERSION, "NONE", TraceEvent.VERSION, "NONE"));
+      String value = SecurityActions.getSystemProperty("ironjacamar.tracer.file");
+      if (value != null && !value.trim().equals(""))
+      {
+         try
+         {
+            int capacity = 8192;
+            String buffer = SecurityActions.getSystemProperty("ironjacamar.tracer.buffer");
+            if (buffer != null && !buffer.trim().equals(""))
+               capacity = Integer.parseInt(buffer.trim());
+
+            recorder = new TraceRecorder(new File(value.trim()), capacity);
+            recorder.start();
+            enabled = true;
+         }
+         catch (Throwable t)
+         {
+            log.debugf(t, "Unable to write trace events to %s", value);
+            recorder = null;
+         }
+      }
 
-      String value = SecurityActions.getSystemProperty("ironjacamar.tracer.callstacks");
+      if (recorder == null)
+         log.tracef("%s", new TraceEvent(Version.VERSION, "NONE", TraceEvent.VERSION, "NONE"));
+
+      value = SecurityActions.getSystemProperty("ironjacamar.tracer.callstacks");
       if (value != null && !value.trim().equals(""))
       {
          try
@@ -125,45 +151,32 @@ public class Tracer
     * @param interleaving Interleaving flag
     * @param callstack The call stack
     */
-   public static synchronized void getConnectionListener(String poolName, Object mcp, Object cl,
-                                                         boolean pooled, boolean interleaving,
-                                                         Throwable callstack)
+   public static void getConnectionListener(String poolName, Object mcp, Object cl,
+                                            boolean pooled, boolean interleaving,
+                                            Throwable callstack)
    {
       if (!interleaving)
       {
          if (pooled)
          {
-            log.tracef("%s", new TraceEvent(poolName, Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.GET_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.GET_CONNECTION_LISTENER, cl, !confidential ? callstack : null, null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.GET_CONNECTION_LISTENER_NEW,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.GET_CONNECTION_LISTENER_NEW, cl, !confidential ? callstack : null, null);
          }
       }
       else
       {
          if (pooled)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.GET_INTERLEAVING_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.GET_INTERLEAVING_CONNECTION_LISTENER,
+                  cl, !confidential ? callstack : null, null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.GET_INTERLEAVING_CONNECTION_LISTENER_NEW,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.GET_INTERLEAVING_CONNECTION_LISTENER_NEW,
+                  cl, !confidential ? callstack : null, null);
          }
       }
    }
@@ -177,46 +190,33 @@ public class Tracer
     * @param interleaving Interleaving flag
     * @param callstack The call stack
     */
-   public static synchronized void returnConnectionListener(String poolName, Object mcp,
-                                                            Object cl, boolean kill, boolean interleaving,
-                                                            Throwable callstack)
+   public static void returnConnectionListener(String poolName, Object mcp,
+                                               Object cl, boolean kill, boolean interleaving,
+                                               Throwable callstack)
    {
       if (!interleaving)
       {
          if (!kill)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.RETURN_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.RETURN_CONNECTION_LISTENER, cl, !confidential ? callstack : null, null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.RETURN_CONNECTION_LISTENER_WITH_KILL,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.RETURN_CONNECTION_LISTENER_WITH_KILL,
+                  cl, !confidential ? callstack : null, null);
          }
       }
       else
       {
          if (!kill)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.RETURN_INTERLEAVING_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.RETURN_INTERLEAVING_CONNECTION_LISTENER,
+                  cl, !confidential ? callstack : null, null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.RETURN_INTERLEAVING_CONNECTION_LISTENER_WITH_KILL,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            !confidential && callstack != null ? toString(callstack) : ""));
+            event(poolName, mcp, TraceEvent.RETURN_INTERLEAVING_CONNECTION_LISTENER_WITH_KILL,
+                  cl, !confidential ? callstack : null, null);
          }
       }
    }
@@ -227,12 +227,9 @@ public class Tracer
     * @param mcp The managed connection pool
     * @param cl The connection listener
     */
-   public static synchronized void clearConnectionListener(String poolName, Object mcp, Object cl)
+   public static void clearConnectionListener(String poolName, Object mcp, Object cl)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.CLEAR_CONNECTION_LISTENER,
-                                      Integer.toHexString(System.identityHashCode(cl))));
+      event(poolName, mcp, TraceEvent.CLEAR_CONNECTION_LISTENER, cl, null, null);
    }
 
    /**
@@ -244,46 +241,31 @@ public class Tracer
     * @param success Outcome
     * @param interleaving Interleaving flag
     */
-   public static synchronized void enlistConnectionListener(String poolName, Object mcp, Object cl,
-                                                            String tx,
-                                                            boolean success, boolean interleaving)
+   public static void enlistConnectionListener(String poolName, Object mcp, Object cl,
+                                               String tx,
+                                               boolean success, boolean interleaving)
    {
       if (!interleaving)
       {
          if (success)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.ENLIST_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.ENLIST_CONNECTION_LISTENER, cl, tx.replace('-', '_'), null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.ENLIST_CONNECTION_LISTENER_FAILED,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.ENLIST_CONNECTION_LISTENER_FAILED, cl, tx.replace('-', '_'), null);
          }
       }
       else
       {
          if (success)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.ENLIST_INTERLEAVING_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.ENLIST_INTERLEAVING_CONNECTION_LISTENER, cl, tx.replace('-', '_'), null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.ENLIST_INTERLEAVING_CONNECTION_LISTENER_FAILED,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.ENLIST_INTERLEAVING_CONNECTION_LISTENER_FAILED,
+                  cl, tx.replace('-', '_'), null);
          }
       }
    }
@@ -298,8 +280,8 @@ public class Tracer
     * @param rollbacked Is the transaction rollbacked
     * @param interleaving Interleaving flag
     */
-   public static synchronized void delistConnectionListener(String poolName, Object mcp, Object cl, String tx,
-                                                            boolean success, boolean rollbacked, boolean interleaving)
+   public static void delistConnectionListener(String poolName, Object mcp, Object cl, String tx,
+                                               boolean success, boolean rollbacked, boolean interleaving)
    {
       if (!rollbacked)
       {
@@ -307,38 +289,23 @@ public class Tracer
          {
             if (success)
             {
-               log.tracef("%s", new TraceEvent(poolName,
-                                               Integer.toHexString(System.identityHashCode(mcp)),
-                                               TraceEvent.DELIST_CONNECTION_LISTENER,
-                                               Integer.toHexString(System.identityHashCode(cl)),
-                                               tx.replace('-', '_')));
+               event(poolName, mcp, TraceEvent.DELIST_CONNECTION_LISTENER, cl, tx.replace('-', '_'), null);
             }
             else
             {
-               log.tracef("%s", new TraceEvent(poolName,
-                                               Integer.toHexString(System.identityHashCode(mcp)),
-                                               TraceEvent.DELIST_CONNECTION_LISTENER_FAILED,
-                                               Integer.toHexString(System.identityHashCode(cl)),
-                                               tx.replace('-', '_')));
+               event(poolName, mcp, TraceEvent.DELIST_CONNECTION_LISTENER_FAILED, cl, tx.replace('-', '_'), null);
             }
          }
          else
          {
             if (success)
             {
-               log.tracef("%s", new TraceEvent(poolName,
-                                               Integer.toHexString(System.identityHashCode(mcp)),
-                                               TraceEvent.DELIST_INTERLEAVING_CONNECTION_LISTENER,
-                                               Integer.toHexString(System.identityHashCode(cl)),
-                                               tx.replace('-', '_')));
+               event(poolName, mcp, TraceEvent.DELIST_INTERLEAVING_CONNECTION_LISTENER, cl, tx.replace('-', '_'), null);
             }
             else
             {
-               log.tracef("%s", new TraceEvent(poolName,
-                                               Integer.toHexString(System.identityHashCode(mcp)),
-                                               TraceEvent.DELIST_INTERLEAVING_CONNECTION_LISTENER_FAILED,
-                                               Integer.toHexString(System.identityHashCode(cl)),
-                                               tx.replace('-', '_')));
+               event(poolName, mcp, TraceEvent.DELIST_INTERLEAVING_CONNECTION_LISTENER_FAILED,
+                     cl, tx.replace('-', '_'), null);
             }
          }
       }
@@ -346,19 +313,12 @@ public class Tracer
       {
          if (success)
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.DELIST_ROLLEDBACK_CONNECTION_LISTENER,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.DELIST_ROLLEDBACK_CONNECTION_LISTENER, cl, tx.replace('-', '_'), null);
          }
          else
          {
-            log.tracef("%s", new TraceEvent(poolName,
-                                            Integer.toHexString(System.identityHashCode(mcp)),
-                                            TraceEvent.DELIST_ROLLEDBACK_CONNECTION_LISTENER_FAILED,
-                                            Integer.toHexString(System.identityHashCode(cl)),
-                                            tx.replace('-', '_')));
+            event(poolName, mcp, TraceEvent.DELIST_ROLLEDBACK_CONNECTION_LISTENER_FAILED,
+                  cl, tx.replace('-', '_'), null);
          }
       }
    }
@@ -370,13 +330,9 @@ public class Tracer
     * @param cl The connection listener
     * @param connection The connection
     */
-   public static synchronized void getConnection(String poolName, Object mcp, Object cl, Object connection)
+   public static void getConnection(String poolName, Object mcp, Object cl, Object connection)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.GET_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection))));
+      event(poolName, mcp, TraceEvent.GET_CONNECTION, cl, connection, null);
    }
 
    /**
@@ -386,13 +342,9 @@ public class Tracer
     * @param cl The connection listener
     * @param connection The connection
     */
-   public static synchronized void returnConnection(String poolName, Object mcp, Object cl, Object connection)
+   public static void returnConnection(String poolName, Object mcp, Object cl, Object connection)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.RETURN_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection))));
+      event(poolName, mcp, TraceEvent.RETURN_CONNECTION, cl, connection, null);
    }
 
    /**
@@ -402,13 +354,9 @@ public class Tracer
     * @param cl The connection listener
     * @param connection The connection
     */
-   public static synchronized void clearConnection(String poolName, Object mcp, Object cl, Object connection)
+   public static void clearConnection(String poolName, Object mcp, Object cl, Object connection)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.CLEAR_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection))));
+      event(poolName, mcp, TraceEvent.CLEAR_CONNECTION, cl, connection, null);
    }
 
    /**
@@ -418,14 +366,10 @@ public class Tracer
     * @param cl The connection listener
     * @param exception The exception
     */
-   public static synchronized void exception(String poolName, Object mcp, Object cl, Throwable exception)
+   public static void exception(String poolName, Object mcp, Object cl, Throwable exception)
    {
       if (!confidential)
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.EXCEPTION,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         toString(exception)));
+         event(poolName, mcp, TraceEvent.EXCEPTION, cl, exception, null);
    }
 
    /**
@@ -439,36 +383,22 @@ public class Tracer
     * @param incrementer An INCREMENTER operation
     * @param callstack The call stack
     */
-   public static synchronized void createConnectionListener(String poolName, Object mcp, Object cl, Object mc,
-                                                            boolean get, boolean prefill, boolean incrementer,
-                                                            Throwable callstack)
+   public static void createConnectionListener(String poolName, Object mcp, Object cl, Object mc,
+                                               boolean get, boolean prefill, boolean incrementer,
+                                               Throwable callstack)
    {
       if (get)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.CREATE_CONNECTION_LISTENER_GET,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         Integer.toHexString(System.identityHashCode(mc)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.CREATE_CONNECTION_LISTENER_GET, cl, mc, !confidential ? callstack : null);
       }
       else if (prefill)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         Integer.toHexString(System.identityHashCode(mc)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.CREATE_CONNECTION_LISTENER_PREFILL, cl, mc, !confidential ? callstack : null);
       }
       else if (incrementer)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.CREATE_CONNECTION_LISTENER_INCREMENTER,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         Integer.toHexString(System.identityHashCode(mc)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.CREATE_CONNECTION_LISTENER_INCREMENTER,
+               cl, mc, !confidential ? callstack : null);
       }
    }
 
@@ -486,67 +416,43 @@ public class Tracer
     * @param incrementer An INCREMENTER operation
     * @param callstack The call stack
     */
-   public static synchronized void destroyConnectionListener(String poolName, Object mcp, Object cl,
-                                                             boolean ret, boolean idle, boolean invalid,
-                                                             boolean flush, boolean error,
-                                                             boolean prefill, boolean incrementer,
-                                                             Throwable callstack)
+   public static void destroyConnectionListener(String poolName, Object mcp, Object cl,
+                                                boolean ret, boolean idle, boolean invalid,
+                                                boolean flush, boolean error,
+                                                boolean prefill, boolean incrementer,
+                                                Throwable callstack)
    {
       if (ret)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_RETURN,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_RETURN,
+               cl, !confidential ? callstack : null, null);
       }
       else if (idle)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_IDLE,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_IDLE, cl, !confidential ? callstack : null, null);
       }
       else if (invalid)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_INVALID,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_INVALID,
+               cl, !confidential ? callstack : null, null);
       }
       else if (flush)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_FLUSH,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_FLUSH, cl, !confidential ? callstack : null, null);
       }
       else if (error)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_ERROR,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_ERROR, cl, !confidential ? callstack : null, null);
       }
       else if (prefill)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_PREFILL,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_PREFILL,
+               cl, !confidential ? callstack : null, null);
       }
       else if (incrementer)
       {
-         log.tracef("%s", new TraceEvent(poolName,
-                                         Integer.toHexString(System.identityHashCode(mcp)),
-                                         TraceEvent.DESTROY_CONNECTION_LISTENER_INCREMENTER,
-                                         Integer.toHexString(System.identityHashCode(cl)),
-                                         !confidential && callstack != null ? toString(callstack) : ""));
+         event(poolName, mcp, TraceEvent.DESTROY_CONNECTION_LISTENER_INCREMENTER,
+               cl, !confidential ? callstack : null, null);
       }
    }
 
@@ -555,12 +461,9 @@ public class Tracer
     * @param poolName The name of the pool
     * @param mcp The managed connection pool
     */
-   public static synchronized void createManagedConnectionPool(String poolName, Object mcp)
+   public static void createManagedConnectionPool(String poolName, Object mcp)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.MANAGED_CONNECTION_POOL_CREATE,
-                                      "NONE"));
+      event(poolName, mcp, TraceEvent.MANAGED_CONNECTION_POOL_CREATE, null, null, null);
    }
 
    /**
@@ -568,12 +471,9 @@ public class Tracer
     * @param poolName The name of the pool
     * @param mcp The managed connection pool
     */
-   public static synchronized void destroyManagedConnectionPool(String poolName, Object mcp)
+   public static void destroyManagedConnectionPool(String poolName, Object mcp)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.MANAGED_CONNECTION_POOL_DESTROY,
-                                      "NONE"));
+      event(poolName, mcp, TraceEvent.MANAGED_CONNECTION_POOL_DESTROY, null, null, null);
    }
 
    /**
@@ -581,10 +481,9 @@ public class Tracer
     * @param key The frame key
     * @param callstack The call stack
     */
-   public static synchronized void pushCCMContext(String key, Throwable callstack)
+   public static void pushCCMContext(String key, Throwable callstack)
    {
-      log.tracef("%s", new TraceEvent("CachedConnectionManager", "NONE", TraceEvent.PUSH_CCM_CONTEXT,
-                                      "NONE", key, callstack != null ? toString(callstack) : ""));
+      event("CachedConnectionManager", null, TraceEvent.PUSH_CCM_CONTEXT, null, key, callstack);
    }
 
    /**
@@ -592,10 +491,9 @@ public class Tracer
     * @param key The frame key
     * @param callstack The call stack
     */
-   public static synchronized void popCCMContext(String key, Throwable callstack)
+   public static void popCCMContext(String key, Throwable callstack)
    {
-      log.tracef("%s", new TraceEvent("CachedConnectionManager", "NONE", TraceEvent.POP_CCM_CONTEXT,
-                                      "NONE", key, callstack != null ? toString(callstack) : ""));
+      event("CachedConnectionManager", null, TraceEvent.POP_CCM_CONTEXT, null, key, callstack);
    }
 
    /**
@@ -606,15 +504,10 @@ public class Tracer
     * @param connection The connection
     * @param key The frame key
     */
-   public static synchronized void registerCCMConnection(String poolName, Object mcp, Object cl,
-                                                         Object connection, String key)
+   public static void registerCCMConnection(String poolName, Object mcp, Object cl,
+                                            Object connection, String key)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.REGISTER_CCM_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection)),
-                                      key));
+      event(poolName, mcp, TraceEvent.REGISTER_CCM_CONNECTION, cl, connection, key);
    }
 
    /**
@@ -625,15 +518,10 @@ public class Tracer
     * @param connection The connection
     * @param key The frame key
     */
-   public static synchronized void unregisterCCMConnection(String poolName, Object mcp, Object cl,
-                                                           Object connection, String key)
+   public static void unregisterCCMConnection(String poolName, Object mcp, Object cl,
+                                              Object connection, String key)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.UNREGISTER_CCM_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection)),
-                                      key));
+      event(poolName, mcp, TraceEvent.UNREGISTER_CCM_CONNECTION, cl, connection, key);
    }
 
    /**
@@ -644,15 +532,10 @@ public class Tracer
     * @param connection The connection
     * @param key The frame key
     */
-   public static synchronized void unknownCCMConnection(String poolName, Object mcp, Object cl,
-                                                        Object connection, String key)
+   public static void unknownCCMConnection(String poolName, Object mcp, Object cl,
+                                           Object connection, String key)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.UNKNOWN_CCM_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection)),
-                                      key));
+      event(poolName, mcp, TraceEvent.UNKNOWN_CCM_CONNECTION, cl, connection, key);
    }
 
    /**
@@ -663,15 +546,10 @@ public class Tracer
     * @param connection The connection
     * @param key The frame key
     */
-   public static synchronized void closeCCMConnection(String poolName, Object mcp, Object cl,
-                                                      Object connection, String key)
+   public static void closeCCMConnection(String poolName, Object mcp, Object cl,
+                                         Object connection, String key)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.CLOSE_CCM_CONNECTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection)),
-                                      key));
+      event(poolName, mcp, TraceEvent.CLOSE_CCM_CONNECTION, cl, connection, key);
    }
 
    /**
@@ -682,15 +560,63 @@ public class Tracer
     * @param connection The connection
     * @param key The frame key
     */
-   public static synchronized void ccmUserTransaction(String poolName, Object mcp, Object cl,
-                                                      Object connection, String key)
+   public static void ccmUserTransaction(String poolName, Object mcp, Object cl,
+                                         Object connection, String key)
    {
-      log.tracef("%s", new TraceEvent(poolName,
-                                      Integer.toHexString(System.identityHashCode(mcp)),
-                                      TraceEvent.CCM_USER_TRANSACTION,
-                                      Integer.toHexString(System.identityHashCode(cl)),
-                                      Integer.toHexString(System.identityHashCode(connection)),
-                                      key));
+      event(poolName, mcp, TraceEvent.CCM_USER_TRANSACTION, cl, connection, key);
+   }
+
+   /**
+    * Trace an event, either to the trace file or to the log
+    * @param poolName The name of the pool
+    * @param mcp The managed connection pool, or <code>null</code>
+    * @param type The type
+    * @param cl The connection listener, or <code>null</code>
+    * @param payload1 The first payload; a string, a throwable, another object identified by its
+    *                 identity, or <code>null</code>
+    * @param payload2 The second payload; like the first one
+    */
+   private static void event(String poolName, Object mcp, int type, Object cl, Object payload1, Object payload2)
+   {
+      TraceRecorder r = recorder;
+      if (r != null)
+      {
+         r.record(poolName, mcp, type, cl, payload1, payload2);
+      }
+      else
+      {
+         log.tracef("%s", new TraceEvent(poolName, mcp != null ? id(mcp) : "NONE", type,
+                                         cl != null ? id(cl) : "NONE", payload(payload1), payload(payload2)));
+      }
+   }
+
+   /**
+    * The identifier of an object
+    * @param o The object
+    * @return The value
+    */
+   static String id(Object o)
+   {
+      return Integer.toHexString(System.identityHashCode(o));
+   }
+
+   /**
+    * The string representation of a payload
+    * @param payload The payload
+    * @return The value
+    */
+   static String payload(Object payload)
+   {
+      if (payload == null)
+         return "";
+
+      if (payload instanceof String)
+         return (String)payload;
+
+      if (payload instanceof Throwable)
+         return toString((Throwable)payload);
+
+      return id(payload);
    }
 
    /**
@@ -698,7 +624,7 @@ public class Tracer
     * @param exception The exception
     * @return The string representation
     */
-   private static synchronized String toString(Throwable exception)
+   static String toString(Throwable exception)
    {
       CharArrayWriter caw = new CharArrayWriter();
       PrintWriter pw = new PrintWriter(caw, true);
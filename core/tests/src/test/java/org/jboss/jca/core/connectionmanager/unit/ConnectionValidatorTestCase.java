@@ -21,7 +21,22 @@
  */
 package org.jboss.jca.core.connectionmanager.unit;
 
+import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
+import org.jboss.jca.core.connectionmanager.pool.validator.ConnectionValidator;
+import org.jboss.jca.core.connectionmanager.pool.validator.ValidationBatch;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 /**
  * Connection Validator Tests.
@@ -32,11 +47,126 @@ import org.junit.Test;
 public class ConnectionValidatorTestCase
 {
    /**
-    * testValidateConnections.
+    * A pool with a slow validation doesn't delay the other pools, and is never
+    * validated by more than one run at the same time
+    * @throws Throwable in case of an error
     */
    @Test
-   public void testValidateConnections()
+   public void testValidateConnections() throws Throwable
    {
-      
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger slowActive = new AtomicInteger(0);
+      final AtomicInteger slowMaxActive = new AtomicInteger(0);
+      final AtomicInteger fastRuns = new AtomicInteger(0);
+      final CountDownLatch fastDone = new CountDownLatch(5);
+
+      ManagedConnectionPool slow = mock(ManagedConnectionPool.class);
+      doAnswer(new Answer<Void>()
+      {
+         public Void answer(InvocationOnMock invocation) throws Throwable
+         {
+            int active = slowActive.incrementAndGet();
+            if (active > slowMaxActive.get())
+               slowMaxActive.set(active);
+
+            try
+            {
+               release.await(10, TimeUnit.SECONDS);
+            }
+            finally
+            {
+               slowActive.decrementAndGet();
+            }
+            return null;
+         }
+      }).when(slow).validateConnections();
+
+      ManagedConnectionPool fast = mock(ManagedConnectionPool.class);
+      doAnswer(new Answer<Void>()
+      {
+         public Void answer(InvocationOnMock invocation) throws Throwable
+         {
+            fastRuns.incrementAndGet();
+            fastDone.countDown();
+            return null;
+         }
+      }).when(fast).validateConnections();
+
+      ConnectionValidator cv = ConnectionValidator.getInstance();
+      cv.start();
+      try
+      {
+         cv.registerPool(slow, 10L);
+         cv.registerPool(fast, 20L);
+
+         assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+         assertEquals(1, slowMaxActive.get());
+
+         cv.unregisterPool(fast);
+         Thread.sleep(50L);
+         int runs = fastRuns.get();
+         Thread.sleep(100L);
+         assertEquals(runs, fastRuns.get());
+      }
+      finally
+      {
+         release.countDown();
+         cv.stop();
+      }
+   }
+
+   /**
+    * The helpers of a validation run share the work, and a joined batch skips the
+    * helpers that haven't started
+    * @throws Throwable in case of an error
+    */
+   @Test
+   public void testFork() throws Throwable
+   {
+      final AtomicInteger work = new AtomicInteger(1000);
+      final AtomicInteger done = new AtomicInteger(0);
+
+      Runnable task = new Runnable()
+      {
+         public void run()
+         {
+            while (work.getAndDecrement() > 0)
+            {
+               done.incrementAndGet();
+               Thread.yield();
+            }
+         }
+      };
+
+      ConnectionValidator cv = ConnectionValidator.getInstance();
+      cv.start();
+      try
+      {
+         ValidationBatch batch = cv.fork(task);
+         task.run();
+         batch.join();
+
+         assertEquals(1000, done.get());
+
+         final AtomicInteger late = new AtomicInteger(0);
+         batch = cv.fork(new Runnable()
+         {
+            public void run()
+            {
+               late.incrementAndGet();
+            }
+         });
+         batch.join();
+         Thread.sleep(50L);
+
+         assertTrue(late.get() < cv.getBatchSize());
+      }
+      finally
+      {
+         cv.stop();
+      }
+
+      ValidationBatch batch = cv.fork(task);
+      batch.join();
    }
 }
@@ -21,8 +21,18 @@
  */
 package org.jboss.jca.core.connectionmanager.unit;
 
+import org.jboss.jca.core.connectionmanager.pool.idle.IdleConnectionRemovalSupport;
+import org.jboss.jca.core.connectionmanager.pool.idle.IdleRemover;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * IdleRemoverTestCase.
  * @author <a href="mailto:gurkanerdogdu@yahoo.com">Gurkan Erdogdu</a> 
@@ -32,12 +42,52 @@ import org.junit.Test;
 public class IdleRemoverTestCase
 {
    /**
-    * testIdleRemoveConnections.
+    * Each pool is notified at its own interval, and only while registered
+    * @throws Throwable in case of an error
     */
    @Test
-   public void testIdleRemoveConnections()
+   public void testIdleRemoveConnections() throws Throwable
    {
-      
-   }
+      final CountDownLatch fastDone = new CountDownLatch(3);
+      final AtomicInteger fastRuns = new AtomicInteger(0);
+      final AtomicInteger slowRuns = new AtomicInteger(0);
+
+      IdleConnectionRemovalSupport fast = new IdleConnectionRemovalSupport()
+      {
+         public void removeIdleConnections()
+         {
+            fastRuns.incrementAndGet();
+            fastDone.countDown();
+         }
+      };
 
+      IdleConnectionRemovalSupport slow = new IdleConnectionRemovalSupport()
+      {
+         public void removeIdleConnections()
+         {
+            slowRuns.incrementAndGet();
+         }
+      };
+
+      IdleRemover ir = IdleRemover.getInstance();
+      ir.start();
+      try
+      {
+         ir.registerPool(slow, 10L * 60 * 1000);
+         ir.registerPool(fast, 40L);
+
+         assertTrue(fastDone.await(10, TimeUnit.SECONDS));
+         assertEquals(0, slowRuns.get());
+
+         ir.unregisterPool(fast);
+         Thread.sleep(50L);
+         int runs = fastRuns.get();
+         Thread.sleep(100L);
+         assertEquals(runs, fastRuns.get());
+      }
+      finally
+      {
+         ir.stop();
+      }
+   }
 }
@@ -0,0 +1,176 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit;
+
+import org.jboss.jca.core.connectionmanager.LeakTracker;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>LeakTracker</code> unit test.
+ */
+public class LeakTrackerTestCase
+{
+   /**
+    * Tracked objects are found by identity, with a trimmed allocation site
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testTrack() throws Exception
+   {
+      LeakTracker tracker = new LeakTracker("test", 1.0, 10, 3, 0L);
+      String a = new String("handle");
+      String b = new String("handle");
+
+      assertTrue(tracker.track(a));
+      assertEquals(1, tracker.size());
+      assertNull(tracker.untrack(b));
+
+      List<LeakTracker.Allocation> allocations = tracker.getAllocations();
+      assertEquals(1, allocations.size());
+      assertSame(a, allocations.get(0).getObject());
+      assertEquals(Thread.currentThread().getName(), allocations.get(0).getThreadName());
+
+      StackTraceElement[] frames = allocations.get(0).getStackTrace();
+      assertEquals(3, frames.length);
+      // The core frames, including the test itself, are skipped
+      assertFalse(frames[0].getClassName().startsWith("org.jboss.jca.core."));
+
+      assertNotNull(tracker.untrack(a));
+      assertEquals(0, tracker.size());
+      assertNull(tracker.untrack(a));
+   }
+
+   /**
+    * A disabled tracker doesn't track anything
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testDisabled() throws Exception
+   {
+      LeakTracker tracker = new LeakTracker("test", 0.0, 10, 16, 0L);
+
+      assertFalse(tracker.isEnabled());
+      assertFalse(tracker.track(new Object()));
+      assertEquals(0, tracker.size());
+   }
+
+   /**
+    * Only a fraction of the objects are tracked, up to the capacity
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testSampling() throws Exception
+   {
+      LeakTracker tracker = new LeakTracker("test", 0.1, 10000, 16, 0L);
+      Object[] objects = new Object[10000];
+
+      int tracked = 0;
+      for (int i = 0; i < objects.length; i++)
+      {
+         objects[i] = new Object();
+         if (tracker.track(objects[i]))
+            tracked++;
+      }
+
+      assertEquals(tracked, tracker.size());
+      assertTrue("Tracked: " + tracked, tracked > 500 && tracked < 1500);
+
+      LeakTracker bounded = new LeakTracker("test", 1.0, 5, 16, 0L);
+      for (int i = 0; i < 10; i++)
+         bounded.track(objects[i]);
+
+      assertEquals(5, bounded.size());
+      assertEquals(5L, bounded.getDropped());
+
+      bounded.untrack(objects[0]);
+      assertTrue(bounded.track(objects[10]));
+   }
+
+   /**
+    * Objects held longer than the threshold are reported once
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testReport() throws Exception
+   {
+      LeakTracker tracker = new LeakTracker("test", 1.0, 10, 16, 1000L);
+      Object o = new Object();
+      tracker.track(o);
+
+      long now = System.currentTimeMillis();
+      assertEquals(0, tracker.report(now));
+      assertEquals(1, tracker.report(now + 1000L));
+      assertEquals(0, tracker.report(now + 2000L));
+
+      tracker.close();
+      assertEquals(0, tracker.size());
+
+      // Without a threshold nothing is reported
+      LeakTracker silent = new LeakTracker("test", 1.0, 10, 16, 0L);
+      silent.track(o);
+      assertEquals(0, silent.report(now + 1000000L));
+   }
+
+   /**
+    * A new tracker takes over the tracked objects of an old one, with their allocation sites
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testMigrate() throws Exception
+   {
+      LeakTracker old = new LeakTracker("test", 1.0, 10, 16, 1000L);
+      Object a = new Object();
+      Object b = new Object();
+      old.track(a);
+      old.track(b);
+
+      long now = System.currentTimeMillis();
+      assertEquals(2, old.report(now + 1000L));
+
+      LeakTracker disabled = new LeakTracker("test", 0.0, 10, 16, 1000L);
+      assertEquals(0, disabled.migrate(old));
+
+      LeakTracker bounded = new LeakTracker("test", 1.0, 1, 16, 1000L);
+      assertEquals(1, bounded.migrate(old));
+
+      LeakTracker tracker = new LeakTracker("test", 1.0, 10, 16, 1000L);
+      assertEquals(2, tracker.migrate(old));
+      assertEquals(0, tracker.migrate(old));
+      old.close();
+
+      assertEquals(2, tracker.size());
+      assertEquals(0, old.getAllocations().size());
+      // Already reported by the old tracker
+      assertEquals(0, tracker.report(now + 1000L));
+
+      LeakTracker.Allocation allocation = tracker.untrack(a);
+      assertNotNull(allocation);
+      assertTrue(allocation.getTime() <= now);
+      assertNotNull(tracker.untrack(b));
+   }
+}
@@ -0,0 +1,174 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit;
+
+import org.jboss.jca.core.security.DefaultSubjectFactory;
+import org.jboss.jca.core.security.SubjectCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.security.auth.Subject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * SubjectCacheTestCase
+ */
+public class SubjectCacheTestCase
+{
+   /**
+    * Subjects are created once per security domain and caller identity, until they
+    * are invalidated
+    * @throws Throwable in case of an error
+    */
+   @Test
+   public void testCache() throws Throwable
+   {
+      final AtomicInteger created = new AtomicInteger(0);
+
+      DefaultSubjectFactory sf = new DefaultSubjectFactory("domain", "user", "password")
+      {
+         @Override
+         public Subject createSubject()
+         {
+            created.incrementAndGet();
+            return super.createSubject();
+         }
+      };
+
+      SubjectCache cache = new SubjectCache(sf, null);
+      try
+      {
+         Subject s1 = cache.getSubject("domain");
+         Subject s2 = cache.getSubject("domain");
+
+         assertNotNull(s1);
+         assertSame(s1, s2);
+         assertEquals(1, created.get());
+         assertEquals(Integer.valueOf(s1.hashCode()), cache.getHashCode(s1));
+
+         // The hash codes belong to the cache
+         SubjectCache otherCache = new SubjectCache(new DefaultSubjectFactory("domain", "user", "password"), null);
+         assertNull(otherCache.getHashCode(s1));
+         otherCache.close();
+
+         Subject other = cache.getSubject("other");
+         assertNotSame(s1, other);
+         assertEquals(2, created.get());
+
+         sf.setPassword("changed");
+         assertNull(cache.getHashCode(s1));
+
+         Subject s3 = cache.getSubject("domain");
+         assertNotSame(s1, s3);
+         assertEquals(3, created.get());
+      }
+      finally
+      {
+         cache.close();
+      }
+
+      assertNull(cache.getSubject("domain"));
+   }
+
+   /**
+    * A subject created while the cache is invalidated isn't cached
+    * @throws Throwable in case of an error
+    */
+   @Test
+   public void testInvalidatedDuringCreation() throws Throwable
+   {
+      final AtomicReference<SubjectCache> holder = new AtomicReference<SubjectCache>();
+      final AtomicInteger created = new AtomicInteger(0);
+
+      DefaultSubjectFactory sf = new DefaultSubjectFactory("domain", "user", "password")
+      {
+         @Override
+         public Subject createSubject()
+         {
+            if (created.incrementAndGet() == 1)
+               holder.get().invalidate(null);
+
+            return super.createSubject();
+         }
+      };
+
+      SubjectCache cache = new SubjectCache(sf, null);
+      holder.set(cache);
+      try
+      {
+         Subject s1 = cache.getSubject("domain");
+         assertNotNull(s1);
+         assertNull(cache.getHashCode(s1));
+
+         Subject s2 = cache.getSubject("domain");
+         assertNotSame(s1, s2);
+         assertEquals(2, created.get());
+         assertSame(s2, cache.getSubject("domain"));
+      }
+      finally
+      {
+         cache.close();
+      }
+   }
+
+   /**
+    * No more than the maximum number of subjects are cached
+    * @throws Throwable in case of an error
+    */
+   @Test
+   public void testMaxSize() throws Throwable
+   {
+      DefaultSubjectFactory sf = new DefaultSubjectFactory("domain", "user", "password");
+
+      System.setProperty("ironjacamar.subject_cache_size", "2");
+      SubjectCache cache = null;
+      try
+      {
+         cache = new SubjectCache(sf, null);
+
+         Subject s1 = cache.getSubject("first");
+         Subject s2 = cache.getSubject("second");
+         Subject s3 = cache.getSubject("third");
+
+         assertNotNull(cache.getHashCode(s1));
+         assertNotNull(cache.getHashCode(s2));
+         assertNull(cache.getHashCode(s3));
+         assertNotSame(s3, cache.getSubject("third"));
+      }
+      finally
+      {
+         System.clearProperty("ironjacamar.subject_cache_size");
+
+         if (cache != null)
+            cache.close();
+      }
+   }
+}
@@ -0,0 +1,190 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.transaction.TransactionSlots;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * <code>TransactionSlots</code> unit test.
+ */
+public class TransactionSlotsTestCase
+{
+   /**
+    * The slots are created once per transaction, by their owner
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testCreate() throws Exception
+   {
+      TransactionSynchronizationRegistry tsr = registry("tx");
+
+      assertNull(TransactionSlots.getTransactionSlots(tsr, false));
+
+      TransactionSlots slots = TransactionSlots.getTransactionSlots(tsr, true);
+      assertNotNull(slots);
+      assertTrue(slots.isOwner());
+      assertSame(slots, TransactionSlots.getTransactionSlots(tsr, false));
+      assertSame(slots, TransactionSlots.getTransactionSlots(tsr, true));
+
+      assertNull(TransactionSlots.getTransactionSlots(registry(null), true));
+   }
+
+   /**
+    * The first connection listener published for a pool wins
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testPublish() throws Exception
+   {
+      TransactionSlots slots = TransactionSlots.getTransactionSlots(registry("tx"), true);
+      Object pool1 = new Object();
+      Object pool2 = new Object();
+      ConnectionListener cl1 = mock(ConnectionListener.class);
+      ConnectionListener cl2 = mock(ConnectionListener.class);
+
+      assertNull(slots.get(pool1));
+      assertSame(cl1, slots.publish(pool1, cl1));
+      assertSame(cl1, slots.publish(pool1, cl2));
+      assertSame(cl2, slots.publish(pool2, cl2));
+      assertSame(cl1, slots.get(pool1));
+      assertSame(cl2, slots.get(pool2));
+
+      slots.set(pool1, null);
+      assertNull(slots.get(pool1));
+      assertSame(cl2, slots.publish(pool1, cl2));
+
+      slots.set(new Object(), null);
+      assertSame(cl2, slots.get(pool2));
+
+      // Only the connection listener in the slot clears it
+      assertFalse(slots.clear(pool2, cl1));
+      assertSame(cl2, slots.get(pool2));
+      assertTrue(slots.clear(pool2, cl2));
+      assertNull(slots.get(pool2));
+      assertFalse(slots.clear(new Object(), cl1));
+   }
+
+   /**
+    * Threads sharing a transaction agree on a single connection listener per pool
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testShared() throws Exception
+   {
+      final TransactionSynchronizationRegistry tsr = registry("tx");
+      final TransactionSlots slots = TransactionSlots.getTransactionSlots(tsr, true);
+      final Object[] pools = new Object[] {new Object(), new Object(), new Object()};
+      final CountDownLatch start = new CountDownLatch(1);
+      final int threads = 8;
+
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+         @SuppressWarnings("unchecked")
+         Future<ConnectionListener[]>[] futures = new Future[threads];
+
+         for (int i = 0; i < threads; i++)
+         {
+            futures[i] = executor.submit(new Callable<ConnectionListener[]>()
+            {
+               public ConnectionListener[] call() throws Exception
+               {
+                  TransactionSlots shared = TransactionSlots.getTransactionSlots(tsr, true);
+                  assertFalse(shared.isOwner());
+
+                  start.await();
+
+                  ConnectionListener[] result = new ConnectionListener[pools.length];
+                  for (int p = 0; p < pools.length; p++)
+                     result[p] = shared.publish(pools[p], mock(ConnectionListener.class));
+
+                  return result;
+               }
+            });
+         }
+
+         start.countDown();
+
+         for (Future<ConnectionListener[]> future : futures)
+         {
+            ConnectionListener[] result = future.get();
+
+            for (int p = 0; p < pools.length; p++)
+               assertSame(slots.get(pools[p]), result[p]);
+         }
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * A transaction synchronization registry holding the resources of one transaction
+    * @param key The transaction key
+    * @return The registry
+    */
+   private static TransactionSynchronizationRegistry registry(Object key)
+   {
+      final Map<Object, Object> resources = new HashMap<Object, Object>();
+      TransactionSynchronizationRegistry tsr = mock(TransactionSynchronizationRegistry.class);
+
+      when(tsr.getTransactionKey()).thenReturn(key);
+      doAnswer(invocation ->
+      {
+         synchronized (resources)
+         {
+            return resources.get(invocation.getArgument(0));
+         }
+      }).when(tsr).getResource(any());
+      doAnswer(invocation ->
+      {
+         synchronized (resources)
+         {
+            resources.put(invocation.getArgument(0), invocation.getArgument(1));
+         }
+         return null;
+      }).when(tsr).putResource(any(), any());
+
+      return tsr;
+   }
+}
@@ -0,0 +1,184 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool;
+
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveDecrementer;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveIncrementer;
+import org.jboss.jca.core.connectionmanager.pool.capacity.AdaptiveSizer;
+import org.jboss.jca.core.connectionmanager.pool.capacity.ExplicitCapacity;
+import org.jboss.jca.core.connectionmanager.pool.capacity.PoolUsage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Adaptive capacity policy unit test.
+ */
+public class AdaptiveCapacityTestCase
+{
+   /**
+    * The target follows a higher demand at once and decays after a lower one
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testTarget() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(100);
+      ps.setEnabled(true);
+
+      AdaptiveSizer sizer = new AdaptiveSizer();
+      sizer.setStatistics(ps);
+      sizer.setHeadroom(0);
+      sizer.setDecay(50);
+
+      assertEquals(2, sizer.getTarget(0L, 2, 100));
+
+      // 8 connections busy on average, and 2 requests waiting on average
+      ps.deltaTotalUsageTime(8000L);
+      ps.deltaTotalBlockingTime(2000L);
+      assertEquals(10, sizer.getTarget(1000L, 2, 100));
+
+      // Capped by the maximum
+      assertEquals(5, sizer.getTarget(1000L, 2, 5));
+
+      // Idle: half of the difference per interval
+      assertEquals(5, sizer.getTarget(2000L, 2, 100));
+      assertEquals(3, sizer.getTarget(3000L, 2, 100));
+
+      // Never below the connections in use
+      ps.setInUsedCount(7);
+      assertEquals(7, sizer.getTarget(3500L, 2, 100));
+
+      sizer.setHeadroom(100);
+      assertEquals(14, sizer.getTarget(3500L, 2, 100));
+
+      ps.setEnabled(false);
+      assertEquals(-1, sizer.getTarget(4000L, 2, 100));
+   }
+
+   /**
+    * The incrementer fills up to the target, the decrementer removes a share of the excess
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testPolicies() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(100);
+      ps.setEnabled(true);
+      ps.setInUsedCount(4);
+
+      AdaptiveIncrementer incrementer = new AdaptiveIncrementer();
+      incrementer.setHeadroom(50);
+      AdaptiveDecrementer decrementer = new AdaptiveDecrementer();
+      decrementer.setShrink(50);
+
+      AdaptiveSizer.bind(new ExplicitCapacity(incrementer, decrementer), ps);
+      assertSame(incrementer.getSizer(), decrementer.getSizer());
+
+      assertTrue(incrementer.shouldCreate(5, 100, 1));
+      assertFalse(incrementer.shouldCreate(6, 100, 1));
+      assertFalse(incrementer.shouldCreate(5, 5, 1));
+
+      ConnectionListener cl = mock(ConnectionListener.class);
+
+      // Target 6, 16 connections: 5 destroyed in this idle check
+      assertTrue(decrementer.shouldDestroy(cl, 0L, 16, 0, 0));
+      assertTrue(decrementer.shouldDestroy(cl, 0L, 12, 0, 4));
+      assertFalse(decrementer.shouldDestroy(cl, 0L, 11, 0, 5));
+      assertFalse(decrementer.shouldDestroy(cl, 0L, 6, 0, 0));
+
+      // Statistics disabled
+      ps.setEnabled(false);
+      assertFalse(incrementer.shouldCreate(0, 100, 1));
+      assertFalse(decrementer.shouldDestroy(cl, 0L, 16, 0, 0));
+   }
+
+   /**
+    * Each managed connection pool is sized from its own usage, not from the usage of the pool
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testPerManagedConnectionPool() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(100);
+      ps.setEnabled(true);
+
+      final AtomicInteger busyInUse = new AtomicInteger(0);
+      PoolUsage busy = new PoolUsage(ps, new IntSupplier()
+      {
+         public int getAsInt()
+         {
+            return busyInUse.get();
+         }
+      });
+      PoolUsage idle = new PoolUsage(ps, new IntSupplier()
+      {
+         public int getAsInt()
+         {
+            return 0;
+         }
+      });
+
+      AdaptiveIncrementer incrementer = new AdaptiveIncrementer();
+      incrementer.setHeadroom(0);
+      AdaptiveDecrementer decrementer = new AdaptiveDecrementer();
+      decrementer.setShrink(100);
+      AdaptiveSizer.bind(new ExplicitCapacity(incrementer, decrementer), ps);
+
+      AdaptiveSizer sizer = incrementer.getSizer();
+      assertEquals(0, sizer.getTarget(busy, 0L, 0, 100));
+      assertEquals(0, sizer.getTarget(idle, 0L, 0, 100));
+
+      // 8 connections busy on average in one managed connection pool only
+      busy.deltaTotalUsageTime(8000L);
+      assertEquals(8000L, ps.getTotalUsageTime());
+      assertEquals(8, sizer.getTarget(busy, 1000L, 0, 100));
+      assertEquals(0, sizer.getTarget(idle, 1000L, 0, 100));
+      assertEquals(8.0, sizer.getDemand(busy), 0.001);
+      assertEquals(8.0, sizer.getDemand(), 0.001);
+
+      assertTrue(incrementer.shouldCreate(busy, 7, 100, 0));
+      assertFalse(incrementer.shouldCreate(idle, 1, 100, 0));
+
+      ConnectionListener cl = mock(ConnectionListener.class);
+      assertFalse(decrementer.shouldDestroy(busy, cl, 0L, 8, 0, 0));
+      assertTrue(decrementer.shouldDestroy(idle, cl, 0L, 2, 0, 0));
+
+      // Never below the connections in use
+      busyInUse.set(10);
+      assertEquals(10, sizer.getTarget(busy, 1500L, 0, 100));
+
+      // Statistics disabled
+      ps.setEnabled(false);
+      assertEquals(-1, sizer.getTarget(busy, 2000L, 0, 100));
+      busy.deltaTotalUsageTime(1000L);
+      assertEquals(8000L, busy.getTotalUsageTime());
+   }
+}
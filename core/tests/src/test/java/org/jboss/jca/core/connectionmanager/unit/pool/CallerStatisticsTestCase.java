@@ -0,0 +1,108 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+import org.jboss.jca.core.spi.statistics.TopSketch;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per caller statistics unit test.
+ */
+public class CallerStatisticsTestCase
+{
+   /**
+    * The sketch keeps the keys with the largest totals
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testSketch() throws Exception
+   {
+      TopSketch sketch = new TopSketch(3);
+
+      sketch.record("a", 100L);
+      sketch.record("b", 10L);
+      sketch.record("c", 20L);
+      sketch.record("a", 50L);
+
+      List<TopSketch.Entry> top = sketch.getTop(2);
+      assertEquals(2, top.size());
+      assertEquals("a", top.get(0).getKey());
+      assertEquals(150L, top.get(0).getTotal());
+      assertEquals(2L, top.get(0).getCount());
+      assertEquals(100L, top.get(0).getMax());
+      assertEquals("c", top.get(1).getKey());
+
+      // A new key takes the place of the lowest total, which bounds its error
+      sketch.record("d", 5L);
+      top = sketch.getTop(3);
+      assertEquals(3, top.size());
+      assertEquals("d", top.get(2).getKey());
+      assertEquals(15L, top.get(2).getTotal());
+      assertEquals(10L, top.get(2).getError());
+
+      for (TopSketch.Entry e : top)
+         assertFalse("b".equals(e.getKey()));
+
+      // The entries are snapshots, so later values don't change them
+      sketch.record("a", 1000L);
+      assertEquals(150L, top.get(0).getTotal());
+      assertEquals(1150L, sketch.getTop(1).get(0).getTotal());
+
+      sketch.reset();
+      assertTrue(sketch.getTop(3).isEmpty());
+   }
+
+   /**
+    * The pool statistics report the top callers
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testStatistics() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(10);
+      ps.setEnabled(false);
+
+      ps.deltaCallerUsageTime("slow", 500L);
+      assertTrue(ps.getTopUsageTime().isEmpty());
+
+      ps.setEnabled(true);
+      ps.deltaCallerUsageTime("slow", 500L);
+      ps.deltaCallerUsageTime("fast", 5L);
+      ps.deltaCallerGetTime("fast", 1L);
+
+      assertEquals(String.class, ps.getType("TopUsageTime"));
+      assertEquals("slow", ps.getTopUsageTime().get(0).getKey());
+      assertTrue(((String)ps.getValue("TopUsageTime")).startsWith("[slow[total=500"));
+      assertEquals(1, ps.getTopGetTime().size());
+
+      ps.clear();
+      assertTrue(ps.getTopUsageTime().isEmpty());
+      assertTrue(ps.getTopGetTime().isEmpty());
+   }
+}
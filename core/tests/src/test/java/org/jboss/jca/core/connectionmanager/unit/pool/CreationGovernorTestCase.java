@@ -0,0 +1,212 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool;
+
+import org.jboss.jca.core.connectionmanager.pool.CreationGovernor;
+import org.jboss.jca.core.connectionmanager.rar.SimpleManagedConnectionFactory;
+
+import javax.resource.ResourceException;
+import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.ManagedConnection;
+import javax.resource.spi.SecurityException;
+import javax.security.auth.Subject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Connection creation governor unit test.
+ */
+public class CreationGovernorTestCase
+{
+   /**
+    * The circuit opens after the failure threshold, and a successful probe closes it
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testCircuit() throws Exception
+   {
+      CreationGovernor governor = new CreationGovernor(0, 3, 50L, 50L);
+      governor.setName("test");
+
+      for (int i = 0; i < 3; i++)
+      {
+         assertFalse(governor.begin(0L));
+         governor.end(false, new ResourceException("down"));
+      }
+
+      assertTrue(governor.isOpen());
+      assertFailsFast(governor);
+
+      Thread.sleep(60L);
+
+      // A single probe is let through
+      assertTrue(governor.begin(0L));
+      assertFailsFast(governor);
+
+      // The probe fails, so the circuit opens again
+      governor.end(true, new ResourceException("still down"));
+      assertTrue(governor.isOpen());
+      assertFailsFast(governor);
+
+      Thread.sleep(60L);
+
+      assertTrue(governor.begin(0L));
+      governor.end(true, null);
+
+      assertFalse(governor.isOpen());
+      assertFalse(governor.begin(0L));
+      governor.end(false, null);
+   }
+
+   /**
+    * Security failures don't count, since the resource answered
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testSecurityFailure() throws Exception
+   {
+      CreationGovernor governor = new CreationGovernor(0, 1, 1000L, 1000L);
+
+      governor.begin(0L);
+      governor.end(false, new SecurityException("wrong password"));
+      assertFalse(governor.isOpen());
+
+      governor.begin(0L);
+      governor.end(false, new ResourceException("down"));
+      assertTrue(governor.isOpen());
+   }
+
+   /**
+    * An error thrown by the creation counts as a failure
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testErrorFailure() throws Exception
+   {
+      CreationGovernor governor = new CreationGovernor(0, 1, 1000L, 1000L);
+      SimpleManagedConnectionFactory mcf = new SimpleManagedConnectionFactory()
+      {
+         @Override
+         public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cri)
+            throws ResourceException
+         {
+            throw new LinkageError("driver");
+         }
+      };
+
+      try
+      {
+         governor.createManagedConnection(mcf, null, null, 0L);
+         fail("The creation should fail");
+      }
+      catch (LinkageError le)
+      {
+         // Expected
+      }
+
+      assertTrue(governor.isOpen());
+   }
+
+   /**
+    * The circuit breaker is disabled by default
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testDefaults() throws Exception
+   {
+      CreationGovernor governor = new CreationGovernor();
+
+      for (int i = 0; i < 10; i++)
+      {
+         assertFalse(governor.begin(0L));
+         governor.end(false, new ResourceException("down"));
+      }
+
+      assertFalse(governor.isOpen());
+   }
+
+   /**
+    * The number of concurrent creations is limited
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testConcurrency() throws Exception
+   {
+      CreationGovernor governor = new CreationGovernor(1, 0, 1000L, 1000L);
+
+      governor.begin(0L);
+
+      try
+      {
+         governor.begin(10L);
+         fail("No creation slot should be available");
+      }
+      catch (ResourceException re)
+      {
+         // Expected
+      }
+
+      governor.end(false, null);
+      governor.begin(0L);
+      governor.end(false, null);
+   }
+
+   /**
+    * The retry backoff grows exponentially, with jitter
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testBackoff() throws Exception
+   {
+      assertEquals(0L, CreationGovernor.backoff(0L, 3));
+
+      // The configured wait is kept unless exponential backoff is enabled
+      assertEquals(100L, CreationGovernor.retryWait(100L, 3));
+
+      for (int retry = 0; retry < 4; retry++)
+      {
+         long wait = CreationGovernor.backoff(100L, retry);
+         assertTrue(wait >= (100L << retry) / 2);
+         assertTrue(wait <= 100L << retry);
+      }
+   }
+
+   /**
+    * Assert that a creation fails at once
+    * @param governor The governor
+    */
+   private void assertFailsFast(CreationGovernor governor)
+   {
+      try
+      {
+         governor.begin(0L);
+         fail("The circuit should be open");
+      }
+      catch (ResourceException re)
+      {
+         // Expected
+      }
+   }
+}
@@ -0,0 +1,133 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>PoolStatisticsImpl</code> unit test.
+ */
+public class PoolStatisticsTestCase
+{
+   /**
+    * Percentiles are reported within the precision of the histogram
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testPercentiles() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(10);
+
+      for (int i = 1; i <= 1000; i++)
+         ps.deltaTotalGetTime(i);
+
+      assertEquals(1000L, ps.getMaxGetTime());
+      assertEquals(500L, ps.getAverageGetTime());
+
+      assertWithin(500L, ps.getGetTimePercentile(50.0));
+      assertWithin(990L, ps.getGetTimePercentile(99.0));
+      assertEquals(1000L, ps.getGetTimePercentile(99.9));
+      assertEquals(1000L, ps.getGetTimePercentile(100.0));
+      assertEquals(ps.getGetTimePercentile(99.0), ps.getValue("P99GetTime"));
+
+      assertEquals(0L, ps.getUsageTimePercentile(50.0));
+
+      ps.clear();
+      assertEquals(0L, ps.getMaxGetTime());
+      assertEquals(0L, ps.getGetTimePercentile(99.0));
+   }
+
+   /**
+    * XA phases are counted, including invocations which took no measurable time
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testXAPercentiles() throws Exception
+   {
+      PoolStatisticsImpl ps = new PoolStatisticsImpl(10);
+
+      ps.deltaCommit(0L);
+      ps.deltaCommit(3L);
+      ps.deltaCommit(40L);
+
+      assertEquals(3L, ps.getCommitCount());
+      assertEquals(40L, ps.getCommitMaxTime());
+      assertEquals(3L, ps.getCommitTimePercentile(50.0));
+      assertWithin(40L, ps.getCommitTimePercentile(99.9));
+      assertEquals(0L, ps.getPrepareTimePercentile(99.9));
+   }
+
+   /**
+    * Concurrent updates aren't lost
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testConcurrentUpdates() throws Exception
+   {
+      final PoolStatisticsImpl ps = new PoolStatisticsImpl(10);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+
+      for (int t = 0; t < 4; t++)
+      {
+         final int offset = t;
+         executor.execute(new Runnable()
+         {
+            public void run()
+            {
+               for (int i = 1; i <= 10000; i++)
+               {
+                  ps.deltaCreatedCount();
+                  ps.deltaTotalUsageTime(i + offset);
+               }
+            }
+         });
+      }
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+      assertEquals(40000, ps.getCreatedCount());
+      assertEquals(10003L, ps.getMaxUsageTime());
+      assertWithin(10003L, ps.getUsageTimePercentile(100.0));
+   }
+
+   /**
+    * Assert that a value is within the precision of the histogram
+    * @param expected The expected value
+    * @param actual The actual value
+    */
+   private static void assertWithin(long expected, Object actual)
+   {
+      long value = ((Long)actual).longValue();
+      assertTrue("Expected " + expected + " but was " + value,
+                 Math.abs(value - expected) <= Math.max(1L, expected / 16));
+   }
+}
@@ -0,0 +1,183 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool;
+
+import org.jboss.jca.core.connectionmanager.pool.PoolStatisticsImpl;
+import org.jboss.jca.core.connectionmanager.pool.api.StripedSemaphore;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>StripedSemaphore</code> unit test.
+ */
+public class StripedSemaphoreTestCase
+{
+   /**
+    * All permits can be acquired, no matter which stripe holds them
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testStealing() throws Exception
+   {
+      StripedSemaphore s = new StripedSemaphore(10, 4, true, new PoolStatisticsImpl(10));
+      assertEquals(4, s.getStripes());
+      assertEquals(10, s.availablePermits());
+
+      for (int i = 0; i < 10; i++)
+         assertTrue(s.tryAcquire(0, TimeUnit.MILLISECONDS));
+
+      assertEquals(0, s.availablePermits());
+      assertFalse(s.tryAcquire(10, TimeUnit.MILLISECONDS));
+
+      for (int i = 0; i < 10; i++)
+         s.release();
+
+      assertEquals(10, s.availablePermits());
+   }
+
+   /**
+    * The in use count is computed from the stripes when the statistics are read
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testStatistics() throws Exception
+   {
+      PoolStatisticsImpl statistics = new PoolStatisticsImpl(10);
+      statistics.setEnabled(true);
+
+      StripedSemaphore s = new StripedSemaphore(10, 4, true, statistics);
+
+      for (int i = 0; i < 6; i++)
+         assertTrue(s.tryAcquire(0, TimeUnit.MILLISECONDS));
+
+      assertEquals(6, statistics.getInUseCount());
+      assertEquals(4, statistics.getAvailableCount());
+
+      for (int i = 0; i < 4; i++)
+         s.release();
+
+      assertEquals(2, statistics.getInUseCount());
+      assertEquals(6, statistics.getMaxUsedCount());
+   }
+
+   /**
+    * A waiting thread gets a released permit
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testWaiter() throws Exception
+   {
+      final StripedSemaphore s = new StripedSemaphore(2, 2, true, new PoolStatisticsImpl(2));
+      assertTrue(s.tryAcquire());
+      assertTrue(s.tryAcquire());
+
+      ExecutorService es = Executors.newSingleThreadExecutor();
+      try
+      {
+         Future<Boolean> f = es.submit(() -> s.tryAcquire(5, TimeUnit.SECONDS));
+
+         while (!s.hasQueuedThreads())
+            Thread.sleep(10);
+
+         s.release();
+
+         assertTrue(f.get(5, TimeUnit.SECONDS));
+         assertEquals(0, s.availablePermits());
+      }
+      finally
+      {
+         es.shutdownNow();
+      }
+   }
+
+   /**
+    * The maximum number of permits holds under contention
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testMaxSize() throws Exception
+   {
+      final int maxSize = 4;
+      final StripedSemaphore s = new StripedSemaphore(maxSize, 4, false, new PoolStatisticsImpl(maxSize));
+      final AtomicInteger inUse = new AtomicInteger(0);
+      final AtomicInteger max = new AtomicInteger(0);
+      final AtomicInteger failures = new AtomicInteger(0);
+      final int threads = 16;
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      ExecutorService es = Executors.newFixedThreadPool(threads);
+      try
+      {
+         for (int t = 0; t < threads; t++)
+         {
+            es.execute(() ->
+            {
+               try
+               {
+                  for (int i = 0; i < 1000; i++)
+                  {
+                     if (s.tryAcquire(5, TimeUnit.SECONDS))
+                     {
+                        int current = inUse.incrementAndGet();
+                        max.accumulateAndGet(current, Math::max);
+                        inUse.decrementAndGet();
+                        s.release();
+                     }
+                     else
+                     {
+                        failures.incrementAndGet();
+                     }
+                  }
+               }
+               catch (InterruptedException ie)
+               {
+                  failures.incrementAndGet();
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            });
+         }
+
+         assertTrue(done.await(60, TimeUnit.SECONDS));
+      }
+      finally
+      {
+         es.shutdownNow();
+      }
+
+      assertEquals(0, failures.get());
+      assertTrue(max.get() <= maxSize);
+      assertEquals(maxSize, s.availablePermits());
+   }
+}
@@ -22,22 +22,40 @@
 
 package org.jboss.jca.core.connectionmanager.unit.pool.mcp;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.resource.ResourceException;
 import javax.resource.spi.ConnectionRequestInfo;
+import javax.resource.spi.ManagedConnection;
+import javax.security.auth.Subject;
 
+import org.jboss.jca.core.api.connectionmanager.pool.FlushMode;
 import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
 import org.jboss.jca.core.connectionmanager.ConnectionManager;
 import org.jboss.jca.core.connectionmanager.connections.adapter.TestConnectionRequestInfo;
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.listener.ConnectionState;
 import org.jboss.jca.core.connectionmanager.pool.api.Capacity;
 import org.jboss.jca.core.connectionmanager.pool.api.CapacityDecrementer;
 import org.jboss.jca.core.connectionmanager.pool.api.CapacityIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.api.Pool;
+import org.jboss.jca.core.connectionmanager.pool.mcp.ManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.pool.capacity.ExplicitCapacity;
 import org.jboss.jca.core.connectionmanager.pool.capacity.SizeIncrementer;
 import org.jboss.jca.core.connectionmanager.pool.capacity.WatermarkDecrementer;
 import org.jboss.jca.core.connectionmanager.pool.mcp.SemaphoreConcurrentLinkedDequeManagedConnectionPool;
 import org.jboss.jca.core.connectionmanager.pool.strategy.OnePool;
+import org.jboss.jca.core.connectionmanager.pool.strategy.PoolByCri;
+import org.jboss.jca.core.connectionmanager.rar.SimpleManagedConnectionFactory;
 
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,12 +71,19 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPoolTestCase
 
    @Before public void setUp() throws Exception
    {
+      // The connection budget is opt-in, and the pool tests run with it
+      System.setProperty("ironjacamar.connection_budget", "true");
       mcf = new FailingManagedCF();
       poolConfig = prefillPoolConfiguration();
       pool = new OnePool(mcf, poolConfig, false, false, "test");
       cm = new TestConnectionManager(pool);
    }
 
+   @After public void tearDown() throws Exception
+   {
+      System.clearProperty("ironjacamar.connection_budget");
+   }
+
    /*
     * Failing validation causes SemaphoreConcurrentLinkedDequeManagedConnectionPool#removeConnectionListenerFromPool
     * to be called twice during getConnection call.
@@ -150,6 +175,567 @@ public class SemaphoreConcurrentLinkedDequeManagedConnectionPoolTestCase
       Assert.assertEquals(5, mcp.getActive());
    }
 
+   @Test public void testConcurrentFillTo() throws Exception
+   {
+      final AtomicInteger created = new AtomicInteger();
+      SimpleManagedConnectionFactory countingMcf = new SimpleManagedConnectionFactory()
+      {
+         @Override
+         public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cri)
+            throws ResourceException
+         {
+            created.incrementAndGet();
+            try
+            {
+               Thread.sleep(20);
+            }
+            catch (InterruptedException ie)
+            {
+               throw new ResourceException(ie);
+            }
+            return super.createManagedConnection(subject, cri);
+         }
+      };
+      poolConfig.setMinSize(0);
+      pool = new OnePool(countingMcf, poolConfig, false, false, "test");
+      cm = new TestConnectionManager(pool);
+
+      final SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp =
+         new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(countingMcf, cm, null, null, poolConfig, pool);
+
+      List<Thread> fillers = new ArrayList<Thread>();
+      for (int i = 0; i < 4; i++)
+      {
+         Thread filler = new Thread(new Runnable()
+         {
+            public void run()
+            {
+               mcp.fillTo(3);
+            }
+         });
+         filler.start();
+         fillers.add(filler);
+      }
+
+      for (Thread filler : fillers)
+         filler.join(5000);
+
+      Assert.assertEquals(3, mcp.getActive());
+      Assert.assertEquals("Concurrent fills should only create the deficit", 3, created.get());
+   }
+
+   @Test public void testPrefillProgress() throws Exception
+   {
+      SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp = new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      long deadline = System.currentTimeMillis() + 10000L;
+      while ((mcp.getActive() != POOL_SIZE || pool.getInternalStatistics().getPendingFillCount() != 0 ||
+              pool.getInternalStatistics().getActiveFillCount() != 0) && System.currentTimeMillis() < deadline)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertEquals(POOL_SIZE, mcp.getActive());
+      Assert.assertEquals(0, pool.getInternalStatistics().getValue("PendingFillCount"));
+      Assert.assertEquals(0, pool.getInternalStatistics().getValue("ActiveFillCount"));
+   }
+
+   @Test public void testGetConnectionAsyncHandOff() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp = new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      List<ConnectionListener> cls = new ArrayList<ConnectionListener>();
+      for (int i = 0; i < POOL_SIZE; i++)
+         cls.add(mcp.getConnectionAsync(null, null).toCompletableFuture().get(5, TimeUnit.SECONDS));
+
+      CompletableFuture<ConnectionListener> pending = mcp.getConnectionAsync(null, null).toCompletableFuture();
+      Assert.assertFalse("No permit should be available", pending.isDone());
+
+      final CompletableFuture<Thread> completedBy = new CompletableFuture<Thread>();
+      pending.thenRun(new Runnable()
+      {
+         public void run()
+         {
+            completedBy.complete(Thread.currentThread());
+         }
+      });
+
+      ConnectionListener returned = cls.remove(0);
+      mcp.returnConnection(returned, false);
+
+      // Waiting on the future itself could run its dependent stages
+      Assert.assertNotSame("Dependent stages should not run on the returning thread",
+                           Thread.currentThread(), completedBy.get(5, TimeUnit.SECONDS));
+      Assert.assertSame("The returned connection should be handed to the waiter",
+                        returned, pending.get(5, TimeUnit.SECONDS));
+
+      for (ConnectionListener cl : cls)
+         mcp.returnConnection(cl, false);
+      mcp.returnConnection(returned, false);
+
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+   }
+
+   @Test public void testGetConnectionHandOff() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      final SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp =
+         new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      List<ConnectionListener> cls = new ArrayList<ConnectionListener>();
+      for (int i = 0; i < POOL_SIZE; i++)
+         cls.add(mcp.getConnection(null, null));
+
+      final CompletableFuture<ConnectionListener> waiting = new CompletableFuture<ConnectionListener>();
+      Thread waiter = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               waiting.complete(mcp.getConnection(null, null));
+            }
+            catch (Throwable t)
+            {
+               waiting.completeExceptionally(t);
+            }
+         }
+      });
+      waiter.start();
+
+      // Let the waiter queue up before returning a connection
+      while (waiter.getState() != Thread.State.WAITING && waiter.getState() != Thread.State.TIMED_WAITING)
+         Thread.sleep(10);
+
+      ConnectionListener returned = cls.remove(0);
+      mcp.returnConnection(returned, false);
+
+      Assert.assertSame("The returned connection should be handed to the waiting thread",
+                        returned, waiting.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(0, pool.getLock().availablePermits());
+
+      for (ConnectionListener cl : cls)
+         mcp.returnConnection(cl, false);
+      mcp.returnConnection(returned, false);
+
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+   }
+
+   @Test public void testGetConnectionAsyncTimeout() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      poolConfig.setBlockingTimeout(100);
+      SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp = new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      for (int i = 0; i < POOL_SIZE; i++)
+         mcp.getConnection(null, null);
+
+      try
+      {
+         mcp.getConnectionAsync(null, null).toCompletableFuture().get(5, TimeUnit.SECONDS);
+         Assert.fail("The request should time out");
+      }
+      catch (ExecutionException ee)
+      {
+         Assert.assertTrue(ee.getCause() instanceof ResourceException);
+      }
+   }
+
+
+   @Test public void testAsyncCreationReturnedFirst() throws Exception
+   {
+      final CountDownLatch creation = new CountDownLatch(1);
+      final AtomicBoolean slow = new AtomicBoolean(false);
+      SimpleManagedConnectionFactory slowMcf = new SimpleManagedConnectionFactory()
+      {
+         @Override
+         public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cri)
+            throws ResourceException
+         {
+            try
+            {
+               if (slow.get())
+                  creation.await();
+            }
+            catch (InterruptedException ie)
+            {
+               throw new ResourceException(ie);
+            }
+            return super.createManagedConnection(subject, cri);
+         }
+      };
+      useCheckedOutConnectionsOnly();
+      pool = new OnePool(slowMcf, poolConfig, false, false, "test");
+      cm = new TestConnectionManager(pool);
+
+      final SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp =
+         new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      System.setProperty("ironjacamar.async_creation", "true");
+      try
+      {
+         mcp.initialize(slowMcf, cm, null, null, poolConfig, pool);
+      }
+      finally
+      {
+         System.clearProperty("ironjacamar.async_creation");
+      }
+
+      ConnectionListener first = mcp.getConnection(null, null);
+      slow.set(true);
+
+      final CompletableFuture<ConnectionListener> waiting = new CompletableFuture<ConnectionListener>();
+      Thread waiter = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               waiting.complete(mcp.getConnection(null, null));
+            }
+            catch (Throwable t)
+            {
+               waiting.completeExceptionally(t);
+            }
+         }
+      });
+      waiter.start();
+
+      // Let the waiter wait for the creation before returning a connection
+      while (waiter.getState() != Thread.State.WAITING && waiter.getState() != Thread.State.TIMED_WAITING &&
+             !waiting.isDone())
+         Thread.sleep(10);
+
+      mcp.returnConnection(first, false);
+
+      Assert.assertSame("The returned connection should be used instead of waiting for the creation",
+                        first, waiting.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(POOL_SIZE - 1, pool.getLock().availablePermits());
+
+      // The created connection ends up in the pool
+      creation.countDown();
+      while (mcp.getActive() != 2)
+         Thread.sleep(10);
+
+      mcp.returnConnection(first, false);
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+   }
+
+   @Test public void testAsyncCreationTimeout() throws Exception
+   {
+      final CountDownLatch creation = new CountDownLatch(1);
+      SimpleManagedConnectionFactory slowMcf = new SimpleManagedConnectionFactory()
+      {
+         @Override
+         public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cri)
+            throws ResourceException
+         {
+            try
+            {
+               creation.await();
+            }
+            catch (InterruptedException ie)
+            {
+               throw new ResourceException(ie);
+            }
+            return super.createManagedConnection(subject, cri);
+         }
+      };
+      useCheckedOutConnectionsOnly();
+      poolConfig.setBlockingTimeout(100);
+      pool = new OnePool(slowMcf, poolConfig, false, false, "test");
+      cm = new TestConnectionManager(pool);
+
+      SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp = new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      System.setProperty("ironjacamar.async_creation", "true");
+      try
+      {
+         mcp.initialize(slowMcf, cm, null, null, poolConfig, pool);
+      }
+      finally
+      {
+         System.clearProperty("ironjacamar.async_creation");
+      }
+
+      try
+      {
+         mcp.getConnection(null, null);
+         Assert.fail("The creation should time out");
+      }
+      catch (ResourceException re)
+      {
+         // Expected
+      }
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+
+      // The connection is added to the pool once created
+      creation.countDown();
+      long deadline = System.currentTimeMillis() + 5000L;
+      while (mcp.getActive() != 1 && System.currentTimeMillis() < deadline)
+         Thread.sleep(10);
+      Assert.assertEquals(1, mcp.getActive());
+   }
+
+   @Test public void testConnectionBudget() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      poolConfig.setMaxSize(2);
+      poolConfig.setBlockingTimeout(100);
+      pool = new PoolByCri(new SimpleManagedConnectionFactory(), poolConfig, false, false,
+                           SemaphoreConcurrentLinkedDequeManagedConnectionPool.class.getName());
+      cm = new TestConnectionManager(pool);
+      pool.setConnectionManager(cm);
+
+      ConnectionListener a = pool.getConnection(null, null, new TestConnectionRequestInfo("a"));
+      ConnectionListener b = pool.getConnection(null, null, new TestConnectionRequestInfo("b"));
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+
+      // Both connections are in use, so the request times out
+      try
+      {
+         pool.getConnection(null, null, new TestConnectionRequestInfo("c"));
+         Assert.fail("The connection budget should be exhausted");
+      }
+      catch (ResourceException re)
+      {
+         // Expected
+      }
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+
+      // An idle connection of another key is destroyed to make room
+      pool.returnConnection(a, false);
+      ConnectionListener c = pool.getConnection(null, null, new TestConnectionRequestInfo("c"));
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+      Assert.assertEquals(2, pool.getStatistics().getActiveCount());
+
+      pool.returnConnection(b, false);
+      pool.returnConnection(c, false);
+      pool.shutdown();
+      Assert.assertEquals(0, pool.getConnectionBudget().getUsed());
+   }
+
+   @Test public void testConnectionBudgetPendingCreation() throws Exception
+   {
+      final CountDownLatch creation = new CountDownLatch(1);
+      final AtomicBoolean slow = new AtomicBoolean(false);
+      SimpleManagedConnectionFactory slowMcf = new SimpleManagedConnectionFactory()
+      {
+         @Override
+         public ManagedConnection createManagedConnection(Subject subject, ConnectionRequestInfo cri)
+            throws ResourceException
+         {
+            try
+            {
+               if (slow.get())
+                  creation.await();
+            }
+            catch (InterruptedException ie)
+            {
+               throw new ResourceException(ie);
+            }
+            return super.createManagedConnection(subject, cri);
+         }
+      };
+      useCheckedOutConnectionsOnly();
+      poolConfig.setMaxSize(2);
+      poolConfig.setBlockingTimeout(10000);
+      pool = new PoolByCri(slowMcf, poolConfig, false, false,
+                           SemaphoreConcurrentLinkedDequeManagedConnectionPool.class.getName());
+      cm = new TestConnectionManager(pool);
+      pool.setConnectionManager(cm);
+
+      final ConnectionRequestInfo cri = new TestConnectionRequestInfo("a");
+      ConnectionListener a = pool.getConnection(null, null, cri);
+      final ManagedConnectionPool mcp = a.getManagedConnectionPool();
+
+      // The last connection of the budget is reserved by a capacity increase in the background
+      SizeIncrementer sizeIncrementer = new SizeIncrementer();
+      sizeIncrementer.setSize(2);
+      pool.setCapacity(new ExplicitCapacity(sizeIncrementer, new WatermarkDecrementer()));
+      slow.set(true);
+      Thread filler = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            mcp.increaseCapacity(null, cri);
+         }
+      });
+      filler.start();
+
+      while (pool.getConnectionBudget().getPending() == 0)
+         Thread.sleep(10);
+
+      final CompletableFuture<ConnectionListener> waiting = new CompletableFuture<ConnectionListener>();
+      Thread requester = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               waiting.complete(pool.getConnection(null, null, new TestConnectionRequestInfo("c")));
+            }
+            catch (Throwable t)
+            {
+               waiting.completeExceptionally(t);
+            }
+         }
+      });
+      requester.start();
+
+      while (requester.getState() != Thread.State.TIMED_WAITING && !waiting.isDone())
+         Thread.sleep(10);
+      Assert.assertFalse("The request should wait for the creation", waiting.isDone());
+
+      // Once created, the new idle connection is reclaimed for the request
+      slow.set(false);
+      creation.countDown();
+      ConnectionListener c = waiting.get(5, TimeUnit.SECONDS);
+      Assert.assertNotNull(c);
+      filler.join(5000);
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+      Assert.assertEquals(0, pool.getConnectionBudget().getPending());
+
+      pool.returnConnection(a, false);
+      pool.returnConnection(c, false);
+      pool.shutdown();
+   }
+
+   @Test public void testWaiterServedByOtherManagedConnectionPool() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      poolConfig.setMaxSize(2);
+      poolConfig.setBlockingTimeout(10000);
+      pool = new PoolByCri(new SimpleManagedConnectionFactory(), poolConfig, false, false,
+                           SemaphoreConcurrentLinkedDequeManagedConnectionPool.class.getName());
+      cm = new TestConnectionManager(pool);
+      pool.setConnectionManager(cm);
+
+      ConnectionListener a = pool.getConnection(null, null, new TestConnectionRequestInfo("a"));
+      ConnectionListener b = pool.getConnection(null, null, new TestConnectionRequestInfo("b"));
+
+      final CompletableFuture<ConnectionListener> waiting = new CompletableFuture<ConnectionListener>();
+      Thread waiter = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               waiting.complete(pool.getConnection(null, null, new TestConnectionRequestInfo("c")));
+            }
+            catch (Throwable t)
+            {
+               waiting.completeExceptionally(t);
+            }
+         }
+      });
+      waiter.start();
+
+      while (pool.dumpQueuedThreads().length == 0)
+         Thread.sleep(10);
+
+      // The permit released by the managed connection pool of "b" serves the request for "c"
+      pool.returnConnection(b, false);
+      ConnectionListener c = waiting.get(2, TimeUnit.SECONDS);
+      Assert.assertNotNull(c);
+      Assert.assertEquals(0, pool.dumpQueuedThreads().length);
+
+      pool.returnConnection(a, false);
+      pool.returnConnection(c, false);
+      pool.shutdown();
+   }
+
+   @Test public void testFlushReplace() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      SemaphoreConcurrentLinkedDequeManagedConnectionPool mcp = new SemaphoreConcurrentLinkedDequeManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      ConnectionListener active = mcp.getConnection(null, null);
+      ConnectionListener idle1 = mcp.getConnection(null, null);
+      ConnectionListener idle2 = mcp.getConnection(null, null);
+      mcp.returnConnection(idle1, false);
+      mcp.returnConnection(idle2, false);
+
+      List<ConnectionListener> toDestroy = new ArrayList<ConnectionListener>();
+      mcp.flush(FlushMode.REPLACE, toDestroy);
+      Assert.assertTrue("Nothing should be destroyed by the flush itself", toDestroy.isEmpty());
+      Assert.assertEquals(ConnectionState.DESTROY, active.getState());
+
+      // The replaced connections are destroyed once their replacements are in the pool
+      long deadline = System.currentTimeMillis() + 10000L;
+      while ((idle1.getState() != ConnectionState.DESTROYED || idle2.getState() != ConnectionState.DESTROYED) &&
+             System.currentTimeMillis() < deadline)
+      {
+         Assert.assertTrue("The pool should never shrink during the replacement", mcp.getActive() >= 3);
+         Thread.sleep(10);
+      }
+
+      Assert.assertEquals(ConnectionState.DESTROYED, idle1.getState());
+      Assert.assertEquals(ConnectionState.DESTROYED, idle2.getState());
+      Assert.assertEquals(3, mcp.getActive());
+
+      // The active connection is destroyed upon return
+      mcp.returnConnection(active, false);
+      Assert.assertEquals(2, mcp.getActive());
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+   }
+
+   @Test public void testFlushReplaceFullBudget() throws Exception
+   {
+      useCheckedOutConnectionsOnly();
+      poolConfig.setMaxSize(2);
+      pool = new PoolByCri(new SimpleManagedConnectionFactory(), poolConfig, false, false,
+                           SemaphoreConcurrentLinkedDequeManagedConnectionPool.class.getName());
+      cm = new TestConnectionManager(pool);
+      pool.setConnectionManager(cm);
+
+      ConnectionListener a = pool.getConnection(null, null, new TestConnectionRequestInfo("a"));
+      ConnectionListener b = pool.getConnection(null, null, new TestConnectionRequestInfo("b"));
+      pool.returnConnection(a, false);
+      pool.returnConnection(b, false);
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+
+      // Each replacement takes the place of the connection it replaces, instead of
+      // reclaiming the connection of the other key
+      pool.flush(FlushMode.REPLACE);
+
+      long deadline = System.currentTimeMillis() + 10000L;
+      while ((a.getState() != ConnectionState.DESTROYED || b.getState() != ConnectionState.DESTROYED) &&
+             System.currentTimeMillis() < deadline)
+         Thread.sleep(10);
+
+      Assert.assertEquals(ConnectionState.DESTROYED, a.getState());
+      Assert.assertEquals(ConnectionState.DESTROYED, b.getState());
+      Assert.assertEquals(2, pool.getStatistics().getActiveCount());
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+
+      ConnectionListener a2 = pool.getConnection(null, null, new TestConnectionRequestInfo("a"));
+      ConnectionListener b2 = pool.getConnection(null, null, new TestConnectionRequestInfo("b"));
+      Assert.assertNotSame(a, a2);
+      Assert.assertNotSame(b, b2);
+      Assert.assertEquals(2, pool.getConnectionBudget().getUsed());
+
+      pool.returnConnection(a2, false);
+      pool.returnConnection(b2, false);
+      pool.shutdown();
+   }
+
+   /*
+    * Connections from the failing factory never validate, so keep the pool to the connections
+    * checked out by the test; otherwise filling the pool races with the replacement of invalid connections
+    */
+   private void useCheckedOutConnectionsOnly()
+   {
+      poolConfig.setPrefill(false);
+      poolConfig.setStrictMin(false);
+      poolConfig.setMinSize(0);
+      poolConfig.setValidateOnMatch(false);
+   }
 
    private PoolConfiguration incrementerPoolConfiguration()
    {
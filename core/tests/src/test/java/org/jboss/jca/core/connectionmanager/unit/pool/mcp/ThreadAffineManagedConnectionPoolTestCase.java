@@ -0,0 +1,129 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.connectionmanager.unit.pool.mcp;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.jca.core.api.connectionmanager.pool.PoolConfiguration;
+import org.jboss.jca.core.connectionmanager.ConnectionManager;
+import org.jboss.jca.core.connectionmanager.listener.ConnectionListener;
+import org.jboss.jca.core.connectionmanager.pool.api.Pool;
+import org.jboss.jca.core.connectionmanager.pool.api.StripedSemaphore;
+import org.jboss.jca.core.connectionmanager.pool.mcp.ThreadAffineManagedConnectionPool;
+import org.jboss.jca.core.connectionmanager.pool.strategy.OnePool;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThreadAffineManagedConnectionPoolTestCase
+{
+   private static final int POOL_SIZE = 5;
+   private FailingManagedCF mcf;
+   private Pool pool;
+   private ConnectionManager cm;
+   private PoolConfiguration poolConfig;
+
+   @Before public void setUp() throws Exception
+   {
+      mcf = new FailingManagedCF();
+      poolConfig = new PoolConfiguration();
+      poolConfig.setPrefill(false);
+      poolConfig.setStrictMin(false);
+      poolConfig.setMinSize(0);
+      poolConfig.setMaxSize(POOL_SIZE);
+      pool = new OnePool(mcf, poolConfig, false, false, "test");
+      cm = new TestConnectionManager(pool);
+   }
+
+   @Test public void testSameThreadGetsLastConnection() throws Exception
+   {
+      ThreadAffineManagedConnectionPool mcp = new ThreadAffineManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      ConnectionListener first = mcp.getConnection(null, null);
+      ConnectionListener second = mcp.getConnection(null, null);
+      mcp.returnConnection(second, false);
+      mcp.returnConnection(first, false);
+
+      Assert.assertSame("The last returned connection should be reused", first, mcp.getConnection(null, null));
+      Assert.assertEquals(POOL_SIZE - 1, pool.getLock().availablePermits());
+   }
+
+   @Test public void testIdleConnectionCanBeStolen() throws Exception
+   {
+      final ThreadAffineManagedConnectionPool mcp = new ThreadAffineManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      ConnectionListener cl = mcp.getConnection(null, null);
+      mcp.returnConnection(cl, false);
+
+      final CompletableFuture<ConnectionListener> other = new CompletableFuture<ConnectionListener>();
+      Thread t = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               other.complete(mcp.getConnection(null, null));
+            }
+            catch (Throwable t)
+            {
+               other.completeExceptionally(t);
+            }
+         }
+      });
+      t.start();
+
+      ConnectionListener stolen = other.get(5, TimeUnit.SECONDS);
+      Assert.assertSame("An idle connection should be available to other threads", cl, stolen);
+
+      // The affine connection is in use, so a new one is created
+      ConnectionListener mine = mcp.getConnection(null, null);
+      Assert.assertNotSame(cl, mine);
+      Assert.assertEquals(2, mcp.getActive());
+   }
+
+   @Test public void testAffinePermitIsStriped() throws Exception
+   {
+      pool = new OnePool(mcf, poolConfig, false, false, ThreadAffineManagedConnectionPool.class.getName());
+      cm = new TestConnectionManager(pool);
+
+      if (Runtime.getRuntime().availableProcessors() > 1)
+         Assert.assertTrue("The permits should be striped", pool.getLock() instanceof StripedSemaphore);
+
+      ThreadAffineManagedConnectionPool mcp = new ThreadAffineManagedConnectionPool();
+      mcp.initialize(mcf, cm, null, null, poolConfig, pool);
+
+      ConnectionListener cl = mcp.getConnection(null, null);
+      mcp.returnConnection(cl, false);
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+
+      Assert.assertSame(cl, mcp.getConnection(null, null));
+      Assert.assertEquals(POOL_SIZE - 1, pool.getLock().availablePermits());
+
+      mcp.returnConnection(cl, false);
+      Assert.assertEquals(POOL_SIZE, pool.getLock().availablePermits());
+   }
+}
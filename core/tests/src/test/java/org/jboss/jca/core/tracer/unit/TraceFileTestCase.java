@@ -0,0 +1,151 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.tracer.unit;
+
+import org.jboss.jca.core.tracer.TraceEvent;
+import org.jboss.jca.core.tracer.TraceFile;
+import org.jboss.jca.core.tracer.TraceRecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>TraceFile</code> unit test.
+ */
+public class TraceFileTestCase
+{
+   /**
+    * Every value of the recorded events is read back, with the strings shared between events
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testRoundTrip() throws Exception
+   {
+      File file = File.createTempFile("ironjacamar", ".trace");
+      file.deleteOnExit();
+
+      TraceRecorder recorder = new TraceRecorder(file, 1024);
+      recorder.start();
+
+      Object mcp = new Object();
+      Object[] cls = new Object[] {new Object(), new Object(), new Object()};
+
+      for (int i = 0; i < 300; i++)
+      {
+         Object cl = cls[i % cls.length];
+         recorder.record("my-pool", mcp, TraceEvent.GET_CONNECTION, cl, "payload" + (i % 7), "key" + (i % 2));
+         recorder.record(i % 2 == 0 ? "my-pool" : "other", null, TraceEvent.RETURN_CONNECTION, cl, null, null);
+      }
+      recorder.stop();
+
+      assertTrue(TraceFile.isTraceFile(file));
+
+      InputStream is = new FileInputStream(file);
+      try
+      {
+         TraceFile.Reader reader = new TraceFile.Reader(is);
+         assertEquals(TraceEvent.VERSION, reader.next().getType());
+
+         long timestamp = Long.MIN_VALUE;
+         for (int i = 0; i < 300; i++)
+         {
+            String cl = Integer.toHexString(System.identityHashCode(cls[i % cls.length]));
+
+            TraceEvent get = reader.next();
+            assertEquals("my_pool", get.getPool());
+            assertEquals(Integer.toHexString(System.identityHashCode(mcp)), get.getManagedConnectionPool());
+            assertEquals(TraceEvent.GET_CONNECTION, get.getType());
+            assertEquals(Thread.currentThread().getId(), get.getThreadId());
+            assertEquals(cl, get.getConnectionListener());
+            assertEquals("payload" + (i % 7), get.getPayload1());
+            assertEquals("key" + (i % 2), get.getPayload2());
+            assertTrue(get.getTimestamp() >= timestamp);
+
+            TraceEvent ret = reader.next();
+            assertEquals(i % 2 == 0 ? "my_pool" : "other", ret.getPool());
+            assertEquals("NONE", ret.getManagedConnectionPool());
+            assertEquals(TraceEvent.RETURN_CONNECTION, ret.getType());
+            assertEquals(cl, ret.getConnectionListener());
+            assertEquals("", ret.getPayload1());
+            assertEquals("", ret.getPayload2());
+            assertTrue(ret.getTimestamp() >= get.getTimestamp());
+
+            timestamp = ret.getTimestamp();
+         }
+
+         assertNull(reader.next());
+      }
+      finally
+      {
+         is.close();
+      }
+
+      assertEquals(601, TraceFile.read(file).size());
+   }
+
+   /**
+    * A truncated last record ends the trace instead of failing it
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testTruncated() throws Exception
+   {
+      File file = File.createTempFile("ironjacamar", ".trace");
+      file.deleteOnExit();
+
+      TraceRecorder recorder = new TraceRecorder(file, 16);
+      recorder.start();
+      recorder.record("pool", null, TraceEvent.GET_CONNECTION_LISTENER, null, null, null);
+      recorder.record("pool", null, TraceEvent.RETURN_CONNECTION_LISTENER, null, null, null);
+      recorder.stop();
+
+      byte[] data = Files.readAllBytes(file.toPath());
+      byte[] truncated = Arrays.copyOf(data, data.length - 3);
+
+      TraceFile.Reader reader = new TraceFile.Reader(new ByteArrayInputStream(truncated));
+      assertEquals(TraceEvent.VERSION, reader.next().getType());
+      assertEquals(TraceEvent.GET_CONNECTION_LISTENER, reader.next().getType());
+      assertNull(reader.next());
+
+      assertEquals(3, TraceFile.read(new ByteArrayInputStream(data)).size());
+   }
+
+   /**
+    * A stream without the header isn't read
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test(expected = IOException.class)
+   public void testNotTraceFile() throws Exception
+   {
+      new TraceFile.Reader(new ByteArrayInputStream("IJTRACER-pool|1|0|0|1|".getBytes("UTF-8")));
+   }
+}
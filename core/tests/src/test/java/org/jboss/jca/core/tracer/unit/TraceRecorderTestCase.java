@@ -0,0 +1,160 @@
+/*
+ * IronJacamar, a Java EE Connector Architecture implementation
+ * Copyright 2026, Red Hat Inc, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.jca.core.tracer.unit;
+
+import org.jboss.jca.core.tracer.TraceEvent;
+import org.jboss.jca.core.tracer.TraceFile;
+import org.jboss.jca.core.tracer.TraceRecorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * <code>TraceRecorder</code> unit test.
+ */
+public class TraceRecorderTestCase
+{
+   /**
+    * Events recorded by several threads are read back in timestamp order
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testRecord() throws Exception
+   {
+      File file = File.createTempFile("ironjacamar", ".trace");
+      file.deleteOnExit();
+
+      final TraceRecorder recorder = new TraceRecorder(file, 1024);
+      recorder.start();
+
+      final Object mcp = new Object();
+      final Object cl = new Object();
+      final Object connection = new Object();
+
+      recorder.record("my-pool", mcp, TraceEvent.GET_CONNECTION_LISTENER, cl, null, null);
+
+      Thread other = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            recorder.record("my-pool", mcp, TraceEvent.GET_CONNECTION, cl, connection, null);
+         }
+      });
+      other.start();
+      other.join();
+
+      recorder.record("my-pool", mcp, TraceEvent.EXCEPTION, cl, new Exception("Failure"), null);
+      recorder.record("my-pool", mcp, TraceEvent.MANAGED_CONNECTION_POOL_DESTROY, null, null, null);
+      recorder.stop();
+
+      assertTrue(TraceFile.isTraceFile(file));
+      List<TraceEvent> events = TraceFile.read(file);
+      assertEquals(5, events.size());
+
+      assertEquals(TraceEvent.VERSION, events.get(0).getType());
+
+      TraceEvent get = events.get(1);
+      assertEquals("my_pool", get.getPool());
+      assertEquals(Integer.toHexString(System.identityHashCode(mcp)), get.getManagedConnectionPool());
+      assertEquals(Integer.toHexString(System.identityHashCode(cl)), get.getConnectionListener());
+      assertEquals(Thread.currentThread().getId(), get.getThreadId());
+      assertEquals("", get.getPayload1());
+
+      TraceEvent connectionEvent = events.get(2);
+      assertEquals(TraceEvent.GET_CONNECTION, connectionEvent.getType());
+      assertEquals(other.getId(), connectionEvent.getThreadId());
+      assertEquals(Integer.toHexString(System.identityHashCode(connection)), connectionEvent.getPayload1());
+
+      TraceEvent exception = events.get(3);
+      assertEquals(TraceEvent.EXCEPTION, exception.getType());
+      assertTrue(exception.getPayload1().startsWith("java.lang.Exception:_Failure|"));
+
+      assertEquals("NONE", events.get(4).getConnectionListener());
+
+      for (int i = 1; i < events.size(); i++)
+         assertTrue(events.get(i - 1).getTimestamp() <= events.get(i).getTimestamp());
+
+      // The text representation can be parsed like a log line
+      assertEquals(get.toString(), TraceEvent.parse(get.toString()).toString());
+   }
+
+   /**
+    * Events are dropped instead of blocking when the ring buffer is full
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testFull() throws Exception
+   {
+      File file = File.createTempFile("ironjacamar", ".trace");
+      file.deleteOnExit();
+
+      TraceRecorder recorder = new TraceRecorder(file, 2);
+
+      // Not started, so nothing drains the ring buffer
+      for (int i = 0; i < 5; i++)
+         recorder.record("pool", null, TraceEvent.GET_CONNECTION_LISTENER, null, null, null);
+
+      assertEquals(3L, recorder.getDropped());
+   }
+
+   /**
+    * A text trace log is never taken for a binary trace file
+    * @exception Exception Thrown if an error occurs
+    */
+   @Test
+   public void testTextLogIsNotTraceFile() throws Exception
+   {
+      File file = File.createTempFile("ironjacamar", ".log");
+      file.deleteOnExit();
+
+      OutputStream os = new FileOutputStream(file);
+      try
+      {
+         os.write("IJTRACER-my-pool|1|0|0|1|\n".getBytes("UTF-8"));
+      }
+      finally
+      {
+         os.close();
+      }
+
+      assertFalse(TraceFile.isTraceFile(file));
+
+      os = new FileOutputStream(file);
+      try
+      {
+         os.write("IJT".getBytes("UTF-8"));
+      }
+      finally
+      {
+         os.close();
+      }
+
+      assertFalse(TraceFile.isTraceFile(file));
+   }
+}